@@ -1,17 +1,26 @@
 package com.aptech.aptechMall.Controller;
 
+import com.aptech.aptechMall.Exception.UpstreamErrors;
 import com.aptech.aptechMall.dto.ProductDetailDTO;
 import com.aptech.aptechMall.dto.ProductSearchDTO;
 import com.aptech.aptechMall.model.Aliexpress.AliexpressProductSearchResponse;
 import com.aptech.aptechMall.model.Aliexpress.AliexpressProductDetailResponse;
 import com.aptech.aptechMall.service.AliExpressService;
+import com.aptech.aptechMall.service.marketplace.MarketplaceHealth;
+import com.aptech.aptechMall.service.marketplace.OtApiPayloads;
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import com.aptech.aptechMall.service.marketplace.SearchFilter;
+import com.aptech.aptechMall.service.marketplace.SearchSort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,6 +32,14 @@ import java.util.Map;
 public class AliExpressController {
 
     private final AliExpressService aliExpressService;
+    private final MarketplaceHealth marketplaceHealth;
+
+    /**
+     * Time budget for answering a request, shared by every upstream call it makes
+     * Kept below spring.mvc.async.request-timeout so work stops before the client gives up
+     */
+    @Value("${marketplace.request-deadline:45s}")
+    private Duration requestDeadline;
 
     /**
      * Search products using BatchSearchItemsFrame (Full Response)
@@ -42,32 +59,74 @@ public class AliExpressController {
                 .map(ResponseEntity::ok)
                 .onErrorResume(error -> {
                     log.error("Error in search controller: {}", error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
+    }
+
+    /**
+     * Search products using BatchSearchItemsFrame (Raw passthrough)
+     * Streams the upstream payload as-is, without parsing it into the response model
+     * GET /api/aliexpress/search/raw?keyword=iphone&language=en&framePosition=0&frameSize=10
+     */
+    @GetMapping("/aliexpress/search/raw")
+    public Mono<ResponseEntity<Resource>> searchProductsRawAliExpress(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "en") String language,
+            @RequestParam(defaultValue = "0") int framePosition,
+            @RequestParam(defaultValue = "12") int frameSize) {
+
+        log.info("Received raw search request (BatchSearchItemsFrame) - keyword: {}, framePosition: {}, frameSize: {}",
+                 keyword, framePosition, frameSize);
+
+        return OtApiPayloads.toStreamingResponse(
+                        aliExpressService.searchProductsRaw(keyword, language, framePosition, frameSize))
+                .onErrorResume(error -> {
+                    log.error("Error in raw search controller: {}", error.getMessage());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
      * Search products (Simplified Response) - BatchSearchItemsFrame
      * GET /api/aliexpress/search/simple?keyword=iphone&language=en&framePosition=0&frameSize=10
+     * Sorted (sort=1 PriceAsc, 2 PriceDesc, 3 Sales) or filtered (minPrice, maxPrice, minRating,
+     * minSales, minDiscount) searches are served from a cached window of results
      */
     @GetMapping("/aliexpress/search/simple")
     public Mono<ResponseEntity<ProductSearchDTO>> searchProductsSimpleAliExpress(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "en") String language,
             @RequestParam(defaultValue = "0") int framePosition,
-            @RequestParam(defaultValue = "12") int frameSize) {
-
-        log.info("Received simplified search request (BatchSearchItemsFrame) - keyword: {}, language: {}, framePosition: {}, frameSize: {}",
-                 keyword, language, framePosition, frameSize);
-
-        return aliExpressService.searchProductsSimplified(keyword, language, framePosition, frameSize)
+            @RequestParam(defaultValue = "12") int frameSize,
+            @RequestParam(defaultValue = "0") int sort,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(required = false) Integer minSales,
+            @RequestParam(required = false) Integer minDiscount) {
+
+        log.info("Received simplified search request (BatchSearchItemsFrame) - keyword: {}, language: {}, framePosition: {}, frameSize: {}, sort: {}",
+                 keyword, language, framePosition, frameSize, sort);
+
+        SearchSort searchSort = SearchSort.fromIndex(sort);
+        SearchFilter filter = new SearchFilter(minPrice, maxPrice, minRating, minSales, minDiscount);
+        Mono<ProductSearchDTO> search = searchSort == SearchSort.DEFAULT && filter.isEmpty()
+                ? aliExpressService.searchProductsSimplified(keyword, language, framePosition, frameSize)
+                : aliExpressService.searchProductsWindowed(keyword, language,
+                        framePosition / Math.max(frameSize, 1) + 1, frameSize, searchSort, filter);
+
+        return search
                 .map(ResponseEntity::ok)
                 .onErrorResume(error -> {
                     log.error("Error in simplified search controller: {}", error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
@@ -87,9 +146,30 @@ public class AliExpressController {
                 })
                 .onErrorResume(error -> {
                     log.error("Error in product details controller (OtAPI) for ID {}: {}", productId, error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
+    }
+
+    /**
+     * Get product details (Raw passthrough) - NEW OtAPI FORMAT
+     * Streams the upstream payload as-is, without parsing it into the response model
+     * GET /api/aliexpress/products/1005005244562338/raw
+     */
+    @GetMapping("/aliexpress/products/{productId}/raw")
+    public Mono<ResponseEntity<Resource>> getProductDetailsRaw(
+            @PathVariable String productId) {
+
+        log.info("Received raw product details request (OtAPI) for ID: {}", productId);
+
+        return OtApiPayloads.toStreamingResponse(aliExpressService.getProductDetailsRaw(productId))
+                .onErrorResume(error -> {
+                    log.error("Error in raw product details controller (OtAPI) for ID {}: {}", productId, error.getMessage());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
@@ -109,9 +189,10 @@ public class AliExpressController {
                 })
                 .onErrorResume(error -> {
                     log.error("Error in simplified product controller for ID {}: {}", productId, error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
@@ -129,20 +210,29 @@ public class AliExpressController {
                 .map(ResponseEntity::ok)
                 .onErrorResume(error -> {
                     log.error("Error in reviews controller for ID {}: {}", productId, error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
-     * Health check endpoint
+     * Health check endpoint, derived from recent AliExpress calls; 503 when DOWN
      * GET /api/aliexpress/health
      */
     @GetMapping("/aliexpress/health")
-    public ResponseEntity<Map<String, String>> health() {
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "UP");
+    public ResponseEntity<Map<String, Object>> health() {
+        MarketplaceHealth.Snapshot snapshot = marketplaceHealth.snapshot(aliExpressService.getMarketplace());
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", snapshot.state());
         response.put("service", "AliExpress API");
-        return ResponseEntity.ok(response);
+        response.put("samples", snapshot.samples());
+        response.put("failures", snapshot.failures());
+        if (snapshot.p95Latency() != null) {
+            response.put("p95LatencyMs", snapshot.p95Latency().toMillis());
+        }
+        return ResponseEntity.status(snapshot.state() == MarketplaceHealth.State.DOWN
+                        ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK)
+                .body(response);
     }
 }
\ No newline at end of file
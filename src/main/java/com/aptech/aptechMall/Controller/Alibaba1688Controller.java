@@ -1,16 +1,23 @@
 package com.aptech.aptechMall.Controller;
 
+import com.aptech.aptechMall.Exception.UpstreamErrors;
 import com.aptech.aptechMall.dto.ProductSearchDTO;
 import com.aptech.aptechMall.model.m1688.m1688ProductSearchResponse;
 import com.aptech.aptechMall.model.m1688.m1688ProductDetailResponse;
 import com.aptech.aptechMall.service.m1688Service;
+import com.aptech.aptechMall.service.marketplace.OtApiPayloads;
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import com.aptech.aptechMall.service.marketplace.SearchFilter;
+import com.aptech.aptechMall.service.marketplace.SearchSort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,6 +34,13 @@ public class Alibaba1688Controller {
 
     private final m1688Service alibaba1688Service;
 
+    /**
+     * Time budget for answering a request, shared by every upstream call it makes
+     * Kept below spring.mvc.async.request-timeout so work stops before the client gives up
+     */
+    @Value("${marketplace.request-deadline:45s}")
+    private Duration requestDeadline;
+
     /**
      * Search 1688 products using BatchSearchItemsFrame (Full Response)
      * GET /api/1688/search?keyword=联想&language=en&framePosition=0&frameSize=10
@@ -45,14 +59,42 @@ public class Alibaba1688Controller {
                 .map(ResponseEntity::ok)
                 .onErrorResume(error -> {
                     log.error("Error in 1688 search controller: {}", error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
+    }
+
+    /**
+     * Search 1688 products using BatchSearchItemsFrame (Raw passthrough)
+     * Streams the upstream payload as-is, without parsing it into the response model
+     * GET /api/1688/search/raw?keyword=联想&language=en&framePosition=0&frameSize=10
+     */
+    @GetMapping("/1688/search/raw")
+    public Mono<ResponseEntity<Resource>> searchProducts1688Raw(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "en") String language,
+            @RequestParam(defaultValue = "0") int framePosition,
+            @RequestParam(defaultValue = "12") int frameSize) {
+
+        log.info("Received 1688 raw search request - keyword: {}, framePosition: {}, frameSize: {}",
+                 keyword, framePosition, frameSize);
+
+        return OtApiPayloads.toStreamingResponse(
+                        alibaba1688Service.searchProductsRaw(keyword, language, framePosition, frameSize))
+                .onErrorResume(error -> {
+                    log.error("Error in 1688 raw search controller: {}", error.getMessage());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
      * Search 1688 products (Simplified Response)
      * GET /api/1688/search/simple?keyword=联想&language=en&framePosition=0&frameSize=10
+     * Sorted (sort=1 PriceAsc, 2 PriceDesc, 3 Sales) or filtered (minPrice, maxPrice, minRating,
+     * minSales, minDiscount) searches are served from a cached window of results
      *
      * RECOMMENDED: Use this endpoint for frontend integration
      */
@@ -61,18 +103,32 @@ public class Alibaba1688Controller {
             @RequestParam String keyword,
             @RequestParam(defaultValue = "en") String language,
             @RequestParam(defaultValue = "0") int framePosition,
-            @RequestParam(defaultValue = "12") int frameSize) {
+            @RequestParam(defaultValue = "12") int frameSize,
+            @RequestParam(defaultValue = "0") int sort,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(required = false) Integer minSales,
+            @RequestParam(required = false) Integer minDiscount) {
 
-        log.info("Received 1688 simplified search request - keyword: {}, language: {}, framePosition: {}, frameSize: {}",
-                 keyword, language, framePosition, frameSize);
+        log.info("Received 1688 simplified search request - keyword: {}, language: {}, framePosition: {}, frameSize: {}, sort: {}",
+                 keyword, language, framePosition, frameSize, sort);
+
+        SearchSort searchSort = SearchSort.fromIndex(sort);
+        SearchFilter filter = new SearchFilter(minPrice, maxPrice, minRating, minSales, minDiscount);
+        Mono<ProductSearchDTO> search = searchSort == SearchSort.DEFAULT && filter.isEmpty()
+                ? alibaba1688Service.searchProductsSimplified(keyword, language, framePosition, frameSize)
+                : alibaba1688Service.searchProductsWindowed(keyword, language,
+                        framePosition / Math.max(frameSize, 1) + 1, frameSize, searchSort, filter);
 
-        return alibaba1688Service.searchProductsSimplified(keyword, language, framePosition, frameSize)
+        return search
                 .map(ResponseEntity::ok)
                 .onErrorResume(error -> {
                     log.error("Error in 1688 simplified search controller: {}", error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
@@ -95,9 +151,10 @@ public class Alibaba1688Controller {
                 .map(ResponseEntity::ok)
                 .onErrorResume(error -> {
                     log.error("Error in 1688 page-based search: {}", error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
@@ -120,9 +177,30 @@ public class Alibaba1688Controller {
                 })
                 .onErrorResume(error -> {
                     log.error("Error in 1688 product details controller for ID {}: {}", productId, error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
+    }
+
+    /**
+     * Get 1688 product details (Raw passthrough)
+     * Streams the upstream payload as-is, without parsing it into the response model
+     * GET /api/1688/products/{productId}/raw
+     */
+    @GetMapping("/1688/products/{productId}/raw")
+    public Mono<ResponseEntity<Resource>> getProductDetails1688Raw(
+            @PathVariable String productId) {
+
+        log.info("Received 1688 raw product details request for ID: {}", productId);
+
+        return OtApiPayloads.toStreamingResponse(alibaba1688Service.getProductDetailsRaw(productId))
+                .onErrorResume(error -> {
+                    log.error("Error in 1688 raw product details controller for ID {}: {}", productId, error.getMessage());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
@@ -140,9 +218,10 @@ public class Alibaba1688Controller {
                 .map(ResponseEntity::ok)
                 .onErrorResume(error -> {
                     log.error("Error in 1688 reviews controller for ID {}: {}", productId, error.getMessage());
-                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
                 })
-                .defaultIfEmpty(ResponseEntity.notFound().build());
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
     }
 
     /**
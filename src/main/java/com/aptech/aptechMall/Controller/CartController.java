@@ -2,12 +2,15 @@ package com.aptech.aptechMall.Controller;
 
 import com.aptech.aptechMall.dto.ApiResponse;
 import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartBatchRequest;
 import com.aptech.aptechMall.dto.cart.CartResponse;
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
 import com.aptech.aptechMall.dto.cart.UpdateCartItemRequest;
 import com.aptech.aptechMall.service.CartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,6 +19,10 @@ import org.springframework.web.bind.annotation.*;
 /**
  * REST Controller for shopping cart operations
  * Base path: /api/cart
+ * Cart responses carry the cart version as a weak ETag; changes sent with If-Match fail with 412
+ * when the cart moved on. The version only moves on structural changes (items added or removed,
+ * the cart cleared) and If-Match requests, so If-Match guards against those; a quantity change
+ * made elsewhere without If-Match keeps the tag and can be overwritten
  */
 @RestController
 @RequestMapping("/api/cart")
@@ -42,9 +49,28 @@ public class CartController {
 
         CartResponse cart = cartService.getCart(userId);
 
-        return ResponseEntity.ok(
-                ApiResponse.success(cart, "Cart retrieved successfully")
-        );
+        return versioned(ResponseEntity.ok(), cart)
+                .body(ApiResponse.success(cart, "Cart retrieved successfully"));
+    }
+
+    /**
+     * Get item count and total of user's cart without its items
+     * GET /api/cart/summary?userId={userId}
+     *
+     * @param userId User ID (from query parameter)
+     * @return CartSummaryResponse with item count and total
+     */
+    @GetMapping("/summary")
+    @PreAuthorize("#userId == authentication.principal.id or hasAnyRole('ADMIN','STAFF')")
+    public ResponseEntity<ApiResponse<CartSummaryResponse>> getCartSummary(
+            @RequestParam(name = "userId") Long userId) {
+
+        log.debug("GET /api/cart/summary - userId: {}", userId);
+
+        CartSummaryResponse summary = cartService.getSummary(userId);
+
+        return versioned(ResponseEntity.ok(), summary.getVersion())
+                .body(ApiResponse.success(summary, "Cart summary retrieved successfully"));
     }
 
     /**
@@ -59,17 +85,43 @@ public class CartController {
     @PreAuthorize("#userId == authentication.principal.id or hasAnyRole('ADMIN','STAFF')")
     public ResponseEntity<ApiResponse<CartResponse>> addToCart(
             @RequestParam(name = "userId") Long userId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody AddToCartRequest request) {
 
         log.info("POST /api/cart/items - userId: {}, product: {}", userId, request.getProductId());
 
-        CartResponse cart = cartService.addToCart(userId, request);
+        CartResponse cart = cartService.addToCart(userId, request, expectedVersion(ifMatch));
 
-        return ResponseEntity
-                .status(HttpStatus.CREATED)
+        return versioned(ResponseEntity.status(HttpStatus.CREATED), cart)
                 .body(ApiResponse.success(cart, "Product added to cart successfully"));
     }
 
+    /**
+     * Apply several add / update / remove operations in one transaction
+     * PATCH /api/cart/items:batch?userId={userId}
+     *
+     * @param userId User ID (from query parameter)
+     * @param idempotencyKey Optional Idempotency-Key header; a retry with the same key and body
+     *                       returns the first response without applying the batch again
+     * @param request CartBatchRequest (operations, applied in order)
+     * @return Updated CartResponse
+     */
+    @PatchMapping("/items:batch")
+    @PreAuthorize("#userId == authentication.principal.id or hasAnyRole('ADMIN','STAFF')")
+    public ResponseEntity<ApiResponse<CartResponse>> applyBatch(
+            @RequestParam(name = "userId") Long userId,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody CartBatchRequest request) {
+
+        log.info("PATCH /api/cart/items:batch - userId: {}, operations: {}", userId, request.getOperations().size());
+
+        CartResponse cart = cartService.applyBatch(userId, idempotencyKey, request, expectedVersion(ifMatch));
+
+        return versioned(ResponseEntity.ok(), cart)
+                .body(ApiResponse.success(cart, "Cart updated successfully"));
+    }
+
     /**
      * Update cart item quantity
      * PUT /api/cart/items/{itemId}?userId={userId}
@@ -84,16 +136,16 @@ public class CartController {
     public ResponseEntity<ApiResponse<CartResponse>> updateCartItem(
             @RequestParam(name = "userId") Long userId,
             @PathVariable Long itemId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateCartItemRequest request) {
 
         log.info("PUT /api/cart/items/{} - userId: {}, newQuantity: {}",
                 itemId, userId, request.getQuantity());
 
-        CartResponse cart = cartService.updateItemQuantity(userId, itemId, request.getQuantity());
+        CartResponse cart = cartService.updateItemQuantity(userId, itemId, request.getQuantity(), expectedVersion(ifMatch));
 
-        return ResponseEntity.ok(
-                ApiResponse.success(cart, "Cart item updated successfully")
-        );
+        return versioned(ResponseEntity.ok(), cart)
+                .body(ApiResponse.success(cart, "Cart item updated successfully"));
     }
 
     /**
@@ -108,15 +160,15 @@ public class CartController {
     @PreAuthorize("#userId == authentication.principal.id or hasAnyRole('ADMIN','STAFF')")
     public ResponseEntity<ApiResponse<CartResponse>> removeCartItem(
             @RequestParam(name = "userId") Long userId,
-            @PathVariable Long itemId) {
+            @PathVariable Long itemId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         log.info("DELETE /api/cart/items/{} - userId: {}", itemId, userId);
 
-        CartResponse cart = cartService.removeItem(userId, itemId);
+        CartResponse cart = cartService.removeItem(userId, itemId, expectedVersion(ifMatch));
 
-        return ResponseEntity.ok(
-                ApiResponse.success(cart, "Item removed from cart successfully")
-        );
+        return versioned(ResponseEntity.ok(), cart)
+                .body(ApiResponse.success(cart, "Item removed from cart successfully"));
     }
 
     /**
@@ -129,14 +181,46 @@ public class CartController {
     @DeleteMapping("/clear")
     @PreAuthorize("#userId == authentication.principal.id or hasAnyRole('ADMIN','STAFF')")
     public ResponseEntity<ApiResponse<CartResponse>> clearCart(
-            @RequestParam(name = "userId") Long userId) {
+            @RequestParam(name = "userId") Long userId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         log.info("DELETE /api/cart/clear - userId: {}", userId);
 
-        CartResponse cart = cartService.clearCart(userId);
+        CartResponse cart = cartService.clearCart(userId, expectedVersion(ifMatch));
 
         return ResponseEntity.ok(
                 ApiResponse.success(cart, "Cart cleared successfully")
         );
     }
+
+    /**
+     * Cart version from an If-Match header such as "5" or W/"5"
+     * @return Expected version, or null when the header is absent or "*"
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be a cart version ETag, got " + ifMatch);
+        }
+    }
+
+    /**
+     * Send the cart version as a weak ETag, when the cart has one
+     * Weak because the body also changes with quantities, which keep the version
+     */
+    private static ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder response, CartResponse cart) {
+        return versioned(response, cart.getVersion());
+    }
+
+    private static ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder response, Long version) {
+        return version != null ? response.eTag("W/\"" + version + "\"") : response;
+    }
 }
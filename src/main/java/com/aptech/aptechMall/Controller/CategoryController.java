@@ -0,0 +1,71 @@
+package com.aptech.aptechMall.Controller;
+
+import com.aptech.aptechMall.dto.CategoryDTO;
+import com.aptech.aptechMall.dto.ProductSearchDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.marketplace.CategoryTree;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Category browsing backed by the tree derived from fetched product details;
+ * no request here calls the upstream API
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/categories")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class CategoryController {
+
+    private final CategoryTree categoryTree;
+
+    /**
+     * Get the top-level categories of a marketplace with their children
+     * GET /api/categories?marketplace=aliexpress
+     */
+    @GetMapping
+    public ResponseEntity<List<CategoryDTO>> getRootCategories(
+            @RequestParam(defaultValue = "aliexpress") String marketplace) {
+
+        return ResponseEntity.ok(categoryTree.roots(Marketplace.fromPathSegment(marketplace)));
+    }
+
+    /**
+     * Get one category with its ancestors and direct children
+     * GET /api/categories/aliexpress/200000345
+     */
+    @GetMapping("/{marketplace}/{categoryId}")
+    public ResponseEntity<CategoryDTO> getCategory(
+            @PathVariable String marketplace,
+            @PathVariable String categoryId) {
+
+        return categoryTree.category(Marketplace.fromPathSegment(marketplace), categoryId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Search already-seen products of a category and its subcategories
+     * GET /api/categories/aliexpress/200000345/products?keyword=phone case&page=1&pageSize=20
+     */
+    @GetMapping("/{marketplace}/{categoryId}/products")
+    public ResponseEntity<ProductSearchDTO> searchCategory(
+            @PathVariable String marketplace,
+            @PathVariable String categoryId,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int pageSize) {
+
+        Marketplace source = Marketplace.fromPathSegment(marketplace);
+        log.info("Received category search for {} category {}, keyword: {}", source, categoryId, keyword);
+
+        return categoryTree.search(source, categoryId, keyword, Math.max(page, 1), Math.min(Math.max(pageSize, 1), 100))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
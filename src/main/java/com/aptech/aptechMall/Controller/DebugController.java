@@ -1,11 +1,18 @@
 package com.aptech.aptechMall.Controller;
 
+import com.aptech.aptechMall.Exception.UpstreamErrors;
+import com.aptech.aptechMall.service.marketplace.OtApiPayloads;
+import com.aptech.aptechMall.service.otapi.OtApiMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Slf4j
@@ -15,6 +22,8 @@ import reactor.core.publisher.Mono;
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
 public class DebugController {
 
+    private final OtApiMetrics otApiMetrics;
+
     @Value("${rapidapi.aliexpress.key}")
     private String apiKey;
 
@@ -24,19 +33,27 @@ public class DebugController {
     @Value("${rapidapi.aliexpress.base-url}")
     private String baseUrl;
 
+    private WebClient webClient;
+
+    @PostConstruct
+    void initWebClient() {
+        webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .filter(otApiMetrics.exchangeFilter("AliExpress"))
+                .build();
+    }
+
     /**
      * Get raw JSON response for debugging
+     * The upstream body is streamed straight through instead of being buffered into a String,
+     * after the same leading ErrorCode check as the other raw endpoints
      * GET /api/debug/raw/1005010133081414
      */
     @GetMapping("/raw/{productId}")
-    public Mono<ResponseEntity<String>> getRawJson(@PathVariable String productId) {
+    public Mono<ResponseEntity<Resource>> getRawJson(@PathVariable String productId) {
         log.info("Getting raw JSON for product ID: {}", productId);
 
-        WebClient webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
-
-        return webClient.get()
+        Flux<DataBuffer> body = webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/item_detail_2")
                         .queryParam("itemId", productId)
@@ -44,18 +61,15 @@ public class DebugController {
                 .header("X-RapidAPI-Key", apiKey)
                 .header("X-RapidAPI-Host", apiHost)
                 .retrieve()
-                .bodyToMono(String.class)
-                .map(json -> {
-                    log.info("Raw JSON received (first 1000 chars): {}",
-                            json.substring(0, Math.min(1000, json.length())));
-                    return ResponseEntity.ok()
-                            .header("Content-Type", "application/json")
-                            .body(json);
-                })
+                .bodyToFlux(DataBuffer.class)
+                .transform(payload -> OtApiPayloads.verifyLeadingErrorCode(payload, "AliExpress OtAPI",
+                        errorCode -> otApiMetrics.recordErrorCode("AliExpress", "/item_detail_2", errorCode)));
+
+        return OtApiPayloads.toStreamingResponse(body)
                 .onErrorResume(error -> {
                     log.error("Error getting raw JSON: {}", error.getMessage());
-                    return Mono.just(ResponseEntity.internalServerError()
-                            .body("{\"error\": \"" + error.getMessage() + "\"}"));
-                });
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.noContent().build());
     }
-}
\ No newline at end of file
+}
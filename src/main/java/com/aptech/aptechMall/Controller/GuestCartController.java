@@ -0,0 +1,121 @@
+package com.aptech.aptechMall.Controller;
+
+import com.aptech.aptechMall.dto.ApiResponse;
+import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartResponse;
+import com.aptech.aptechMall.dto.cart.UpdateCartItemRequest;
+import com.aptech.aptechMall.service.GuestCartService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for carts of shoppers who are not logged in
+ * Base path: /api/cart/guest
+ * The cart is identified by the guest_cart cookie, issued by the first add; it is merged into
+ * the user's cart at login
+ */
+@RestController
+@RequestMapping("/api/cart/guest")
+@RequiredArgsConstructor
+@Slf4j
+public class GuestCartController {
+
+    private final GuestCartService guestCartService;
+
+    /**
+     * Get guest's cart with all items
+     * GET /api/cart/guest
+     *
+     * @param token Guest token (from the guest_cart cookie)
+     * @return CartResponse with items and total
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<CartResponse>> getCart(
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String token) {
+
+        CartResponse cart = guestCartService.getCart(token);
+
+        return ResponseEntity.ok(ApiResponse.success(cart, "Cart retrieved successfully"));
+    }
+
+    /**
+     * Add product to guest's cart
+     * POST /api/cart/guest/items
+     *
+     * @param token Guest token (from the guest_cart cookie); issued when absent
+     * @param request AddToCartRequest (product details)
+     * @return Updated CartResponse
+     */
+    @PostMapping("/items")
+    public ResponseEntity<ApiResponse<CartResponse>> addToCart(
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String token,
+            @Valid @RequestBody AddToCartRequest request,
+            HttpServletResponse response) {
+
+        log.info("POST /api/cart/guest/items - product: {}", request.getProductId());
+
+        CartResponse cart = guestCartService.addToCart(token, request, response);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(cart, "Product added to cart successfully"));
+    }
+
+    /**
+     * Update guest cart item quantity
+     * PUT /api/cart/guest/items/{itemId}
+     *
+     * @param token Guest token (from the guest_cart cookie)
+     * @param itemId Cart item ID
+     * @param request UpdateCartItemRequest (new quantity)
+     * @return Updated CartResponse
+     */
+    @PutMapping("/items/{itemId}")
+    public ResponseEntity<ApiResponse<CartResponse>> updateCartItem(
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String token,
+            @PathVariable Long itemId,
+            @Valid @RequestBody UpdateCartItemRequest request) {
+
+        CartResponse cart = guestCartService.updateItemQuantity(token, itemId, request.getQuantity());
+
+        return ResponseEntity.ok(ApiResponse.success(cart, "Cart item updated successfully"));
+    }
+
+    /**
+     * Remove item from guest cart
+     * DELETE /api/cart/guest/items/{itemId}
+     *
+     * @param token Guest token (from the guest_cart cookie)
+     * @param itemId Cart item ID
+     * @return Updated CartResponse
+     */
+    @DeleteMapping("/items/{itemId}")
+    public ResponseEntity<ApiResponse<CartResponse>> removeCartItem(
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String token,
+            @PathVariable Long itemId) {
+
+        CartResponse cart = guestCartService.removeItem(token, itemId);
+
+        return ResponseEntity.ok(ApiResponse.success(cart, "Item removed from cart successfully"));
+    }
+
+    /**
+     * Clear all items from guest cart
+     * DELETE /api/cart/guest/clear
+     *
+     * @param token Guest token (from the guest_cart cookie)
+     * @return Empty CartResponse
+     */
+    @DeleteMapping("/clear")
+    public ResponseEntity<ApiResponse<CartResponse>> clearCart(
+            @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String token) {
+
+        CartResponse cart = guestCartService.clearCart(token);
+
+        return ResponseEntity.ok(ApiResponse.success(cart, "Cart cleared successfully"));
+    }
+}
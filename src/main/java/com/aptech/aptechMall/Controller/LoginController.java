@@ -30,11 +30,12 @@ public class LoginController {
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request,
+                                              HttpServletRequest httpRequest,
                                               HttpServletResponse response,
                                               @RequestParam(required = false, name="method") String method) {
-        if (method != null && method.equals("google")) return ResponseEntity.ok(authService.authenticateGoogle(request));
+        if (method != null && method.equals("google")) return ResponseEntity.ok(authService.authenticateGoogle(request, httpRequest, response));
 
-        return ResponseEntity.ok(authService.authenticate(request, response));
+        return ResponseEntity.ok(authService.authenticate(request, httpRequest, response));
     }
 
     @PostMapping("/logout")
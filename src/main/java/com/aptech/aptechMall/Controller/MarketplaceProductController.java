@@ -0,0 +1,192 @@
+package com.aptech.aptechMall.Controller;
+
+import com.aptech.aptechMall.Exception.UpstreamErrors;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.dto.ProductDetailDTO;
+import com.aptech.aptechMall.dto.ReviewPageDTO;
+import com.aptech.aptechMall.dto.ReviewStatsDTO;
+import com.aptech.aptechMall.dto.VendorStorefrontDTO;
+import com.aptech.aptechMall.service.ProductMarketplaceService;
+import com.aptech.aptechMall.service.marketplace.MarketplaceServiceRegistry;
+import com.aptech.aptechMall.service.marketplace.ProductDescriptionCache;
+import com.aptech.aptechMall.service.marketplace.ProductReviewCache;
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import com.aptech.aptechMall.service.marketplace.VendorCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Product resources shared by all marketplaces and loaded on demand instead of inside the
+ * product detail payload (description, variant lookup, reviews, vendor storefront)
+ * The {marketplace} path segment is "aliexpress" or "1688"
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class MarketplaceProductController {
+
+    private static final MediaType HTML_UTF8 = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+
+    private final ProductDescriptionCache descriptionCache;
+    private final MarketplaceServiceRegistry marketplaceServices;
+    private final ProductReviewCache reviewCache;
+    private final VendorCache vendorCache;
+
+    @Value("${marketplace.request-deadline:45s}")
+    private Duration requestDeadline;
+
+    @Value("${marketplace.description-cache.max-age:1h}")
+    private Duration maxAge;
+
+    /**
+     * Get the sanitized HTML description of a product
+     * GET /api/aliexpress/products/1005005244562338/description
+     * GET /api/1688/products/610947572360/description
+     *
+     * Gzipped when the client accepts it; answers 304 when If-None-Match holds the current ETag
+     */
+    @GetMapping("/{marketplace}/products/{productId}/description")
+    public Mono<ResponseEntity<byte[]>> getProductDescription(
+            @PathVariable String marketplace,
+            @PathVariable String productId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        Marketplace source = Marketplace.fromPathSegment(marketplace);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        log.info("Received product description request for {} ID: {}", source, productId);
+
+        return descriptionCache.get(source, productId)
+                .map(description -> {
+                    // Each content coding is its own representation, so it gets its own strong ETag
+                    String etag = gzip ? description.etag().replaceFirst("\"$", "-gz\"") : description.etag();
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .eTag(etag)
+                            .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                            .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                            .contentType(HTML_UTF8);
+
+                    if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .eTag(etag)
+                                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                                .<byte[]>build();
+                    }
+                    if (gzip) {
+                        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(description.gzipped());
+                    }
+                    return response.body(description.html());
+                })
+                .onErrorResume(error -> {
+                    log.error("Error in product description controller for {} ID {}: {}", source, productId, error.getMessage());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.noContent().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
+    }
+
+    /**
+     * Resolve a variant selection to its SKU (price, stock, image)
+     * GET /api/aliexpress/products/1005005244562338/sku?props=14:193;5:100014064
+     *
+     * props lists pid:vid pairs in any order, as found in VariantDTO.options / variantOptions
+     */
+    @GetMapping("/{marketplace}/products/{productId}/sku")
+    public Mono<ResponseEntity<ProductDetailDTO.VariantDTO>> getProductSku(
+            @PathVariable String marketplace,
+            @PathVariable String productId,
+            @RequestParam(required = false) String props) {
+
+        Marketplace source = Marketplace.fromPathSegment(marketplace);
+        log.info("Received SKU lookup for {} ID: {}, props: {}", source, productId, props);
+
+        return marketplaceServices.get(source).getSkuIndex(productId)
+                .flatMap(index -> Mono.justOrEmpty(index.resolve(props)))
+                .map(sku -> ResponseEntity.ok(ProductMarketplaceService.toVariantDTO(sku)))
+                .onErrorResume(error -> {
+                    log.error("Error in SKU lookup controller for {} ID {}: {}", source, productId, error.getMessage());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
+    }
+
+    /**
+     * Get parsed reviews page by page, served from cache; the next page is prefetched
+     * GET /api/aliexpress/products/1005005244562338/reviews/feed
+     * GET /api/aliexpress/products/1005005244562338/reviews/feed?cursor={nextCursor}
+     */
+    @GetMapping("/{marketplace}/products/{productId}/reviews/feed")
+    public Mono<ResponseEntity<ReviewPageDTO>> getProductReviewFeed(
+            @PathVariable String marketplace,
+            @PathVariable String productId,
+            @RequestParam(required = false) String cursor) {
+
+        Marketplace source = Marketplace.fromPathSegment(marketplace);
+        log.info("Received review feed request for {} ID: {}, cursor: {}", source, productId, cursor);
+
+        return reviewCache.getPage(source, productId, cursor)
+                .map(ResponseEntity::ok)
+                .onErrorResume(error -> {
+                    log.error("Error in review feed controller for {} ID {}: {}", source, productId, error.getMessage());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
+    }
+
+    /**
+     * Get the rating histogram of a product's reviews
+     * GET /api/aliexpress/products/1005005244562338/reviews/stats
+     */
+    @GetMapping("/{marketplace}/products/{productId}/reviews/stats")
+    public Mono<ResponseEntity<ReviewStatsDTO>> getProductReviewStats(
+            @PathVariable String marketplace,
+            @PathVariable String productId) {
+
+        Marketplace source = Marketplace.fromPathSegment(marketplace);
+        log.info("Received review stats request for {} ID: {}", source, productId);
+
+        return reviewCache.getStats(source, productId)
+                .map(ResponseEntity::ok)
+                .onErrorResume(error -> {
+                    log.error("Error in review stats controller for {} ID {}: {}", source, productId, error.getMessage());
+                    return Mono.just(ResponseEntity.status(UpstreamErrors.statusOf(error)).build());
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .contextWrite(RequestDeadline.within(requestDeadline));
+    }
+
+    /**
+     * Get a vendor and the vendor's products seen so far, served locally without an upstream call
+     * GET /api/aliexpress/vendors/abb-1234567?page=1&pageSize=20
+     */
+    @GetMapping("/{marketplace}/vendors/{vendorId}")
+    public ResponseEntity<VendorStorefrontDTO> getVendorStorefront(
+            @PathVariable String marketplace,
+            @PathVariable String vendorId,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int pageSize) {
+
+        Marketplace source = Marketplace.fromPathSegment(marketplace);
+        log.info("Received vendor storefront request for {} vendor: {}", source, vendorId);
+
+        return vendorCache.storefront(source, vendorId, Math.max(page, 1), Math.min(Math.max(pageSize, 1), 100))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,9 +1,11 @@
 package com.aptech.aptechMall.Controller;
 
 import com.aptech.aptechMall.dto.ApiResponse;
+import com.aptech.aptechMall.dto.order.CheckoutQuoteResponse;
 import com.aptech.aptechMall.dto.order.CheckoutRequest;
 import com.aptech.aptechMall.dto.order.OrderResponse;
 import com.aptech.aptechMall.dto.order.UpdateOrderStatusRequest;
+import com.aptech.aptechMall.service.CheckoutQuoteService;
 import com.aptech.aptechMall.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -31,6 +33,7 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
+    private final CheckoutQuoteService checkoutQuoteService;
 
     /**
      * Checkout - Create order from cart
@@ -55,6 +58,28 @@ public class OrderController {
                 .body(ApiResponse.success(order, "Order created successfully"));
     }
 
+    /**
+     * Checkout pre-flight - Re-quote every cart item against its marketplace
+     * POST /api/orders/checkout/preflight?userId={userId}
+     *
+     * Pass the returned quoteId in the checkout request to order at the quoted prices
+     *
+     * @param userId User ID (from query parameter)
+     * @return CheckoutQuoteResponse with per-item price/availability diff
+     */
+    @PostMapping("/checkout/preflight")
+    @PreAuthorize("#userId == authentication.principal.id or hasAnyRole('ADMIN','STAFF')")
+    public ResponseEntity<ApiResponse<CheckoutQuoteResponse>> checkoutPreflight(
+            @RequestParam(name = "userId") Long userId) {
+
+        log.info("POST /api/orders/checkout/preflight - userId: {}", userId);
+
+        CheckoutQuoteResponse quote = checkoutQuoteService.preflight(userId);
+
+        return ResponseEntity.ok(ApiResponse.success(quote,
+                quote.getHasChanges() ? "Some prices or availability changed" : "Prices confirmed"));
+    }
+
     /**
      * Get all orders for user with pagination
      * GET /api/orders?userId={userId}&page={page}&size={size}
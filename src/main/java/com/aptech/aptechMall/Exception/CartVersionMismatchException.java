@@ -0,0 +1,11 @@
+package com.aptech.aptechMall.Exception;
+
+/**
+ * Exception thrown when a cart change was sent with If-Match for a cart version that is no longer current
+ */
+public class CartVersionMismatchException extends RuntimeException {
+
+    public CartVersionMismatchException(Long expectedVersion) {
+        super("Cart is no longer at version " + expectedVersion + ", reload it and try again");
+    }
+}
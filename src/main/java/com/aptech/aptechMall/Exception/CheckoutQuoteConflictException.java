@@ -0,0 +1,12 @@
+package com.aptech.aptechMall.Exception;
+
+/**
+ * Exception thrown when checkout cannot honour a pre-flight quote
+ * (quote expired or already used, cart changed since, or an item became unavailable)
+ */
+public class CheckoutQuoteConflictException extends RuntimeException {
+
+    public CheckoutQuoteConflictException(String message) {
+        super(message);
+    }
+}
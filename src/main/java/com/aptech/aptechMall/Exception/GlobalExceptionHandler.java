@@ -38,6 +38,36 @@ public class GlobalExceptionHandler {
                 .body(error);
     }
 
+    @ExceptionHandler(ProductNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleProductNotFound(ProductNotFoundException ex) {
+        log.debug("Product not found: {}", ex.getMessage());
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", 404);
+        error.put("error", "Not Found");
+        error.put("message", ex.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(error);
+    }
+
+    @ExceptionHandler(UpstreamCapacityExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleUpstreamCapacityExceeded(
+            UpstreamCapacityExceededException ex) {
+
+        log.warn("Upstream capacity exceeded: {}", ex.getMessage());
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", 503);
+        error.put("error", "Service Unavailable");
+        error.put("message", ex.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(error);
+    }
+
     // ===== User Exceptions =====
 
     @ExceptionHandler(UserNotFoundException.class)
@@ -140,6 +170,54 @@ public class GlobalExceptionHandler {
                 .body(error);
     }
 
+    @ExceptionHandler(CheckoutQuoteConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleCheckoutQuoteConflictException(
+            CheckoutQuoteConflictException ex) {
+
+        log.warn("Checkout quote conflict: {}", ex.getMessage());
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", 409);
+        error.put("error", "Checkout Quote Conflict");
+        error.put("message", ex.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(error);
+    }
+
+    @ExceptionHandler(CartVersionMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleCartVersionMismatchException(
+            CartVersionMismatchException ex) {
+
+        log.warn("Cart version mismatch: {}", ex.getMessage());
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", 412);
+        error.put("error", "Cart Version Mismatch");
+        error.put("message", ex.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(error);
+    }
+
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyConflictException(
+            IdempotencyKeyConflictException ex) {
+
+        log.warn("Idempotency key conflict: {}", ex.getMessage());
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", 409);
+        error.put("error", "Idempotency Key Conflict");
+        error.put("message", ex.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(error);
+    }
+
     // ===== Validation Exceptions =====
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -315,6 +393,25 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     }
 
+    // ===== Server Exceptions =====
+
+    @ExceptionHandler(InternalServerException.class)
+    public ResponseEntity<Map<String, Object>> handleInternalServerException(
+            InternalServerException ex) {
+
+        log.error("Internal error: {}", ex.getMessage(), ex);
+
+        // Details stay in the log; they describe server internals, not the request
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", 500);
+        error.put("error", "Internal Server Error");
+        error.put("message", "The server could not complete the request");
+
+        return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(error);
+    }
+
     // ===== Generic Exception =====
 
     @ExceptionHandler(Exception.class)
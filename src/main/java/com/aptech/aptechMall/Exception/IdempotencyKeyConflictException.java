@@ -0,0 +1,12 @@
+package com.aptech.aptechMall.Exception;
+
+/**
+ * Exception thrown when an idempotency key is reused for a different request,
+ * or while the first request with that key is still being processed
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
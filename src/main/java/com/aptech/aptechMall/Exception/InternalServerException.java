@@ -0,0 +1,16 @@
+package com.aptech.aptechMall.Exception;
+
+/**
+ * Exception thrown when the server fails for a reason the client cannot fix,
+ * such as unreadable cached data or a failed Redis script
+ */
+public class InternalServerException extends RuntimeException {
+
+    public InternalServerException(String message) {
+        super(message);
+    }
+
+    public InternalServerException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package com.aptech.aptechMall.Exception;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+
+/**
+ * Exception thrown when a marketplace product does not exist or cannot be served
+ * Raised on hot paths (negative cache hits), so it skips the stack trace
+ */
+public class ProductNotFoundException extends RuntimeException {
+
+    public ProductNotFoundException(Marketplace marketplace, String productId) {
+        super("Product not found: " + marketplace + "/" + productId, null, false, false);
+    }
+}
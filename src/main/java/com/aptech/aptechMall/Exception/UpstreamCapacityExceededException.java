@@ -0,0 +1,12 @@
+package com.aptech.aptechMall.Exception;
+
+/**
+ * Exception thrown when an upstream marketplace call cannot be admitted
+ * because the in-flight payload budget is exhausted
+ */
+public class UpstreamCapacityExceededException extends RuntimeException {
+
+    public UpstreamCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.aptech.aptechMall.Exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when OtAPI answers with an ErrorCode other than "Ok"
+ */
+@Getter
+public class UpstreamErrorCodeException extends RuntimeException {
+
+    private final String errorCode;
+
+    public UpstreamErrorCodeException(String source, String errorCode) {
+        super(source + " Error: " + errorCode);
+        this.errorCode = errorCode;
+    }
+}
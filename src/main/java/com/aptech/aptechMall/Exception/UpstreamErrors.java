@@ -0,0 +1,33 @@
+package com.aptech.aptechMall.Exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Maps errors from reactive marketplace calls to HTTP statuses
+ * Used by controllers that translate errors inside onErrorResume
+ */
+public final class UpstreamErrors {
+
+    private UpstreamErrors() {
+    }
+
+    /**
+     * @param error Error raised by a marketplace call
+     * @return HTTP status to answer with
+     */
+    public static HttpStatus statusOf(Throwable error) {
+        if (error instanceof ProductNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (error instanceof UpstreamCapacityExceededException || error instanceof RejectedExecutionException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        if (error instanceof TimeoutException) {
+            return HttpStatus.GATEWAY_TIMEOUT;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
@@ -0,0 +1,86 @@
+package com.aptech.aptechMall.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates the unique key uk_cart_product on cart_items (cart_id, product_id, marketplace) on
+ * databases that predate it, merging duplicate rows into one first.
+ *
+ * The cart item upserts rely on this key; without it ON DUPLICATE KEY UPDATE silently inserts
+ * more duplicates. ddl-auto=update cannot create the key while duplicates exist and only logs
+ * the failure, so this runs before Hibernate touches the schema and fails startup if it cannot
+ * add the key.
+ */
+@Component("cartItemKeyMigration")
+@Slf4j
+public class CartItemKeyMigration implements InitializingBean {
+
+    private static final String KEY_NAME = "uk_cart_product";
+
+    // The oldest row of each duplicate group keeps the summed quantity; the others go
+    private static final String MERGE_QUANTITIES =
+            "UPDATE cart_items ci JOIN (" +
+            "  SELECT MIN(id) AS keep_id, SUM(quantity) AS total FROM cart_items" +
+            "  GROUP BY cart_id, product_id, marketplace HAVING COUNT(*) > 1" +
+            ") d ON ci.id = d.keep_id SET ci.quantity = d.total";
+    private static final String DELETE_DUPLICATES =
+            "DELETE ci FROM cart_items ci JOIN (" +
+            "  SELECT cart_id, product_id, marketplace, MIN(id) AS keep_id FROM cart_items" +
+            "  GROUP BY cart_id, product_id, marketplace HAVING COUNT(*) > 1" +
+            ") d ON ci.cart_id = d.cart_id AND ci.product_id = d.product_id AND ci.marketplace = d.marketplace" +
+            " AND ci.id <> d.keep_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public CartItemKeyMigration(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Own transaction manager: the JPA one only exists once Hibernate has started
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Make the EntityManagerFactory, and with it the ddl-auto schema update, wait for this bean
+     */
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor cartItemKeyMigrationDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor("cartItemKeyMigration");
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!exists("SELECT COUNT(*) FROM information_schema.tables " +
+                "WHERE table_schema = DATABASE() AND table_name = 'cart_items'")) {
+            // New database: Hibernate creates the table with the key
+            return;
+        }
+        if (exists("SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'cart_items' AND index_name = '" + KEY_NAME + "'")) {
+            return;
+        }
+
+        Integer removed = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(MERGE_QUANTITIES);
+            return jdbcTemplate.update(DELETE_DUPLICATES);
+        });
+        log.info("Merged {} duplicate cart item rows before adding {}", removed, KEY_NAME);
+
+        jdbcTemplate.execute("ALTER TABLE cart_items ADD CONSTRAINT " + KEY_NAME +
+                " UNIQUE (cart_id, product_id, marketplace)");
+        log.info("Added unique key {} to cart_items", KEY_NAME);
+    }
+
+    private boolean exists(String countQuery) {
+        Integer count = jdbcTemplate.queryForObject(countQuery, Integer.class);
+        return count != null && count > 0;
+    }
+}
@@ -37,7 +37,8 @@ public class CorsConfig {
         config.setExposedHeaders(Arrays.asList(
                 "Authorization",
                 "Content-Type",
-                "Set-Cookie"
+                "Set-Cookie",
+                "ETag"
         ));
 
         // Max age
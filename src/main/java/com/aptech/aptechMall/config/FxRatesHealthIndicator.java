@@ -0,0 +1,33 @@
+package com.aptech.aptechMall.config;
+
+import com.aptech.aptechMall.service.pricing.FxRateProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator health of the FX table (GET /admin/health/fxRates): STALE once the rates file has
+ * not been refreshed within pricing.fx.max-age. Prices are still served, at the old rates.
+ */
+@Component("fxRatesHealthIndicator")
+public class FxRatesHealthIndicator implements HealthIndicator {
+
+    public static final Status STALE = new Status("STALE", "FX rates are older than pricing.fx.max-age");
+
+    private final FxRateProvider rates;
+
+    public FxRatesHealthIndicator(FxRateProvider rates) {
+        this.rates = rates;
+    }
+
+    @Override
+    public Health health() {
+        return (rates.isStale() ? Health.status(STALE) : Health.up())
+                .withDetail("location", rates.getRatesLocation())
+                .withDetail("asOf", rates.current().asOf().toString())
+                .withDetail("ageSeconds", rates.age().toSeconds())
+                .withDetail("maxAgeSeconds", rates.getMaxAge().toSeconds())
+                .build();
+    }
+}
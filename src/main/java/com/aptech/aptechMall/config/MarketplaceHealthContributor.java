@@ -0,0 +1,75 @@
+package com.aptech.aptechMall.config;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.ProductMarketplaceService;
+import com.aptech.aptechMall.service.marketplace.MarketplaceHealth;
+import com.aptech.aptechMall.service.marketplace.MarketplaceServiceRegistry;
+import org.springframework.boot.actuate.health.CompositeHealthContributor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthContributor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.NamedContributor;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Actuator health of each marketplace, from its rolling window of real calls:
+ * GET /admin/health/upstream (503 when a marketplace is unavailable) and
+ * /admin/health/marketplaces/{aliexpress|alibaba1688}.
+ *
+ * States are UP, DEGRADED (failure ratio or p95 latency over threshold), UNAVAILABLE and
+ * UNKNOWN (too few recent calls). An unavailable marketplace is not reported as DOWN: the
+ * root health only orders the instance's own statuses, so an upstream outage never takes the
+ * whole instance out of rotation.
+ */
+@Component("marketplacesHealthContributor")
+public class MarketplaceHealthContributor implements CompositeHealthContributor {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Marketplace is slow or failing part of its calls");
+    public static final Status UNAVAILABLE = new Status("UNAVAILABLE", "Marketplace is failing most of its calls");
+
+    private final Map<String, HealthIndicator> indicators = new LinkedHashMap<>();
+
+    public MarketplaceHealthContributor(MarketplaceServiceRegistry services, MarketplaceHealth health) {
+        for (ProductMarketplaceService service : services.all()) {
+            Marketplace marketplace = service.getMarketplace();
+            indicators.put(marketplace.name().toLowerCase(Locale.ROOT), () -> toHealth(health.snapshot(marketplace)));
+        }
+    }
+
+    static Health toHealth(MarketplaceHealth.Snapshot snapshot) {
+        Health.Builder builder = switch (snapshot.state()) {
+            case UP -> Health.up();
+            case DEGRADED -> Health.status(DEGRADED);
+            case DOWN -> Health.status(UNAVAILABLE);
+            case UNKNOWN -> Health.unknown();
+        };
+        builder.withDetail("samples", snapshot.samples())
+                .withDetail("failures", snapshot.failures())
+                .withDetail("failureRatio", Math.round(snapshot.failureRatio() * 1000) / 1000.0);
+        if (snapshot.p95Latency() != null) {
+            builder.withDetail("p95LatencyMs", snapshot.p95Latency().toMillis());
+        }
+        if (snapshot.lastCallAgo() != null) {
+            builder.withDetail("lastCallSecondsAgo", snapshot.lastCallAgo().toSeconds());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public HealthContributor getContributor(String name) {
+        return indicators.get(name);
+    }
+
+    @Override
+    public Iterator<NamedContributor<HealthContributor>> iterator() {
+        return indicators.entrySet().stream()
+                .map(entry -> NamedContributor.<HealthContributor>of(entry.getKey(), entry.getValue()))
+                .iterator();
+    }
+}
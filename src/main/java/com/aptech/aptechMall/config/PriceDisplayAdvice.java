@@ -0,0 +1,198 @@
+package com.aptech.aptechMall.config;
+
+import com.aptech.aptechMall.dto.ApiResponse;
+import com.aptech.aptechMall.dto.ProductDetailDTO;
+import com.aptech.aptechMall.dto.ProductSearchDTO;
+import com.aptech.aptechMall.dto.VendorStorefrontDTO;
+import com.aptech.aptechMall.dto.cart.CartItemDTO;
+import com.aptech.aptechMall.dto.cart.CartResponse;
+import com.aptech.aptechMall.dto.order.OrderItemDTO;
+import com.aptech.aptechMall.dto.order.OrderResponse;
+import com.aptech.aptechMall.service.pricing.FxRates;
+import com.aptech.aptechMall.service.pricing.PriceEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the display* price fields of every search, detail, cart and order response with prices
+ * converted to the requested currency (?currency=VND or X-Currency) and formatted for the
+ * Accept-Language locale.
+ *
+ * Services keep returning upstream prices, so cached results stay currency-neutral. Summary and
+ * related-product DTOs may be shared by cached search windows and vendor storefronts, so those
+ * are copied rather than modified.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class PriceDisplayAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String CURRENCY_HEADER = "X-Currency";
+
+    private final PriceEngine priceEngine;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        Object payload = body instanceof ApiResponse<?> wrapper ? wrapper.getData() : body;
+        if (payload == null || !hasPrices(payload)) {
+            return body;
+        }
+
+        String currency = request instanceof ServletServerHttpRequest servletRequest
+                ? servletRequest.getServletRequest().getParameter("currency")
+                : null;
+        if (currency == null) {
+            currency = request.getHeaders().getFirst(CURRENCY_HEADER);
+        }
+        PriceEngine.Display display = priceEngine.display(currency, request.getHeaders().getFirst(HttpHeaders.ACCEPT_LANGUAGE));
+
+        localize(payload, display);
+        return body;
+    }
+
+    private static boolean hasPrices(Object payload) {
+        if (payload instanceof Map<?, ?> map) {
+            return map.values().stream().anyMatch(value -> value != null && hasPrices(value));
+        }
+        if (payload instanceof Collection<?> items) {
+            return !items.isEmpty() && items.stream().anyMatch(item -> item != null && hasPrices(item));
+        }
+        return payload instanceof ProductSearchDTO || payload instanceof ProductDetailDTO
+                || payload instanceof VendorStorefrontDTO || payload instanceof CartResponse
+                || payload instanceof OrderResponse;
+    }
+
+    private void localize(Object payload, PriceEngine.Display display) {
+        if (payload instanceof Map<?, ?> map) {
+            map.values().stream().filter(value -> value != null).forEach(value -> localize(value, display));
+        } else if (payload instanceof Collection<?> items) {
+            items.stream().filter(item -> item != null).forEach(item -> localize(item, display));
+        } else if (payload instanceof ProductSearchDTO search) {
+            localize(search, display);
+        } else if (payload instanceof ProductDetailDTO detail) {
+            localize(detail, display);
+        } else if (payload instanceof VendorStorefrontDTO storefront) {
+            storefront.setProducts(localizeRelated(storefront.getProducts(), display));
+            storefront.setDisplayCurrency(display.currency());
+        } else if (payload instanceof CartResponse cart) {
+            localize(cart, display);
+        } else if (payload instanceof OrderResponse order) {
+            localize(order, display);
+        }
+    }
+
+    private void localize(ProductSearchDTO search, PriceEngine.Display display) {
+        if (search.getProducts() != null) {
+            search.setProducts(search.getProducts().stream()
+                    .map(product -> {
+                        String currency = PriceEngine.currencyOf(null, product.getCurrencySign());
+                        return product.toBuilder()
+                                .displayPrice(priceEngine.format(product.getCurrentPrice(), currency, display))
+                                .displayOriginalPrice(priceEngine.format(product.getOriginalPrice(), currency, display))
+                                .build();
+                    })
+                    .toList());
+        }
+        search.setDisplayCurrency(display.currency());
+    }
+
+    private void localize(ProductDetailDTO detail, PriceEngine.Display display) {
+        String currency = null;
+        for (ProductDetailDTO.PriceDTO price : new ProductDetailDTO.PriceDTO[]{detail.getCurrentPrice(), detail.getPromotionPrice()}) {
+            if (price != null) {
+                String priceCurrency = PriceEngine.currencyOf(price.getCurrencyCode(), price.getCurrencySign());
+                price.setDisplayPrice(priceEngine.format(price.getOriginalPrice(), priceCurrency, display));
+                currency = currency != null ? currency : priceCurrency;
+            }
+        }
+        if (detail.getVariants() != null) {
+            for (ProductDetailDTO.VariantDTO variant : detail.getVariants()) {
+                variant.setDisplayPrice(priceEngine.format(variant.getPrice(), currency, display));
+            }
+        }
+        detail.setRelatedProducts(localizeRelated(detail.getRelatedProducts(), display));
+        detail.setDisplayCurrency(display.currency());
+    }
+
+    private List<ProductDetailDTO.RelatedProductDTO> localizeRelated(List<ProductDetailDTO.RelatedProductDTO> related,
+                                                                     PriceEngine.Display display) {
+        if (related == null) {
+            return null;
+        }
+        return related.stream()
+                .map(product -> product.toBuilder()
+                        .displayPrice(priceEngine.format(product.getPrice(),
+                                PriceEngine.currencyOf(null, product.getCurrencySign()), display))
+                        .build())
+                .toList();
+    }
+
+    private void localize(CartResponse cart, PriceEngine.Display display) {
+        long total = 0;
+        long latestTotal = 0;
+        if (cart.getItems() != null) {
+            for (CartItemDTO item : cart.getItems()) {
+                String currency = item.getMarketplace() != null ? item.getMarketplace().getBaseCurrency() : null;
+                long subtotal = toDisplayMinor(item.getSubtotal(), currency, display);
+                long latestSubtotal = item.getLatestPrice() != null && item.getQuantity() != null
+                        ? toDisplayMinor(item.getLatestPrice().multiply(BigDecimal.valueOf(item.getQuantity())), currency, display)
+                        : subtotal;
+
+                item.setDisplayPrice(priceEngine.format(item.getPrice(), currency, display));
+                item.setDisplaySubtotal(priceEngine.format(subtotal, display));
+                total = add(total, subtotal);
+                latestTotal = add(latestTotal, latestSubtotal);
+            }
+        }
+        cart.setDisplayCurrency(display.currency());
+        cart.setDisplayTotal(priceEngine.format(total, display));
+        cart.setDisplayLatestTotal(priceEngine.format(latestTotal, display));
+    }
+
+    private void localize(OrderResponse order, PriceEngine.Display display) {
+        order.setDisplayCurrency(display.currency());
+        if (order.getItems() == null) {
+            return;
+        }
+        long total = 0;
+        for (OrderItemDTO item : order.getItems()) {
+            String currency = item.getMarketplace() != null ? item.getMarketplace().getBaseCurrency() : null;
+            long subtotal = toDisplayMinor(item.getSubtotal(), currency, display);
+
+            item.setDisplayPrice(priceEngine.format(item.getPrice(), currency, display));
+            item.setDisplaySubtotal(priceEngine.format(subtotal, display));
+            total = add(total, subtotal);
+        }
+        order.setDisplayTotal(priceEngine.format(total, display));
+    }
+
+    private long toDisplayMinor(BigDecimal amount, String currency, PriceEngine.Display display) {
+        return amount != null ? priceEngine.toDisplayMinor(amount.doubleValue(), currency, display) : FxRates.UNKNOWN;
+    }
+
+    /**
+     * Sum of minor amounts; unknown as soon as any part is unknown
+     */
+    private static long add(long total, long amount) {
+        return total == FxRates.UNKNOWN || amount == FxRates.UNKNOWN ? FxRates.UNKNOWN : total + amount;
+    }
+}
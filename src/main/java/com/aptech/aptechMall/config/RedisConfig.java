@@ -0,0 +1,27 @@
+package com.aptech.aptechMall.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Redis templates beyond the auto-configured String ones
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * Non-blocking template for binary cache payloads (String keys, raw byte[] values)
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> binaryRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+}
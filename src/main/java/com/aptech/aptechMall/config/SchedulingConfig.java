@@ -0,0 +1,12 @@
+package com.aptech.aptechMall.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (cache maintenance, refreshers)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -43,10 +43,11 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/*", "/api/auth/**", "/api/products/**").permitAll()
+                        .requestMatchers("/api/cart/guest", "/api/cart/guest/**").permitAll() // giỏ hàng khách vãng lai, nhận diện qua cookie guest_cart
                         .requestMatchers("/api/cart/**").hasRole("CUSTOMER")
                         .requestMatchers("/api/orders/**").hasAnyRole("ADMIN", "STAFF", "CUSTOMER")
                         .requestMatchers("/api/users/*", "/api/users/**", "/api/debug/**").hasAnyRole("ADMIN", "STAFF")
-                        .requestMatchers("/api/1688/**", "/api/aliexpress/**").permitAll()
+                        .requestMatchers("/api/1688/**", "/api/aliexpress/**", "/api/categories", "/api/categories/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .logout(AbstractHttpConfigurer::disable)
@@ -0,0 +1,26 @@
+package com.aptech.aptechMall.dto;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Node of the category tree derived from fetched product details
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryDTO {
+    private Marketplace marketplace;
+    private String id;
+    private String name;
+    private String parentId;
+    private Integer productCount;       // Distinct known products in this category and below
+    private List<CategoryDTO> path;     // Ancestors from the root, when requested
+    private List<CategoryDTO> children; // Direct children only, largest first
+}
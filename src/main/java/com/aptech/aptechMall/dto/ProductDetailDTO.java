@@ -15,7 +15,7 @@ public class ProductDetailDTO {
     private String itemId;
     private String title;
     private String originalTitle;
-    private String description;
+    private Boolean hasDescription;   // Description HTML is served by /api/{marketplace}/products/{id}/description
     private String itemUrl;
     private String mainImage;
     private List<ImageDTO> images;
@@ -36,7 +36,9 @@ public class ProductDetailDTO {
     private VendorDTO vendor;
 
     // Variants/Options
-    private List<VariantDTO> variants;
+    private List<VariantDTO> variants;        // Full list only for products with few SKUs
+    private List<OptionGroupDTO> variantOptions;
+    private Integer skuCount;                 // Resolve a selection via /api/{marketplace}/products/{id}/sku?props=
 
     // Reviews
     private ReviewSummaryDTO reviews;
@@ -53,6 +55,9 @@ public class ProductDetailDTO {
     // Related products from same vendor
     private List<RelatedProductDTO> relatedProducts;
 
+    // Currency of the display* prices
+    private String displayCurrency;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -62,6 +67,7 @@ public class ProductDetailDTO {
         private String currencyCode;
         private String currencySign;
         private String formattedPrice;
+        private String displayPrice;
     }
 
     @Data
@@ -90,6 +96,26 @@ public class ProductDetailDTO {
         private Integer totalFeedbacks;
     }
 
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OptionGroupDTO {
+        private String propertyId;
+        private String propertyName;
+        private List<OptionValueDTO> values;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OptionValueDTO {
+        private String valueId;
+        private String value;
+        private String imageUrl;
+    }
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -100,6 +126,7 @@ public class ProductDetailDTO {
         private List<String> options;
         private String imageUrl;
         private Double price;
+        private String displayPrice;
         private Integer quantity;
     }
 
@@ -139,7 +166,7 @@ public class ProductDetailDTO {
     }
 
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     @NoArgsConstructor
     @AllArgsConstructor
     public static class RelatedProductDTO {
@@ -149,5 +176,6 @@ public class ProductDetailDTO {
         private String productUrl;
         private Double price;
         private String currencySign;
+        private String displayPrice;
     }
 }
\ No newline at end of file
@@ -13,6 +13,7 @@ import java.util.List;
 public class ProductSearchDTO {
     private SearchMeta meta;
     private List<ProductSummaryDTO> products;
+    private String displayCurrency;       // Currency of the display* prices
 
     @Data
     @Builder
@@ -27,7 +28,7 @@ public class ProductSearchDTO {
     }
 
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     @NoArgsConstructor
     @AllArgsConstructor
     public static class ProductSummaryDTO {
@@ -39,6 +40,8 @@ public class ProductSearchDTO {
         private String currentPrice;
         private String originalPrice;
         private String currencySign;
+        private String displayPrice;          // currentPrice converted and formatted for the user
+        private String displayOriginalPrice;
         private Integer salesCount;
         private Boolean hasDiscount;
 
@@ -0,0 +1,27 @@
+package com.aptech.aptechMall.dto;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of parsed marketplace reviews
+ * Pass nextCursor back to the reviews endpoint to get the following page
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewPageDTO {
+    private Marketplace marketplace;
+    private String productId;
+    private Integer page;
+    private Integer totalReviews;     // As reported upstream, null when unknown
+    private List<ProductDetailDTO.ReviewDTO> reviews;
+    private Boolean hasMore;
+    private String nextCursor;        // Null on the last page
+}
@@ -0,0 +1,25 @@
+package com.aptech.aptechMall.dto;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Rating histogram of a product's reviews
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewStatsDTO {
+    private Marketplace marketplace;
+    private String productId;
+    private Integer reviewsCounted;
+    private Double averageRating;
+    private Map<Integer, Integer> histogram;   // Stars (1-5) -> number of reviews
+    private Boolean complete;                  // False when only the first pages were counted
+}
@@ -0,0 +1,26 @@
+package com.aptech.aptechMall.dto;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Vendor profile and the vendor's products seen across product detail fetches
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorStorefrontDTO {
+    private Marketplace marketplace;
+    private ProductDetailDTO.VendorDTO vendor;
+    private Integer totalProducts;      // Products known locally, not the vendor's full catalogue
+    private Integer page;
+    private Integer pageSize;
+    private List<ProductDetailDTO.RelatedProductDTO> products; // Most recently seen first
+    private String displayCurrency;
+}
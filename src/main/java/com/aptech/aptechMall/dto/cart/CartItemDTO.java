@@ -29,6 +29,16 @@ public class CartItemDTO {
     private BigDecimal subtotal;
     private LocalDateTime createdAt;
 
+    // Latest re-pricing result (null until the item has been checked)
+    private BigDecimal latestPrice;
+    private Boolean available;
+    private Boolean priceChanged;
+    private LocalDateTime priceCheckedAt;
+
+    // Prices converted to the currency the user asked for
+    private String displayPrice;
+    private String displaySubtotal;
+
     /**
      * Convert CartItem entity to DTO
      * @param cartItem CartItem entity
@@ -45,6 +55,10 @@ public class CartItemDTO {
                 .marketplace(cartItem.getMarketplace())
                 .subtotal(cartItem.getSubtotal())
                 .createdAt(cartItem.getCreatedAt())
+                .latestPrice(cartItem.getLatestPrice())
+                .available(cartItem.getLatestAvailable())
+                .priceChanged(cartItem.hasPriceDrift())
+                .priceCheckedAt(cartItem.getPriceCheckedAt())
                 .build();
     }
 }
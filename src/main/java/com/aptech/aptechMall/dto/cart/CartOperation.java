@@ -0,0 +1,50 @@
+package com.aptech.aptechMall.dto.cart;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One operation of a batch cart mutation
+ * ADD uses item; UPDATE uses itemId and quantity; REMOVE uses itemId
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+
+    public enum Type {
+        ADD, UPDATE, REMOVE
+    }
+
+    @NotNull(message = "Operation type is required")
+    private Type op;
+
+    @Valid
+    private AddToCartRequest item;
+
+    private Long itemId;
+
+    @Min(value = 1, message = "Quantity must be at least 1")
+    @Max(value = 999, message = "Quantity must not exceed 999")
+    private Integer quantity;
+
+    @JsonIgnore
+    @AssertTrue(message = "ADD needs item; UPDATE needs itemId and quantity; REMOVE needs itemId")
+    public boolean isComplete() {
+        if (op == null) {
+            return true;
+        }
+        return switch (op) {
+            case ADD -> item != null;
+            case UPDATE -> itemId != null && quantity != null;
+            case REMOVE -> itemId != null;
+        };
+    }
+}
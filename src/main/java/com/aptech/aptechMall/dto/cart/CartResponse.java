@@ -1,6 +1,7 @@
 package com.aptech.aptechMall.dto.cart;
 
 import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,12 +23,25 @@ public class CartResponse {
 
     private Long id;
     private Long userId;
+    // Cart version, also sent as a weak ETag; send it back in If-Match to make a change conditional
+    // on no item having been added or removed meanwhile (quantity changes keep the version)
+    private Long version;
     private List<CartItemDTO> items;
     private Integer totalItems;
     private BigDecimal totalAmount;
+
+    // Set when a background price check found items whose price moved since they were added
+    private Boolean priceChanged;
+    // Total at the latest known prices (equals totalAmount when nothing changed)
+    private BigDecimal latestTotalAmount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Total converted item by item, since items of different marketplaces are priced in different currencies
+    private String displayCurrency;
+    private String displayTotal;
+    private String displayLatestTotal;
+
     /**
      * Convert Cart entity to DTO
      * @param cart Cart entity
@@ -41,9 +55,12 @@ public class CartResponse {
         return CartResponse.builder()
                 .id(cart.getId())
                 .userId(cart.getUserId())
+                .version(cart.getVersion())
                 .items(itemDTOs)
                 .totalItems(cart.getTotalItems())
                 .totalAmount(cart.calculateTotal())
+                .priceChanged(cart.getItems().stream().anyMatch(CartItem::hasPriceDrift))
+                .latestTotalAmount(cart.calculateLatestTotal())
                 .createdAt(cart.getCreatedAt())
                 .updatedAt(cart.getUpdatedAt())
                 .build();
@@ -60,6 +77,8 @@ public class CartResponse {
                 .items(List.of())
                 .totalItems(0)
                 .totalAmount(BigDecimal.ZERO)
+                .priceChanged(false)
+                .latestTotalAmount(BigDecimal.ZERO)
                 .build();
     }
 }
@@ -0,0 +1,38 @@
+package com.aptech.aptechMall.dto.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO with just the item count and total of a cart, for the header badge and similar polling
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartSummaryResponse {
+
+    private Long userId;
+    // Same version as the full cart, also sent as the weak ETag
+    private Long version;
+    private Integer totalItems;
+    // Sum at add-to-cart prices, as totalAmount of the full cart
+    private BigDecimal totalAmount;
+
+    /**
+     * Create empty cart summary
+     * @param userId User ID
+     * @return Empty CartSummaryResponse
+     */
+    public static CartSummaryResponse empty(Long userId) {
+        return CartSummaryResponse.builder()
+                .userId(userId)
+                .totalItems(0)
+                .totalAmount(BigDecimal.ZERO)
+                .build();
+    }
+}
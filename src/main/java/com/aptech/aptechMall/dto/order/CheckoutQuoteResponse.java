@@ -0,0 +1,51 @@
+package com.aptech.aptechMall.dto.order;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for the checkout pre-flight: every cart item re-quoted against its marketplace
+ * Pass quoteId to checkout to place the order at these prices
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutQuoteResponse {
+
+    private String quoteId;
+    private Long userId;
+    private List<QuoteItemDTO> items;
+    private BigDecimal cartTotal;
+    private BigDecimal quotedTotal;
+    // True when at least one price moved or an item became unavailable
+    private Boolean hasChanges;
+    // False when some items could not be quoted before the deadline; such a quote cannot be redeemed
+    private Boolean complete;
+    private LocalDateTime expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class QuoteItemDTO {
+        private Long cartItemId;
+        private String productId;
+        private String productName;
+        private Marketplace marketplace;
+        private Integer quantity;
+        private BigDecimal cartPrice;
+        private BigDecimal quotedPrice;
+        private Boolean available;
+        private Boolean priceChanged;
+        // False when the marketplace did not answer in time
+        private Boolean quoted;
+    }
+}
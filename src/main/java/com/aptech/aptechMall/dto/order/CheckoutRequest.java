@@ -24,4 +24,11 @@ public class CheckoutRequest {
 
     @Size(max = 1000, message = "Note must not exceed 1000 characters")
     private String note;
+
+    /**
+     * Optional quote ID from the checkout pre-flight
+     * When set, the order is placed at the quoted prices or rejected if the quote no longer holds
+     */
+    @Size(max = 64, message = "Quote ID must not exceed 64 characters")
+    private String quoteId;
 }
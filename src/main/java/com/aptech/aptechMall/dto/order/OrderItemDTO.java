@@ -26,6 +26,8 @@ public class OrderItemDTO {
     private Integer quantity;
     private Marketplace marketplace;
     private BigDecimal subtotal;
+    private String displayPrice;
+    private String displaySubtotal;
 
     /**
      * Convert OrderItem entity to DTO
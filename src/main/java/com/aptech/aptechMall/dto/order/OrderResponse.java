@@ -33,6 +33,8 @@ public class OrderResponse {
     private List<OrderItemDTO> items;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private String displayCurrency;
+    private String displayTotal;    // Null for summaries, which carry no items to convert
 
     /**
      * Convert Order entity to DTO
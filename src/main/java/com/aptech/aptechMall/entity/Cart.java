@@ -46,6 +46,24 @@ public class Cart {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Bumped by structural changes (items added or removed, cart cleared) and by requests
+     * sent with If-Match; quantity changes of existing items are atomic deltas and leave it alone
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
+    /**
+     * Denormalized item count and total at add-to-cart prices, kept in step with cart_items by
+     * every cart mutation so the cart summary reads this row alone
+     */
+    @Column(name = "total_items", nullable = false, columnDefinition = "INT DEFAULT 0")
+    private Integer itemCount = 0;
+
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2, columnDefinition = "DECIMAL(12,2) DEFAULT 0")
+    private BigDecimal itemTotal = BigDecimal.ZERO;
+
     /**
      * Calculate total amount of all items in cart
      * @return total amount
@@ -56,6 +74,18 @@ public class Cart {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    /**
+     * Calculate total amount at the latest known marketplace prices
+     * Items not re-priced yet count at their add-to-cart price
+     * @return total amount at latest prices
+     */
+    public BigDecimal calculateLatestTotal() {
+        return items.stream()
+                .map(item -> (item.getLatestPrice() != null ? item.getLatestPrice() : item.getPrice())
+                        .multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
     /**
      * Get total number of items in cart
      * @return total item count
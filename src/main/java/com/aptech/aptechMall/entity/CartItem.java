@@ -20,8 +20,11 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "cart_items",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_cart_product", columnNames = {"cart_id", "product_id", "marketplace"})
+       },
        indexes = {
-           @Index(name = "idx_cart_product", columnList = "cart_id, product_id, marketplace")
+           @Index(name = "idx_marketplace_product", columnList = "marketplace, product_id")
        })
 @Data
 @NoArgsConstructor
@@ -66,6 +69,22 @@ public class CartItem {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Latest marketplace price found by the background re-pricing job (null until first check)
+     */
+    @Column(precision = 10, scale = 2)
+    private BigDecimal latestPrice;
+
+    /**
+     * Whether the product was still available at the last check (null until first check)
+     */
+    private Boolean latestAvailable;
+
+    /**
+     * When latestPrice / latestAvailable were last refreshed
+     */
+    private LocalDateTime priceCheckedAt;
+
     /**
      * Calculate subtotal for this cart item (price * quantity)
      * @return subtotal amount
@@ -74,6 +93,14 @@ public class CartItem {
         return price.multiply(BigDecimal.valueOf(quantity));
     }
 
+    /**
+     * Check if the marketplace price moved away from the price snapshot taken at add-to-cart
+     * @return true if a later check found a different price
+     */
+    public boolean hasPriceDrift() {
+        return latestPrice != null && latestPrice.compareTo(price) != 0;
+    }
+
     /**
      * Check if this item matches another product (for duplicate detection)
      * @param productId Product ID to compare
@@ -4,6 +4,42 @@ package com.aptech.aptechMall.entity.enums;
  * Enum representing supported marketplace platforms
  */
 public enum Marketplace {
-    ALIEXPRESS,
-    ALIBABA1688
+    ALIEXPRESS("aliexpress", "USD"),
+    ALIBABA1688("1688", "CNY");
+
+    private final String pathSegment;
+    private final String baseCurrency;
+
+    Marketplace(String pathSegment, String baseCurrency) {
+        this.pathSegment = pathSegment;
+        this.baseCurrency = baseCurrency;
+    }
+
+    /**
+     * @return Segment used for this marketplace in API paths (/api/{segment}/...)
+     */
+    public String getPathSegment() {
+        return pathSegment;
+    }
+
+    /**
+     * @return ISO currency of prices stored for this marketplace (cart and order items)
+     */
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * @param segment Marketplace segment of an API path
+     * @return Matching marketplace
+     * @throws IllegalArgumentException for unknown segments
+     */
+    public static Marketplace fromPathSegment(String segment) {
+        for (Marketplace marketplace : values()) {
+            if (marketplace.pathSegment.equalsIgnoreCase(segment)) {
+                return marketplace;
+            }
+        }
+        throw new IllegalArgumentException("Unknown marketplace: " + segment);
+    }
 }
@@ -1,5 +1,6 @@
 package com.aptech.aptechMall.model.Aliexpress;
 
+import com.aptech.aptechMall.model.OtApiResponse;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
@@ -12,7 +13,7 @@ import java.util.List;
  */
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class AliexpressProductDetailResponse {
+public class AliexpressProductDetailResponse implements OtApiResponse {
 
     @JsonProperty("ErrorCode")
     private String errorCode;
@@ -0,0 +1,9 @@
+package com.aptech.aptechMall.model;
+
+/**
+ * Common envelope of OtAPI responses; every payload carries an ErrorCode, "Ok" on success
+ */
+public interface OtApiResponse {
+
+    String getErrorCode();
+}
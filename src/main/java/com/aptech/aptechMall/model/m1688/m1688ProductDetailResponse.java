@@ -1,5 +1,6 @@
 package com.aptech.aptechMall.model.m1688;
 
+import com.aptech.aptechMall.model.OtApiResponse;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
@@ -7,7 +8,7 @@ import java.util.List;
 
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class m1688ProductDetailResponse {
+public class m1688ProductDetailResponse implements OtApiResponse {
 
     @JsonProperty("ErrorCode")
     private String errorCode;
@@ -1,5 +1,6 @@
 package com.aptech.aptechMall.model.m1688;
 
+import com.aptech.aptechMall.model.OtApiResponse;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
@@ -9,7 +10,7 @@ import java.util.Map;
 
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class m1688ProductSearchResponse {
+public class m1688ProductSearchResponse implements OtApiResponse {
 
     @JsonProperty("ErrorCode")
     private String errorCode;
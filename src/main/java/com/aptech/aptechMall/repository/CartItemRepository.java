@@ -2,11 +2,17 @@ package com.aptech.aptechMall.repository;
 
 import com.aptech.aptechMall.entity.CartItem;
 import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.marketplace.ProductKey;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +37,55 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
             @Param("marketplace") Marketplace marketplace
     );
 
+    /**
+     * Add a product to a cart, or raise its quantity when the cart already holds it,
+     * in one statement keyed by the unique (cart_id, product_id, marketplace) constraint
+     * (created by CartItemKeyMigration on older databases)
+     * Concurrent adds of the same product add up instead of inserting duplicates
+     * Clears the persistence context, so a later read in the same transaction sees the new quantity
+     * @param marketplace Marketplace enum name
+     * @return 1 when inserted, 2 when the quantity was raised
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO cart_items (cart_id, product_id, product_name, product_image, price, quantity, marketplace, created_at) " +
+                   "VALUES (:cartId, :productId, :productName, :productImage, :price, :quantity, :marketplace, :now) AS new " +
+                   "ON DUPLICATE KEY UPDATE quantity = quantity + new.quantity", nativeQuery = true)
+    int upsertQuantity(
+            @Param("cartId") Long cartId,
+            @Param("productId") String productId,
+            @Param("productName") String productName,
+            @Param("productImage") String productImage,
+            @Param("price") BigDecimal price,
+            @Param("quantity") Integer quantity,
+            @Param("marketplace") String marketplace,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Set the quantity of one item of a cart, touching no other column
+     * @return 1 when updated, 0 when the item is not in the cart
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE cart_items SET quantity = :quantity WHERE id = :itemId AND cart_id = :cartId", nativeQuery = true)
+    int updateQuantity(@Param("cartId") Long cartId, @Param("itemId") Long itemId, @Param("quantity") Integer quantity);
+
+    /**
+     * Delete one item of a cart
+     * @return 1 when deleted, 0 when the item is not in the cart
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM cart_items WHERE id = :itemId AND cart_id = :cartId", nativeQuery = true)
+    int deleteFromCart(@Param("cartId") Long cartId, @Param("itemId") Long itemId);
+
+    /**
+     * Delete every item of a cart in one statement
+     * Leaves the persistence context alone, so it can run inside a checkout holding the cart
+     * @return Number of items deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM cart_items WHERE cart_id = :cartId", nativeQuery = true)
+    int deleteAllFromCart(@Param("cartId") Long cartId);
+
     /**
      * Find all items for a specific cart
      * @param cartId Cart ID
@@ -50,4 +105,47 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
      * @return Number of items
      */
     long countByCartId(Long cartId);
+
+    /**
+     * Find distinct products sitting in carts whose price was not checked since a given time
+     * Least recently checked products come first (never checked ones before all others)
+     * @param checkedBefore Products checked after this time are skipped
+     * @param pageable Batch size
+     * @return Distinct (marketplace, productId) pairs
+     */
+    @Query("SELECT new com.aptech.aptechMall.service.marketplace.ProductKey(ci.marketplace, ci.productId) " +
+           "FROM CartItem ci " +
+           "GROUP BY ci.marketplace, ci.productId " +
+           "HAVING SUM(CASE WHEN ci.priceCheckedAt IS NULL THEN 1 ELSE 0 END) > 0 OR MIN(ci.priceCheckedAt) < :checkedBefore " +
+           "ORDER BY MIN(ci.priceCheckedAt) ASC")
+    List<ProductKey> findProductsToReprice(@Param("checkedBefore") LocalDateTime checkedBefore, Pageable pageable);
+
+    /**
+     * Record the latest price and availability of a product on every cart item holding it
+     * @return Number of cart items updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CartItem ci SET ci.latestPrice = :latestPrice, ci.latestAvailable = :available, " +
+           "ci.priceCheckedAt = :checkedAt " +
+           "WHERE ci.marketplace = :marketplace AND ci.productId = :productId")
+    int updateLatestQuote(
+            @Param("marketplace") Marketplace marketplace,
+            @Param("productId") String productId,
+            @Param("latestPrice") BigDecimal latestPrice,
+            @Param("available") Boolean available,
+            @Param("checkedAt") LocalDateTime checkedAt
+    );
+
+    /**
+     * Count carts holding a product at a price different from the given one
+     * @return Number of distinct carts affected by a price change
+     */
+    @Query("SELECT COUNT(DISTINCT ci.cart.id) FROM CartItem ci " +
+           "WHERE ci.marketplace = :marketplace AND ci.productId = :productId AND ci.price <> :latestPrice")
+    long countCartsWithDifferentPrice(
+            @Param("marketplace") Marketplace marketplace,
+            @Param("productId") String productId,
+            @Param("latestPrice") BigDecimal latestPrice
+    );
 }
@@ -1,11 +1,14 @@
 package com.aptech.aptechMall.repository;
 
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
 import com.aptech.aptechMall.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -14,6 +17,10 @@ import java.util.Optional;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
+    String TOTALS = "UPDATE carts c SET " +
+            "c.total_items = (SELECT COALESCE(SUM(ci.quantity), 0) FROM cart_items ci WHERE ci.cart_id = c.id), " +
+            "c.total_amount = (SELECT COALESCE(SUM(ci.price * ci.quantity), 0) FROM cart_items ci WHERE ci.cart_id = c.id)";
+
     /**
      * Find cart by user ID with items eagerly loaded
      * @param userId User ID
@@ -22,6 +29,68 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.userId = :userId")
     Optional<Cart> findByUserIdWithItems(@Param("userId") Long userId);
 
+    /**
+     * Find the ID of a user's cart without loading it or locking its row
+     * @param userId User ID
+     * @return Optional containing the cart ID if found
+     */
+    @Query("SELECT c.id FROM Cart c WHERE c.userId = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * Create the user's cart unless it exists, in one statement
+     * The SELECT from users doubles as the user existence check
+     * @param userId User ID
+     * @param now Creation time
+     * @return 1 when created, 0 when the user does not exist or already has a cart
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO carts (user_id, created_at, updated_at, version) " +
+                   "SELECT u.id, :now, :now, 0 FROM users u WHERE u.id = :userId", nativeQuery = true)
+    int insertForUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Summary of a user's cart from the carts row alone
+     * @param userId User ID
+     * @return Optional containing the summary if the user has a cart
+     */
+    @Query("SELECT new com.aptech.aptechMall.dto.cart.CartSummaryResponse(c.userId, c.version, c.itemCount, c.itemTotal) " +
+           "FROM Cart c WHERE c.userId = :userId")
+    Optional<CartSummaryResponse> findSummaryByUserId(@Param("userId") Long userId);
+
+    /**
+     * Recompute total_items / total_amount from the cart's items, optionally recording a structural change
+     * @param versionIncrement 1 for a structural change, 0 otherwise
+     * @return Number of carts updated
+     */
+    @Modifying
+    @Query(value = TOTALS + ", version = version + :versionIncrement, updated_at = :now WHERE c.id = :cartId", nativeQuery = true)
+    int refreshTotals(
+            @Param("cartId") Long cartId,
+            @Param("versionIncrement") int versionIncrement,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Fill in totals of carts that have items but were never summed, e.g. carts older than the columns
+     * @return Number of carts updated
+     */
+    @Modifying
+    @Query(value = TOTALS + " WHERE c.total_items = 0 AND EXISTS (SELECT 1 FROM cart_items ci WHERE ci.cart_id = c.id)",
+           nativeQuery = true)
+    int backfillTotals();
+
+    /**
+     * Record a change of a cart only if it is still at the version the client last saw (If-Match)
+     * @return 1 when updated, 0 when the version moved on
+     */
+    @Modifying
+    @Query(value = "UPDATE carts SET version = version + 1, updated_at = :now " +
+                   "WHERE id = :cartId AND version = :expectedVersion", nativeQuery = true)
+    int incrementVersionIfMatches(
+            @Param("cartId") Long cartId,
+            @Param("expectedVersion") Long expectedVersion,
+            @Param("now") LocalDateTime now);
+
     /**
      * Find cart by user ID
      * @param userId User ID
@@ -0,0 +1,133 @@
+package com.aptech.aptechMall.service;
+
+import com.aptech.aptechMall.repository.CartItemRepository;
+import com.aptech.aptechMall.service.marketplace.MarketplaceServiceRegistry;
+import com.aptech.aptechMall.service.marketplace.ProductKey;
+import com.aptech.aptechMall.service.marketplace.ProductQuote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background job that re-prices products sitting in carts.
+ *
+ * Each run collects the distinct (marketplace, productId) pairs across all cart items that
+ * were not checked recently, quotes each product once (reusing cached details when fresh
+ * enough), and writes the result to every cart item holding it. Carts then show the drift
+ * from their add-to-cart price without any live upstream call per user.
+ */
+@Service
+@Slf4j
+public class CartRepricingService {
+
+    private final CartItemRepository cartItemRepository;
+    private final MarketplaceServiceRegistry marketplaceServices;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration recheckAfter;
+    private final Duration quoteMaxAge;
+    private final Duration callInterval;
+    private final int concurrency;
+    private final Counter productsChecked;
+    private final Counter productsDrifted;
+    private final Counter cartsDrifted;
+
+    public CartRepricingService(
+            CartItemRepository cartItemRepository,
+            MarketplaceServiceRegistry marketplaceServices,
+            MeterRegistry meterRegistry,
+            @Value("${cart.repricing.enabled:true}") boolean enabled,
+            @Value("${cart.repricing.batch-size:200}") int batchSize,
+            @Value("${cart.repricing.recheck-after:30m}") Duration recheckAfter,
+            @Value("${cart.repricing.quote-max-age:10m}") Duration quoteMaxAge,
+            @Value("${cart.repricing.max-per-minute:60}") int maxPerMinute,
+            @Value("${cart.repricing.concurrency:4}") int concurrency) {
+
+        this.cartItemRepository = cartItemRepository;
+        this.marketplaceServices = marketplaceServices;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.recheckAfter = recheckAfter;
+        this.quoteMaxAge = quoteMaxAge;
+        this.callInterval = Duration.ofMillis(60_000L / Math.max(maxPerMinute, 1));
+        this.concurrency = concurrency;
+
+        this.productsChecked = Counter.builder("cart.repricing.products")
+                .tag("result", "checked")
+                .register(meterRegistry);
+        this.productsDrifted = Counter.builder("cart.repricing.products")
+                .tag("result", "drifted")
+                .register(meterRegistry);
+        this.cartsDrifted = Counter.builder("cart.repricing.carts.drifted")
+                .description("Carts holding a product whose price changed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Re-price one batch of the least recently checked cart products
+     */
+    @Scheduled(fixedDelayString = "${cart.repricing.interval:600000}",
+            initialDelayString = "${cart.repricing.initial-delay:60000}")
+    public void repriceCartItems() {
+        if (!enabled) {
+            return;
+        }
+
+        List<ProductKey> products = cartItemRepository.findProductsToReprice(
+                LocalDateTime.now().minus(recheckAfter), PageRequest.of(0, batchSize));
+        if (products.isEmpty()) {
+            return;
+        }
+        log.info("Re-pricing {} distinct cart products", products.size());
+
+        // Requests are spaced out to respect the upstream quota; cached quotes cost nothing
+        List<ProductQuote> quotes = Flux.fromIterable(products)
+                .filter(key -> marketplaceServices.supports(key.marketplace()))
+                .delayElements(callInterval)
+                .flatMap(this::quote, concurrency)
+                .collectList()
+                .block();
+
+        if (quotes != null) {
+            quotes.forEach(this::record);
+        }
+    }
+
+    private Mono<ProductQuote> quote(ProductKey key) {
+        return marketplaceServices.get(key.marketplace())
+                .getProductQuote(key.productId(), quoteMaxAge)
+                .onErrorResume(error -> {
+                    // Leave the item unchecked so the next run retries it
+                    log.warn("Could not re-price {}: {}", key, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void record(ProductQuote quote) {
+        productsChecked.increment();
+
+        if (quote.unitPrice() != null) {
+            long affectedCarts = cartItemRepository.countCartsWithDifferentPrice(
+                    quote.marketplace(), quote.productId(), quote.unitPrice());
+            if (affectedCarts > 0) {
+                productsDrifted.increment();
+                cartsDrifted.increment(affectedCarts);
+                log.info("Price of {} is now {} {}, {} cart(s) affected",
+                        quote.key(), quote.unitPrice(), quote.currencyCode(), affectedCarts);
+            }
+        }
+
+        cartItemRepository.updateLatestQuote(quote.marketplace(), quote.productId(),
+                quote.unitPrice(), quote.available(), quote.quotedAt());
+    }
+}
@@ -1,53 +1,55 @@
 package com.aptech.aptechMall.service;
 
-import com.aptech.aptechMall.Exception.CartItemNotFoundException;
-import com.aptech.aptechMall.Exception.CartNotFoundException;
-import com.aptech.aptechMall.Exception.UserNotFoundException;
+import com.aptech.aptechMall.Exception.IdempotencyKeyConflictException;
+import com.aptech.aptechMall.Exception.InternalServerException;
 import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartBatchRequest;
 import com.aptech.aptechMall.dto.cart.CartResponse;
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
 import com.aptech.aptechMall.entity.Cart;
-import com.aptech.aptechMall.entity.CartItem;
-import com.aptech.aptechMall.repository.CartItemRepository;
-import com.aptech.aptechMall.repository.CartRepository;
-import com.aptech.aptechMall.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.aptech.aptechMall.service.cart.CartStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
 import java.util.Optional;
 
 /**
  * Service for managing shopping cart operations
+ * Storage is delegated to the configured {@link CartStore} (cart.storage.mode)
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
-    private final UserRepository userRepository;
-
-    /**
-     * Get or create cart for user
-     * @param userId User ID
-     * @return Cart entity
-     */
-    private Cart getOrCreateCart(Long userId) {
-        // Verify user exists
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException(userId);
-        }
-
-        return cartRepository.findByUserIdWithItems(userId)
-                .orElseGet(() -> {
-                    log.info("Creating new cart for user: {}", userId);
-                    Cart newCart = new Cart();
-                    newCart.setUserId(userId);
-                    return cartRepository.save(newCart);
-                });
+    private static final String BATCH_KEY_PREFIX = "cart:batch:";
+    private static final String PENDING = "pending:";
+
+    private final CartStore cartStore;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration idempotencyTtl;
+    private final Duration pendingTtl;
+
+    public CartService(
+            CartStore cartStore,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${cart.batch.idempotency-ttl:24h}") Duration idempotencyTtl,
+            @Value("${cart.batch.pending-ttl:30s}") Duration pendingTtl) {
+
+        this.cartStore = cartStore;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.idempotencyTtl = idempotencyTtl;
+        this.pendingTtl = pendingTtl;
     }
 
     /**
@@ -58,12 +60,7 @@ public class CartService {
     public CartResponse getCart(Long userId) {
         log.info("Getting cart for user: {}", userId);
 
-        // Verify user exists
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException(userId);
-        }
-
-        Optional<Cart> cartOpt = cartRepository.findByUserIdWithItems(userId);
+        Optional<Cart> cartOpt = cartStore.find(userId);
 
         if (cartOpt.isEmpty()) {
             log.info("No cart found for user {}, returning empty cart", userId);
@@ -76,52 +73,26 @@ public class CartService {
         return CartResponse.fromEntity(cart);
     }
 
+    /**
+     * Get item count and total of user's cart, from the carts row (or its Redis mirror) alone
+     * @param userId User ID
+     * @return CartSummaryResponse DTO
+     */
+    public CartSummaryResponse getSummary(Long userId) {
+        return cartStore.findSummary(userId).orElseGet(() -> CartSummaryResponse.empty(userId));
+    }
+
     /**
      * Add product to cart or update quantity if exists
      * @param userId User ID
      * @param request AddToCartRequest
+     * @param expectedVersion Cart version from If-Match, or null
      * @return CartResponse DTO
      */
-    public CartResponse addToCart(Long userId, AddToCartRequest request) {
+    public CartResponse addToCart(Long userId, AddToCartRequest request, Long expectedVersion) {
         log.info("Adding product {} to cart for user {}", request.getProductId(), userId);
 
-        Cart cart = getOrCreateCart(userId);
-
-        // Check if product already exists in cart
-        Optional<CartItem> existingItem = cartItemRepository.findByCartIdAndProductIdAndMarketplace(
-                cart.getId(),
-                request.getProductId(),
-                request.getMarketplace()
-        );
-
-        if (existingItem.isPresent()) {
-            // Update quantity
-            CartItem item = existingItem.get();
-            int newQuantity = item.getQuantity() + request.getQuantity();
-            item.setQuantity(newQuantity);
-            cartItemRepository.save(item);
-            log.info("Updated existing item quantity to {} for product {}", newQuantity, request.getProductId());
-        } else {
-            // Add new item
-            CartItem newItem = new CartItem();
-            newItem.setCart(cart);
-            newItem.setProductId(request.getProductId());
-            newItem.setProductName(request.getProductName());
-            newItem.setProductImage(request.getProductImage());
-            newItem.setPrice(request.getPrice());
-            newItem.setQuantity(request.getQuantity());
-            newItem.setMarketplace(request.getMarketplace());
-
-            cart.addItem(newItem);
-            cartItemRepository.save(newItem);
-            log.info("Added new item to cart: {} x{}", request.getProductName(), request.getQuantity());
-        }
-
-        // Refresh cart to get updated items
-        Cart updatedCart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new CartNotFoundException(userId));
-
-        return CartResponse.fromEntity(updatedCart);
+        return CartResponse.fromEntity(cartStore.addItem(userId, request, expectedVersion));
     }
 
     /**
@@ -129,81 +100,120 @@ public class CartService {
      * @param userId User ID
      * @param itemId Cart item ID
      * @param newQuantity New quantity
+     * @param expectedVersion Cart version from If-Match, or null
      * @return CartResponse DTO
      */
-    public CartResponse updateItemQuantity(Long userId, Long itemId, Integer newQuantity) {
+    public CartResponse updateItemQuantity(Long userId, Long itemId, Integer newQuantity, Long expectedVersion) {
         log.info("Updating cart item {} quantity to {} for user {}", itemId, newQuantity, userId);
 
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new CartNotFoundException(userId));
-
-        CartItem item = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new CartItemNotFoundException(itemId));
-
-        // Verify item belongs to user's cart
-        if (!item.getCart().getId().equals(cart.getId())) {
-            throw new IllegalArgumentException("Cart item does not belong to user's cart");
-        }
-
-        item.setQuantity(newQuantity);
-        cartItemRepository.save(item);
-
+        Cart cart = cartStore.updateItemQuantity(userId, itemId, newQuantity, expectedVersion);
         log.info("Updated item {} quantity to {}", itemId, newQuantity);
 
-        // Refresh cart
-        Cart updatedCart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new CartNotFoundException(userId));
-
-        return CartResponse.fromEntity(updatedCart);
+        return CartResponse.fromEntity(cart);
     }
 
     /**
      * Remove item from cart
      * @param userId User ID
      * @param itemId Cart item ID
+     * @param expectedVersion Cart version from If-Match, or null
      * @return CartResponse DTO
      */
-    public CartResponse removeItem(Long userId, Long itemId) {
+    public CartResponse removeItem(Long userId, Long itemId, Long expectedVersion) {
         log.info("Removing cart item {} for user {}", itemId, userId);
 
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new CartNotFoundException(userId));
+        Cart cart = cartStore.removeItem(userId, itemId, expectedVersion);
+        log.info("Removed item {} from cart", itemId);
+
+        return CartResponse.fromEntity(cart);
+    }
 
-        CartItem item = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new CartItemNotFoundException(itemId));
+    /**
+     * Apply several add / update / remove operations in order, all or nothing
+     *
+     * With an idempotency key the first response is kept for cart.batch.idempotency-ttl and returned
+     * again for retries of the same batch, without applying it twice
+     * @param userId User ID
+     * @param idempotencyKey Client-chosen key, or null
+     * @param request Operations to apply
+     * @param expectedVersion Cart version from If-Match, or null
+     * @return CartResponse DTO after the last operation
+     * @throws IdempotencyKeyConflictException when the key was used for a different batch or its
+     *         first request is still running
+     */
+    public CartResponse applyBatch(Long userId, String idempotencyKey, CartBatchRequest request, Long expectedVersion) {
+        log.info("Applying {} cart operations for user {} (key {})", request.getOperations().size(), userId, idempotencyKey);
 
-        // Verify item belongs to user's cart
-        if (!item.getCart().getId().equals(cart.getId())) {
-            throw new IllegalArgumentException("Cart item does not belong to user's cart");
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return CartResponse.fromEntity(cartStore.applyBatch(userId, request.getOperations(), expectedVersion));
         }
 
-        cart.removeItem(item);
-        cartItemRepository.delete(item);
+        String key = BATCH_KEY_PREFIX + userId + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, PENDING + fingerprint, pendingTtl))) {
+            return replay(key, fingerprint, idempotencyKey);
+        }
 
-        log.info("Removed item {} from cart", itemId);
+        CartResponse response;
+        try {
+            response = CartResponse.fromEntity(cartStore.applyBatch(userId, request.getOperations(), expectedVersion));
+        } catch (RuntimeException e) {
+            // Nothing was applied; let the client retry with the same key
+            redisTemplate.delete(key);
+            throw e;
+        }
+        try {
+            redisTemplate.opsForValue().set(key,
+                    objectMapper.writeValueAsString(new StoredBatch(fingerprint, response)), idempotencyTtl);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Could not store cart batch response", e);
+        }
+        return response;
+    }
 
-        // Refresh cart
-        Cart updatedCart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new CartNotFoundException(userId));
+    /**
+     * First response of a batch, kept under its idempotency key
+     */
+    record StoredBatch(String fingerprint, CartResponse response) {
+    }
 
-        return CartResponse.fromEntity(updatedCart);
+    private CartResponse replay(String key, String fingerprint, String idempotencyKey) {
+        String stored = redisTemplate.opsForValue().get(key);
+        if (stored == null || stored.startsWith(PENDING)) {
+            throw new IdempotencyKeyConflictException("Batch " + idempotencyKey + " is still being applied, retry shortly");
+        }
+        StoredBatch batch;
+        try {
+            batch = objectMapper.readValue(stored, StoredBatch.class);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Stored cart batch " + idempotencyKey + " is unreadable", e);
+        }
+        if (!batch.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyConflictException("Idempotency key " + idempotencyKey + " was already used for a different batch");
+        }
+        log.info("Replaying cart batch {}", idempotencyKey);
+        return batch.response();
+    }
+
+    private String fingerprint(CartBatchRequest request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new InternalServerException("Could not fingerprint cart batch", e);
+        }
     }
 
     /**
      * Clear all items from cart
      * @param userId User ID
+     * @param expectedVersion Cart version from If-Match, or null
      * @return CartResponse DTO (empty cart)
      */
-    public CartResponse clearCart(Long userId) {
+    public CartResponse clearCart(Long userId, Long expectedVersion) {
         log.info("Clearing cart for user {}", userId);
 
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new CartNotFoundException(userId));
-
-        cart.clearItems();
-        cartItemRepository.deleteByCartId(cart.getId());
-        cartRepository.save(cart);
-
+        cartStore.clear(userId, expectedVersion);
         log.info("Cleared all items from cart for user {}", userId);
 
         return CartResponse.empty(userId);
@@ -0,0 +1,263 @@
+package com.aptech.aptechMall.service;
+
+import com.aptech.aptechMall.Exception.CartNotFoundException;
+import com.aptech.aptechMall.Exception.CheckoutQuoteConflictException;
+import com.aptech.aptechMall.Exception.EmptyCartException;
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.dto.order.CheckoutQuoteResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.repository.CartItemRepository;
+import com.aptech.aptechMall.repository.CartRepository;
+import com.aptech.aptechMall.service.cart.CartStore;
+import com.aptech.aptechMall.service.marketplace.MarketplaceServiceRegistry;
+import com.aptech.aptechMall.service.marketplace.ProductKey;
+import com.aptech.aptechMall.service.marketplace.ProductQuote;
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Checkout pre-flight: re-quotes every distinct product in a cart in parallel, across all
+ * marketplaces, under one overall deadline.
+ *
+ * Quotes are cache-first within a freshness window, so the added latency is at most one
+ * upstream round trip however many items the cart holds. The result is stored in Redis
+ * for a short time; checkout redeems it by ID exactly once and either places the order at
+ * the quoted prices or rejects it as a whole. A quote missing any product's price cannot be
+ * redeemed; the client re-quotes instead.
+ */
+@Service
+@Slf4j
+public class CheckoutQuoteService {
+
+    private static final String KEY_PREFIX = "checkout:quote:";
+    private static final String CLAIMED_SUFFIX = ":claimed";
+
+    // Move the quote aside (keeping its TTL) only if it is still the one whose owner was checked
+    private static final RedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+            redis.call('RENAME', KEYS[1], KEYS[2])
+            return 1
+            """, Long.class);
+
+    // Put a claimed quote back after a rollback, unless it expired meanwhile
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            redis.call('RENAME', KEYS[1], KEYS[2])
+            return 1
+            """, Long.class);
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final MarketplaceServiceRegistry marketplaceServices;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration freshness;
+    private final Duration deadline;
+    private final Duration quoteTtl;
+
+    public CheckoutQuoteService(
+            CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            CartStore cartStore,
+            MarketplaceServiceRegistry marketplaceServices,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${checkout.quote.freshness:2m}") Duration freshness,
+            @Value("${checkout.quote.deadline:5s}") Duration deadline,
+            @Value("${checkout.quote.ttl:10m}") Duration quoteTtl) {
+
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.cartStore = cartStore;
+        this.marketplaceServices = marketplaceServices;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.freshness = freshness;
+        this.deadline = deadline;
+        this.quoteTtl = quoteTtl;
+    }
+
+    /**
+     * Re-quote the user's cart and store the result for checkout
+     * @param userId User ID
+     * @return Quote with per-item diff against the cart
+     */
+    public CheckoutQuoteResponse preflight(Long userId) {
+        log.info("Checkout pre-flight for user {}", userId);
+
+        cartStore.flush(userId);
+        Cart cart = cartRepository.findByUserIdWithItems(userId)
+                .orElseThrow(() -> new CartNotFoundException(userId));
+        if (cart.getItems().isEmpty()) {
+            throw new EmptyCartException();
+        }
+
+        Map<ProductKey, ProductQuote> quotes = quoteAll(cart.getItems());
+
+        List<CheckoutQuoteResponse.QuoteItemDTO> items = new ArrayList<>();
+        BigDecimal cartTotal = BigDecimal.ZERO;
+        BigDecimal quotedTotal = BigDecimal.ZERO;
+        boolean hasChanges = false;
+        boolean complete = true;
+
+        for (CartItem cartItem : cart.getItems()) {
+            ProductQuote quote = quotes.get(new ProductKey(cartItem.getMarketplace(), cartItem.getProductId()));
+            boolean quoted = quote != null;
+            boolean available = !quoted || quote.available();
+            BigDecimal quotedPrice = quoted && quote.unitPrice() != null ? quote.unitPrice() : cartItem.getPrice();
+            boolean priceChanged = quotedPrice.compareTo(cartItem.getPrice()) != 0;
+
+            complete &= quoted;
+            hasChanges |= priceChanged || !available;
+            BigDecimal quantity = BigDecimal.valueOf(cartItem.getQuantity());
+            cartTotal = cartTotal.add(cartItem.getPrice().multiply(quantity));
+            quotedTotal = quotedTotal.add(quotedPrice.multiply(quantity));
+
+            items.add(CheckoutQuoteResponse.QuoteItemDTO.builder()
+                    .cartItemId(cartItem.getId())
+                    .productId(cartItem.getProductId())
+                    .productName(cartItem.getProductName())
+                    .marketplace(cartItem.getMarketplace())
+                    .quantity(cartItem.getQuantity())
+                    .cartPrice(cartItem.getPrice())
+                    .quotedPrice(quotedPrice)
+                    .available(available)
+                    .priceChanged(priceChanged)
+                    .quoted(quoted)
+                    .build());
+        }
+
+        CheckoutQuoteResponse response = CheckoutQuoteResponse.builder()
+                .quoteId(UUID.randomUUID().toString())
+                .userId(userId)
+                .items(items)
+                .cartTotal(cartTotal)
+                .quotedTotal(quotedTotal)
+                .hasChanges(hasChanges)
+                .complete(complete)
+                .expiresAt(LocalDateTime.now().plus(quoteTtl))
+                .build();
+
+        store(response);
+        log.info("Quote {} for user {}: {} items, cart total {}, quoted total {}, changes: {}, complete: {}",
+                response.getQuoteId(), userId, items.size(), cartTotal, quotedTotal, hasChanges, complete);
+        return response;
+    }
+
+    /**
+     * Take a stored quote out of Redis; a quote can be redeemed only once.
+     * The quote is claimed right away, so a concurrent checkout cannot redeem it too, but it is
+     * only deleted once the surrounding transaction commits; a rolled-back order puts it back.
+     * @param userId User redeeming the quote
+     * @param quoteId Quote ID from the pre-flight
+     * @return The quote
+     * @throws CheckoutQuoteConflictException when the quote is unknown, expired, used, incomplete or not the user's
+     */
+    public CheckoutQuoteResponse redeem(Long userId, String quoteId) {
+        String key = KEY_PREFIX + quoteId;
+        String json = redisTemplate.opsForValue().get(key);
+        if (json == null) {
+            throw expiredOrUsed(quoteId);
+        }
+
+        CheckoutQuoteResponse quote;
+        try {
+            quote = objectMapper.readValue(json, CheckoutQuoteResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Stored quote " + quoteId + " is unreadable", e);
+        }
+        // Check ownership before touching the key, so another user's quote ID cannot burn it
+        if (!userId.equals(quote.getUserId())) {
+            throw new CheckoutQuoteConflictException("Quote " + quoteId + " does not belong to this user");
+        }
+        // Unquoted items carry the cart's price, which is exactly what the pre-flight is there to replace
+        if (!Boolean.TRUE.equals(quote.getComplete())) {
+            throw new CheckoutQuoteConflictException("Quote " + quoteId + " is missing prices for some items, please re-quote");
+        }
+
+        String claimKey = key + CLAIMED_SUFFIX;
+        Long claimed = redisTemplate.execute(CLAIM_SCRIPT, List.of(key, claimKey), json);
+        if (claimed == null || claimed == 0) {
+            throw expiredOrUsed(quoteId);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        redisTemplate.delete(claimKey);
+                    } else {
+                        redisTemplate.execute(RELEASE_SCRIPT, List.of(claimKey, key));
+                    }
+                }
+            });
+        } else {
+            redisTemplate.delete(claimKey);
+        }
+        return quote;
+    }
+
+    private static CheckoutQuoteConflictException expiredOrUsed(String quoteId) {
+        return new CheckoutQuoteConflictException("Quote " + quoteId + " has expired or was already used, please re-quote");
+    }
+
+    /**
+     * Quote all distinct products at once; products not answered by the deadline are left out
+     */
+    private Map<ProductKey, ProductQuote> quoteAll(List<CartItem> cartItems) {
+        Set<ProductKey> keys = new LinkedHashSet<>();
+        cartItems.forEach(item -> keys.add(new ProductKey(item.getMarketplace(), item.getProductId())));
+
+        Map<ProductKey, ProductQuote> quotes = Flux.fromIterable(keys)
+                .filter(key -> marketplaceServices.supports(key.marketplace()))
+                .flatMap(key -> marketplaceServices.get(key.marketplace())
+                        .getProductQuote(key.productId(), freshness)
+                        .onErrorResume(error -> {
+                            log.warn("Could not quote {} at checkout: {}", key, error.getMessage());
+                            return Mono.empty();
+                        }), Math.max(keys.size(), 1))
+                // Also cut calls that ignore the deadline, keeping whatever arrived in time
+                .take(deadline)
+                .collectMap(ProductQuote::key)
+                .contextWrite(RequestDeadline.within(deadline))
+                .block();
+
+        // Keep the cart's drift columns in step with what the user was just shown
+        quotes.values().forEach(quote -> cartItemRepository.updateLatestQuote(quote.marketplace(),
+                quote.productId(), quote.unitPrice(), quote.available(), quote.quotedAt()));
+        return quotes;
+    }
+
+    private void store(CheckoutQuoteResponse response) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + response.getQuoteId(),
+                    objectMapper.writeValueAsString(response), quoteTtl);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Could not store checkout quote", e);
+        }
+    }
+}
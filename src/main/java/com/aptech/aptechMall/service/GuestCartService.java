@@ -0,0 +1,166 @@
+package com.aptech.aptechMall.service;
+
+import com.aptech.aptechMall.Exception.CartItemNotFoundException;
+import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartOperation;
+import com.aptech.aptechMall.dto.cart.CartResponse;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.service.cart.CartStore;
+import com.aptech.aptechMall.service.cart.GuestCartStore;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Service for carts of shoppers who are not logged in
+ * A guest cart is found through the opaque guest_cart cookie and merged into the user's cart at login
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GuestCartService {
+
+    public static final String COOKIE_NAME = "guest_cart";
+
+    // 128 random bits, base64url without padding
+    private static final Pattern TOKEN = Pattern.compile("[A-Za-z0-9_-]{22}");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final GuestCartStore guestCartStore;
+    private final CartStore cartStore;
+
+    /**
+     * Get guest's cart with all items
+     * @param token Guest token from the cookie, or null
+     * @return CartResponse DTO, empty when the guest has no cart
+     */
+    public CartResponse getCart(String token) {
+        if (!isValid(token)) {
+            return CartResponse.empty(null);
+        }
+        return CartResponse.fromEntity(guestCartStore.find(token));
+    }
+
+    /**
+     * Add product to guest's cart, issuing a guest cookie when the request has none
+     * @param token Guest token from the cookie, or null
+     * @param request AddToCartRequest
+     * @param response Receives the guest cookie, which is refreshed along with the cart's TTL
+     * @return CartResponse DTO
+     */
+    public CartResponse addToCart(String token, AddToCartRequest request, HttpServletResponse response) {
+        if (!isValid(token)) {
+            token = newToken();
+        }
+        CartResponse cart = CartResponse.fromEntity(guestCartStore.addItem(token, request));
+        writeCookie(response, token, guestCartStore.ttl());
+        return cart;
+    }
+
+    /**
+     * Update guest cart item quantity
+     * @throws CartItemNotFoundException when the item is not in the cart
+     */
+    public CartResponse updateItemQuantity(String token, Long itemId, Integer quantity) {
+        return CartResponse.fromEntity(guestCartStore.updateItemQuantity(requireValid(token, itemId), itemId, quantity));
+    }
+
+    /**
+     * Remove item from guest cart
+     * @throws CartItemNotFoundException when the item is not in the cart
+     */
+    public CartResponse removeItem(String token, Long itemId) {
+        return CartResponse.fromEntity(guestCartStore.removeItem(requireValid(token, itemId), itemId));
+    }
+
+    /**
+     * Clear guest cart
+     * @return CartResponse DTO (empty cart)
+     */
+    public CartResponse clearCart(String token) {
+        if (isValid(token)) {
+            guestCartStore.clear(token);
+        }
+        return CartResponse.empty(null);
+    }
+
+    /**
+     * Move the guest cart of this request, if any, into the user's cart as one batch of adds
+     * (a single batched upsert in database mode) and drop the guest cookie.
+     * Never fails the login: on error the guest cart is put back for the next one.
+     */
+    public void mergeOnLogin(HttpServletRequest request, HttpServletResponse response, Long userId) {
+        String token = token(request);
+        if (!isValid(token)) {
+            return;
+        }
+        List<CartItem> items = guestCartStore.take(token);
+        if (!items.isEmpty()) {
+            try {
+                cartStore.applyBatch(userId, items.stream()
+                        .map(item -> new CartOperation(CartOperation.Type.ADD, new AddToCartRequest(item.getProductId(),
+                                item.getProductName(), item.getProductImage(), item.getPrice(), item.getQuantity(),
+                                item.getMarketplace()), null, null))
+                        .toList(), null);
+                log.info("Merged {} guest cart items into cart of user {}", items.size(), userId);
+            } catch (RuntimeException e) {
+                log.warn("Could not merge guest cart into cart of user {}: {}", userId, e.getMessage());
+                guestCartStore.restore(token, items);
+                return;
+            }
+        }
+        writeCookie(response, token, Duration.ZERO);
+    }
+
+    private static String token(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return null;
+        }
+        return Arrays.stream(request.getCookies())
+                .filter(cookie -> cookie.getName().equals(COOKIE_NAME))
+                .map(Cookie::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static boolean isValid(String token) {
+        return token != null && TOKEN.matcher(token).matches();
+    }
+
+    private static String requireValid(String token, Long itemId) {
+        if (!isValid(token)) {
+            throw new CartItemNotFoundException(itemId);
+        }
+        return token;
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void writeCookie(HttpServletResponse response, String token, Duration maxAge) {
+        // Same attributes as the refresh_token cookie, for the cross-origin React frontend
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, token)
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("None")
+                .path("/")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
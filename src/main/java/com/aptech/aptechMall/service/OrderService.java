@@ -1,14 +1,15 @@
 package com.aptech.aptechMall.service;
 
 import com.aptech.aptechMall.Exception.*;
+import com.aptech.aptechMall.dto.order.CheckoutQuoteResponse;
 import com.aptech.aptechMall.dto.order.CheckoutRequest;
 import com.aptech.aptechMall.dto.order.OrderResponse;
 import com.aptech.aptechMall.entity.*;
 import com.aptech.aptechMall.entity.enums.OrderStatus;
-import com.aptech.aptechMall.repository.CartItemRepository;
 import com.aptech.aptechMall.repository.CartRepository;
 import com.aptech.aptechMall.repository.OrderRepository;
 import com.aptech.aptechMall.repository.UserRepository;
+import com.aptech.aptechMall.service.cart.CartStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -16,9 +17,14 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing order operations
@@ -31,8 +37,9 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
     private final UserRepository userRepository;
+    private final CheckoutQuoteService checkoutQuoteService;
+    private final CartStore cartStore;
 
     /**
      * Generate unique order number
@@ -71,7 +78,8 @@ public class OrderService {
             throw new UserNotFoundException(userId);
         }
 
-        // Get cart with items
+        // Get cart with items, with any pending Redis changes written first
+        cartStore.flush(userId);
         Cart cart = cartRepository.findByUserIdWithItems(userId)
                 .orElseThrow(() -> new CartNotFoundException(userId));
 
@@ -80,21 +88,29 @@ public class OrderService {
             throw new EmptyCartException();
         }
 
+        // Redeem pre-flight quote (if any) before anything is written
+        Map<Long, BigDecimal> quotedPrices = request.getQuoteId() != null
+                ? quotedPrices(checkoutQuoteService.redeem(userId, request.getQuoteId()), cart)
+                : Map.of();
+
         // Create order
         Order order = new Order();
         order.setUserId(userId);
         order.setOrderNumber(generateOrderNumber());
-        order.setTotalAmount(cart.calculateTotal());
         order.setStatus(OrderStatus.PENDING);
         order.setShippingAddress(request.getShippingAddress());
         order.setPhone(request.getPhone());
         order.setNote(request.getNote());
 
         // Copy cart items to order items
+        BigDecimal totalAmount = BigDecimal.ZERO;
         for (CartItem cartItem : cart.getItems()) {
             OrderItem orderItem = OrderItem.fromCartItem(cartItem);
+            orderItem.setPrice(quotedPrices.getOrDefault(cartItem.getId(), cartItem.getPrice()));
+            totalAmount = totalAmount.add(orderItem.getPrice().multiply(BigDecimal.valueOf(orderItem.getQuantity())));
             order.addItem(orderItem);
         }
+        order.setTotalAmount(totalAmount);
 
         // Save order
         Order savedOrder = orderRepository.save(order);
@@ -103,15 +119,43 @@ public class OrderService {
                 savedOrder.getItems().size(),
                 savedOrder.getTotalAmount());
 
-        // Clear cart after successful checkout
-        cart.clearItems();
-        cartItemRepository.deleteByCartId(cart.getId());
-        cartRepository.save(cart);
-        log.info("Cleared cart for user {}", userId);
+        // Take the ordered items out of the cart; anything added meanwhile stays for the next order
+        cartStore.removeOrdered(userId, cart.getItems());
+        log.info("Removed {} ordered items from cart of user {}", cart.getItems().size(), userId);
 
         return OrderResponse.fromEntity(savedOrder);
     }
 
+    /**
+     * Check that a redeemed quote still matches the cart, and return its prices by cart item ID
+     * The quote is accepted or rejected as a whole
+     * @param quote Quote from the checkout pre-flight
+     * @param cart Cart being checked out
+     * @return Quoted unit price per cart item ID
+     */
+    private Map<Long, BigDecimal> quotedPrices(CheckoutQuoteResponse quote, Cart cart) {
+        Map<Long, CheckoutQuoteResponse.QuoteItemDTO> quotedItems = quote.getItems().stream()
+                .collect(Collectors.toMap(CheckoutQuoteResponse.QuoteItemDTO::getCartItemId, Function.identity()));
+
+        if (quotedItems.size() != cart.getItems().size()) {
+            throw new CheckoutQuoteConflictException("Cart changed since quote " + quote.getQuoteId() + ", please re-quote");
+        }
+
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            CheckoutQuoteResponse.QuoteItemDTO quoted = quotedItems.get(cartItem.getId());
+            if (quoted == null || !quoted.getQuantity().equals(cartItem.getQuantity())
+                    || quoted.getCartPrice().compareTo(cartItem.getPrice()) != 0) {
+                throw new CheckoutQuoteConflictException("Cart changed since quote " + quote.getQuoteId() + ", please re-quote");
+            }
+            if (!Boolean.TRUE.equals(quoted.getAvailable())) {
+                throw new CheckoutQuoteConflictException("Product " + cartItem.getProductName() + " is no longer available");
+            }
+            prices.put(cartItem.getId(), quoted.getQuotedPrice());
+        }
+        return prices;
+    }
+
     /**
      * Get all orders for user with pagination
      * @param userId User ID
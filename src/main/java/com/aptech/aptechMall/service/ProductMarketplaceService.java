@@ -2,8 +2,13 @@ package com.aptech.aptechMall.service;
 
 import com.aptech.aptechMall.dto.ProductDetailDTO;
 import com.aptech.aptechMall.dto.ProductSearchDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.marketplace.ProductQuote;
+import com.aptech.aptechMall.service.marketplace.SkuIndex;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 /**
  * Common interface for product marketplace services (AliExpress, Amazon, eBay, etc.)
  * Defines standard operations for searching products, retrieving details, and getting reviews.
@@ -30,6 +35,42 @@ public interface ProductMarketplaceService {
      */
     Mono<ProductDetailDTO> getProductDetails(String productId);
 
+    /**
+     * Re-fetch product details from the upstream API and replace any cached copy
+     * Used by the background refresher to keep popular products warm
+     *
+     * @param productId The unique product identifier
+     * @return Mono completing once the fresh copy is cached
+     */
+    Mono<Void> refreshProductDetails(String productId);
+
+    /**
+     * Quote the current unit price and availability of a product
+     * Cached details younger than maxAge are reused instead of calling the upstream API
+     *
+     * @param productId The unique product identifier
+     * @param maxAge Oldest cached details that are still acceptable
+     * @return Mono containing the quote; missing products are quoted as unavailable
+     */
+    Mono<ProductQuote> getProductQuote(String productId, Duration maxAge);
+
+    /**
+     * Get the raw HTML description of a product
+     * Kept out of the detail DTO because it is large and rarely viewed
+     *
+     * @param productId The unique product identifier
+     * @return Mono containing the description HTML, empty when the product has none
+     */
+    Mono<String> getProductDescription(String productId);
+
+    /**
+     * Get the SKU index of a product, used to resolve a variant selection without the full variant list
+     *
+     * @param productId The unique product identifier
+     * @return Mono containing the index (empty index for products without configured items)
+     */
+    Mono<SkuIndex> getSkuIndex(String productId);
+
     /**
      * Get product reviews with pagination
      *
@@ -47,11 +88,36 @@ public interface ProductMarketplaceService {
     String getMarketplaceName();
 
     /**
-     * Check if the marketplace service is healthy and API is reachable
+     * Get the marketplace this service talks to
+     *
+     * @return The marketplace enum value, as stored on cart and order items
+     */
+    Marketplace getMarketplace();
+
+    /**
+     * Map an indexed SKU to the variant DTO shared by detail responses and the SKU lookup
+     *
+     * @param sku SKU from a {@link SkuIndex}
+     * @return Variant DTO
+     */
+    static ProductDetailDTO.VariantDTO toVariantDTO(SkuIndex.Sku sku) {
+        return ProductDetailDTO.VariantDTO.builder()
+                .variantId(sku.skuId())
+                .name(sku.name())
+                .options(sku.options().stream().map(option -> option.pid() + ":" + option.vid()).toList())
+                .imageUrl(sku.imageUrl())
+                .price(sku.price())
+                .quantity(sku.quantity())
+                .build();
+    }
+
+    /**
+     * Make the cheapest real upstream call, used by the scheduled health probe when the
+     * marketplace has seen no traffic for a while; its outcome lands in the health window
      *
-     * @return Mono containing health status message
+     * @return Mono completing when the call succeeded
      */
-    default Mono<String> healthCheck() {
-        return Mono.just(getMarketplaceName() + " service is running");
+    default Mono<Void> probe() {
+        return Mono.empty();
     }
 }
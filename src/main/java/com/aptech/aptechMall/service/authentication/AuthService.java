@@ -7,6 +7,7 @@ import com.aptech.aptechMall.security.Role;
 import com.aptech.aptechMall.security.Status;
 import com.aptech.aptechMall.security.requests.*;
 import com.aptech.aptechMall.service.FileUploadService;
+import com.aptech.aptechMall.service.GuestCartService;
 import io.jsonwebtoken.*;
 import jakarta.persistence.EntityExistsException;
 import jakarta.servlet.http.Cookie;
@@ -32,6 +33,7 @@ public class AuthService {
     private final JwtService jwtService;
     private final RedisService redisService;
     private final FileUploadService fileUploadService;
+    private final GuestCartService guestCartService;
 
     public ProfileResponse getProfile(HttpServletRequest request, HttpServletResponse response){
         String authHeader = request.getHeader("Authorization");
@@ -125,7 +127,7 @@ public class AuthService {
         return new RegisterResponse("Successfully registered the user " + user.getUsername());
     }
 
-    public AuthResponse authenticate(AuthRequest request, HttpServletResponse response) {
+    public AuthResponse authenticate(AuthRequest request, HttpServletRequest httpRequest, HttpServletResponse response) {
         boolean existUsername = userRepository.existsByUsername(request.getUsername());
         User user = existUsername ?
                 userRepository.findByUsername(request.getUsername())
@@ -150,6 +152,9 @@ public class AuthService {
                 setCookieAttribute(response, refreshTokenCookie);
                 user.setLastLogin(LocalDateTime.now());
                 userRepository.save(user);
+                if (user.getRole() == Role.CUSTOMER) {
+                    guestCartService.mergeOnLogin(httpRequest, response, user.getId());
+                }
                 log.info("User " + user.getUsername() + " has logged in at " + user.getLastLogin());
                 return new AuthResponse(accessJwt);
             }
@@ -246,7 +251,7 @@ public class AuthService {
         return userRepository.existsByEmail(email);
     }
 
-    public AuthResponse authenticateGoogle(AuthRequest request){
+    public AuthResponse authenticateGoogle(AuthRequest request, HttpServletRequest httpRequest, HttpServletResponse response){
         User user; String accessJwt;
 
         user = userRepository.findByOAuthEmailAndVerified(request.getEmail(), request.getGoogleSub()).orElseGet(() -> {
@@ -276,6 +281,9 @@ public class AuthService {
                     accessJwt = jwtService.generateToken(user, "access_token");
                     user.setLastLogin(LocalDateTime.now());
                     userRepository.save(user);
+                    if (user.getRole() == Role.CUSTOMER) {
+                        guestCartService.mergeOnLogin(httpRequest, response, user.getId());
+                    }
                     log.info("Google Auth successfully authenticated for " + request.getEmail());
                     return new AuthResponse(accessJwt);
                 }
@@ -0,0 +1,97 @@
+package com.aptech.aptechMall.service.cart;
+
+import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartOperation;
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where the live cart of a user is kept and mutated.
+ *
+ * The carts / cart_items tables stay the system of record either way: checkout and the
+ * re-pricing job read them directly, after calling {@link #flush(Long)}. Returned carts are
+ * detached snapshots, only meant to be turned into responses.
+ *
+ * Mutations take the cart version the client last saw (If-Match), or null for an unconditional
+ * change; a cart that moved past that version is left untouched.
+ */
+public interface CartStore {
+
+    /**
+     * @return The user's cart, or empty when the user has none yet
+     * @throws com.aptech.aptechMall.Exception.UserNotFoundException when the user does not exist
+     */
+    Optional<Cart> find(Long userId);
+
+    /**
+     * Item count, total and version of the user's cart, without reading its items
+     * @return The summary, or empty when the user has no cart (unknown users included)
+     */
+    Optional<CartSummaryResponse> findSummary(Long userId);
+
+    /**
+     * Add a product, or raise its quantity when the cart already holds it
+     * @return Cart after the change
+     * @throws com.aptech.aptechMall.Exception.UserNotFoundException when the user does not exist
+     * @throws com.aptech.aptechMall.Exception.CartVersionMismatchException when expectedVersion is not current
+     */
+    Cart addItem(Long userId, AddToCartRequest request, Long expectedVersion);
+
+    /**
+     * @return Cart after the change
+     * @throws com.aptech.aptechMall.Exception.CartNotFoundException when the user has no cart
+     * @throws com.aptech.aptechMall.Exception.CartItemNotFoundException when the item is not in the cart
+     * @throws com.aptech.aptechMall.Exception.CartVersionMismatchException when expectedVersion is not current
+     */
+    Cart updateItemQuantity(Long userId, Long itemId, Integer quantity, Long expectedVersion);
+
+    /**
+     * @return Cart after the change
+     * @throws com.aptech.aptechMall.Exception.CartNotFoundException when the user has no cart
+     * @throws com.aptech.aptechMall.Exception.CartItemNotFoundException when the item is not in the cart
+     * @throws com.aptech.aptechMall.Exception.CartVersionMismatchException when expectedVersion is not current
+     */
+    Cart removeItem(Long userId, Long itemId, Long expectedVersion);
+
+    /**
+     * Apply operations in order, all or nothing
+     * @return Cart after the last operation
+     * @throws com.aptech.aptechMall.Exception.UserNotFoundException when the user does not exist
+     * @throws com.aptech.aptechMall.Exception.CartItemNotFoundException when an UPDATE or REMOVE targets
+     *         an item not in the cart; nothing is applied then
+     * @throws com.aptech.aptechMall.Exception.CartVersionMismatchException when expectedVersion is not current
+     */
+    Cart applyBatch(Long userId, List<CartOperation> operations, Long expectedVersion);
+
+    /**
+     * Remove every item; inside a transaction the change takes effect when it commits
+     * @throws com.aptech.aptechMall.Exception.CartNotFoundException when the user has no cart
+     * @throws com.aptech.aptechMall.Exception.CartVersionMismatchException when expectedVersion is not current
+     */
+    void clear(Long userId, Long expectedVersion);
+
+    /**
+     * Remove every item unconditionally
+     */
+    default void clear(Long userId) {
+        clear(userId, null);
+    }
+
+    /**
+     * Take the items of a placed order out of the cart: each loses the ordered quantity and is
+     * removed once none is left, while items added since the order read the cart stay.
+     * Inside a transaction the change takes effect when it commits
+     * @param ordered Cart items as read for the order (ID and quantity)
+     */
+    void removeOrdered(Long userId, List<CartItem> ordered);
+
+    /**
+     * Make the user's rows in carts / cart_items current before they are read directly.
+     * Joins the caller's transaction when there is one.
+     */
+    void flush(Long userId);
+}
@@ -0,0 +1,267 @@
+package com.aptech.aptechMall.service.cart;
+
+import com.aptech.aptechMall.Exception.CartItemNotFoundException;
+import com.aptech.aptechMall.Exception.CartNotFoundException;
+import com.aptech.aptechMall.Exception.CartVersionMismatchException;
+import com.aptech.aptechMall.Exception.UserNotFoundException;
+import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartOperation;
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.repository.CartItemRepository;
+import com.aptech.aptechMall.repository.CartRepository;
+import com.aptech.aptechMall.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Default store: every cart operation reads and writes carts / cart_items directly.
+ *
+ * Quantities change through atomic SQL deltas on the item row, so concurrent adds never lose
+ * updates. Each mutation ends by re-summing the cart's items into total_items / total_amount of
+ * the carts row in the same statement that records structural changes in the version.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.storage.mode", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class DatabaseCartStore implements CartStore {
+
+    private static final String UPSERT_ITEM =
+            "INSERT INTO cart_items (cart_id, product_id, product_name, product_image, price, quantity, marketplace, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) AS new " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + new.quantity";
+    private static final String UPDATE_ITEM = "UPDATE cart_items SET quantity = ? WHERE id = ? AND cart_id = ?";
+    private static final String DELETE_ITEM = "DELETE FROM cart_items WHERE id = ? AND cart_id = ?";
+    // An ordered item keeps whatever was added to it after the order read the cart
+    private static final String SUBTRACT_ORDERED =
+            "UPDATE cart_items SET quantity = quantity - ? WHERE id = ? AND cart_id = ? AND quantity > ?";
+    private static final String DELETE_ORDERED = "DELETE FROM cart_items WHERE id = ? AND cart_id = ? AND quantity <= ?";
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<Cart> find(Long userId) {
+        // Verify user exists
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        return cartRepository.findByUserIdWithItems(userId);
+    }
+
+    @Override
+    public Cart addItem(Long userId, AddToCartRequest request, Long expectedVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        Long cartId = getOrCreateCartId(userId, now);
+        boolean versioned = checkVersion(cartId, expectedVersion, now);
+
+        // Atomic delta on the item row: concurrent adds never read-modify-write the quantity
+        int affected = cartItemRepository.upsertQuantity(cartId, request.getProductId(), request.getProductName(),
+                request.getProductImage(), request.getPrice(), request.getQuantity(), request.getMarketplace().name(), now);
+        // A new item is a structural change
+        refreshTotals(cartId, affected == 1 && !versioned, now);
+        log.info("{} product {} x{} in cart of user {}", affected == 1 ? "Added" : "Increased",
+                request.getProductId(), request.getQuantity(), userId);
+
+        // Read back within the same transaction
+        return readCart(userId);
+    }
+
+    @Override
+    public Cart updateItemQuantity(Long userId, Long itemId, Integer quantity, Long expectedVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        Long cartId = cartRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new CartNotFoundException(userId));
+        checkVersion(cartId, expectedVersion, now);
+
+        if (cartItemRepository.updateQuantity(cartId, itemId, quantity) == 0) {
+            throw new CartItemNotFoundException(itemId);
+        }
+        refreshTotals(cartId, false, now);
+        return readCart(userId);
+    }
+
+    @Override
+    public Cart removeItem(Long userId, Long itemId, Long expectedVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        Long cartId = cartRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new CartNotFoundException(userId));
+        boolean versioned = checkVersion(cartId, expectedVersion, now);
+
+        if (cartItemRepository.deleteFromCart(cartId, itemId) == 0) {
+            throw new CartItemNotFoundException(itemId);
+        }
+        refreshTotals(cartId, !versioned, now);
+        return readCart(userId);
+    }
+
+    @Override
+    public Cart applyBatch(Long userId, List<CartOperation> operations, Long expectedVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        Long cartId = getOrCreateCartId(userId, now);
+        boolean versioned = checkVersion(cartId, expectedVersion, now);
+
+        // Each run of consecutive operations of one type goes out as one JDBC batch, so order is kept
+        int start = 0;
+        while (start < operations.size()) {
+            CartOperation.Type type = operations.get(start).getOp();
+            int end = start + 1;
+            while (end < operations.size() && operations.get(end).getOp() == type) {
+                end++;
+            }
+            List<CartOperation> run = operations.subList(start, end);
+
+            switch (type) {
+                case ADD -> jdbcTemplate.batchUpdate(UPSERT_ITEM, run.stream()
+                        .map(operation -> {
+                            AddToCartRequest item = operation.getItem();
+                            return new Object[]{cartId, item.getProductId(), item.getProductName(), item.getProductImage(),
+                                    item.getPrice(), item.getQuantity(), item.getMarketplace().name(), Timestamp.valueOf(now)};
+                        })
+                        .toList());
+                case UPDATE -> requireAll(run, jdbcTemplate.batchUpdate(UPDATE_ITEM, run.stream()
+                        .map(operation -> new Object[]{operation.getQuantity(), operation.getItemId(), cartId})
+                        .toList()));
+                case REMOVE -> requireAll(run, jdbcTemplate.batchUpdate(DELETE_ITEM, run.stream()
+                        .map(operation -> new Object[]{operation.getItemId(), cartId})
+                        .toList()));
+            }
+            start = end;
+        }
+        refreshTotals(cartId, !versioned
+                && operations.stream().anyMatch(operation -> operation.getOp() != CartOperation.Type.UPDATE), now);
+        log.info("Applied {} cart operations in {} batches for user {}", operations.size(), runs(operations), userId);
+
+        return readCart(userId);
+    }
+
+    @Override
+    public void clear(Long userId, Long expectedVersion) {
+        Long cartId = cartRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new CartNotFoundException(userId));
+        LocalDateTime now = LocalDateTime.now();
+        boolean versioned = checkVersion(cartId, expectedVersion, now);
+        cartItemRepository.deleteAllFromCart(cartId);
+        refreshTotals(cartId, !versioned, now);
+    }
+
+    @Override
+    public void removeOrdered(Long userId, List<CartItem> ordered) {
+        Optional<Long> cartId = cartRepository.findIdByUserId(userId);
+        if (cartId.isEmpty() || ordered.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE_ORDERED, ordered.stream()
+                .map(item -> new Object[]{item.getId(), cartId.get(), item.getQuantity()})
+                .toList());
+        jdbcTemplate.batchUpdate(SUBTRACT_ORDERED, ordered.stream()
+                .map(item -> new Object[]{item.getQuantity(), item.getId(), cartId.get(), item.getQuantity()})
+                .toList());
+        refreshTotals(cartId.get(), true, LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CartSummaryResponse> findSummary(Long userId) {
+        return cartRepository.findSummaryByUserId(userId);
+    }
+
+    @Override
+    public void flush(Long userId) {
+        // Writes go straight to the tables
+    }
+
+    /**
+     * Sum carts that predate total_items / total_amount
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void backfillTotals() {
+        int carts = cartRepository.backfillTotals();
+        if (carts > 0) {
+            log.info("Filled in totals of {} carts", carts);
+        }
+    }
+
+    /**
+     * Find the user's cart, creating it when missing
+     * @return Cart ID
+     */
+    private Long getOrCreateCartId(Long userId, LocalDateTime now) {
+        Optional<Long> cartId = cartRepository.findIdByUserId(userId);
+        if (cartId.isPresent()) {
+            return cartId.get();
+        }
+        if (cartRepository.insertForUser(userId, now) == 0 && !userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        log.info("Created new cart for user: {}", userId);
+        // Also picks up a cart created concurrently by another request
+        return cartRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new CartNotFoundException(userId));
+    }
+
+    /**
+     * With If-Match, claim the expected version by moving it on before anything else is written
+     * @return true when the version was incremented
+     */
+    private boolean checkVersion(Long cartId, Long expectedVersion, LocalDateTime now) {
+        if (expectedVersion == null) {
+            return false;
+        }
+        if (cartRepository.incrementVersionIfMatches(cartId, expectedVersion, now) == 0) {
+            throw new CartVersionMismatchException(expectedVersion);
+        }
+        return true;
+    }
+
+    /**
+     * Bring total_items / total_amount in line with the items, as the last write of every mutation
+     * so the cart row stays locked only until the commit
+     * @param structural true to also record a structural change not already claimed through If-Match
+     */
+    private void refreshTotals(Long cartId, boolean structural, LocalDateTime now) {
+        cartRepository.refreshTotals(cartId, structural ? 1 : 0, now);
+    }
+
+    private Cart readCart(Long userId) {
+        return cartRepository.findByUserIdWithItems(userId)
+                .orElseThrow(() -> new CartNotFoundException(userId));
+    }
+
+    /**
+     * An UPDATE or DELETE that matched no row targeted an item outside the cart; throwing rolls back the batch
+     */
+    private static void requireAll(List<CartOperation> run, int[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw new CartItemNotFoundException(run.get(i).getItemId());
+            }
+        }
+    }
+
+    private static int runs(List<CartOperation> operations) {
+        int runs = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            if (i == 0 || operations.get(i).getOp() != operations.get(i - 1).getOp()) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+}
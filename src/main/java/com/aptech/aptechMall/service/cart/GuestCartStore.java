@@ -0,0 +1,222 @@
+package com.aptech.aptechMall.service.cart;
+
+import com.aptech.aptechMall.Exception.CartItemNotFoundException;
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carts of anonymous shoppers, one Redis hash per guest token with a sliding TTL. They never
+ * reach the tables: at login they are merged into the user's {@link CartStore} and dropped.
+ *
+ * Hash cart:guest:{token}: s = item ID sequence, i:{itemId} = item JSON (same shape as the live
+ * carts of {@link RedisCartStore}), p:{marketplace}:{productId} = itemId for duplicate detection.
+ * Guests are unauthenticated, so a cart holds at most max-items products.
+ */
+@Component
+public class GuestCartStore {
+
+    private static final String KEY_PREFIX = "cart:guest:";
+    private static final String ITEM = "i:";
+    private static final String PRODUCT = "p:";
+
+    private static final String REPLY = """
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            local reply = redis.call('HGETALL', KEYS[1])
+            table.insert(reply, 1, 'OK')
+            return reply
+            """;
+
+    // ARGV: TTL millis, max items, product field, new item JSON, quantity to add
+    private static final RedisScript<List> ADD_SCRIPT = new DefaultRedisScript<>("""
+            local cart = KEYS[1]
+            local id = redis.call('HGET', cart, ARGV[3])
+            if id then
+              local item = cjson.decode(redis.call('HGET', cart, 'i:' .. id))
+              item.quantity = item.quantity + tonumber(ARGV[5])
+              redis.call('HSET', cart, 'i:' .. id, cjson.encode(item))
+            else
+              if math.floor(redis.call('HLEN', cart) / 2) >= tonumber(ARGV[2]) then return {'FULL'} end
+              id = redis.call('HINCRBY', cart, 's', 1)
+              local item = cjson.decode(ARGV[4])
+              item.id = id
+              redis.call('HSET', cart, 'i:' .. id, cjson.encode(item), ARGV[3], id)
+            end
+            """ + REPLY, List.class);
+
+    // ARGV: TTL millis, item ID, quantity
+    private static final RedisScript<List> UPDATE_SCRIPT = new DefaultRedisScript<>("""
+            local field = 'i:' .. ARGV[2]
+            if redis.call('HEXISTS', KEYS[1], field) == 0 then return {'NO_ITEM'} end
+            local item = cjson.decode(redis.call('HGET', KEYS[1], field))
+            item.quantity = tonumber(ARGV[3])
+            redis.call('HSET', KEYS[1], field, cjson.encode(item))
+            """ + REPLY, List.class);
+
+    // ARGV: TTL millis, item ID
+    private static final RedisScript<List> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            local field = 'i:' .. ARGV[2]
+            if redis.call('HEXISTS', KEYS[1], field) == 0 then return {'NO_ITEM'} end
+            local item = cjson.decode(redis.call('HGET', KEYS[1], field))
+            redis.call('HDEL', KEYS[1], field, 'p:' .. item.marketplace .. ':' .. item.productId)
+            """ + REPLY, List.class);
+
+    // Read and delete in one step, so two logins with the same cookie cannot both merge it
+    private static final RedisScript<List> TAKE_SCRIPT = new DefaultRedisScript<>("""
+            local reply = redis.call('HGETALL', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return reply
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int maxItems;
+
+    public GuestCartStore(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${cart.guest.ttl:7d}") Duration ttl,
+            @Value("${cart.guest.max-items:100}") int maxItems) {
+
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.maxItems = maxItems;
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    /**
+     * @return The guest's items, oldest first; empty for an unknown or expired token
+     */
+    public Cart find(String token) {
+        Map<String, String> hash = new HashMap<>();
+        redisTemplate.opsForHash().entries(cartKey(token))
+                .forEach((field, value) -> hash.put((String) field, (String) value));
+        return toCart(hash);
+    }
+
+    /**
+     * Add a product, or raise its quantity when the cart already holds it
+     * @throws IllegalStateException when the cart already holds max-items products
+     */
+    public Cart addItem(String token, AddToCartRequest request) {
+        RedisCartStore.LiveItem item = new RedisCartStore.LiveItem(null, request.getProductId(), request.getProductName(),
+                request.getProductImage(), request.getPrice(), request.getQuantity(), request.getMarketplace(),
+                LocalDateTime.now(), null, null, null);
+        return run(ADD_SCRIPT, token, null, String.valueOf(maxItems),
+                PRODUCT + request.getMarketplace().name() + ":" + request.getProductId(),
+                toJson(item), String.valueOf(request.getQuantity()));
+    }
+
+    /**
+     * @throws CartItemNotFoundException when the item is not in the cart
+     */
+    public Cart updateItemQuantity(String token, Long itemId, Integer quantity) {
+        return run(UPDATE_SCRIPT, token, itemId, String.valueOf(itemId), String.valueOf(quantity));
+    }
+
+    /**
+     * @throws CartItemNotFoundException when the item is not in the cart
+     */
+    public Cart removeItem(String token, Long itemId) {
+        return run(REMOVE_SCRIPT, token, itemId, String.valueOf(itemId));
+    }
+
+    public void clear(String token) {
+        redisTemplate.delete(cartKey(token));
+    }
+
+    /**
+     * Remove the guest cart and return its items, for merging into a user's cart
+     */
+    public List<CartItem> take(String token) {
+        @SuppressWarnings("unchecked")
+        List<String> reply = redisTemplate.execute(TAKE_SCRIPT, List.of(cartKey(token)));
+        return toCart(pairs(reply)).getItems();
+    }
+
+    /**
+     * Put back items taken for a merge that failed, adding to products the guest added meanwhile
+     */
+    public void restore(String token, List<CartItem> items) {
+        for (CartItem item : items) {
+            addItem(token, new AddToCartRequest(item.getProductId(), item.getProductName(), item.getProductImage(),
+                    item.getPrice(), item.getQuantity(), item.getMarketplace()));
+        }
+    }
+
+    private Cart run(RedisScript<List> script, String token, Long itemId, String... scriptArgs) {
+        String[] args = new String[1 + scriptArgs.length];
+        args[0] = String.valueOf(ttl.toMillis());
+        System.arraycopy(scriptArgs, 0, args, 1, scriptArgs.length);
+
+        @SuppressWarnings("unchecked")
+        List<String> reply = redisTemplate.execute(script, List.of(cartKey(token)), (Object[]) args);
+        return switch (reply.get(0)) {
+            case "OK" -> toCart(pairs(reply.subList(1, reply.size())));
+            case "NO_ITEM" -> throw new CartItemNotFoundException(itemId);
+            case "FULL" -> throw new IllegalStateException(
+                    "A guest cart holds at most " + maxItems + " products; log in to add more");
+            default -> throw new InternalServerException("Unexpected guest cart script reply " + reply.get(0));
+        };
+    }
+
+    private Cart toCart(Map<String, String> hash) {
+        Cart cart = new Cart();
+        hash.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(ITEM))
+                .map(entry -> fromJson(entry.getValue()))
+                .sorted(Comparator.comparing(RedisCartStore.LiveItem::id))
+                .forEach(item -> cart.addItem(item.toEntity()));
+        cart.setItemCount(cart.getTotalItems());
+        cart.setItemTotal(cart.calculateTotal());
+        return cart;
+    }
+
+    private static Map<String, String> pairs(List<String> flat) {
+        Map<String, String> hash = new HashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            hash.put(flat.get(i), flat.get(i + 1));
+        }
+        return hash;
+    }
+
+    private static String cartKey(String token) {
+        return KEY_PREFIX + token;
+    }
+
+    private String toJson(RedisCartStore.LiveItem item) {
+        try {
+            return objectMapper.writeValueAsString(item);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Could not serialize cart item", e);
+        }
+    }
+
+    private RedisCartStore.LiveItem fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, RedisCartStore.LiveItem.class);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Stored cart item is unreadable", e);
+        }
+    }
+}
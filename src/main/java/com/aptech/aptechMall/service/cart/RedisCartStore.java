@@ -0,0 +1,715 @@
+package com.aptech.aptechMall.service.cart;
+
+import com.aptech.aptechMall.Exception.CartItemNotFoundException;
+import com.aptech.aptechMall.Exception.CartNotFoundException;
+import com.aptech.aptechMall.Exception.CartVersionMismatchException;
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.Exception.UserNotFoundException;
+import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartOperation;
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.repository.CartRepository;
+import com.aptech.aptechMall.repository.UserRepository;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind store (cart.storage.mode=redis): the live cart of a user is one Redis hash,
+ * mutated atomically by Lua scripts, and copied to carts / cart_items by a background flusher.
+ *
+ * Hash cart:live:{userId}: c / u = created / updated time, v = version (carts.version, moved on
+ * by the same structural changes and If-Match requests as in database mode, so a summary ETag
+ * stays valid across quantity changes), w = write counter (bumped by every mutation, so the
+ * flusher can tell whether the cart changed meanwhile), id = carts.id once known, n / t = item
+ * count / total (the Redis mirror of carts.total_items / total_amount, re-summed by every
+ * mutation), i:{itemId} = item JSON, p:{marketplace}:{productId} = itemId for duplicate detection. A cart is loaded from the tables on first use; item IDs come
+ * from the Redis sequence cart:item-seq, seeded above MAX(cart_items.id).
+ *
+ * Every mutation also adds the user to the ZSET cart:dirty, scored with the time the cart first
+ * became dirty. The flusher writes carts that have been dirty for flush-delay, so a burst of
+ * edits becomes one upsert batch, and drops the entry only if the write counter did not move
+ * meanwhile.
+ *
+ * Durability: an acknowledged change lives in Redis only until the flush, at most about
+ * flush-delay + flush-interval later. Redis should run with appendonly yes / appendfsync
+ * everysec so a Redis restart loses at most a second. An application crash loses nothing:
+ * cart:dirty survives it and is drained on startup (and on shutdown).
+ */
+@Component
+@ConditionalOnProperty(name = "cart.storage.mode", havingValue = "redis")
+@Slf4j
+public class RedisCartStore implements CartStore {
+
+    private static final String KEY_PREFIX = "cart:live:";
+    private static final String DIRTY_KEY = "cart:dirty";
+    private static final String SEQUENCE_KEY = "cart:item-seq";
+
+    private static final String CREATED = "c";
+    private static final String UPDATED = "u";
+    private static final String VERSION = "v";
+    private static final String WRITES = "w";
+    private static final String CART_ID = "id";
+    private static final String ITEM_COUNT = "n";
+    private static final String ITEM_TOTAL = "t";
+    private static final String ITEM = "i:";
+    private static final String PRODUCT = "p:";
+
+    /**
+     * Shared head of the mutation scripts.
+     * KEYS: cart, dirty, sequence; ARGV: userId, dirty score, updated time, TTL millis,
+     * expected version ('' for none), script arguments. A cart without a carts row exists once
+     * it has been changed, i.e. while it waits in cart:dirty for its first flush.
+     */
+    private static final String MUTATION_PRELUDE = """
+            local cart, dirty = KEYS[1], KEYS[2]
+            if redis.call('HEXISTS', cart, 'c') == 0 then return {'NOT_LOADED'} end
+            if ARGV[5] ~= '' and redis.call('HGET', cart, 'v') ~= ARGV[5] then return {'VERSION_MISMATCH'} end
+            local function exists()
+              return redis.call('HEXISTS', cart, 'id') == 1 or redis.call('ZSCORE', dirty, ARGV[1])
+            end
+            -- true when a new item was created, false when the quantity of an existing one grew
+            local function add(field, json, quantity)
+              local id = redis.call('HGET', cart, field)
+              if id then
+                local item = cjson.decode(redis.call('HGET', cart, 'i:' .. id))
+                item.quantity = item.quantity + tonumber(quantity)
+                redis.call('HSET', cart, 'i:' .. id, cjson.encode(item))
+                return false
+              end
+              id = redis.call('INCR', KEYS[3])
+              local item = cjson.decode(json)
+              item.id = id
+              redis.call('HSET', cart, 'i:' .. id, cjson.encode(item), field, id)
+              return true
+            end
+            local function update(id, quantity)
+              local item = cjson.decode(redis.call('HGET', cart, 'i:' .. id))
+              item.quantity = tonumber(quantity)
+              redis.call('HSET', cart, 'i:' .. id, cjson.encode(item))
+            end
+            local function remove(id)
+              local item = cjson.decode(redis.call('HGET', cart, 'i:' .. id))
+              redis.call('HDEL', cart, 'i:' .. id, 'p:' .. item.marketplace .. ':' .. item.productId)
+            end
+            local function totals()
+              local count, cents = 0, 0
+              local fields = redis.call('HGETALL', cart)
+              for i = 1, #fields, 2 do
+                if string.sub(fields[i], 1, 2) == 'i:' then
+                  local item = cjson.decode(fields[i + 1])
+                  count = count + item.quantity
+                  cents = cents + item.quantity * math.floor(tonumber(item.price) * 100 + 0.5)
+                end
+              end
+              redis.call('HSET', cart, 'n', count, 't', string.format('%d.%02d', math.floor(cents / 100), cents % 100))
+            end
+            -- structural: an item was added or removed; If-Match claims the version either way
+            local function touch(structural)
+              totals()
+              if structural or ARGV[5] ~= '' then redis.call('HINCRBY', cart, 'v', 1) end
+              redis.call('HINCRBY', cart, 'w', 1)
+              redis.call('HSET', cart, 'u', ARGV[3])
+              redis.call('PEXPIRE', cart, ARGV[4])
+              redis.call('ZADD', dirty, 'NX', ARGV[2], ARGV[1])
+            end
+            local function result()
+              local reply = redis.call('HGETALL', cart)
+              table.insert(reply, 1, 'OK')
+              return reply
+            end
+            """;
+
+    // ARGV[6] = product field, ARGV[7] = new item JSON, ARGV[8] = quantity to add
+    private static final RedisScript<List> ADD_SCRIPT = new DefaultRedisScript<>(MUTATION_PRELUDE + """
+            if redis.call('EXISTS', KEYS[3]) == 0 then return {'NO_SEQUENCE'} end
+            touch(add(ARGV[6], ARGV[7], ARGV[8]))
+            return result()
+            """, List.class);
+
+    // ARGV[6] = item ID, ARGV[7] = quantity
+    private static final RedisScript<List> UPDATE_SCRIPT = new DefaultRedisScript<>(MUTATION_PRELUDE + """
+            if not exists() then return {'NO_CART'} end
+            if redis.call('HEXISTS', cart, 'i:' .. ARGV[6]) == 0 then return {'NO_ITEM', ARGV[6]} end
+            update(ARGV[6], ARGV[7])
+            touch(false)
+            return result()
+            """, List.class);
+
+    // ARGV[6] = item ID
+    private static final RedisScript<List> REMOVE_SCRIPT = new DefaultRedisScript<>(MUTATION_PRELUDE + """
+            if not exists() then return {'NO_CART'} end
+            if redis.call('HEXISTS', cart, 'i:' .. ARGV[6]) == 0 then return {'NO_ITEM', ARGV[6]} end
+            remove(ARGV[6])
+            touch(true)
+            return result()
+            """, List.class);
+
+    // ARGV[6..] = operation type and 3 arguments per operation: ADD product field, item JSON, quantity;
+    // UPDATE item ID, quantity, ''; REMOVE item ID, '', ''. Checked in full before anything is applied
+    private static final RedisScript<List> BATCH_SCRIPT = new DefaultRedisScript<>(MUTATION_PRELUDE + """
+            local removed, structural = {}, false
+            for i = 6, #ARGV, 4 do
+              local op, id = ARGV[i], ARGV[i + 1]
+              if op ~= 'UPDATE' then structural = true end
+              if op == 'ADD' then
+                if redis.call('EXISTS', KEYS[3]) == 0 then return {'NO_SEQUENCE'} end
+              elseif removed[id] or redis.call('HEXISTS', cart, 'i:' .. id) == 0 then
+                return {'NO_ITEM', id}
+              elseif op == 'REMOVE' then
+                removed[id] = true
+              end
+            end
+            for i = 6, #ARGV, 4 do
+              local op = ARGV[i]
+              if op == 'ADD' then add(ARGV[i + 1], ARGV[i + 2], ARGV[i + 3])
+              elseif op == 'UPDATE' then update(ARGV[i + 1], ARGV[i + 2])
+              else remove(ARGV[i + 1]) end
+            end
+            touch(structural)
+            return result()
+            """, List.class);
+
+    private static final RedisScript<List> CLEAR_SCRIPT = new DefaultRedisScript<>(MUTATION_PRELUDE + """
+            if not exists() then return {'NO_CART'} end
+            local fields = {}
+            for _, field in ipairs(redis.call('HKEYS', cart)) do
+              local kind = string.sub(field, 1, 2)
+              if kind == 'i:' or kind == 'p:' then table.insert(fields, field) end
+            end
+            if #fields > 0 then redis.call('HDEL', cart, unpack(fields)) end
+            touch(true)
+            return result()
+            """, List.class);
+
+    // ARGV[6..] = item ID and ordered quantity per ordered item. Items missing from the cart are
+    // skipped, and items added after the order read the cart are kept
+    private static final RedisScript<List> REMOVE_ORDERED_SCRIPT = new DefaultRedisScript<>(MUTATION_PRELUDE + """
+            local changed, removed = false, false
+            for i = 6, #ARGV, 2 do
+              local json = redis.call('HGET', cart, 'i:' .. ARGV[i])
+              if json then
+                local left = cjson.decode(json).quantity - tonumber(ARGV[i + 1])
+                if left > 0 then update(ARGV[i], left) else remove(ARGV[i]); removed = true end
+                changed = true
+              end
+            end
+            if changed then touch(removed) end
+            return result()
+            """, List.class);
+
+    // KEYS: cart; ARGV: TTL millis, then field / value pairs. Never overwrites a loaded cart
+    private static final RedisScript<List> LOAD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], 'c') == 0 then
+              redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return redis.call('HGETALL', KEYS[1])
+            """, List.class);
+
+    // KEYS: cart, dirty; ARGV: flushed write counter, userId, carts.id
+    private static final RedisScript<Long> FLUSHED_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], 'c') == 1 then redis.call('HSET', KEYS[1], 'id', ARGV[3]) end
+            if (redis.call('HGET', KEYS[1], 'w') or '') == ARGV[1] then return redis.call('ZREM', KEYS[2], ARGV[2]) end
+            return 0
+            """, Long.class);
+
+    // KEYS: sequence; ARGV: lowest allowed value
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>("""
+            if tonumber(redis.call('GET', KEYS[1]) or '0') < tonumber(ARGV[1]) then
+              redis.call('SET', KEYS[1], ARGV[1])
+            end
+            return tonumber(redis.call('GET', KEYS[1]))
+            """, Long.class);
+
+    // Creates the carts row if needed; either way it stays locked until the flush commits
+    private static final String LOCK_CART =
+            "INSERT INTO carts (user_id, created_at, updated_at, version) VALUES (?, ?, ?, 0) " +
+            "ON DUPLICATE KEY UPDATE updated_at = updated_at";
+    // latest_* columns belong to the re-pricing job and are never written from Redis
+    private static final String UPSERT_ITEM =
+            "INSERT INTO cart_items (id, cart_id, product_id, product_name, product_image, price, quantity, marketplace, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) AS new " +
+            "ON DUPLICATE KEY UPDATE quantity = new.quantity";
+
+    /**
+     * Cart item as stored in the hash; amounts are strings so the Lua scripts never round them
+     */
+    record LiveItem(
+            Long id,
+            String productId,
+            String productName,
+            String productImage,
+            @JsonFormat(shape = JsonFormat.Shape.STRING) BigDecimal price,
+            Integer quantity,
+            Marketplace marketplace,
+            LocalDateTime createdAt,
+            @JsonFormat(shape = JsonFormat.Shape.STRING) BigDecimal latestPrice,
+            Boolean latestAvailable,
+            LocalDateTime priceCheckedAt) {
+
+        static LiveItem of(CartItem item) {
+            return new LiveItem(item.getId(), item.getProductId(), item.getProductName(), item.getProductImage(),
+                    item.getPrice(), item.getQuantity(), item.getMarketplace(), item.getCreatedAt(),
+                    item.getLatestPrice(), item.getLatestAvailable(), item.getPriceCheckedAt());
+        }
+
+        CartItem toEntity() {
+            CartItem item = new CartItem();
+            item.setId(id);
+            item.setProductId(productId);
+            item.setProductName(productName);
+            item.setProductImage(productImage);
+            item.setPrice(price);
+            item.setQuantity(quantity);
+            item.setMarketplace(marketplace);
+            item.setCreatedAt(createdAt);
+            item.setLatestPrice(latestPrice);
+            item.setLatestAvailable(latestAvailable);
+            item.setPriceCheckedAt(priceCheckedAt);
+            return item;
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration flushDelay;
+    private final int batchSize;
+    private final Duration idleTtl;
+    private final Timer flushed;
+    private final Timer flushFailed;
+
+    public RedisCartStore(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            CartRepository cartRepository,
+            UserRepository userRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${cart.storage.redis.flush-delay:2s}") Duration flushDelay,
+            @Value("${cart.storage.redis.batch-size:200}") int batchSize,
+            @Value("${cart.storage.redis.idle-ttl:7d}") Duration idleTtl) {
+
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.flushDelay = flushDelay;
+        this.batchSize = batchSize;
+        this.idleTtl = idleTtl;
+        this.flushed = Timer.builder("cart.storage.flush")
+                .description("Write-behind flushes of Redis carts to the database")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.flushFailed = Timer.builder("cart.storage.flush")
+                .description("Write-behind flushes of Redis carts to the database")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<Cart> find(Long userId) {
+        Map<String, String> hash = entries(userId);
+        if (!hash.containsKey(CREATED)) {
+            hash = load(userId);
+        }
+        if (!hash.containsKey(CART_ID) && !isDirty(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(toCart(userId, hash));
+    }
+
+    @Override
+    public Optional<CartSummaryResponse> findSummary(Long userId) {
+        List<Object> fields = redisTemplate.opsForHash().multiGet(cartKey(userId),
+                List.of(CREATED, VERSION, CART_ID, ITEM_COUNT, ITEM_TOTAL));
+        if (fields.get(0) == null) {
+            // Not live: nothing is waiting to be flushed, so the carts row is current
+            return cartRepository.findSummaryByUserId(userId);
+        }
+        if (fields.get(2) == null && !isDirty(userId)) {
+            return Optional.empty();
+        }
+        if (fields.get(3) == null) {
+            // Loaded before the mirror existed; summed on its next mutation
+            Cart cart = toCart(userId, entries(userId));
+            return Optional.of(new CartSummaryResponse(userId, cart.getVersion(), cart.getTotalItems(), cart.calculateTotal()));
+        }
+        return Optional.of(new CartSummaryResponse(userId, Long.valueOf((String) fields.get(1)),
+                Integer.valueOf((String) fields.get(3)), new BigDecimal((String) fields.get(4))));
+    }
+
+    @Override
+    public Cart addItem(Long userId, AddToCartRequest request, Long expectedVersion) {
+        return mutate(userId, ADD_SCRIPT, expectedVersion, addArgs(request));
+    }
+
+    @Override
+    public Cart updateItemQuantity(Long userId, Long itemId, Integer quantity, Long expectedVersion) {
+        return mutate(userId, UPDATE_SCRIPT, expectedVersion, String.valueOf(itemId), String.valueOf(quantity));
+    }
+
+    @Override
+    public Cart removeItem(Long userId, Long itemId, Long expectedVersion) {
+        return mutate(userId, REMOVE_SCRIPT, expectedVersion, String.valueOf(itemId));
+    }
+
+    @Override
+    public Cart applyBatch(Long userId, List<CartOperation> operations, Long expectedVersion) {
+        List<String> args = new ArrayList<>();
+        for (CartOperation operation : operations) {
+            args.add(operation.getOp().name());
+            switch (operation.getOp()) {
+                case ADD -> args.addAll(List.of(addArgs(operation.getItem())));
+                case UPDATE -> args.addAll(List.of(String.valueOf(operation.getItemId()),
+                        String.valueOf(operation.getQuantity()), ""));
+                case REMOVE -> args.addAll(List.of(String.valueOf(operation.getItemId()), "", ""));
+            }
+        }
+        return mutate(userId, BATCH_SCRIPT, expectedVersion, args.toArray(String[]::new));
+    }
+
+    @Override
+    public void clear(Long userId, Long expectedVersion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Do not empty the live cart for a checkout that is then rolled back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mutate(userId, CLEAR_SCRIPT, expectedVersion);
+                }
+            });
+        } else {
+            mutate(userId, CLEAR_SCRIPT, expectedVersion);
+        }
+    }
+
+    @Override
+    public void removeOrdered(Long userId, List<CartItem> ordered) {
+        String[] args = ordered.stream()
+                .flatMap(item -> Stream.of(item.getId().toString(), item.getQuantity().toString()))
+                .toArray(String[]::new);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Only once the order is committed; the order stands even if this fails
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        mutate(userId, REMOVE_ORDERED_SCRIPT, null, args);
+                    } catch (RuntimeException e) {
+                        log.warn("Could not remove ordered items from cart of user {}: {}", userId, e.getMessage());
+                    }
+                }
+            });
+        } else {
+            mutate(userId, REMOVE_ORDERED_SCRIPT, null, args);
+        }
+    }
+
+    @Override
+    public void flush(Long userId) {
+        if (isDirty(userId)) {
+            flushNow(userId);
+        }
+    }
+
+    /**
+     * Flush carts that have been dirty for at least flush-delay
+     */
+    @Scheduled(fixedDelayString = "${cart.storage.redis.flush-interval:1000}")
+    void flushDue() {
+        long dueBefore = System.currentTimeMillis() - flushDelay.toMillis();
+        flushAll(redisTemplate.opsForZSet().rangeByScore(DIRTY_KEY, 0, dueBefore, 0, batchSize));
+    }
+
+    /**
+     * Crash recovery: carts left dirty by a previous process are written before serving traffic
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void recover() {
+        seedSequence();
+        // Sum carts that predate total_items / total_amount
+        Integer summed = transactionTemplate.execute(status -> cartRepository.backfillTotals());
+        if (summed != null && summed > 0) {
+            log.info("Filled in totals of {} carts", summed);
+        }
+        Set<String> pending = redisTemplate.opsForZSet().range(DIRTY_KEY, 0, -1);
+        if (pending != null && !pending.isEmpty()) {
+            log.info("Flushing {} carts left dirty by a previous run", pending.size());
+            flushAll(pending);
+        }
+    }
+
+    @PreDestroy
+    void drain() {
+        flushAll(redisTemplate.opsForZSet().range(DIRTY_KEY, 0, -1));
+    }
+
+    private void flushAll(Set<String> userIds) {
+        if (userIds == null) {
+            return;
+        }
+        for (String userId : userIds) {
+            try {
+                flushNow(Long.valueOf(userId));
+            } catch (RuntimeException e) {
+                // Stays in cart:dirty and is retried on the next run
+                log.warn("Could not flush cart of user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Copy the cart to the tables in one transaction (the caller's, if any), then mark it clean
+     * once that commits, unless it changed again in the meantime
+     */
+    private void flushNow(Long userId) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Locks the carts row first, so flushes of one cart run one at a time and the
+                // last one to commit always read the newest version
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.update(LOCK_CART, userId, now, now);
+
+                Map<String, String> hash = entries(userId);
+                if (!hash.containsKey(CREATED)) {
+                    // Expired or lost with Redis; the tables hold the last flushed state
+                    redisTemplate.opsForZSet().remove(DIRTY_KEY, userId.toString());
+                    return;
+                }
+                String writes = hash.getOrDefault(WRITES, "");
+                List<LiveItem> items = items(hash);
+
+                Long cartId = jdbcTemplate.queryForObject("SELECT id FROM carts WHERE user_id = ?", Long.class, userId);
+                // The version goes along, so a cart reloaded after its hash expired keeps its ETag
+                jdbcTemplate.update("UPDATE carts SET updated_at = ?, total_items = ?, total_amount = ?, version = ? WHERE id = ?",
+                        Timestamp.valueOf(LocalDateTime.parse(hash.get(UPDATED))),
+                        items.stream().mapToInt(LiveItem::quantity).sum(), total(items),
+                        Long.valueOf(hash.get(VERSION)), cartId);
+                // Removed items go first: a product removed and added again has a new ID but the same
+                // (cart_id, product_id, marketplace) key as its old row
+                if (items.isEmpty()) {
+                    jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id = ?", cartId);
+                } else {
+                    List<Object> args = new ArrayList<>();
+                    args.add(cartId);
+                    items.forEach(item -> args.add(item.id()));
+                    jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id = ? AND id NOT IN ("
+                            + items.stream().map(item -> "?").collect(Collectors.joining(", ")) + ")", args.toArray());
+                }
+                jdbcTemplate.batchUpdate(UPSERT_ITEM, items, items.size(), (ps, item) -> {
+                    ps.setLong(1, item.id());
+                    ps.setLong(2, cartId);
+                    ps.setString(3, item.productId());
+                    ps.setString(4, item.productName());
+                    ps.setString(5, item.productImage());
+                    ps.setBigDecimal(6, item.price());
+                    ps.setInt(7, item.quantity());
+                    ps.setString(8, item.marketplace().name());
+                    ps.setTimestamp(9, Timestamp.valueOf(item.createdAt()));
+                });
+
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        redisTemplate.execute(FLUSHED_SCRIPT, List.of(cartKey(userId), DIRTY_KEY),
+                                writes, userId.toString(), cartId.toString());
+                    }
+                });
+            });
+            flushed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            flushFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Run a mutation script, loading the cart or re-seeding the item sequence when needed
+     */
+    private Cart mutate(Long userId, RedisScript<List> script, Long expectedVersion, String... scriptArgs) {
+        List<String> keys = List.of(cartKey(userId), DIRTY_KEY, SEQUENCE_KEY);
+        String[] args = new String[5 + scriptArgs.length];
+        args[0] = userId.toString();
+        args[2] = LocalDateTime.now().toString();
+        args[3] = String.valueOf(idleTtl.toMillis());
+        args[4] = expectedVersion != null ? expectedVersion.toString() : "";
+        System.arraycopy(scriptArgs, 0, args, 5, scriptArgs.length);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            args[1] = String.valueOf(System.currentTimeMillis());
+            @SuppressWarnings("unchecked")
+            List<String> reply = redisTemplate.execute(script, keys, (Object[]) args);
+            switch (reply.get(0)) {
+                case "OK" -> {
+                    return toCart(userId, pairs(reply.subList(1, reply.size())));
+                }
+                case "NOT_LOADED" -> load(userId);
+                case "NO_SEQUENCE" -> seedSequence();
+                case "VERSION_MISMATCH" -> throw new CartVersionMismatchException(expectedVersion);
+                case "NO_CART" -> throw new CartNotFoundException(userId);
+                case "NO_ITEM" -> throw new CartItemNotFoundException(Long.valueOf(reply.get(1)));
+                default -> throw new InternalServerException("Unexpected cart script reply " + reply.get(0));
+            }
+        }
+        throw new InternalServerException("Could not load cart of user " + userId + " into Redis");
+    }
+
+    /**
+     * Copy the user's cart from the tables into Redis, unless another request already did
+     */
+    private Map<String, String> load(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        Optional<Cart> stored = cartRepository.findByUserIdWithItems(userId);
+        String now = LocalDateTime.now().toString();
+
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(idleTtl.toMillis()));
+        args.addAll(List.of(VERSION, String.valueOf(stored.map(Cart::getVersion).orElse(0L))));
+        args.addAll(List.of(CREATED, stored.map(cart -> cart.getCreatedAt().toString()).orElse(now)));
+        args.addAll(List.of(UPDATED, stored.map(cart -> cart.getUpdatedAt().toString()).orElse(now)));
+        args.addAll(List.of(ITEM_COUNT, String.valueOf(stored.map(Cart::getTotalItems).orElse(0))));
+        args.addAll(List.of(ITEM_TOTAL, stored.map(Cart::calculateTotal).orElse(BigDecimal.ZERO).toPlainString()));
+        stored.ifPresent(cart -> {
+            args.addAll(List.of(CART_ID, cart.getId().toString()));
+            for (CartItem item : cart.getItems()) {
+                args.addAll(List.of(ITEM + item.getId(), toJson(LiveItem.of(item))));
+                args.addAll(List.of(PRODUCT + item.getMarketplace().name() + ":" + item.getProductId(), item.getId().toString()));
+            }
+        });
+
+        @SuppressWarnings("unchecked")
+        List<String> reply = redisTemplate.execute(LOAD_SCRIPT, List.of(cartKey(userId)), args.toArray());
+        return pairs(reply);
+    }
+
+    /**
+     * @return Product field, new item JSON and quantity for the add function of the scripts
+     */
+    private String[] addArgs(AddToCartRequest request) {
+        LiveItem item = new LiveItem(null, request.getProductId(), request.getProductName(), request.getProductImage(),
+                request.getPrice(), request.getQuantity(), request.getMarketplace(), LocalDateTime.now(),
+                null, null, null);
+        return new String[]{PRODUCT + request.getMarketplace().name() + ":" + request.getProductId(),
+                toJson(item), String.valueOf(request.getQuantity())};
+    }
+
+    /**
+     * Keep the item sequence above every ID already in cart_items
+     */
+    private void seedSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cart_items", Long.class);
+        redisTemplate.execute(SEED_SCRIPT, List.of(SEQUENCE_KEY), String.valueOf(maxId));
+    }
+
+    private Cart toCart(Long userId, Map<String, String> hash) {
+        Cart cart = new Cart();
+        cart.setId(hash.containsKey(CART_ID) ? Long.valueOf(hash.get(CART_ID)) : null);
+        cart.setUserId(userId);
+        cart.setCreatedAt(LocalDateTime.parse(hash.get(CREATED)));
+        cart.setUpdatedAt(LocalDateTime.parse(hash.get(UPDATED)));
+        cart.setVersion(Long.valueOf(hash.get(VERSION)));
+        items(hash).forEach(item -> cart.addItem(item.toEntity()));
+        cart.setItemCount(cart.getTotalItems());
+        cart.setItemTotal(cart.calculateTotal());
+        return cart;
+    }
+
+    private static BigDecimal total(List<LiveItem> items) {
+        return items.stream()
+                .map(item -> item.price().multiply(BigDecimal.valueOf(item.quantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private List<LiveItem> items(Map<String, String> hash) {
+        return hash.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(ITEM))
+                .map(entry -> fromJson(entry.getValue()))
+                .sorted(Comparator.comparing(LiveItem::id))
+                .toList();
+    }
+
+    private boolean isDirty(Long userId) {
+        return redisTemplate.opsForZSet().score(DIRTY_KEY, userId.toString()) != null;
+    }
+
+    private Map<String, String> entries(Long userId) {
+        Map<String, String> hash = new HashMap<>();
+        redisTemplate.opsForHash().entries(cartKey(userId))
+                .forEach((field, value) -> hash.put((String) field, (String) value));
+        return hash;
+    }
+
+    private static Map<String, String> pairs(List<String> flat) {
+        Map<String, String> hash = new HashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            hash.put(flat.get(i), flat.get(i + 1));
+        }
+        return hash;
+    }
+
+    private static String cartKey(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private String toJson(LiveItem item) {
+        try {
+            return objectMapper.writeValueAsString(item);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Could not serialize cart item", e);
+        }
+    }
+
+    private LiveItem fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, LiveItem.class);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Stored cart item is unreadable", e);
+        }
+    }
+}
@@ -1,20 +1,37 @@
 package com.aptech.aptechMall.service;
 
+import com.aptech.aptechMall.Exception.ProductNotFoundException;
 import com.aptech.aptechMall.dto.ProductDetailDTO;
 import com.aptech.aptechMall.dto.ProductSearchDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
 import com.aptech.aptechMall.model.m1688.m1688ProductSearchResponse;
 import com.aptech.aptechMall.model.m1688.m1688ProductDetailResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.aptech.aptechMall.service.marketplace.CategoryTree;
+import com.aptech.aptechMall.service.marketplace.MarketplaceWorkScheduler;
+import com.aptech.aptechMall.service.marketplace.ProductQuote;
+import com.aptech.aptechMall.service.marketplace.SearchFilter;
+import com.aptech.aptechMall.service.marketplace.SearchSort;
+import com.aptech.aptechMall.service.marketplace.SearchWindowCache;
+import com.aptech.aptechMall.service.marketplace.SkuIndex;
+import com.aptech.aptechMall.service.marketplace.SkuIndexCache;
+import com.aptech.aptechMall.service.marketplace.VendorCache;
+import com.aptech.aptechMall.service.otapi.OtApiClient;
+import com.aptech.aptechMall.service.otapi.OtApiClientFactory;
+import com.aptech.aptechMall.service.otapi.OtApiEndpoint;
+import com.aptech.aptechMall.service.otapi.OtApiModel;
+import com.aptech.aptechMall.service.pricing.PriceFormat;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatusCode;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.ExchangeStrategies;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -25,35 +42,34 @@ import java.util.List;
 @Service
 public class m1688Service implements ProductMarketplaceService {
 
-    private final WebClient webClient;
-    private final ObjectMapper objectMapper;
-
-    @Value("${rapidapi.m1688.key}")
-    private String apiKey;
-
-    @Value("${rapidapi.m1688.host}")
-    private String apiHost;
+    private final OtApiClient<m1688ProductDetailResponse, m1688ProductSearchResponse> otApi;
+    private final MarketplaceWorkScheduler workScheduler;
+    private final SearchWindowCache searchWindows;
+    private final SkuIndexCache skuIndexes;
+    private final CategoryTree categoryTree;
+    private final VendorCache vendorCache;
 
     public m1688Service(
             @Value("${rapidapi.m1688.base-url}") String baseUrl,
-            ObjectMapper objectMapper) {
-
-        // Increase buffer size to 10MB to handle large API responses
-        ExchangeStrategies strategies = ExchangeStrategies.builder()
-                .codecs(configurer -> configurer
-                        .defaultCodecs()
-                        .maxInMemorySize(10 * 1024 * 1024)) // 10MB
-                .build();
-
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .exchangeStrategies(strategies)
-                .defaultHeader("Accept", "application/json")
-                .defaultHeader("Content-Type", "application/json")
-                .build();
-        this.objectMapper = objectMapper;
-
-        log.info("Alibaba1688Service: WebClient initialized with 10MB buffer size");
+            @Value("${rapidapi.m1688.key}") String apiKey,
+            @Value("${rapidapi.m1688.host}") String apiHost,
+            OtApiClientFactory otApiClients,
+            MarketplaceWorkScheduler workScheduler,
+            SearchWindowCache searchWindows,
+            SkuIndexCache skuIndexes,
+            CategoryTree categoryTree,
+            VendorCache vendorCache) {
+
+        this.otApi = otApiClients.create(
+                new OtApiEndpoint(getMarketplace(), getMarketplaceName(), baseUrl, apiKey, apiHost),
+                new OtApiModel<>(m1688ProductDetailResponse.class, m1688ProductSearchResponse.class,
+                        response -> response.getResult() != null && response.getResult().getItem() != null,
+                        this::onItemFetched));
+        this.workScheduler = workScheduler;
+        this.searchWindows = searchWindows;
+        this.skuIndexes = skuIndexes;
+        this.categoryTree = categoryTree;
+        this.vendorCache = vendorCache;
     }
 
     /**
@@ -64,49 +80,20 @@ public class m1688Service implements ProductMarketplaceService {
         log.info("Searching 1688 products - keyword: {}, language: {}, framePosition: {}, frameSize: {}",
                 keyword, language, framePosition, frameSize);
 
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/BatchSearchItemsFrame")
-                        .queryParam("ItemTitle", keyword)  // Changed from "keyword" to "ItemTitle"
-                        .queryParam("language", language)
-                        .queryParam("framePosition", framePosition)
-                        .queryParam("frameSize", frameSize)
-                        .build())
-                .header("x-rapidapi-key", apiKey)  // Changed to lowercase
-                .header("x-rapidapi-host", apiHost)  // Changed to lowercase
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, response -> {
-                    log.error("Error response from 1688 API: {}", response.statusCode());
-                    return response.bodyToMono(String.class)
-                            .flatMap(errorBody -> {
-                                log.error("Error body: {}", errorBody);
-                                return Mono.error(new RuntimeException("1688 API Error: " + errorBody));
-                            });
-                })
-                .bodyToMono(String.class)
-                .doOnNext(jsonString -> {
-                    log.debug("Raw JSON response from 1688 API: {}",
-                            jsonString.substring(0, Math.min(500, jsonString.length())) + "...");
-                })
-                .flatMap(jsonString -> {
-                    try {
-                        m1688ProductSearchResponse response = objectMapper.readValue(
-                                jsonString, m1688ProductSearchResponse.class);
-                        log.info("Successfully parsed 1688 search results - ErrorCode: {}",
-                                response.getErrorCode());
-                        return Mono.just(response);
-                    } catch (Exception e) {
-                        log.error("Error parsing 1688 JSON: {}", e.getMessage());
-                        log.error("Problematic JSON: {}", jsonString);
-                        return Mono.error(new RuntimeException("JSON parsing error: " + e.getMessage(), e));
-                    }
-                })
-                .timeout(Duration.ofSeconds(30))
-                .doOnError(WebClientResponseException.class, error ->
-                        log.error("WebClient error (1688): Status={}, Body={}",
-                                error.getStatusCode(), error.getResponseBodyAsString()))
-                .doOnError(error ->
-                        log.error("Error searching 1688 products: {}", error.getMessage(), error));
+        return otApi.searchItemsFrame(keyword, language, framePosition, frameSize)
+                .doOnNext(response -> log.info("Successfully parsed 1688 search results - ErrorCode: {}",
+                        response.getErrorCode()));
+    }
+
+    /**
+     * Search products using BatchSearchItemsFrame, streaming the raw payload without decoding
+     */
+    public Flux<DataBuffer> searchProductsRaw(String keyword, String language,
+                                              int framePosition, int frameSize) {
+        log.info("Streaming raw 1688 search results - keyword: {}, framePosition: {}, frameSize: {}",
+                keyword, framePosition, frameSize);
+
+        return otApi.streamSearchItemsFrame(keyword, language, framePosition, frameSize);
     }
 
     /**
@@ -117,186 +104,360 @@ public class m1688Service implements ProductMarketplaceService {
     public Mono<ProductSearchDTO> searchProducts(String keyword, int page, int sort) {
         log.info("searchProducts called for 1688 - keyword: {}, page: {}", keyword, page);
 
-        // Convert page to framePosition
         int frameSize = 10;
-        int framePosition = (page - 1) * frameSize;
+        SearchSort searchSort = SearchSort.fromIndex(sort);
+        if (searchSort != SearchSort.DEFAULT) {
+            return searchProductsWindowed(keyword, "en", page, frameSize, searchSort, SearchFilter.NONE);
+        }
 
+        // Default order is the upstream order, so the page maps straight onto a frame
+        int framePosition = (page - 1) * frameSize;
         return searchProductsSimplified(keyword, "en", framePosition, frameSize);
     }
 
+    /**
+     * Search products sorted and filtered locally over a cached window of results
+     * Only the first call for a keyword reaches the API; other pages, sorts and filters reuse the window
+     */
+    public Mono<ProductSearchDTO> searchProductsWindowed(String keyword, String language, int page, int pageSize,
+                                                          SearchSort sort, SearchFilter filter) {
+        return searchWindows.get(getMarketplace(), keyword, language,
+                        (framePosition, frameSize) -> searchProductsSimplified(keyword, language, framePosition, frameSize))
+                .map(window -> window.page(keyword, page, pageSize, sort, filter));
+    }
+
     /**
      * Search products using 1688 API and return simplified DTO
      */
     public Mono<ProductSearchDTO> searchProductsSimplified(String keyword, String language,
                                                             int framePosition, int frameSize) {
         return searchProducts1688API(keyword, language, framePosition, frameSize)
-                .map(response -> {
-                    if (response == null ||
-                        response.getResult() == null ||
-                        response.getResult().getItems() == null ||
-                        response.getResult().getItems().getItems() == null) {
-                        log.warn("Invalid response structure from 1688 API");
-                        return ProductSearchDTO.builder()
-                                .products(List.of())
-                                .build();
-                    }
-
-                    var itemsData = response.getResult().getItems().getItems();
-
-                    // Build meta
-                    int currentPage = frameSize > 0 ? (framePosition / frameSize) + 1 : 1;
-
-                    ProductSearchDTO.SearchMeta meta = ProductSearchDTO.SearchMeta.builder()
-                            .keyword(keyword)
-                            .currentPage(currentPage)
-                            .pageSize(frameSize)
-                            .totalResults(itemsData.getTotalCount() != null ?
-                                         itemsData.getTotalCount() : 0)
-                            .sortOptions(List.of("Default", "PriceAsc", "PriceDesc", "Sales"))
-                            .build();
-
-                    // Build products list
-                    List<ProductSearchDTO.ProductSummaryDTO> products = List.of();
-                    if (itemsData.getContent() != null) {
-                        products = itemsData.getContent().stream()
-                                .filter(product -> product != null && !Boolean.TRUE.equals(product.getHasError()))
-                                .map(product -> {
-                                    // Extract promotion percent
-                                    Integer promotionPercent = null;
-                                    if (product.getPromotionPricePercent() != null &&
-                                        !product.getPromotionPricePercent().isEmpty()) {
-                                        promotionPercent = product.getPromotionPricePercent().get(0).getPercent();
-                                    }
-
-                                    // Extract image URLs
-                                    List<String> imageUrls = List.of();
-                                    if (product.getPictures() != null) {
-                                        imageUrls = product.getPictures().stream()
-                                                .map(m1688ProductSearchResponse.Picture::getUrl)
-                                                .filter(url -> url != null && !url.isEmpty())
-                                                .toList();
-                                    }
-
-                                    // Parse sales count
-                                    Integer salesCount = null;
-                                    try {
-                                        String salesStr = product.getTotalSales();
-                                        if (salesStr != null) {
-                                            salesCount = Integer.parseInt(salesStr);
-                                        }
-                                    } catch (NumberFormatException e) {
-                                        log.debug("Could not parse sales count: {}", product.getTotalSales());
-                                    }
-
-                                    // Get prices
-                                    String currentPrice = "N/A";
-                                    String originalPrice = null;
-                                    String currencySign = "¥"; // 1688 uses CNY
-                                    boolean hasDiscount = false;
-
-                                    if (product.getPrice() != null) {
-                                        currencySign = product.getPrice().getCurrencySign() != null ?
-                                                      product.getPrice().getCurrencySign() : "¥";
-
-                                        if (product.hasPromotion()) {
-                                            currentPrice = String.format("%.2f",
-                                                    product.getPromotionPrice().getOriginalPrice());
-                                            originalPrice = String.format("%.2f",
-                                                    product.getPrice().getOriginalPrice());
-                                            hasDiscount = true;
-                                        } else if (product.getPrice().getConvertedPriceWithoutSign() != null) {
-                                            currentPrice = product.getPrice().getConvertedPriceWithoutSign();
-                                        } else if (product.getPrice().getOriginalPrice() != null) {
-                                            currentPrice = String.format("%.2f",
-                                                    product.getPrice().getOriginalPrice());
-                                        }
-                                    }
-
-                                    return ProductSearchDTO.ProductSummaryDTO.builder()
-                                            .itemId(product.getId())
-                                            .itemIdNumeric(product.getItemIdNumeric())
-                                            .title(product.getTitle())
-                                            .imageUrl(product.getMainPictureUrl())
-                                            .productUrl(product.getTaobaoItemUrl() != null ?
-                                                       product.getTaobaoItemUrl() :
-                                                       product.getExternalItemUrl())
-                                            .currentPrice(currentPrice)
-                                            .originalPrice(originalPrice)
-                                            .currencySign(currencySign)
-                                            .salesCount(salesCount)
-                                            .hasDiscount(hasDiscount)
-                                            .rating(product.getRating())
-                                            .reviewCount(product.getReviewCount())
-                                            .vendorName(product.getVendorDisplayName())
-                                            .brandName(product.getBrandName())
-                                            .promotionPercent(promotionPercent)
-                                            .imageUrls(imageUrls)
-                                            .build();
-                                })
-                                .toList();
-                    }
-
-                    return ProductSearchDTO.builder()
-                            .meta(meta)
-                            .products(products)
-                            .build();
-                })
+                .flatMap(response -> workScheduler.offload(getMarketplaceName(), "search-mapping",
+                        () -> toProductSearchDTO(keyword, framePosition, frameSize, response)))
                 .doOnError(error ->
                         log.error("Error building simplified DTO from 1688 API: {}", error.getMessage()));
     }
 
+    /**
+     * Map a 1688 BatchSearchItemsFrame response to the simplified search DTO
+     */
+    private ProductSearchDTO toProductSearchDTO(String keyword, int framePosition, int frameSize,
+                                                m1688ProductSearchResponse response) {
+        if (response == null ||
+            response.getResult() == null ||
+            response.getResult().getItems() == null ||
+            response.getResult().getItems().getItems() == null) {
+            log.warn("Invalid response structure from 1688 API");
+            return ProductSearchDTO.builder()
+                    .products(List.of())
+                    .build();
+        }
+
+        var itemsData = response.getResult().getItems().getItems();
+
+        // Build meta
+        int currentPage = frameSize > 0 ? (framePosition / frameSize) + 1 : 1;
+
+        ProductSearchDTO.SearchMeta meta = ProductSearchDTO.SearchMeta.builder()
+                .keyword(keyword)
+                .currentPage(currentPage)
+                .pageSize(frameSize)
+                .totalResults(itemsData.getTotalCount() != null ?
+                             itemsData.getTotalCount() : 0)
+                .sortOptions(SearchSort.labels())
+                .build();
+
+        // Build products list
+        List<ProductSearchDTO.ProductSummaryDTO> products = List.of();
+        if (itemsData.getContent() != null) {
+            products = itemsData.getContent().stream()
+                    .filter(product -> product != null && !Boolean.TRUE.equals(product.getHasError()))
+                    .map(product -> {
+                        // Extract promotion percent
+                        Integer promotionPercent = null;
+                        if (product.getPromotionPricePercent() != null &&
+                            !product.getPromotionPricePercent().isEmpty()) {
+                            promotionPercent = product.getPromotionPricePercent().get(0).getPercent();
+                        }
+
+                        // Extract image URLs
+                        List<String> imageUrls = List.of();
+                        if (product.getPictures() != null) {
+                            imageUrls = product.getPictures().stream()
+                                    .map(m1688ProductSearchResponse.Picture::getUrl)
+                                    .filter(url -> url != null && !url.isEmpty())
+                                    .toList();
+                        }
+
+                        // Parse sales count
+                        Integer salesCount = null;
+                        try {
+                            String salesStr = product.getTotalSales();
+                            if (salesStr != null) {
+                                salesCount = Integer.parseInt(salesStr);
+                            }
+                        } catch (NumberFormatException e) {
+                            log.debug("Could not parse sales count: {}", product.getTotalSales());
+                        }
+
+                        // Get prices
+                        String currentPrice = "N/A";
+                        String originalPrice = null;
+                        String currencySign = "¥"; // 1688 uses CNY
+                        boolean hasDiscount = false;
+
+                        if (product.getPrice() != null) {
+                            currencySign = product.getPrice().getCurrencySign() != null ?
+                                          product.getPrice().getCurrencySign() : "¥";
+
+                            if (product.hasPromotion()) {
+                                currentPrice = PriceFormat.plain(
+                                        product.getPromotionPrice().getOriginalPrice());
+                                originalPrice = PriceFormat.plain(
+                                        product.getPrice().getOriginalPrice());
+                                hasDiscount = true;
+                            } else if (product.getPrice().getConvertedPriceWithoutSign() != null) {
+                                currentPrice = product.getPrice().getConvertedPriceWithoutSign();
+                            } else if (product.getPrice().getOriginalPrice() != null) {
+                                currentPrice = PriceFormat.plain(
+                                        product.getPrice().getOriginalPrice());
+                            }
+                        }
+
+                        return ProductSearchDTO.ProductSummaryDTO.builder()
+                                .itemId(product.getId())
+                                .itemIdNumeric(product.getItemIdNumeric())
+                                .title(product.getTitle())
+                                .imageUrl(product.getMainPictureUrl())
+                                .productUrl(product.getTaobaoItemUrl() != null ?
+                                           product.getTaobaoItemUrl() :
+                                           product.getExternalItemUrl())
+                                .currentPrice(currentPrice)
+                                .originalPrice(originalPrice)
+                                .currencySign(currencySign)
+                                .salesCount(salesCount)
+                                .hasDiscount(hasDiscount)
+                                .rating(product.getRating())
+                                .reviewCount(product.getReviewCount())
+                                .vendorName(product.getVendorDisplayName())
+                                .brandName(product.getBrandName())
+                                .promotionPercent(promotionPercent)
+                                .imageUrls(imageUrls)
+                                .build();
+                    })
+                    .toList();
+        }
+
+        return ProductSearchDTO.builder()
+                .meta(meta)
+                .products(products)
+                .build();
+    }
+
     /**
      * Get product details by ID (full response)
      */
     public Mono<m1688ProductDetailResponse> getProductDetailsFull(String productId) {
-        log.info("Getting 1688 product details for ID: {}", productId);
-
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/BatchGetItemFullInfo")
-                        .queryParam("language", "en")
-                        .queryParam("itemId", productId)
-                        .build())
-                .header("x-rapidapi-key", apiKey)
-                .header("x-rapidapi-host", apiHost)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, response -> {
-                    log.error("Error response from 1688 API: {}", response.statusCode());
-                    return response.bodyToMono(String.class)
-                            .flatMap(errorBody -> {
-                                log.error("Error body: {}", errorBody);
-                                return Mono.error(new RuntimeException("1688 API Error: " + errorBody));
-                            });
-                })
-                .bodyToMono(String.class)
-                .doOnNext(jsonString -> {
-                    log.debug("Raw JSON response for 1688 product {}: {}", productId,
-                            jsonString.substring(0, Math.min(500, jsonString.length())) + "...");
-                })
-                .flatMap(jsonString -> {
-                    try {
-                        m1688ProductDetailResponse response = objectMapper.readValue(
-                                jsonString, m1688ProductDetailResponse.class);
-
-                        if (!"Ok".equalsIgnoreCase(response.getErrorCode())) {
-                            log.error("1688 API returned error: {}", response.getErrorCode());
-                            return Mono.error(new RuntimeException("1688 API Error: " + response.getErrorCode()));
-                        }
+        return otApi.getItemFullInfo(productId);
+    }
 
-                        log.info("Successfully parsed 1688 product details for ID: {}", productId);
-                        return Mono.just(response);
-                    } catch (Exception e) {
-                        log.error("Error parsing 1688 JSON for product {}: {}", productId, e.getMessage());
-                        log.error("Problematic JSON: {}", jsonString);
-                        return Mono.error(new RuntimeException("JSON parsing error: " + e.getMessage(), e));
-                    }
-                })
-                .timeout(Duration.ofSeconds(30))
-                .doOnError(WebClientResponseException.class, error ->
-                        log.error("WebClient error getting 1688 product details: Status={}, Body={}",
-                                error.getStatusCode(), error.getResponseBodyAsString()))
-                .doOnError(error ->
-                        log.error("Error getting 1688 product details for ID {}: {}", productId, error.getMessage(), error));
+    /**
+     * Re-fetch product details and replace the cached copy
+     * Implementation of ProductMarketplaceService interface
+     */
+    @Override
+    public Mono<Void> refreshProductDetails(String productId) {
+        return otApi.refreshItemFullInfo(productId).then();
+    }
+
+    /**
+     * Get the description HTML from the (cached) full product details
+     * Implementation of ProductMarketplaceService interface
+     */
+    @Override
+    public Mono<String> getProductDescription(String productId) {
+        return getProductDetailsFull(productId)
+                .mapNotNull(response -> response.getResult().getItem().getDescription());
+    }
+
+    /**
+     * Get the SKU index of a product, building it from the (cached) full details on a miss
+     * Implementation of ProductMarketplaceService interface
+     */
+    @Override
+    public Mono<SkuIndex> getSkuIndex(String productId) {
+        return Mono.defer(() -> {
+            SkuIndex cached = skuIndexes.get(getMarketplace(), productId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return getProductDetailsFull(productId)
+                    .map(this::toSkuIndex)
+                    .doOnNext(index -> skuIndexes.put(getMarketplace(), productId, index));
+        });
+    }
+
+    /**
+     * Merge the product's RootPath chain into the derived category tree
+     */
+    private void recordCategory(String productId, m1688ProductDetailResponse response) {
+        var rootPath = response.getResult().getRootPath();
+        if (rootPath == null || rootPath.getContent() == null) {
+            return;
+        }
+        var item = response.getResult().getItem();
+        var price = item.getPromotionPrice() != null && item.getPromotionPrice().getOriginalPrice() != null
+                ? item.getPromotionPrice()
+                : item.getPrice();
+
+        categoryTree.record(getMarketplace(), productId, item.getTitle(), item.getMainPictureUrl(),
+                price != null ? price.getOriginalPrice() : null,
+                price != null ? price.getCurrencySign() : null,
+                rootPath.getContent().stream()
+                        .map(category -> new CategoryTree.PathEntry(category.getId(), category.getName()))
+                        .toList());
+    }
+
+    /**
+     * Cache the vendor block and merge its items, plus this product, into the vendor's storefront
+     */
+    private void recordVendor(String productId, m1688ProductDetailResponse response) {
+        var vendor = response.getResult().getVendor();
+        if (vendor == null) {
+            return;
+        }
+        var item = response.getResult().getItem();
+        List<ProductDetailDTO.RelatedProductDTO> items = new ArrayList<>();
+        var vendorItems = response.getResult().getVendorItems();
+        if (vendorItems != null && vendorItems.getContent() != null) {
+            vendorItems.getContent().forEach(vendorItem -> items.add(toRelatedProduct(vendorItem.getId(),
+                    vendorItem.getTitle(), vendorItem.getMainPictureUrl(), vendorItem.getExternalItemUrl(),
+                    vendorItem.getPrice())));
+        }
+        items.add(toRelatedProduct(productId, item.getTitle(), item.getMainPictureUrl(),
+                item.getExternalItemUrl(), item.getPrice()));
+
+        vendorCache.record(getMarketplace(), toVendorDTO(vendor), items);
+    }
+
+    private ProductDetailDTO.VendorDTO toVendorDTO(m1688ProductDetailResponse.Vendor vendor) {
+        Integer positiveRating = null;
+        if (vendor.getCredit() != null && vendor.getCredit().getTotalFeedbacks() != null
+                && vendor.getCredit().getTotalFeedbacks() > 0 && vendor.getCredit().getPositiveFeedbacks() != null) {
+            positiveRating = (int) Math.round(
+                (vendor.getCredit().getPositiveFeedbacks() * 100.0) / vendor.getCredit().getTotalFeedbacks()
+            );
+        }
+
+        return ProductDetailDTO.VendorDTO.builder()
+                .vendorId(vendor.getId())
+                .vendorName(vendor.getName())
+                .displayName(vendor.getDisplayName())
+                .shopUrl(getShopUrl(vendor.getFeaturedValues()))
+                .logoUrl(vendor.getDisplayPictureUrl())
+                .positiveRating(positiveRating)
+                .totalFeedbacks(vendor.getCredit() != null ? vendor.getCredit().getTotalFeedbacks() : null)
+                .build();
+    }
+
+    /**
+     * Helper method to extract shop URL from vendor's featured values
+     */
+    private String getShopUrl(List<m1688ProductDetailResponse.FeaturedValue> featuredValues) {
+        if (featuredValues != null) {
+            return featuredValues.stream()
+                    .filter(fv -> "shopUrl".equals(fv.getName()))
+                    .map(m1688ProductDetailResponse.FeaturedValue::getValue)
+                    .findFirst()
+                    .orElse(null);
+        }
+        return null;
+    }
+
+    private static ProductDetailDTO.RelatedProductDTO toRelatedProduct(String itemId, String title, String imageUrl,
+                                                                       String productUrl, m1688ProductDetailResponse.Price price) {
+        return ProductDetailDTO.RelatedProductDTO.builder()
+                .itemId(itemId)
+                .title(title)
+                .imageUrl(imageUrl)
+                .productUrl(productUrl)
+                .price(price != null ? price.getOriginalPrice() : null)
+                .currencySign(price != null ? price.getCurrencySign() : "$")
+                .build();
+    }
+
+    /**
+     * Index every configured item by its (pid, vid) selection
+     */
+    private SkuIndex toSkuIndex(m1688ProductDetailResponse response) {
+        var item = response.getResult().getItem();
+        SkuIndex.Builder index = SkuIndex.builder();
+
+        if (item.getAttributes() != null) {
+            item.getAttributes().forEach(attr -> index.attribute(attr.getPid(), attr.getVid(),
+                    attr.getPropertyName(), attr.getValue(), attr.getImageUrl()));
+        }
+        if (item.getConfiguredItems() != null) {
+            item.getConfiguredItems().forEach(config -> index.sku(
+                    config.getId(),
+                    config.getConfigurators() != null
+                            ? config.getConfigurators().stream().map(c -> new String[]{c.getPid(), c.getVid()}).toList()
+                            : List.of(),
+                    config.getPrice() != null ? config.getPrice().getOriginalPrice() : null,
+                    config.getQuantity()));
+        }
+        return index.build();
+    }
+
+    /**
+     * Quote current unit price and availability, reusing cached details no older than maxAge
+     * Implementation of ProductMarketplaceService interface
+     */
+    @Override
+    public Mono<ProductQuote> getProductQuote(String productId, Duration maxAge) {
+        return otApi.getItemFullInfo(productId, maxAge)
+                .map(response -> toProductQuote(productId, response))
+                .onErrorResume(ProductNotFoundException.class,
+                        error -> Mono.just(ProductQuote.unavailable(getMarketplace(), productId)));
+    }
+
+    /**
+     * Extract the price a buyer would pay right now (promotion price first) and availability
+     */
+    private ProductQuote toProductQuote(String productId, m1688ProductDetailResponse response) {
+        var item = response.getResult().getItem();
+        var price = item.getPromotionPrice() != null && item.getPromotionPrice().getOriginalPrice() != null
+                ? item.getPromotionPrice()
+                : item.getPrice();
+
+        BigDecimal unitPrice = null;
+        String currencyCode = null;
+        if (price != null && price.getOriginalPrice() != null) {
+            unitPrice = BigDecimal.valueOf(price.getOriginalPrice()).setScale(2, RoundingMode.HALF_UP);
+            currencyCode = price.getOriginalCurrencyCode();
+        }
+        boolean available = !Boolean.TRUE.equals(item.getHasError())
+                && (item.getMasterQuantity() == null || item.getMasterQuantity() > 0)
+                && unitPrice != null;
+
+        return new ProductQuote(getMarketplace(), productId, unitPrice, currencyCode, available, LocalDateTime.now());
+    }
+
+    /**
+     * Feed the derived indexes from product details fresh from the upstream API
+     */
+    private void onItemFetched(String productId, m1688ProductDetailResponse response) {
+        skuIndexes.put(getMarketplace(), productId, toSkuIndex(response));
+        recordCategory(productId, response);
+        recordVendor(productId, response);
+    }
+
+    /**
+     * Get product details as the raw OtAPI payload, streamed without decoding
+     * Only the leading bytes are inspected to check ErrorCode
+     */
+    public Flux<DataBuffer> getProductDetailsRaw(String productId) {
+        return otApi.streamItemFullInfo(productId);
     }
 
     /**
@@ -321,19 +482,16 @@ public class m1688Service implements ProductMarketplaceService {
     public Mono<String> getProductReviews(String productId, int page) {
         log.info("Getting reviews for 1688 product: {}, page: {}", productId, page);
 
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/api/product/reviews")
-                        .queryParam("productId", productId)
-                        .queryParam("page", page)
-                        .build())
-                .header("x-rapidapi-key", apiKey)
-                .header("x-rapidapi-host", apiHost)
-                .retrieve()
-                .bodyToMono(String.class)
-                .timeout(Duration.ofSeconds(30))
-                .doOnError(error ->
-                        log.error("Error getting 1688 reviews for product {}: {}", productId, error.getMessage()));
+        return otApi.getReviews(productId, page);
+    }
+
+    /**
+     * Synthetic health probe
+     * Implementation of ProductMarketplaceService interface
+     */
+    @Override
+    public Mono<Void> probe() {
+        return otApi.probe();
     }
 
     /**
@@ -344,4 +502,9 @@ public class m1688Service implements ProductMarketplaceService {
     public String getMarketplaceName() {
         return "Alibaba1688";
     }
+
+    @Override
+    public Marketplace getMarketplace() {
+        return Marketplace.ALIBABA1688;
+    }
 }
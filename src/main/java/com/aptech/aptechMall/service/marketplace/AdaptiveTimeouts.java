@@ -0,0 +1,214 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Per-endpoint upstream timeouts derived from recent latencies.
+ *
+ * Each endpoint keeps a rolling window of call latencies. Its timeout is the configured
+ * percentile of that window times a safety factor, clamped between min and max; until
+ * the window has enough samples the max is used. The timeout actually applied to a call
+ * is the smaller of that value and the time left on the {@link RequestDeadline} in the
+ * Reactor context. When it fires, the upstream subscription is cancelled; only timeouts
+ * of the adaptive value count as latency samples, not cuts by a shorter deadline.
+ *
+ * Successful buffered calls are sampled by {@link #recordLatency(String, Mono)} around the
+ * HTTP exchange alone, so time spent waiting for payload budget or parsing the body does
+ * not inflate the timeout.
+ *
+ * Metric: marketplace.upstream.timeout{endpoint} - current adaptive timeout in ms
+ */
+@Slf4j
+@Component
+public class AdaptiveTimeouts {
+
+    private final MeterRegistry meterRegistry;
+    private final double percentile;
+    private final double factor;
+    private final long minNanos;
+    private final long maxNanos;
+    private final int windowSize;
+    private final int minSamples;
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    public AdaptiveTimeouts(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.timeouts.percentile:0.99}") double percentile,
+            @Value("${marketplace.timeouts.factor:3.0}") double factor,
+            @Value("${marketplace.timeouts.min:2s}") Duration min,
+            @Value("${marketplace.timeouts.max:30s}") Duration max,
+            @Value("${marketplace.timeouts.window:512}") int windowSize,
+            @Value("${marketplace.timeouts.min-samples:20}") int minSamples) {
+
+        this.meterRegistry = meterRegistry;
+        this.percentile = percentile;
+        this.factor = factor;
+        this.minNanos = min.toNanos();
+        this.maxNanos = max.toNanos();
+        this.windowSize = windowSize;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Bound a buffered upstream call by the endpoint's adaptive timeout and the request deadline;
+     * its latency is recorded separately by {@link #recordLatency(String, Mono)}
+     *
+     * @param endpoint Endpoint key, e.g. "AliExpress.detail"
+     * @param call Upstream call
+     * @return Call that fails with TimeoutException once its budget runs out
+     */
+    public <T> Mono<T> apply(String endpoint, Mono<T> call) {
+        return Mono.deferContextual(context -> {
+            LatencyWindow window = window(endpoint);
+            Budget budget = budget(window, RequestDeadline.from(context).map(RequestDeadline::remaining));
+            if (budget.timeout().isZero()) {
+                return Mono.error(deadlineExceeded(endpoint));
+            }
+
+            return call
+                    .timeout(budget.timeout())
+                    .doOnError(TimeoutException.class, error -> budget.recordTimeout(window));
+        });
+    }
+
+    /**
+     * Record the latency of a successful upstream exchange as a sample for the endpoint
+     *
+     * @param endpoint Endpoint key, e.g. "AliExpress.detail"
+     * @param exchange HTTP request and body read, without any wait before it or parsing after it
+     * @return The exchange, timed from subscription to its result
+     */
+    public <T> Mono<T> recordLatency(String endpoint, Mono<T> exchange) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return exchange.doOnSuccess(result -> window(endpoint).record(System.nanoTime() - startedAt));
+        });
+    }
+
+    /**
+     * Bound a streamed upstream body; the timeout applies to the first buffer and to
+     * every gap between buffers, and the latency recorded is the time to first byte
+     *
+     * @param endpoint Endpoint key, e.g. "AliExpress.detail-raw"
+     * @param body Streamed upstream body
+     * @return Body that fails with TimeoutException once its budget runs out
+     */
+    public <T> Flux<T> applyToStream(String endpoint, Flux<T> body) {
+        return Flux.deferContextual(context -> {
+            LatencyWindow window = window(endpoint);
+            Budget budget = budget(window, RequestDeadline.from(context).map(RequestDeadline::remaining));
+            if (budget.timeout().isZero()) {
+                return Flux.error(deadlineExceeded(endpoint));
+            }
+
+            long startedAt = System.nanoTime();
+            boolean[] firstSeen = new boolean[1];
+            return body
+                    .timeout(budget.timeout())
+                    .doOnNext(item -> {
+                        if (!firstSeen[0]) {
+                            firstSeen[0] = true;
+                            window.record(System.nanoTime() - startedAt);
+                        }
+                    })
+                    .doOnError(TimeoutException.class, error -> budget.recordTimeout(window));
+        });
+    }
+
+    /**
+     * @param endpoint Endpoint key
+     * @return adaptive timeout currently used for the endpoint, ignoring any deadline
+     */
+    public Duration currentTimeout(String endpoint) {
+        return Duration.ofNanos(window(endpoint).timeoutNanos());
+    }
+
+    private Budget budget(LatencyWindow window, Optional<Duration> remaining) {
+        Duration adaptive = Duration.ofNanos(window.timeoutNanos());
+        if (remaining.isPresent() && remaining.get().compareTo(adaptive) < 0) {
+            return new Budget(remaining.get(), true);
+        }
+        return new Budget(adaptive, false);
+    }
+
+    /**
+     * Timeout applied to one call
+     * @param clamped true when the request deadline, not the endpoint's latency, set the timeout
+     */
+    private record Budget(Duration timeout, boolean clamped) {
+
+        /**
+         * A timeout says the endpoint took at least this long, but only when the adaptive
+         * timeout fired; a deadline cut says nothing about the endpoint and would drag its
+         * percentile down for every other caller
+         */
+        void recordTimeout(LatencyWindow window) {
+            if (!clamped) {
+                window.record(timeout.toNanos());
+            }
+        }
+    }
+
+    private TimeoutException deadlineExceeded(String endpoint) {
+        log.warn("Request deadline exceeded before calling {}", endpoint);
+        return new TimeoutException("Request deadline exceeded before calling " + endpoint);
+    }
+
+    private LatencyWindow window(String endpoint) {
+        return windows.computeIfAbsent(endpoint, key -> {
+            LatencyWindow window = new LatencyWindow();
+            Gauge.builder("marketplace.upstream.timeout", window, w -> w.timeoutNanos() / 1_000_000.0)
+                    .description("Adaptive upstream timeout")
+                    .tag("endpoint", key)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            return window;
+        });
+    }
+
+    /**
+     * Ring buffer of recent latencies; the derived timeout is recomputed every few samples
+     * so the sort stays off the hot path
+     */
+    private final class LatencyWindow {
+        private static final int RECOMPUTE_EVERY = 16;
+
+        private final long[] samples = new long[windowSize];
+        private int next;
+        private int count;
+        private int sinceRecompute;
+        private volatile long timeoutNanos = maxNanos;
+
+        long timeoutNanos() {
+            return timeoutNanos;
+        }
+
+        synchronized void record(long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+
+            if (count >= minSamples && ++sinceRecompute >= RECOMPUTE_EVERY) {
+                sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int index = (int) Math.min(count - 1, Math.ceil(percentile * count) - 1);
+                long derived = (long) (sorted[Math.max(index, 0)] * factor);
+                timeoutNanos = Math.max(minNanos, Math.min(maxNanos, derived));
+            }
+        }
+    }
+}
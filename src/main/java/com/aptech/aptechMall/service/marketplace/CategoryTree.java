@@ -0,0 +1,354 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.dto.CategoryDTO;
+import com.aptech.aptechMall.dto.ProductSearchDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.pricing.PriceFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Category tree assembled from the RootPath chains of fetched product details.
+ *
+ * Every fetched product adds its category chain to the tree and its ID to each category on
+ * the chain, so a node's product count covers its whole subtree. Known products are kept
+ * as small summaries for category-scoped search. The tree is snapshotted to a JSON file
+ * when it changed and reloaded on startup, so browsing never calls the upstream API.
+ */
+@Slf4j
+@Component
+public class CategoryTree {
+
+    /**
+     * One category of a RootPath chain, root first
+     */
+    public record PathEntry(String id, String name) {
+    }
+
+    /**
+     * What is remembered of a product for category search
+     */
+    public record ProductEntry(String productId, String title, String imageUrl, Double price,
+                               String currencySign, List<String> path) {
+    }
+
+    private record NodeKey(Marketplace marketplace, String id) {
+    }
+
+    private static final class Node {
+        final Marketplace marketplace;
+        final String id;
+        final String parentId;
+        volatile String name;
+        final Set<String> children = ConcurrentHashMap.newKeySet();
+        final Set<String> productIds = ConcurrentHashMap.newKeySet();
+
+        Node(Marketplace marketplace, String id, String name, String parentId) {
+            this.marketplace = marketplace;
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+        }
+    }
+
+    /**
+     * On-disk form: categories, then products with their category chain
+     */
+    record Snapshot(List<NodeSnapshot> categories, List<ProductSnapshot> products) {
+    }
+
+    record NodeSnapshot(Marketplace marketplace, String id, String name, String parentId) {
+    }
+
+    record ProductSnapshot(Marketplace marketplace, ProductEntry product) {
+    }
+
+    private final Map<NodeKey, Node> nodes = new ConcurrentHashMap<>();
+    private final Map<ProductKey, ProductEntry> products = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ObjectMapper objectMapper;
+    private final Path snapshotPath;
+    private final int maxProducts;
+
+    public CategoryTree(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.categories.snapshot-path:data/category-tree.json}") String snapshotPath,
+            @Value("${marketplace.categories.max-products:200000}") int maxProducts) {
+
+        this.objectMapper = objectMapper;
+        this.snapshotPath = Path.of(snapshotPath);
+        this.maxProducts = maxProducts;
+
+        Gauge.builder("marketplace.categories.nodes", nodes, Map::size)
+                .description("Categories in the derived category tree")
+                .register(meterRegistry);
+        Gauge.builder("marketplace.categories.products", products, Map::size)
+                .description("Products placed in the derived category tree")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Merge a product's category chain into the tree
+     *
+     * @param marketplace Marketplace of the product
+     * @param productId Product ID
+     * @param title Product title, used by category search
+     * @param imageUrl Main picture
+     * @param price Current price, may be null
+     * @param currencySign Currency sign of the price
+     * @param path Category chain, root first
+     */
+    public void record(Marketplace marketplace, String productId, String title, String imageUrl,
+                       Double price, String currencySign, List<PathEntry> path) {
+        List<String> pathIds = path.stream().map(PathEntry::id).filter(id -> id != null).toList();
+        if (pathIds.isEmpty()) {
+            return;
+        }
+        ProductKey key = new ProductKey(marketplace, productId);
+        if (!products.containsKey(key) && products.size() >= maxProducts) {
+            return;
+        }
+        ProductEntry product = new ProductEntry(productId, title, imageUrl, price, currencySign, pathIds);
+
+        String parentId = null;
+        for (PathEntry entry : path) {
+            if (entry.id() == null) {
+                continue;
+            }
+            String currentParent = parentId;
+            Node node = nodes.computeIfAbsent(new NodeKey(marketplace, entry.id()),
+                    nodeKey -> new Node(marketplace, entry.id(), entry.name(), currentParent));
+            if (entry.name() != null) {
+                node.name = entry.name();
+            }
+            if (currentParent != null) {
+                Node parent = nodes.get(new NodeKey(marketplace, currentParent));
+                if (parent != null) {
+                    parent.children.add(node.id);
+                }
+            }
+            parentId = entry.id();
+        }
+
+        // A product moved to another category leaves its old chain
+        ProductEntry previous = products.put(key, product);
+        if (previous != null && !previous.path().equals(product.path())) {
+            previous.path().forEach(id -> {
+                Node node = nodes.get(new NodeKey(marketplace, id));
+                if (node != null) {
+                    node.productIds.remove(product.productId());
+                }
+            });
+        }
+        product.path().forEach(id -> {
+            Node node = nodes.get(new NodeKey(marketplace, id));
+            if (node != null) {
+                node.productIds.add(product.productId());
+            }
+        });
+        dirty.set(true);
+    }
+
+    /**
+     * @return Top-level categories of a marketplace, largest first, with their children
+     */
+    public List<CategoryDTO> roots(Marketplace marketplace) {
+        return nodes.values().stream()
+                .filter(node -> node.marketplace == marketplace && node.parentId == null)
+                .sorted(Comparator.comparingInt((Node node) -> node.productIds.size()).reversed())
+                .map(node -> toDTO(node, true, false))
+                .toList();
+    }
+
+    /**
+     * @return Category with its ancestors and direct children
+     */
+    public Optional<CategoryDTO> category(Marketplace marketplace, String categoryId) {
+        return Optional.ofNullable(nodes.get(new NodeKey(marketplace, categoryId)))
+                .map(node -> toDTO(node, true, true));
+    }
+
+    /**
+     * Search known products of a category and its subcategories by title
+     *
+     * @param keyword Words that must all appear in the title; null or blank matches everything
+     * @param page Page number starting from 1
+     * @param pageSize Products per page
+     * @return Matching products, empty when the category is unknown
+     */
+    public Optional<ProductSearchDTO> search(Marketplace marketplace, String categoryId, String keyword,
+                                             int page, int pageSize) {
+        Node node = nodes.get(new NodeKey(marketplace, categoryId));
+        if (node == null) {
+            return Optional.empty();
+        }
+
+        String[] words = keyword == null || keyword.isBlank()
+                ? new String[0]
+                : keyword.toLowerCase(Locale.ROOT).trim().split("\\s+");
+        int skip = Math.max(page - 1, 0) * pageSize;
+        List<ProductSearchDTO.ProductSummaryDTO> pageItems = new ArrayList<>(pageSize);
+        int matches = 0;
+
+        for (String productId : node.productIds) {
+            ProductEntry product = products.get(new ProductKey(marketplace, productId));
+            if (product == null || !matches(product, words)) {
+                continue;
+            }
+            if (matches >= skip && pageItems.size() < pageSize) {
+                pageItems.add(ProductSearchDTO.ProductSummaryDTO.builder()
+                        .itemId(product.productId())
+                        .title(product.title())
+                        .imageUrl(product.imageUrl())
+                        .currentPrice(PriceFormat.plain(product.price()))
+                        .currencySign(product.currencySign())
+                        .build());
+            }
+            matches++;
+        }
+
+        return Optional.of(ProductSearchDTO.builder()
+                .meta(ProductSearchDTO.SearchMeta.builder()
+                        .keyword(keyword)
+                        .currentPage(page)
+                        .pageSize(pageSize)
+                        .totalResults(matches)
+                        .sortOptions(List.of(SearchSort.DEFAULT.getLabel()))
+                        .build())
+                .products(pageItems)
+                .build());
+    }
+
+    private static boolean matches(ProductEntry product, String[] words) {
+        if (words.length == 0) {
+            return true;
+        }
+        if (product.title() == null) {
+            return false;
+        }
+        String title = product.title().toLowerCase(Locale.ROOT);
+        for (String word : words) {
+            if (!title.contains(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CategoryDTO toDTO(Node node, boolean withChildren, boolean withPath) {
+        CategoryDTO.CategoryDTOBuilder dto = CategoryDTO.builder()
+                .marketplace(node.marketplace)
+                .id(node.id)
+                .name(node.name)
+                .parentId(node.parentId)
+                .productCount(node.productIds.size());
+
+        if (withChildren) {
+            dto.children(node.children.stream()
+                    .map(id -> nodes.get(new NodeKey(node.marketplace, id)))
+                    .filter(child -> child != null)
+                    .sorted(Comparator.comparingInt((Node child) -> child.productIds.size()).reversed())
+                    .map(child -> toDTO(child, false, false))
+                    .toList());
+        }
+        if (withPath) {
+            LinkedList<CategoryDTO> path = new LinkedList<>();
+            Node current = node.parentId != null ? nodes.get(new NodeKey(node.marketplace, node.parentId)) : null;
+            // Bounded in case a malformed chain ever forms a cycle
+            for (int depth = 0; current != null && depth < 32; depth++) {
+                path.addFirst(toDTO(current, false, false));
+                current = current.parentId != null ? nodes.get(new NodeKey(node.marketplace, current.parentId)) : null;
+            }
+            dto.path(path);
+        }
+        return dto.build();
+    }
+
+    @PostConstruct
+    void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(snapshotPath.toFile(), Snapshot.class);
+            snapshot.categories().forEach(category -> nodes.put(new NodeKey(category.marketplace(), category.id()),
+                    new Node(category.marketplace(), category.id(), category.name(), category.parentId())));
+            snapshot.categories().forEach(category -> {
+                if (category.parentId() != null) {
+                    Node parent = nodes.get(new NodeKey(category.marketplace(), category.parentId()));
+                    if (parent != null) {
+                        parent.children.add(category.id());
+                    }
+                }
+            });
+            snapshot.products().forEach(entry -> {
+                products.put(new ProductKey(entry.marketplace(), entry.product().productId()), entry.product());
+                entry.product().path().forEach(id -> {
+                    Node node = nodes.get(new NodeKey(entry.marketplace(), id));
+                    if (node != null) {
+                        node.productIds.add(entry.product().productId());
+                    }
+                });
+            });
+            log.info("Loaded category tree snapshot: {} categories, {} products", nodes.size(), products.size());
+        } catch (IOException e) {
+            log.warn("Could not load category tree snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Write the tree to disk when it changed; written to a temp file and moved into place
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${marketplace.categories.snapshot-interval:300000}",
+            initialDelayString = "${marketplace.categories.snapshot-interval:300000}")
+    void writeSnapshot() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+
+        List<NodeSnapshot> categories = nodes.values().stream()
+                .map(node -> new NodeSnapshot(node.marketplace, node.id, node.name, node.parentId))
+                .toList();
+        List<ProductSnapshot> productSnapshots = products.entrySet().stream()
+                .map(entry -> new ProductSnapshot(entry.getKey().marketplace(), entry.getValue()))
+                .toList();
+
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), new Snapshot(categories, productSnapshots));
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote category tree snapshot: {} categories, {} products", categories.size(), productSnapshots.size());
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Could not write category tree snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary format for cached product payloads, used by the on-heap detail cache and
+ * its Redis layer.
+ *
+ * Values are written as Smile (binary JSON) with shared property names and shared string
+ * values, so a field name or a repeated short string (currency sign, vendor name, category)
+ * is stored once per payload and referenced afterwards. The Smile bytes are then deflated
+ * with a preset dictionary trained on the first payloads seen, which carries the strings
+ * that repeat across payloads. The zlib header records the dictionary's Adler-32, so a
+ * payload always names the dictionary it needs.
+ *
+ * Layout: one format byte, then a zlib stream.
+ *
+ * Every restart (and every other instance) trains its own dictionary, so at most
+ * max-dictionaries are kept, least recently used first out; the active one is never dropped.
+ * A payload whose dictionary was dropped can be decoded again once it is re-registered.
+ */
+@Slf4j
+@Component
+public class CompactPayloadCodec {
+
+    private static final byte FORMAT_SMILE_DEFLATE = 1;
+    private static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    private final ObjectMapper smileMapper;
+    private final int level;
+    private final int dictionarySize;
+    private final int trainingSamples;
+    private final int maxDictionaries;
+    private final Map<Long, byte[]> dictionaries;
+    private final List<byte[]> samples = new ArrayList<>();
+    private final DistributionSummary rawBytes;
+    private final DistributionSummary encodedBytes;
+    private final Timer encodeTimer;
+    private final Timer decodeTimer;
+
+    private volatile byte[] activeDictionary;
+    private volatile long activeDictionaryId;
+
+    public CompactPayloadCodec(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.codec.level:1}") int level,
+            @Value("${marketplace.codec.dictionary-size:32768}") int dictionarySize,
+            @Value("${marketplace.codec.training-samples:64}") int trainingSamples,
+            @Value("${marketplace.codec.max-dictionaries:8}") int maxDictionaries) {
+
+        // Same modules and settings as the JSON mapper, binary output
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        this.smileMapper = objectMapper.copyWith(smileFactory);
+        this.level = level;
+        this.dictionarySize = Math.min(dictionarySize, MAX_DICTIONARY_SIZE);
+        this.trainingSamples = trainingSamples;
+        this.maxDictionaries = Math.max(maxDictionaries, 1);
+        this.dictionaries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                if (size() > CompactPayloadCodec.this.maxDictionaries) {
+                    // Oldest first in access order, skipping the one new payloads are written with
+                    Iterator<Long> ids = keySet().iterator();
+                    while (ids.hasNext()) {
+                        if (ids.next() != activeDictionaryId) {
+                            ids.remove();
+                            break;
+                        }
+                    }
+                }
+                return false;
+            }
+        });
+
+        this.rawBytes = DistributionSummary.builder("marketplace.codec.payload.bytes")
+                .tag("stage", "smile")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.encodedBytes = DistributionSummary.builder("marketplace.codec.payload.bytes")
+                .tag("stage", "encoded")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("marketplace.codec.time")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.decodeTimer = Timer.builder("marketplace.codec.time")
+                .tag("operation", "decode")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encode a value into the compact format
+     *
+     * @param value Value to encode (any Jackson-serializable object)
+     * @return Encoded bytes
+     */
+    public byte[] encode(Object value) {
+        long start = System.nanoTime();
+        byte[] smile;
+        try {
+            smile = smileMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new InternalServerException("Could not encode " + value.getClass().getSimpleName(), e);
+        }
+        train(smile);
+
+        Deflater deflater = new Deflater(level);
+        try {
+            byte[] dictionary = activeDictionary;
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(smile);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(smile.length / 3 + 16);
+            out.write(FORMAT_SMILE_DEFLATE);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            byte[] encoded = out.toByteArray();
+
+            rawBytes.record(smile.length);
+            encodedBytes.record(encoded.length);
+            encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return encoded;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decode bytes produced by {@link #encode}
+     *
+     * @param payload Encoded bytes
+     * @param type Type to read
+     * @return Decoded value
+     * @throws InternalServerException when the payload is corrupt or its dictionary is unknown
+     */
+    public <T> T decode(byte[] payload, Class<T> type) {
+        long start = System.nanoTime();
+        if (payload.length < 3 || payload[0] != FORMAT_SMILE_DEFLATE) {
+            throw new InternalServerException("Unknown cache payload format");
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, 1, payload.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(chunk);
+                if (read == 0) {
+                    if (inflater.needsDictionary()) {
+                        byte[] dictionary = dictionaries.get(inflater.getAdler() & 0xffffffffL);
+                        if (dictionary == null) {
+                            throw new InternalServerException("Cache payload needs unknown dictionary " + Long.toHexString(inflater.getAdler() & 0xffffffffL));
+                        }
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new InternalServerException("Truncated cache payload");
+                    }
+                }
+                out.write(chunk, 0, read);
+            }
+
+            T value = smileMapper.readValue(out.toByteArray(), type);
+            decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return value;
+        } catch (DataFormatException | IOException e) {
+            throw new InternalServerException("Corrupt cache payload for " + type.getSimpleName(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @param payload Encoded bytes
+     * @return ID of the dictionary the payload was compressed with, or 0 when none
+     */
+    public long dictionaryIdOf(byte[] payload) {
+        // zlib header: CMF, FLG (bit 5 = preset dictionary), then the dictionary's Adler-32
+        if (payload.length < 7 || (payload[2] & 0x20) == 0) {
+            return 0;
+        }
+        return ((payload[3] & 0xffL) << 24) | ((payload[4] & 0xffL) << 16)
+                | ((payload[5] & 0xffL) << 8) | (payload[6] & 0xffL);
+    }
+
+    public boolean hasDictionary(long id) {
+        return id == 0 || dictionaries.containsKey(id);
+    }
+
+    public byte[] getDictionary(long id) {
+        return dictionaries.get(id);
+    }
+
+    /**
+     * Make a dictionary trained elsewhere (e.g. by another instance) available for decoding
+     */
+    public void registerDictionary(byte[] dictionary) {
+        dictionaries.putIfAbsent(adler(dictionary), dictionary);
+    }
+
+    /**
+     * @return ID of the dictionary new payloads are compressed with, or 0 before training
+     */
+    public long getActiveDictionaryId() {
+        return activeDictionaryId;
+    }
+
+    /**
+     * Collect the first payloads and build the dictionary from them once.
+     * Deflate finds matches closest to the end of the dictionary cheapest, so the most
+     * recent samples go last.
+     */
+    private void train(byte[] smile) {
+        if (activeDictionary != null || trainingSamples <= 0) {
+            return;
+        }
+        synchronized (samples) {
+            if (activeDictionary != null) {
+                return;
+            }
+            samples.add(smile);
+            if (samples.size() < trainingSamples) {
+                return;
+            }
+
+            ByteArrayOutputStream joined = new ByteArrayOutputStream();
+            samples.forEach(joined::writeBytes);
+            byte[] all = joined.toByteArray();
+            byte[] dictionary = new byte[Math.min(all.length, dictionarySize)];
+            System.arraycopy(all, all.length - dictionary.length, dictionary, 0, dictionary.length);
+            samples.clear();
+
+            long id = adler(dictionary);
+            // Registered before encoding starts to use it, and protected from eviction from then on
+            activeDictionaryId = id;
+            dictionaries.put(id, dictionary);
+            activeDictionary = dictionary;
+            log.info("Trained cache payload dictionary {} ({} bytes)", Long.toHexString(id), dictionary.length);
+        }
+    }
+
+    private static long adler(byte[] bytes) {
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        return adler.getValue();
+    }
+}
@@ -0,0 +1,162 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Re-fetches popular product details before their cache entry expires, so the user who
+ * would have hit the cold entry gets a cached answer instead of a full upstream round trip.
+ *
+ * Each run ranks cached entries by popularity (from {@link ProductPopularity}) and keeps
+ * the top N. Among those, entries older than {@code refresh-after} x TTL are refreshed in
+ * order of popularity x staleness. Refreshes draw from a per-minute budget so background
+ * work never eats more than its share of the RapidAPI quota.
+ */
+@Slf4j
+@Component
+public class HotProductRefresher {
+
+    private record Candidate(ProductKey key, int frequency, double staleness) {
+        double score() {
+            return frequency * staleness;
+        }
+    }
+
+    private final MarketplaceServiceRegistry services;
+    private final ProductDetailCache detailCache;
+    private final ProductPopularity popularity;
+    private final boolean enabled;
+    private final int topN;
+    private final double refreshAfter;
+    private final int minHits;
+    private final int maxPerMinute;
+    private final int concurrency;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter refreshed;
+    private final Counter failed;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public HotProductRefresher(
+            MarketplaceServiceRegistry services,
+            ProductDetailCache detailCache,
+            ProductPopularity popularity,
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.refresh.enabled:true}") boolean enabled,
+            @Value("${marketplace.refresh.top-n:200}") int topN,
+            @Value("${marketplace.refresh.refresh-after:0.6}") double refreshAfter,
+            @Value("${marketplace.refresh.min-hits:3}") int minHits,
+            @Value("${marketplace.refresh.max-per-minute:30}") int maxPerMinute,
+            @Value("${marketplace.refresh.concurrency:4}") int concurrency) {
+
+        this.services = services;
+        this.detailCache = detailCache;
+        this.popularity = popularity;
+        this.enabled = enabled;
+        this.topN = topN;
+        this.refreshAfter = refreshAfter;
+        this.minHits = minHits;
+        this.maxPerMinute = maxPerMinute;
+        this.concurrency = concurrency;
+        this.tokens = maxPerMinute;
+
+        this.refreshed = Counter.builder("marketplace.refresh.requests")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failed = Counter.builder("marketplace.refresh.requests")
+                .tag("result", "failure")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${marketplace.refresh.interval:30000}",
+            initialDelayString = "${marketplace.refresh.interval:30000}")
+    void refreshHotProducts() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<Candidate> picked = pickCandidates(takeBudget());
+        if (picked.isEmpty()) {
+            running.set(false);
+            return;
+        }
+
+        log.info("Refreshing {} hot product details ahead of expiry", picked.size());
+        Flux.fromIterable(picked)
+                .flatMap(candidate -> refresh(candidate.key()), concurrency)
+                .doFinally(signal -> running.set(false))
+                .subscribe();
+    }
+
+    private List<Candidate> pickCandidates(int budget) {
+        if (budget == 0) {
+            return List.of();
+        }
+
+        // Top N cached products by popularity
+        PriorityQueue<Candidate> hottest = new PriorityQueue<>(Comparator.comparingInt(Candidate::frequency));
+        double ttlNanos = detailCache.getTtl().toNanos();
+        detailCache.forEach((key, entry) -> {
+            int frequency = popularity.estimate(key);
+            if (frequency < minHits || !services.supports(key.marketplace())) {
+                return;
+            }
+            hottest.offer(new Candidate(key, frequency, entry.age().toNanos() / ttlNanos));
+            if (hottest.size() > topN) {
+                hottest.poll();
+            }
+        });
+
+        // Of those, the stale ones by popularity x staleness, within budget
+        List<Candidate> due = new ArrayList<>();
+        for (Candidate candidate : hottest) {
+            if (candidate.staleness() >= refreshAfter) {
+                due.add(candidate);
+            }
+        }
+        due.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        List<Candidate> picked = due.size() > budget ? new ArrayList<>(due.subList(0, budget)) : due;
+        returnBudget(budget - picked.size());
+        return picked;
+    }
+
+    private Mono<Void> refresh(ProductKey key) {
+        return services.get(key.marketplace())
+                .refreshProductDetails(key.productId())
+                .doOnSuccess(ignored -> refreshed.increment())
+                .onErrorResume(error -> {
+                    failed.increment();
+                    log.warn("Background refresh failed for {}: {}", key, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Token bucket refilled at max-per-minute and capped at one minute's worth
+     */
+    private synchronized int takeBudget() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxPerMinute, tokens + (now - lastRefillNanos) / 60e9 * maxPerMinute);
+        lastRefillNanos = now;
+        int budget = (int) tokens;
+        tokens -= budget;
+        return budget;
+    }
+
+    private synchronized void returnBudget(int unused) {
+        tokens = Math.min(maxPerMinute, tokens + unused);
+    }
+}
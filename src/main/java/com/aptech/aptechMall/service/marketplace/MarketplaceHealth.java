@@ -0,0 +1,147 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Health of each marketplace derived from a rolling window of real upstream call outcomes.
+ *
+ * Each marketplace keeps its last N attempts; attempts older than the window age are ignored.
+ * Only failures that say something about the upstream (5xx, 429, timeouts, connection errors)
+ * count against it; missing products, 4xx, item ErrorCodes and local capacity rejections do not.
+ */
+@Component
+public class MarketplaceHealth {
+
+    public enum State {
+        UNKNOWN,
+        UP,
+        DEGRADED,
+        DOWN
+    }
+
+    /**
+     * @param samples Attempts in the window
+     * @param failures Upstream failures among them
+     * @param p95Latency 95th percentile latency of the attempts, or null without samples
+     * @param lastCallAgo Time since the latest attempt, or null when none was recorded
+     */
+    public record Snapshot(State state, int samples, int failures, Duration p95Latency, Duration lastCallAgo) {
+        public double failureRatio() {
+            return samples == 0 ? 0 : (double) failures / samples;
+        }
+    }
+
+    private final Map<Marketplace, Window> windows = new EnumMap<>(Marketplace.class);
+    private final long maxAgeNanos;
+    private final int minSamples;
+    private final double degradedFailureRatio;
+    private final double downFailureRatio;
+    private final long degradedLatencyNanos;
+
+    public MarketplaceHealth(
+            @Value("${marketplace.health.window:100}") int windowSize,
+            @Value("${marketplace.health.window-age:5m}") Duration windowAge,
+            @Value("${marketplace.health.min-samples:5}") int minSamples,
+            @Value("${marketplace.health.degraded-failure-ratio:0.1}") double degradedFailureRatio,
+            @Value("${marketplace.health.down-failure-ratio:0.5}") double downFailureRatio,
+            @Value("${marketplace.health.degraded-latency:5s}") Duration degradedLatency) {
+
+        for (Marketplace marketplace : Marketplace.values()) {
+            windows.put(marketplace, new Window(windowSize));
+        }
+        this.maxAgeNanos = windowAge.toNanos();
+        this.minSamples = minSamples;
+        this.degradedFailureRatio = degradedFailureRatio;
+        this.downFailureRatio = downFailureRatio;
+        this.degradedLatencyNanos = degradedLatency.toNanos();
+    }
+
+    /**
+     * Record one upstream attempt
+     *
+     * @param failed Whether the attempt failed for an upstream reason
+     * @param latencyNanos Time the attempt took
+     */
+    public void record(Marketplace marketplace, boolean failed, long latencyNanos) {
+        windows.get(marketplace).add(System.nanoTime(), failed, latencyNanos);
+    }
+
+    public Snapshot snapshot(Marketplace marketplace) {
+        return windows.get(marketplace).snapshot(System.nanoTime());
+    }
+
+    private State evaluate(int samples, int failures, long p95Nanos) {
+        if (samples < minSamples) {
+            return State.UNKNOWN;
+        }
+        double failureRatio = (double) failures / samples;
+        if (failureRatio >= downFailureRatio) {
+            return State.DOWN;
+        }
+        if (failureRatio >= degradedFailureRatio || p95Nanos >= degradedLatencyNanos) {
+            return State.DEGRADED;
+        }
+        return State.UP;
+    }
+
+    /**
+     * Ring buffer of the latest attempts; attempts are rare next to the upstream latency they measure,
+     * so a monitor is cheap enough
+     */
+    private final class Window {
+        private final long[] recordedAt;
+        private final long[] latencies;
+        private final boolean[] failed;
+        private int next;
+        private int size;
+
+        Window(int capacity) {
+            this.recordedAt = new long[capacity];
+            this.latencies = new long[capacity];
+            this.failed = new boolean[capacity];
+        }
+
+        synchronized void add(long now, boolean failure, long latencyNanos) {
+            recordedAt[next] = now;
+            latencies[next] = latencyNanos;
+            failed[next] = failure;
+            next = (next + 1) % recordedAt.length;
+            size = Math.min(size + 1, recordedAt.length);
+        }
+
+        synchronized Snapshot snapshot(long now) {
+            long[] recent = new long[size];
+            int samples = 0;
+            int failures = 0;
+            long latest = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                long age = now - recordedAt[i];
+                if (age > maxAgeNanos) {
+                    continue;
+                }
+                recent[samples++] = latencies[i];
+                if (failed[i]) {
+                    failures++;
+                }
+                latest = Math.max(latest, recordedAt[i]);
+            }
+            if (samples == 0) {
+                int latestIndex = (next - 1 + recordedAt.length) % recordedAt.length;
+                Duration lastCallAgo = size > 0 ? Duration.ofNanos(now - recordedAt[latestIndex]) : null;
+                return new Snapshot(State.UNKNOWN, 0, 0, null, lastCallAgo);
+            }
+
+            Arrays.sort(recent, 0, samples);
+            long p95 = recent[Math.min(samples - 1, (int) Math.ceil(samples * 0.95) - 1)];
+            return new Snapshot(evaluate(samples, failures, p95), samples, failures,
+                    Duration.ofNanos(p95), Duration.ofNanos(now - latest));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.service.ProductMarketplaceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Optional synthetic probe keeping marketplace health current when there is no real traffic.
+ * A marketplace is probed only when its latest real call is older than idle-after, so busy
+ * marketplaces cost no extra upstream quota. Disabled by default.
+ */
+@Slf4j
+@Component
+public class MarketplaceHealthProber {
+
+    private final MarketplaceServiceRegistry services;
+    private final MarketplaceHealth health;
+    private final boolean enabled;
+    private final Duration idleAfter;
+    private final Duration timeout;
+
+    public MarketplaceHealthProber(
+            MarketplaceServiceRegistry services,
+            MarketplaceHealth health,
+            @Value("${marketplace.health.probe.enabled:false}") boolean enabled,
+            @Value("${marketplace.health.probe.idle-after:2m}") Duration idleAfter,
+            @Value("${marketplace.health.probe.timeout:10s}") Duration timeout) {
+
+        this.services = services;
+        this.health = health;
+        this.enabled = enabled;
+        this.idleAfter = idleAfter;
+        this.timeout = timeout;
+    }
+
+    @Scheduled(fixedDelayString = "${marketplace.health.probe.interval:60000}",
+            initialDelayString = "${marketplace.health.probe.interval:60000}")
+    void probeIdleMarketplaces() {
+        if (!enabled) {
+            return;
+        }
+        for (ProductMarketplaceService service : services.all()) {
+            Duration lastCallAgo = health.snapshot(service.getMarketplace()).lastCallAgo();
+            if (lastCallAgo != null && lastCallAgo.compareTo(idleAfter) < 0) {
+                continue;
+            }
+            service.probe()
+                    .contextWrite(RequestDeadline.within(timeout))
+                    .subscribe(
+                            ignored -> {
+                            },
+                            error -> log.warn("Health probe of {} failed: {}", service.getMarketplaceName(), error.getMessage()),
+                            () -> log.debug("Health probe of {} succeeded", service.getMarketplaceName()));
+        }
+    }
+}
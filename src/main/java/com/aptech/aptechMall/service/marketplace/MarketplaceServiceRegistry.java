@@ -0,0 +1,47 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.ProductMarketplaceService;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up the marketplace service responsible for a {@link Marketplace}
+ */
+@Component
+public class MarketplaceServiceRegistry {
+
+    private final Map<Marketplace, ProductMarketplaceService> services = new EnumMap<>(Marketplace.class);
+
+    public MarketplaceServiceRegistry(List<ProductMarketplaceService> marketplaceServices) {
+        marketplaceServices.forEach(service -> services.put(service.getMarketplace(), service));
+    }
+
+    /**
+     * @param marketplace Marketplace to look up
+     * @return Service for the marketplace
+     * @throws IllegalArgumentException when no service handles the marketplace
+     */
+    public ProductMarketplaceService get(Marketplace marketplace) {
+        ProductMarketplaceService service = services.get(marketplace);
+        if (service == null) {
+            throw new IllegalArgumentException("No service registered for marketplace " + marketplace);
+        }
+        return service;
+    }
+
+    public boolean supports(Marketplace marketplace) {
+        return services.containsKey(marketplace);
+    }
+
+    /**
+     * @return Every registered service, in Marketplace order
+     */
+    public Collection<ProductMarketplaceService> all() {
+        return services.values();
+    }
+}
@@ -0,0 +1,184 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.Exception.UpstreamCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded worker pool for CPU-heavy marketplace work (JSON parsing and DTO mapping).
+ *
+ * WebClient delivers response bodies on Reactor Netty event-loop threads. Parsing a
+ * multi-MB OtAPI payload there stalls every other connection multiplexed on that loop,
+ * so services hand that work to {@link #offload(String, String, Callable)} instead.
+ *
+ * Metrics:
+ * - marketplace.work.queue.depth / marketplace.work.active: pool saturation
+ * - marketplace.work.queue.wait: time a task waited before a worker picked it up
+ * - marketplace.work.cpu{thread=worker|event-loop}: time spent per stage, split by the
+ *   kind of thread it ran on; anything recorded under event-loop is time stolen from Netty
+ */
+@Slf4j
+@Component
+public class MarketplaceWorkScheduler {
+
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final MeterRegistry meterRegistry;
+    private final Timer queueWait;
+    // Registered once per stage and thread kind, off the hot path
+    private final Map<StageKey, StageMeters> stageMeters = new ConcurrentHashMap<>();
+    private final boolean failOnEventLoop;
+
+    public MarketplaceWorkScheduler(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.work.threads:0}") int threads,
+            @Value("${marketplace.work.queue-capacity:512}") int queueCapacity,
+            @Value("${marketplace.work.fail-on-event-loop:false}") boolean failOnEventLoop) {
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new WorkerThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.scheduler = Schedulers.fromExecutorService(executor, "marketplace-work");
+        this.meterRegistry = meterRegistry;
+        this.failOnEventLoop = failOnEventLoop;
+
+        Gauge.builder("marketplace.work.queue.depth", executor, e -> e.getQueue().size())
+                .description("Tasks waiting for a marketplace worker thread")
+                .register(meterRegistry);
+        Gauge.builder("marketplace.work.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Marketplace worker threads currently busy")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("marketplace.work.queue.wait")
+                .description("Time spent waiting for a marketplace worker thread")
+                .register(meterRegistry);
+
+        log.info("MarketplaceWorkScheduler initialized with {} threads and queue capacity {}",
+                poolSize, queueCapacity);
+    }
+
+    /**
+     * Run CPU-heavy work on the marketplace worker pool
+     * A full queue fails fast with UpstreamCapacityExceededException (503) instead of piling up work
+     *
+     * @param marketplace Marketplace name used as metric tag
+     * @param stage Work stage used as metric tag (e.g. "detail-parse", "search-mapping")
+     * @param work Work to run
+     * @return Mono emitting the work result on a worker thread
+     */
+    public <T> Mono<T> offload(String marketplace, String stage, Callable<T> work) {
+        return Mono.defer(() -> {
+            long submittedAt = System.nanoTime();
+            return Mono.fromCallable(() -> {
+                        queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                        return run(marketplace, stage, work);
+                    })
+                    .subscribeOn(scheduler);
+        }).onErrorMap(RejectedExecutionException.class, e -> new UpstreamCapacityExceededException(
+                "Marketplace worker pool is saturated; " + stage + " for " + marketplace + " was rejected"));
+    }
+
+    /**
+     * Run work on the calling thread while recording where it ran
+     * Used for stages that are cheap enough to stay inline but should still be watched
+     *
+     * @param marketplace Marketplace name used as metric tag
+     * @param stage Work stage used as metric tag
+     * @param work Work to run
+     * @return Work result
+     */
+    public <T> T run(String marketplace, String stage, Callable<T> work) throws Exception {
+        boolean onEventLoop = isEventLoopThread();
+        StageMeters meters = stageMeters.computeIfAbsent(new StageKey(marketplace, stage, onEventLoop), this::register);
+        if (onEventLoop) {
+            meters.violations().increment();
+            if (failOnEventLoop) {
+                throw new InternalServerException("Marketplace stage '" + stage
+                        + "' ran on event-loop thread " + Thread.currentThread().getName());
+            }
+            log.warn("Marketplace stage '{}' ({}) is running on event-loop thread {}",
+                    stage, marketplace, Thread.currentThread().getName());
+        }
+
+        return meters.cpu().recordCallable(work);
+    }
+
+    private StageMeters register(StageKey key) {
+        Timer cpu = Timer.builder("marketplace.work.cpu")
+                .description("Time spent in CPU-heavy marketplace work")
+                .tag("marketplace", key.marketplace())
+                .tag("stage", key.stage())
+                .tag("thread", key.onEventLoop() ? "event-loop" : "worker")
+                .register(meterRegistry);
+        Counter violations = key.onEventLoop()
+                ? Counter.builder("marketplace.work.event.loop.violations")
+                        .tag("marketplace", key.marketplace())
+                        .tag("stage", key.stage())
+                        .register(meterRegistry)
+                : null;
+        return new StageMeters(cpu, violations);
+    }
+
+    /**
+     * @return the underlying Reactor scheduler
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Reactor Netty marks its event-loop threads as non-blocking; the name check covers
+     * loops created outside Reactor's thread factories
+     */
+    private static boolean isEventLoopThread() {
+        return Schedulers.isInNonBlockingThread()
+                || Thread.currentThread().getName().startsWith("reactor-http-");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.dispose();
+        executor.shutdown();
+    }
+
+    private record StageKey(String marketplace, String stage, boolean onEventLoop) {
+    }
+
+    private record StageMeters(Timer cpu, Counter violations) {
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "marketplace-work-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.ProductNotFoundException;
+import com.aptech.aptechMall.Exception.UpstreamErrorCodeException;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of product IDs whose detail lookup failed for a reason that will not
+ * go away on retry (missing item, bad ID, item-level ErrorCode).
+ *
+ * A cached ID is answered with {@link ProductNotFoundException} without calling OtAPI, and
+ * so is the failure that cached it, so a product gets the same 404 every time. The TTL
+ * depends on the failure class. 5xx, timeouts, capacity rejections and account-level
+ * ErrorCodes (quota, key, session) say nothing about the product and are never cached.
+ */
+@Slf4j
+@Component
+public class NegativeProductCache {
+
+    /**
+     * Failure classes, from most to least certain that retrying is pointless
+     */
+    enum FailureClass {
+        NOT_FOUND,
+        CLIENT_ERROR,
+        ERROR_CODE
+    }
+
+    /**
+     * OtAPI ErrorCodes about the requested item itself, lower-cased; anything else may be
+     * about our account and must not turn valid IDs into 404s
+     */
+    private static final Set<String> ITEM_ERROR_CODES = Set.of(
+            "notavailable", "itemnotavailable", "itemisnotavailable",
+            "invaliditemid", "incorrectitemid", "itemidisnotvalid");
+
+    private record Entry(FailureClass failureClass, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return expiresAtNanos - now <= 0;
+        }
+    }
+
+    private final Map<ProductKey, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<FailureClass, Duration> ttls;
+    private final int maxEntries;
+    private final Counter hits;
+
+    public NegativeProductCache(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.negative-cache.not-found-ttl:30m}") Duration notFoundTtl,
+            @Value("${marketplace.negative-cache.client-error-ttl:10m}") Duration clientErrorTtl,
+            @Value("${marketplace.negative-cache.error-code-ttl:1m}") Duration errorCodeTtl,
+            @Value("${marketplace.negative-cache.max-entries:50000}") int maxEntries) {
+
+        this.ttls = Map.of(
+                FailureClass.NOT_FOUND, notFoundTtl,
+                FailureClass.CLIENT_ERROR, clientErrorTtl,
+                FailureClass.ERROR_CODE, errorCodeTtl);
+        this.maxEntries = maxEntries;
+
+        Gauge.builder("marketplace.negative.cache.size", entries, Map::size)
+                .description("Product IDs currently cached as failing")
+                .register(meterRegistry);
+        this.hits = Counter.builder("marketplace.negative.cache.hits")
+                .description("Product lookups answered from the negative cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Guard a product detail call with the negative cache
+     * Cached IDs fail with ProductNotFoundException before the call is subscribed;
+     * cacheable failures of the call are recorded and become ProductNotFoundException
+     *
+     * @param marketplace Marketplace of the product
+     * @param productId Product ID
+     * @param call Upstream detail call
+     * @return Guarded call
+     */
+    public <T> Mono<T> guard(Marketplace marketplace, String productId, Mono<T> call) {
+        ProductKey key = new ProductKey(marketplace, productId);
+        return Mono.defer(() -> {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(System.nanoTime())) {
+                    hits.increment();
+                    log.debug("Negative cache hit ({}) for {}/{}", entry.failureClass(), marketplace, productId);
+                    return Mono.error(new ProductNotFoundException(marketplace, productId));
+                }
+                entries.remove(key, entry);
+            }
+
+            return call.onErrorMap(error -> {
+                FailureClass failureClass = classify(error);
+                if (failureClass == null) {
+                    return error;
+                }
+                remember(key, failureClass);
+                return error instanceof ProductNotFoundException
+                        ? error
+                        : new ProductNotFoundException(marketplace, productId);
+            });
+        });
+    }
+
+    /**
+     * Drop a product from the cache, e.g. after it was fetched successfully elsewhere
+     */
+    public void evict(Marketplace marketplace, String productId) {
+        entries.remove(new ProductKey(marketplace, productId));
+    }
+
+    @Scheduled(fixedDelayString = "${marketplace.negative-cache.purge-interval:60000}")
+    void purgeExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private void remember(ProductKey key, FailureClass failureClass) {
+        if (entries.size() >= maxEntries) {
+            purgeExpired();
+            if (entries.size() >= maxEntries) {
+                log.warn("Negative product cache is full ({} entries), not caching {}", maxEntries, key);
+                return;
+            }
+        }
+        long expiresAt = System.nanoTime() + ttls.get(failureClass).toNanos();
+        entries.put(key, new Entry(failureClass, expiresAt));
+        log.debug("Cached {} failure for {}", failureClass, key);
+    }
+
+    static FailureClass classify(Throwable error) {
+        if (error instanceof ProductNotFoundException) {
+            return FailureClass.NOT_FOUND;
+        }
+        if (error instanceof UpstreamErrorCodeException errorCode) {
+            String code = errorCode.getErrorCode() != null ? errorCode.getErrorCode().toLowerCase(Locale.ROOT) : "";
+            if (code.contains("notfound")) {
+                return FailureClass.NOT_FOUND;
+            }
+            return ITEM_ERROR_CODES.contains(code) ? FailureClass.ERROR_CODE : null;
+        }
+        if (error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+            int status = response.getStatusCode().value();
+            if (status == HttpStatus.NOT_FOUND.value() || status == HttpStatus.GONE.value()) {
+                return FailureClass.NOT_FOUND;
+            }
+            // Auth, quota and rate-limit errors are about our API key, not the product
+            if (status == HttpStatus.UNAUTHORIZED.value() || status == HttpStatus.FORBIDDEN.value()
+                    || status == HttpStatus.REQUEST_TIMEOUT.value() || status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                return null;
+            }
+            return FailureClass.CLIENT_ERROR;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,164 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.UpstreamErrorCodeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Helpers for streaming raw OtAPI payloads without decoding them.
+ *
+ * OtAPI always writes "ErrorCode" as the first property of the root object, so only a
+ * small leading window of the body has to be inspected to reject failed calls. Everything
+ * else is forwarded to the client as-is.
+ */
+@Slf4j
+public final class OtApiPayloads {
+
+    /**
+     * Maximum number of leading bytes inspected while looking for ErrorCode
+     */
+    static final int PEEK_LIMIT = 1024;
+
+    private static final Pattern ERROR_CODE = Pattern.compile("\"ErrorCode\"\\s*:\\s*\"([^\"]*)\"");
+
+    /**
+     * Number of buffers the response InputStream requests from the upstream at a time
+     */
+    private static final int STREAM_DEMAND = 16;
+
+    private OtApiPayloads() {
+    }
+
+    /**
+     * Hold back the leading buffers of an OtAPI body until its ErrorCode has been seen.
+     * Emits nothing but an error when ErrorCode is not "Ok"; otherwise replays the held
+     * buffers and passes the rest of the body through untouched.
+     *
+     * @param body Raw upstream body
+     * @param source Name used in error messages (e.g. "OtAPI", "1688 API")
+     * @return Verified body
+     */
+    public static Flux<DataBuffer> verifyLeadingErrorCode(Flux<DataBuffer> body, String source) {
+        return verifyLeadingErrorCode(body, source, errorCode -> {
+        });
+    }
+
+    /**
+     * Same as {@link #verifyLeadingErrorCode(Flux, String)}, reporting the ErrorCode found
+     *
+     * @param onErrorCode Called once with the ErrorCode, or null when none was found in the peek window
+     */
+    public static Flux<DataBuffer> verifyLeadingErrorCode(Flux<DataBuffer> body, String source,
+                                                          Consumer<String> onErrorCode) {
+        return Flux.defer(() -> {
+            Peek peek = new Peek();
+            return body
+                    .concatMap(buffer -> {
+                        if (peek.verified) {
+                            return Mono.just(buffer);
+                        }
+                        peek.hold(buffer);
+
+                        String errorCode = peek.errorCode();
+                        if (errorCode == null && peek.length < PEEK_LIMIT) {
+                            return Flux.empty();
+                        }
+                        onErrorCode.accept(errorCode);
+                        if (errorCode != null && !"Ok".equalsIgnoreCase(errorCode)) {
+                            peek.releaseHeld();
+                            log.error("{} returned error: {}", source, errorCode);
+                            return Flux.error(new UpstreamErrorCodeException(source, errorCode));
+                        }
+                        if (errorCode == null) {
+                            log.warn("{} payload has no ErrorCode in its first {} bytes, passing through", source, PEEK_LIMIT);
+                        }
+                        return Flux.fromIterable(peek.drain());
+                    })
+                    // Short bodies can complete before the peek window fills up
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(peek.drain())))
+                    .doOnCancel(peek::releaseHeld)
+                    .doOnError(error -> peek.releaseHeld());
+        }).doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    /**
+     * Turn a verified raw body into a streaming JSON response. The status line is only
+     * decided once the first buffer has passed verification, so upstream errors still map
+     * to an error status instead of a truncated 200.
+     *
+     * @param body Body produced by {@link #verifyLeadingErrorCode(Flux, String)}
+     * @return Response streaming the body, or empty when the upstream body was empty
+     */
+    public static Mono<ResponseEntity<Resource>> toStreamingResponse(Flux<DataBuffer> body) {
+        return body
+                .switchOnFirst((first, all) -> {
+                    if (first.hasError()) {
+                        return Mono.error(first.getThrowable());
+                    }
+                    if (!first.hasValue()) {
+                        return Mono.empty();
+                    }
+                    Resource resource = new InputStreamResource(
+                            DataBufferUtils.subscriberInputStream(all, STREAM_DEMAND));
+                    return Mono.just(ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(resource));
+                }, false)
+                .singleOrEmpty();
+    }
+
+    /**
+     * Leading buffers held back while ErrorCode is unknown
+     */
+    private static final class Peek {
+        private List<DataBuffer> held = new ArrayList<>();
+        private final StringBuilder head = new StringBuilder();
+        private int length;
+        private boolean verified;
+
+        void hold(DataBuffer buffer) {
+            held.add(buffer);
+            int readable = Math.min(buffer.readableByteCount(), PEEK_LIMIT - length);
+            if (readable > 0) {
+                head.append(buffer.toString(buffer.readPosition(), readable, StandardCharsets.UTF_8));
+                length += readable;
+            }
+        }
+
+        String errorCode() {
+            Matcher matcher = ERROR_CODE.matcher(head);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+
+        List<DataBuffer> drain() {
+            verified = true;
+            if (held == null) {
+                return List.of();
+            }
+            List<DataBuffer> buffers = held;
+            held = null;
+            return buffers;
+        }
+
+        void releaseHeld() {
+            if (held != null) {
+                held.forEach(DataBufferUtils::release);
+                held = null;
+            }
+        }
+    }
+}
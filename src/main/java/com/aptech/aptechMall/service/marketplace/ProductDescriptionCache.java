@@ -0,0 +1,227 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.safety.Cleaner;
+import org.jsoup.safety.Safelist;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sanitized, minified and gzipped product descriptions, served separately from the detail
+ * payload.
+ *
+ * A description is cleaned once (scripts, styles, frames and event handlers removed, inline
+ * styles cut down to formatting properties, whitespace collapsed), gzipped, and kept with a strong ETag derived from its content, so
+ * repeat views cost a map lookup or a 304.
+ */
+@Slf4j
+@Component
+public class ProductDescriptionCache {
+
+    /**
+     * Gzipped description HTML and its strong ETag
+     */
+    public record Description(byte[] gzipped, int length, String etag, long createdAtNanos) {
+
+        public byte[] html() {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final Safelist SAFELIST = Safelist.relaxed()
+            .addAttributes(":all", "style", "align", "width", "height")
+            .preserveRelativeLinks(false);
+
+    // Inline style properties kept after cleaning: text and box formatting only, nothing that
+    // can position an element over the page or load a resource
+    private static final Set<String> STYLE_PROPERTIES = Set.of(
+            "color", "background-color", "font-size", "font-weight", "font-style", "font-family",
+            "text-align", "text-decoration", "line-height", "vertical-align",
+            "width", "max-width", "height", "max-height",
+            "margin", "margin-top", "margin-right", "margin-bottom", "margin-left",
+            "padding", "padding-top", "padding-right", "padding-bottom", "padding-left",
+            "border", "border-collapse");
+    private static final Pattern STYLE_VALUE = Pattern.compile("[#\\w\\s.,%'\"-]+|(rgb|rgba)\\([\\d\\s.,%]+\\)");
+
+    private final Map<ProductKey, Description> descriptions = new ConcurrentHashMap<>();
+    private final MarketplaceServiceRegistry services;
+    private final MarketplaceWorkScheduler workScheduler;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ProductDescriptionCache(
+            MarketplaceServiceRegistry services,
+            MarketplaceWorkScheduler workScheduler,
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.description-cache.ttl:6h}") Duration ttl,
+            @Value("${marketplace.description-cache.max-entries:10000}") int maxEntries) {
+
+        this.services = services;
+        this.workScheduler = workScheduler;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+
+        Gauge.builder("marketplace.description.cache.bytes", descriptions,
+                        cached -> cached.values().stream().mapToLong(description -> description.gzipped().length).sum())
+                .description("Gzipped description bytes currently cached")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.hits = Counter.builder("marketplace.description.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("marketplace.description.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the prepared description of a product, preparing it on a miss
+     *
+     * @param marketplace Marketplace of the product
+     * @param productId Product ID
+     * @return Description, empty when the product has none
+     */
+    public Mono<Description> get(Marketplace marketplace, String productId) {
+        return Mono.defer(() -> {
+            ProductKey key = new ProductKey(marketplace, productId);
+            Description cached = descriptions.get(key);
+            if (cached != null && !isExpired(cached)) {
+                hits.increment();
+                return Mono.just(cached);
+            }
+            misses.increment();
+
+            return services.get(marketplace).getProductDescription(productId)
+                    .filter(html -> !html.isBlank())
+                    .flatMap(html -> workScheduler.offload(marketplace.name(), "description", () -> prepare(html)))
+                    .doOnNext(description -> store(key, description));
+        });
+    }
+
+    /**
+     * Sanitize, minify and gzip a raw description
+     */
+    private Description prepare(String html) {
+        Document.OutputSettings output = new Document.OutputSettings()
+                .prettyPrint(false)
+                .charset(StandardCharsets.UTF_8);
+        // Protocol-relative image URLs (//ae01.alicdn.com/...) are resolved to https
+        Document document = new Cleaner(SAFELIST).clean(Jsoup.parseBodyFragment(html, "https:"));
+        document.outputSettings(output);
+        for (Element element : document.body().select("[style]")) {
+            String style = filterStyle(element.attr("style"));
+            if (style.isEmpty()) {
+                element.removeAttr("style");
+            } else {
+                element.attr("style", style);
+            }
+        }
+        String clean = document.body().html()
+                .replaceAll("\\s{2,}", " ")
+                .replaceAll(">\\s+<", "><")
+                .trim();
+        byte[] bytes = clean.getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(bytes.length / 4 + 32);
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.debug("Prepared description: {} raw chars -> {} clean bytes -> {} gzipped bytes",
+                html.length(), bytes.length, gzipped.size());
+        return new Description(gzipped.toByteArray(), bytes.length, etag(bytes), System.nanoTime());
+    }
+
+    /**
+     * Keep only allowlisted properties with plain values (no url(), expression() or escapes)
+     *
+     * @param style Inline style attribute
+     * @return Filtered declarations, empty when none are left
+     */
+    static String filterStyle(String style) {
+        StringBuilder kept = new StringBuilder();
+        for (String declaration : style.split(";")) {
+            int colon = declaration.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String property = declaration.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = declaration.substring(colon + 1).trim();
+            if (STYLE_PROPERTIES.contains(property) && STYLE_VALUE.matcher(value).matches()) {
+                if (!kept.isEmpty()) {
+                    kept.append(';');
+                }
+                kept.append(property).append(':').append(value);
+            }
+        }
+        return kept.toString();
+    }
+
+    /**
+     * Strong ETag: truncated SHA-256 of the served (uncompressed) HTML
+     */
+    private static String etag(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalServerException("SHA-256 is not available", e);
+        }
+    }
+
+    private void store(ProductKey key, Description description) {
+        if (!descriptions.containsKey(key) && descriptions.size() >= maxEntries) {
+            purgeExpired();
+            if (descriptions.size() >= maxEntries) {
+                // Descriptions are cheap to rebuild from cached details; drop any one
+                descriptions.keySet().stream().findAny().ifPresent(descriptions::remove);
+            }
+        }
+        descriptions.put(key, description);
+    }
+
+    private boolean isExpired(Description description) {
+        return System.nanoTime() - description.createdAtNanos() > ttl.toNanos();
+    }
+
+    @Scheduled(fixedDelayString = "${marketplace.description-cache.purge-interval:300000}")
+    void purgeExpired() {
+        descriptions.values().removeIf(this::isExpired);
+    }
+}
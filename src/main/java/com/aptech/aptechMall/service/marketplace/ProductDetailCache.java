@@ -0,0 +1,276 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Two-level cache of full product detail responses, shared by all marketplaces.
+ *
+ * Entries are held on the heap in the compact format of {@link CompactPayloadCodec} and,
+ * when enabled, written through to Redis in the same format so other instances and restarts
+ * start warm. Entries live for {@code ttl}; {@link HotProductRefresher} re-fetches popular
+ * ones before they expire. When the heap cache is full, the least popular of a few sampled
+ * entries is evicted. Every user lookup, hit or miss, is counted in {@link ProductPopularity}.
+ */
+@Slf4j
+@Component
+public class ProductDetailCache {
+
+    private static final int EVICTION_SAMPLE = 8;
+    private static final String KEY_PREFIX = "product:detail:";
+    private static final String DICTIONARY_PREFIX = "product:detail:dict:";
+
+    /**
+     * Encoded response, its type and the time it was fetched
+     */
+    public record Entry(byte[] payload, Class<?> type, long fetchedAtNanos) {
+        public Duration age() {
+            return Duration.ofNanos(System.nanoTime() - fetchedAtNanos);
+        }
+    }
+
+    private final Map<ProductKey, Entry> entries = new ConcurrentHashMap<>();
+    private final ProductPopularity popularity;
+    private final CompactPayloadCodec codec;
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final boolean redisEnabled;
+    // Dictionary ID -> when its Redis TTL was last set
+    private final Map<Long, Long> publishedDictionaries = new ConcurrentHashMap<>();
+    private final Counter heapHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public ProductDetailCache(
+            ProductPopularity popularity,
+            CompactPayloadCodec codec,
+            ReactiveRedisTemplate<String, byte[]> binaryRedisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.detail-cache.ttl:15m}") Duration ttl,
+            @Value("${marketplace.detail-cache.max-entries:5000}") int maxEntries,
+            @Value("${marketplace.detail-cache.redis.enabled:true}") boolean redisEnabled) {
+
+        this.popularity = popularity;
+        this.codec = codec;
+        this.redisTemplate = binaryRedisTemplate;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.redisEnabled = redisEnabled;
+
+        Gauge.builder("marketplace.detail.cache.size", entries, Map::size)
+                .description("Product detail responses currently cached")
+                .register(meterRegistry);
+        Gauge.builder("marketplace.detail.cache.bytes", entries,
+                        cached -> cached.values().stream().mapToLong(entry -> entry.payload().length).sum())
+                .description("Encoded bytes held by the on-heap detail cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.heapHits = Counter.builder("marketplace.detail.cache.requests")
+                .tag("result", "hit")
+                .tag("layer", "heap")
+                .register(meterRegistry);
+        this.redisHits = Counter.builder("marketplace.detail.cache.requests")
+                .tag("result", "hit")
+                .tag("layer", "redis")
+                .register(meterRegistry);
+        this.misses = Counter.builder("marketplace.detail.cache.requests")
+                .tag("result", "miss")
+                .tag("layer", "none")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Look up a fresh cached response and count the access
+     *
+     * @param marketplace Marketplace of the product
+     * @param productId Product ID
+     * @param type Response type stored by the marketplace service
+     * @return Cached response, or empty when absent or expired
+     */
+    public <T> Mono<T> get(Marketplace marketplace, String productId, Class<T> type) {
+        return Mono.defer(() -> {
+            ProductKey key = new ProductKey(marketplace, productId);
+            popularity.recordAccess(key);
+            return lookup(key, type, ttl);
+        });
+    }
+
+    /**
+     * Look up a cached response no older than maxAge, without counting it as a user access
+     * Used by internal re-quotes, which should not make a product look popular
+     *
+     * @return Cached response, or empty when absent or older than maxAge
+     */
+    public <T> Mono<T> get(Marketplace marketplace, String productId, Class<T> type, Duration maxAge) {
+        return Mono.defer(() -> lookup(new ProductKey(marketplace, productId), type, maxAge));
+    }
+
+    /**
+     * Store a freshly fetched response on the heap and in Redis
+     */
+    public void put(Marketplace marketplace, String productId, Object value) {
+        ProductKey key = new ProductKey(marketplace, productId);
+        byte[] payload = codec.encode(value);
+        if (!entries.containsKey(key) && entries.size() >= maxEntries) {
+            evictOne();
+        }
+        entries.put(key, new Entry(payload, value.getClass(), System.nanoTime()));
+
+        if (redisEnabled) {
+            writeThrough(key, payload);
+        }
+    }
+
+    private <T> Mono<T> lookup(ProductKey key, Class<T> type, Duration maxAge) {
+        Entry entry = entries.get(key);
+        if (entry != null && !isExpired(entry) && type == entry.type()) {
+            if (entry.age().compareTo(maxAge) > 0) {
+                misses.increment();
+                return Mono.empty();
+            }
+            heapHits.increment();
+            return Mono.just(codec.decode(entry.payload(), type));
+        }
+        if (entry != null) {
+            entries.remove(key, entry);
+        }
+        if (!redisEnabled) {
+            misses.increment();
+            return Mono.empty();
+        }
+
+        return redisTemplate.opsForValue().get(KEY_PREFIX + key)
+                .flatMap(stored -> fromRedis(key, stored, type, maxAge))
+                .doOnNext(value -> redisHits.increment())
+                .switchIfEmpty(Mono.fromRunnable(misses::increment))
+                .onErrorResume(error -> {
+                    log.warn("Redis lookup of cached details for {} failed: {}", key, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Stored value: fetch time (epoch millis, 8 bytes) followed by the encoded payload
+     */
+    private <T> Mono<T> fromRedis(ProductKey key, byte[] stored, Class<T> type, Duration maxAge) {
+        long fetchedAtMillis = ByteBuffer.wrap(stored, 0, Long.BYTES).getLong();
+        Duration age = Duration.ofMillis(System.currentTimeMillis() - fetchedAtMillis);
+        if (age.compareTo(maxAge) > 0 || age.compareTo(ttl) >= 0) {
+            return Mono.empty();
+        }
+        byte[] payload = Arrays.copyOfRange(stored, Long.BYTES, stored.length);
+
+        return ensureDictionary(codec.dictionaryIdOf(payload))
+                .then(Mono.fromCallable(() -> {
+                    T value = codec.decode(payload, type);
+                    if (!entries.containsKey(key) && entries.size() >= maxEntries) {
+                        evictOne();
+                    }
+                    entries.put(key, new Entry(payload, type, System.nanoTime() - age.toNanos()));
+                    return value;
+                }));
+    }
+
+    private void writeThrough(ProductKey key, byte[] payload) {
+        byte[] stored = ByteBuffer.allocate(Long.BYTES + payload.length)
+                .putLong(System.currentTimeMillis())
+                .put(payload)
+                .array();
+
+        publishDictionary(codec.dictionaryIdOf(payload))
+                .then(redisTemplate.opsForValue().set(KEY_PREFIX + key, stored, ttl))
+                .subscribe(ignored -> { }, error ->
+                        log.warn("Could not write cached details for {} to Redis: {}", key, error.getMessage()));
+    }
+
+    /**
+     * Dictionaries are stored in Redis so any instance can decode payloads compressed by
+     * another one. They live for twice the entry TTL and are re-stored at least once per TTL
+     * while payloads are written with them, so they always outlive those payloads and expire
+     * once an instance stops using them.
+     */
+    private Mono<Boolean> publishDictionary(long dictionaryId) {
+        long now = System.nanoTime();
+        Long publishedAt = publishedDictionaries.get(dictionaryId);
+        if (dictionaryId == 0 || (publishedAt != null && now - publishedAt < ttl.toNanos())) {
+            return Mono.just(true);
+        }
+        return redisTemplate.opsForValue()
+                .set(DICTIONARY_PREFIX + Long.toHexString(dictionaryId), codec.getDictionary(dictionaryId), ttl.multipliedBy(2))
+                .doOnSuccess(ignored -> publishedDictionaries.put(dictionaryId, now));
+    }
+
+    private Mono<Void> ensureDictionary(long dictionaryId) {
+        if (codec.hasDictionary(dictionaryId)) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue().get(DICTIONARY_PREFIX + Long.toHexString(dictionaryId))
+                .doOnNext(codec::registerDictionary)
+                .then();
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Visit all live entries (used by the refresher to rank refresh candidates)
+     */
+    public void forEach(BiConsumer<ProductKey, Entry> action) {
+        entries.forEach((key, entry) -> {
+            if (!isExpired(entry)) {
+                action.accept(key, entry);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${marketplace.detail-cache.purge-interval:60000}")
+    void purgeExpired() {
+        entries.values().removeIf(this::isExpired);
+        long now = System.nanoTime();
+        publishedDictionaries.values().removeIf(publishedAt -> now - publishedAt >= ttl.toNanos());
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.age().compareTo(ttl) >= 0;
+    }
+
+    private void evictOne() {
+        ProductKey victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        Iterator<Map.Entry<ProductKey, Entry>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE && iterator.hasNext(); i++) {
+            Map.Entry<ProductKey, Entry> candidate = iterator.next();
+            if (isExpired(candidate.getValue())) {
+                victim = candidate.getKey();
+                break;
+            }
+            int frequency = popularity.estimate(candidate.getKey());
+            if (frequency < victimFrequency) {
+                victim = candidate.getKey();
+                victimFrequency = frequency;
+            }
+        }
+        if (victim != null) {
+            entries.remove(victim);
+            log.debug("Evicted {} from product detail cache", victim);
+        }
+    }
+}
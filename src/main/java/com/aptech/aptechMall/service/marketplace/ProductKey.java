@@ -0,0 +1,14 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+
+/**
+ * Identifies a product across marketplaces
+ */
+public record ProductKey(Marketplace marketplace, String productId) {
+
+    @Override
+    public String toString() {
+        return marketplace + "/" + productId;
+    }
+}
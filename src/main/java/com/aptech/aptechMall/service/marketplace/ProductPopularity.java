@@ -0,0 +1,75 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approximate access frequency per product, kept in a count-min sketch.
+ *
+ * Memory is fixed (depth x width counters) no matter how many distinct IDs bots throw
+ * at us. Every {@code 10 x width} accesses all counters are halved, so popularity
+ * decays and yesterday's bestseller does not keep its rank forever.
+ */
+@Component
+public class ProductPopularity {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int width;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+    private final AtomicLong accesses = new AtomicLong();
+    private final long resetAfter;
+
+    public ProductPopularity(@Value("${marketplace.popularity.sketch-width:65536}") int sketchWidth) {
+        this.width = Integer.highestOneBit(Math.max(sketchWidth, 64));
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.resetAfter = 10L * width;
+    }
+
+    /**
+     * Count one access to a product
+     */
+    public void recordAccess(ProductKey key) {
+        int hash = spread(key.hashCode());
+        for (int row = 0; row < DEPTH; row++) {
+            counters.incrementAndGet(index(row, hash));
+        }
+        if (accesses.incrementAndGet() % resetAfter == 0) {
+            age();
+        }
+    }
+
+    /**
+     * @return estimated recent access count of a product (never under-estimates)
+     */
+    public int estimate(ProductKey key) {
+        int hash = spread(key.hashCode());
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(index(row, hash)));
+        }
+        return min;
+    }
+
+    private void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    private int index(int row, int hash) {
+        int h = hash * SEEDS[row];
+        return row * width + ((h ^ (h >>> 16)) & mask);
+    }
+
+    private static int spread(int hash) {
+        int h = hash ^ (hash >>> 16);
+        return h * 0x45D9F3B;
+    }
+}
@@ -0,0 +1,31 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Current unit price and availability of a marketplace product
+ *
+ * @param unitPrice Promotion price when the item has one, otherwise its regular price; null if unknown
+ * @param currencyCode Currency of unitPrice as reported by OtAPI
+ * @param available false when the item is gone, flagged with an error or out of stock
+ * @param quotedAt When the quote was taken
+ */
+public record ProductQuote(
+        Marketplace marketplace,
+        String productId,
+        BigDecimal unitPrice,
+        String currencyCode,
+        boolean available,
+        LocalDateTime quotedAt) {
+
+    public static ProductQuote unavailable(Marketplace marketplace, String productId) {
+        return new ProductQuote(marketplace, productId, null, null, false, LocalDateTime.now());
+    }
+
+    public ProductKey key() {
+        return new ProductKey(marketplace, productId);
+    }
+}
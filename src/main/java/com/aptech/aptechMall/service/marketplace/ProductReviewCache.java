@@ -0,0 +1,366 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.Exception.UpstreamErrorCodeException;
+import com.aptech.aptechMall.dto.ProductDetailDTO;
+import com.aptech.aptechMall.dto.ReviewPageDTO;
+import com.aptech.aptechMall.dto.ReviewStatsDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed, cached review pages and per-product rating histograms.
+ *
+ * Each upstream page is parsed once into {@link ReviewPageDTO} and cached per product and
+ * page; concurrent requests for the same page share one upstream call. Serving page N
+ * prefetches page N+1 in the background, so paging forward is answered from cache.
+ * Histograms are computed once per product from its first pages.
+ */
+@Slf4j
+@Component
+public class ProductReviewCache {
+
+    private static final String CURSOR_PREFIX = "p:";
+
+    /**
+     * Places the reviews array is found in, by upstream payload shape
+     */
+    private static final String[] REVIEW_ARRAYS = {"/Result/Content", "/Result/Reviews", "/Result/Items/Content",
+            "/Content", "/Reviews", "/data/reviews", "/result/reviews", "/reviews"};
+    private static final String[] TOTAL_COUNTS = {"/Result/TotalCount", "/TotalCount", "/data/totalCount",
+            "/result/totalCount", "/totalCount"};
+
+    private record PageKey(ProductKey product, int page) {
+    }
+
+    private record Entry<T>(Mono<T> value, long createdAtNanos) {
+    }
+
+    private final Map<PageKey, Entry<ReviewPageDTO>> pages = new ConcurrentHashMap<>();
+    private final Map<ProductKey, Entry<ReviewStatsDTO>> stats = new ConcurrentHashMap<>();
+    private final MarketplaceServiceRegistry services;
+    private final MarketplaceWorkScheduler workScheduler;
+    private final ObjectMapper objectMapper;
+    private final Duration pageTtl;
+    private final Duration statsTtl;
+    private final int maxPages;
+    private final int statsPages;
+    private final Counter hits;
+    private final Counter loads;
+    private final Counter prefetches;
+
+    public ProductReviewCache(
+            MarketplaceServiceRegistry services,
+            MarketplaceWorkScheduler workScheduler,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.reviews.page-ttl:30m}") Duration pageTtl,
+            @Value("${marketplace.reviews.stats-ttl:6h}") Duration statsTtl,
+            @Value("${marketplace.reviews.max-pages:5000}") int maxPages,
+            @Value("${marketplace.reviews.stats-pages:5}") int statsPages) {
+
+        this.services = services;
+        this.workScheduler = workScheduler;
+        this.objectMapper = objectMapper;
+        this.pageTtl = pageTtl;
+        this.statsTtl = statsTtl;
+        this.maxPages = maxPages;
+        this.statsPages = statsPages;
+
+        this.hits = Counter.builder("marketplace.reviews.pages")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.loads = Counter.builder("marketplace.reviews.pages")
+                .tag("result", "load")
+                .register(meterRegistry);
+        this.prefetches = Counter.builder("marketplace.reviews.pages")
+                .tag("result", "prefetch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Serve a page of reviews and prefetch the next one
+     *
+     * @param marketplace Marketplace of the product
+     * @param productId Product ID
+     * @param cursor Cursor from a previous page, or null for the first page
+     * @return The page
+     * @throws IllegalArgumentException when the cursor is malformed
+     */
+    public Mono<ReviewPageDTO> getPage(Marketplace marketplace, String productId, String cursor) {
+        int page = decodeCursor(cursor);
+        return page(new ProductKey(marketplace, productId), page, true)
+                .doOnNext(served -> {
+                    if (Boolean.TRUE.equals(served.getHasMore())) {
+                        prefetch(new ProductKey(marketplace, productId), page + 1);
+                    }
+                });
+    }
+
+    /**
+     * Rating histogram over the first pages of a product's reviews, computed once per product
+     */
+    public Mono<ReviewStatsDTO> getStats(Marketplace marketplace, String productId) {
+        ProductKey key = new ProductKey(marketplace, productId);
+        long now = System.nanoTime();
+        Entry<ReviewStatsDTO> entry = stats.compute(key, (k, existing) -> existing != null && !isExpired(existing, statsTtl, now)
+                ? existing
+                : new Entry<>(computeStats(key).cache(), now));
+        return entry.value().doOnError(error -> stats.remove(key, entry));
+    }
+
+    private Mono<ReviewStatsDTO> computeStats(ProductKey key) {
+        // Pages are read in order and stop at the first one without a successor
+        return Flux.range(1, statsPages)
+                .concatMap(page -> page(key, page, false))
+                .takeUntil(page -> !Boolean.TRUE.equals(page.getHasMore()))
+                .collectList()
+                .map(readPages -> {
+                    Map<Integer, Integer> histogram = new LinkedHashMap<>();
+                    for (int stars = 5; stars >= 1; stars--) {
+                        histogram.put(stars, 0);
+                    }
+                    int counted = 0;
+                    long ratingSum = 0;
+                    for (ReviewPageDTO page : readPages) {
+                        for (ProductDetailDTO.ReviewDTO review : page.getReviews()) {
+                            if (review.getRating() != null && review.getRating() >= 1 && review.getRating() <= 5) {
+                                histogram.merge(review.getRating(), 1, Integer::sum);
+                                ratingSum += review.getRating();
+                                counted++;
+                            }
+                        }
+                    }
+                    boolean complete = readPages.isEmpty()
+                            || !Boolean.TRUE.equals(readPages.get(readPages.size() - 1).getHasMore());
+
+                    return ReviewStatsDTO.builder()
+                            .marketplace(key.marketplace())
+                            .productId(key.productId())
+                            .reviewsCounted(counted)
+                            .averageRating(counted > 0 ? Math.round(ratingSum * 100.0 / counted) / 100.0 : null)
+                            .histogram(histogram)
+                            .complete(complete)
+                            .build();
+                });
+    }
+
+    private Mono<ReviewPageDTO> page(ProductKey key, int page, boolean countAccess) {
+        PageKey pageKey = new PageKey(key, page);
+        long now = System.nanoTime();
+
+        Entry<ReviewPageDTO> cached = pages.get(pageKey);
+        if (cached != null && !isExpired(cached, pageTtl, now)) {
+            if (countAccess) {
+                hits.increment();
+            }
+            return cached.value();
+        }
+
+        boolean[] loading = new boolean[1];
+        Entry<ReviewPageDTO> entry = pages.compute(pageKey, (k, existing) -> {
+            if (existing != null && !isExpired(existing, pageTtl, now)) {
+                return existing;
+            }
+            loading[0] = true;
+            return new Entry<>(load(key, page).cache(), now);
+        });
+        if (loading[0]) {
+            loads.increment();
+            if (pages.size() > maxPages) {
+                purgeExpired();
+            }
+        }
+        return entry.value().doOnError(error -> pages.remove(pageKey, entry));
+    }
+
+    private void prefetch(ProductKey key, int page) {
+        Entry<ReviewPageDTO> cached = pages.get(new PageKey(key, page));
+        if (cached != null && !isExpired(cached, pageTtl, System.nanoTime())) {
+            return;
+        }
+        prefetches.increment();
+        page(key, page, false).subscribe(ignored -> { }, error ->
+                log.debug("Prefetch of review page {} for {} failed: {}", page, key, error.getMessage()));
+    }
+
+    private Mono<ReviewPageDTO> load(ProductKey key, int page) {
+        return services.get(key.marketplace()).getProductReviews(key.productId(), page)
+                .flatMap(body -> workScheduler.offload(key.marketplace().name(), "review-mapping",
+                        () -> parse(key, page, body)));
+    }
+
+    /**
+     * Parse an upstream review page; unknown fields are ignored and missing ones left null.
+     * A failed call or a payload without a reviews array is an error, so it is not cached.
+     */
+    private ReviewPageDTO parse(ProductKey key, int page, String body) throws Exception {
+        JsonNode root = objectMapper.readTree(body);
+        String errorCode = root.path("ErrorCode").asText(null);
+        if (errorCode != null && !"Ok".equalsIgnoreCase(errorCode)) {
+            throw new UpstreamErrorCodeException(key.marketplace() + " reviews", errorCode);
+        }
+        JsonNode items = firstPresent(root, REVIEW_ARRAYS);
+        if (items == null || !items.isArray()) {
+            throw new InternalServerException("Unrecognized review payload for " + key + " page " + page);
+        }
+        JsonNode total = firstPresent(root, TOTAL_COUNTS);
+
+        List<ProductDetailDTO.ReviewDTO> reviews = new ArrayList<>(items.size());
+        for (JsonNode item : items) {
+            reviews.add(ProductDetailDTO.ReviewDTO.builder()
+                    .reviewId(text(item, "ExternalId", "Id", "reviewId", "id"))
+                    .userName(text(item, "UserNick", "userName", "buyerName"))
+                    .rating(rating(item))
+                    .content(text(item, "Content", "content", "text"))
+                    .date(text(item, "CreatedDate", "date", "createdAt"))
+                    .country(country(item))
+                    .images(images(item))
+                    .build());
+        }
+
+        Integer totalReviews = total != null && total.canConvertToInt() ? total.asInt() : null;
+        boolean hasMore = !reviews.isEmpty()
+                && (totalReviews == null || (long) page * reviews.size() < totalReviews);
+
+        return ReviewPageDTO.builder()
+                .marketplace(key.marketplace())
+                .productId(key.productId())
+                .page(page)
+                .totalReviews(totalReviews)
+                .reviews(reviews)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? encodeCursor(page + 1) : null)
+                .build();
+    }
+
+    private static JsonNode firstPresent(JsonNode root, String[] pointers) {
+        for (String pointer : pointers) {
+            JsonNode node = root.at(pointer);
+            if (!node.isMissingNode() && !node.isNull()) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static String text(JsonNode item, String... fields) {
+        for (String field : fields) {
+            JsonNode value = item.get(field);
+            if (value != null && !value.isNull()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ratings come either as stars (1-5) or as a percentage (e.g. 80 = 4 stars)
+     */
+    private static Integer rating(JsonNode item) {
+        String value = text(item, "Rating", "rating", "stars");
+        if (value == null) {
+            return null;
+        }
+        try {
+            double rating = Double.parseDouble(value);
+            return (int) Math.round(rating > 5 ? rating / 20 : rating);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String country(JsonNode item) {
+        JsonNode featured = item.get("FeaturedValues");
+        if (featured != null && featured.isArray()) {
+            for (JsonNode value : featured) {
+                if ("country".equals(value.path("Name").asText())) {
+                    return value.path("Value").asText(null);
+                }
+            }
+        }
+        return text(item, "country", "Country");
+    }
+
+    private static List<String> images(JsonNode item) {
+        JsonNode images = item.has("Images") ? item.get("Images") : item.get("images");
+        if (images == null || !images.isArray()) {
+            return List.of();
+        }
+        List<String> urls = new ArrayList<>(images.size());
+        images.forEach(image -> urls.add(image.isTextual() ? image.asText() : image.path("Url").asText(null)));
+        urls.removeIf(url -> url == null || url.isBlank());
+        return urls;
+    }
+
+    static String encodeCursor(int page) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + page).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 1;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                int page = Integer.parseInt(decoded.substring(CURSOR_PREFIX.length()));
+                if (page >= 1) {
+                    return page;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Falls through to the error below (NumberFormatException is an IllegalArgumentException)
+        }
+        throw new IllegalArgumentException("Invalid reviews cursor");
+    }
+
+    private static boolean isExpired(Entry<?> entry, Duration ttl, long now) {
+        return now - entry.createdAtNanos() > ttl.toNanos();
+    }
+
+    /**
+     * Drop expired pages and stats; if still over max-pages, drop the oldest pages down to
+     * 90% of it, so a full cache does not sort on every load
+     */
+    @Scheduled(fixedDelayString = "${marketplace.reviews.purge-interval:60000}")
+    void purgeExpired() {
+        long now = System.nanoTime();
+        pages.values().removeIf(entry -> isExpired(entry, pageTtl, now));
+        stats.values().removeIf(entry -> isExpired(entry, statsTtl, now));
+
+        int excess = pages.size() - maxPages;
+        if (excess > 0) {
+            pages.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().createdAtNanos()))
+                    .limit(excess + maxPages / 10)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(pages::remove);
+        }
+    }
+
+    int pageCount() {
+        return pages.size();
+    }
+}
@@ -0,0 +1,73 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Point in time by which a client request must be answered.
+ *
+ * Controllers start a deadline with {@link #within(Duration)} and attach it to the
+ * Reactor context; upstream calls read it back with {@link #from(ContextView)} so no
+ * call outlives the request that asked for it.
+ */
+public final class RequestDeadline {
+
+    private static final Object CONTEXT_KEY = RequestDeadline.class;
+
+    private final long expiresAtNanos;
+
+    private RequestDeadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Start a deadline and return the context change that carries it
+     * An outer deadline that is already stricter is kept as-is
+     *
+     * @param budget Time left to answer the request
+     * @return Function for {@code contextWrite}
+     */
+    public static Function<Context, Context> within(Duration budget) {
+        RequestDeadline deadline = new RequestDeadline(System.nanoTime() + budget.toNanos());
+        return context -> {
+            Optional<RequestDeadline> outer = from(context);
+            if (outer.isPresent() && outer.get().expiresAtNanos <= deadline.expiresAtNanos) {
+                return context;
+            }
+            return context.put(CONTEXT_KEY, deadline);
+        };
+    }
+
+    /**
+     * Context change that removes any deadline, for work shared by callers with different deadlines
+     *
+     * @return Function for {@code contextWrite}
+     */
+    public static Function<Context, Context> detached() {
+        return context -> context.delete(CONTEXT_KEY);
+    }
+
+    /**
+     * @param context Reactor context of the current subscription
+     * @return Deadline attached by the controller, if any
+     */
+    public static Optional<RequestDeadline> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    /**
+     * @return time left before the deadline, never negative
+     */
+    public Duration remaining() {
+        long left = expiresAtNanos - System.nanoTime();
+        return left > 0 ? Duration.ofNanos(left) : Duration.ZERO;
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.aptech.aptechMall.service.marketplace;
+
+/**
+ * Optional filters applied to a cached search window; null fields do not filter
+ *
+ * @param minPrice Lowest current price (inclusive)
+ * @param maxPrice Highest current price (inclusive)
+ * @param minRating Lowest rating (inclusive)
+ * @param minSales Lowest sales count (inclusive)
+ * @param minDiscount Lowest promotion percent (inclusive)
+ */
+public record SearchFilter(
+        Double minPrice,
+        Double maxPrice,
+        Integer minRating,
+        Integer minSales,
+        Integer minDiscount) {
+
+    public static final SearchFilter NONE = new SearchFilter(null, null, null, null, null);
+
+    public boolean isEmpty() {
+        return minPrice == null && maxPrice == null && minRating == null && minSales == null && minDiscount == null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import java.util.List;
+
+/**
+ * Sort orders supported by marketplace search, in the order advertised in SearchMeta.sortOptions
+ */
+public enum SearchSort {
+    DEFAULT("Default"),
+    PRICE_ASC("PriceAsc"),
+    PRICE_DESC("PriceDesc"),
+    SALES("Sales");
+
+    private final String label;
+
+    SearchSort(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @param sort Sort index used by the API (0 = Default, 1 = PriceAsc, 2 = PriceDesc, 3 = Sales)
+     * @return Matching sort, DEFAULT for unknown values
+     */
+    public static SearchSort fromIndex(int sort) {
+        SearchSort[] values = values();
+        return sort >= 0 && sort < values.length ? values[sort] : DEFAULT;
+    }
+
+    public static List<String> labels() {
+        return List.of(DEFAULT.label, PRICE_ASC.label, PRICE_DESC.label, SALES.label);
+    }
+}
@@ -0,0 +1,189 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.dto.ProductSearchDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable window of search results for one keyword, laid out column by column.
+ *
+ * Price, sales, rating and discount live in primitive arrays next to the product DTOs, and
+ * the price and sales orders are computed once when the window is built by sorting packed
+ * {@code (key << 32 | index)} longs. Serving a sorted, filtered page is then a single pass
+ * over a precomputed order with no allocation beyond the page itself.
+ */
+public final class SearchWindow {
+
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private final ProductSearchDTO.ProductSummaryDTO[] products;
+    private final int[] priceCents;
+    private final int[] sales;
+    private final int[] rating;
+    private final int[] discount;
+    private final int[] byPriceAsc;
+    private final int[] bySalesDesc;
+    private final int knownPrices;
+    private final long fetchedAtNanos = System.nanoTime();
+
+    public SearchWindow(List<ProductSearchDTO.ProductSummaryDTO> items) {
+        int size = items.size();
+        this.products = items.toArray(new ProductSearchDTO.ProductSummaryDTO[0]);
+        this.priceCents = new int[size];
+        this.sales = new int[size];
+        this.rating = new int[size];
+        this.discount = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            ProductSearchDTO.ProductSummaryDTO product = products[i];
+            priceCents[i] = parseCents(product.getCurrentPrice());
+            sales[i] = product.getSalesCount() != null ? product.getSalesCount() : UNKNOWN;
+            rating[i] = product.getRating() != null ? product.getRating() : UNKNOWN;
+            discount[i] = product.getPromotionPercent() != null ? product.getPromotionPercent() : UNKNOWN;
+        }
+
+        // Unknown prices and sales sort last in every order
+        this.byPriceAsc = order(priceCents, false);
+        this.bySalesDesc = order(sales, true);
+
+        int known = 0;
+        for (int cents : priceCents) {
+            if (cents != UNKNOWN) {
+                known++;
+            }
+        }
+        this.knownPrices = known;
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    public long getFetchedAtNanos() {
+        return fetchedAtNanos;
+    }
+
+    /**
+     * Build one page of results from the window
+     *
+     * @param keyword Keyword echoed in the meta
+     * @param page Page number starting from 1
+     * @param pageSize Products per page
+     * @param sort Sort order
+     * @param filter Filters
+     * @return Page; meta.totalResults counts matches within the window, which is all a
+     *         sorted or filtered query can page through, even when upstream has more results
+     */
+    public ProductSearchDTO page(String keyword, int page, int pageSize, SearchSort sort, SearchFilter filter) {
+        int skip = Math.max(page - 1, 0) * pageSize;
+        List<ProductSearchDTO.ProductSummaryDTO> pageItems = new ArrayList<>(pageSize);
+        int matches = 0;
+
+        int size = products.length;
+        for (int position = 0; position < size; position++) {
+            int i = switch (sort) {
+                case PRICE_ASC -> byPriceAsc[position];
+                case PRICE_DESC -> byPriceAsc[priceDescPosition(position)];
+                case SALES -> bySalesDesc[position];
+                case DEFAULT -> position;
+            };
+            if (!matches(i, filter)) {
+                continue;
+            }
+            if (matches >= skip && pageItems.size() < pageSize) {
+                pageItems.add(products[i]);
+            }
+            matches++;
+        }
+
+        ProductSearchDTO.SearchMeta meta = ProductSearchDTO.SearchMeta.builder()
+                .keyword(keyword)
+                .currentPage(page)
+                .pageSize(pageSize)
+                .totalResults(matches)
+                .sortOptions(SearchSort.labels())
+                .build();
+
+        return ProductSearchDTO.builder()
+                .meta(meta)
+                .products(pageItems)
+                .build();
+    }
+
+    /**
+     * Walk the ascending price order backwards, keeping unknown prices (at its tail) last
+     */
+    private int priceDescPosition(int position) {
+        return position < knownPrices ? knownPrices - 1 - position : position;
+    }
+
+    private boolean matches(int i, SearchFilter filter) {
+        if (filter.isEmpty()) {
+            return true;
+        }
+        if (filter.minPrice() != null && (priceCents[i] == UNKNOWN || priceCents[i] < Math.round(filter.minPrice() * 100))) {
+            return false;
+        }
+        if (filter.maxPrice() != null && (priceCents[i] == UNKNOWN || priceCents[i] > Math.round(filter.maxPrice() * 100))) {
+            return false;
+        }
+        if (filter.minRating() != null && (rating[i] == UNKNOWN || rating[i] < filter.minRating())) {
+            return false;
+        }
+        if (filter.minSales() != null && (sales[i] == UNKNOWN || sales[i] < filter.minSales())) {
+            return false;
+        }
+        return filter.minDiscount() == null || (discount[i] != UNKNOWN && discount[i] >= filter.minDiscount());
+    }
+
+    /**
+     * Sort indices by an int column using packed longs; unknown values go last
+     */
+    private static int[] order(int[] column, boolean descending) {
+        int size = column.length;
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            long key;
+            if (column[i] == UNKNOWN) {
+                key = Integer.MAX_VALUE;
+            } else {
+                key = descending ? -(long) column[i] : column[i];
+            }
+            packed[i] = (key << 32) | i;
+        }
+        Arrays.sort(packed);
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+
+    /**
+     * Parse a display price such as "12.34" or "1,234.50" into cents
+     */
+    private static int parseCents(String price) {
+        if (price == null) {
+            return UNKNOWN;
+        }
+        StringBuilder digits = new StringBuilder(price.length());
+        for (int i = 0; i < price.length(); i++) {
+            char c = price.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '.') {
+                digits.append(c);
+            }
+        }
+        if (digits.isEmpty()) {
+            return UNKNOWN;
+        }
+        try {
+            double value = Double.parseDouble(digits.toString());
+            return value * 100 < Integer.MAX_VALUE ? (int) Math.round(value * 100) : UNKNOWN;
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.dto.ProductSearchDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Per-keyword windows of the first few hundred search results, used to sort and filter
+ * locally instead of asking OtAPI again for every sorted page.
+ *
+ * A window is loaded once per (marketplace, keyword, language): the first frame tells how
+ * many results exist, then the remaining frames are fetched in parallel. Concurrent
+ * requests for the same keyword share one load.
+ */
+@Slf4j
+@Component
+public class SearchWindowCache {
+
+    private record WindowKey(Marketplace marketplace, String keyword, String language) {
+    }
+
+    private record Entry(Mono<SearchWindow> window, long createdAtNanos) {
+    }
+
+    private final Map<WindowKey, Entry> windows = new ConcurrentHashMap<>();
+    private final int windowSize;
+    private final int frameSize;
+    private final int concurrency;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter loads;
+
+    public SearchWindowCache(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.search-window.size:200}") int windowSize,
+            @Value("${marketplace.search-window.frame-size:50}") int frameSize,
+            @Value("${marketplace.search-window.concurrency:4}") int concurrency,
+            @Value("${marketplace.search-window.ttl:10m}") Duration ttl,
+            @Value("${marketplace.search-window.max-entries:500}") int maxEntries) {
+
+        this.windowSize = windowSize;
+        this.frameSize = frameSize;
+        this.concurrency = concurrency;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+
+        Gauge.builder("marketplace.search.window.size", windows, Map::size)
+                .description("Keyword windows currently cached")
+                .register(meterRegistry);
+        this.hits = Counter.builder("marketplace.search.window.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.loads = Counter.builder("marketplace.search.window.requests")
+                .tag("result", "load")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the cached window for a keyword, loading it on a miss
+     *
+     * @param marketplace Marketplace searched
+     * @param keyword Search keyword
+     * @param language Search language
+     * @param fetchFrame Fetches one frame as (framePosition, frameSize)
+     * @return The window
+     */
+    public Mono<SearchWindow> get(Marketplace marketplace, String keyword, String language,
+                                  BiFunction<Integer, Integer, Mono<ProductSearchDTO>> fetchFrame) {
+        WindowKey key = new WindowKey(marketplace, keyword.trim().toLowerCase(Locale.ROOT), language);
+
+        long now = System.nanoTime();
+        Entry cached = windows.get(key);
+        if (cached != null && !isExpired(cached, now)) {
+            hits.increment();
+            return cached.window();
+        }
+
+        if (windows.size() >= maxEntries) {
+            purgeExpired();
+        }
+
+        // Concurrent misses for the same key share one load; a failed load is dropped so
+        // the next request retries it
+        boolean[] loading = new boolean[1];
+        Entry entry = windows.compute(key, (k, existing) -> {
+            if (existing != null && !isExpired(existing, now)) {
+                return existing;
+            }
+            loading[0] = true;
+            return new Entry(load(key, keyword, fetchFrame).cache(), now);
+        });
+        if (loading[0]) {
+            loads.increment();
+        } else {
+            hits.increment();
+        }
+        return entry.window().doOnError(error -> windows.remove(key, entry));
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAtNanos() > ttl.toNanos();
+    }
+
+    private Mono<SearchWindow> load(WindowKey key, String keyword,
+                                    BiFunction<Integer, Integer, Mono<ProductSearchDTO>> fetchFrame) {
+        return fetchFrame.apply(0, frameSize)
+                .flatMap(first -> {
+                    int total = first.getMeta() != null && first.getMeta().getTotalResults() != null
+                            ? first.getMeta().getTotalResults() : 0;
+                    int limit = Math.min(windowSize, total);
+
+                    List<Integer> positions = new ArrayList<>();
+                    for (int position = frameSize; position < limit; position += frameSize) {
+                        positions.add(position);
+                    }
+
+                    return Flux.fromIterable(positions)
+                            .flatMapSequential(position -> fetchFrame.apply(position, frameSize)
+                                    .onErrorResume(error -> {
+                                        // A missing frame only makes the window smaller
+                                        log.warn("Search frame {} for '{}' failed: {}", position, keyword, error.getMessage());
+                                        return Mono.empty();
+                                    }), concurrency)
+                            .startWith(first)
+                            .collectList()
+                            .map(frames -> new SearchWindow(merge(frames)));
+                })
+                .doOnNext(window -> log.info("Cached search window for {} ({} products)", key, window.size()));
+    }
+
+    /**
+     * Concatenate frames in upstream order, dropping items repeated across frames
+     */
+    private static List<ProductSearchDTO.ProductSummaryDTO> merge(List<ProductSearchDTO> frames) {
+        List<ProductSearchDTO.ProductSummaryDTO> products = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (ProductSearchDTO frame : frames) {
+            if (frame.getProducts() == null) {
+                continue;
+            }
+            for (ProductSearchDTO.ProductSummaryDTO product : frame.getProducts()) {
+                if (product.getItemId() == null || seen.add(product.getItemId())) {
+                    products.add(product);
+                }
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Drop windows past their TTL; if still over capacity, drop the oldest
+     */
+    @Scheduled(fixedDelayString = "${marketplace.search-window.purge-interval:60000}")
+    void purgeExpired() {
+        long now = System.nanoTime();
+        List<Map.Entry<WindowKey, Long>> ages = new ArrayList<>();
+
+        windows.forEach((key, entry) -> {
+            if (isExpired(entry, now)) {
+                windows.remove(key, entry);
+            } else {
+                ages.add(Map.entry(key, entry.createdAtNanos()));
+            }
+        });
+
+        int excess = windows.size() - maxEntries;
+        if (excess > 0) {
+            ages.sort(Map.Entry.comparingByValue());
+            ages.stream().limit(excess).forEach(entry -> windows.remove(entry.getKey()));
+        }
+    }
+}
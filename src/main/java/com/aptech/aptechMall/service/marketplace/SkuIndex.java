@@ -0,0 +1,203 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Every SKU of one product, indexed by its property selection.
+ *
+ * A selection is a set of (pid, vid) pairs; its canonical key is the pairs sorted by pid
+ * and written as {@code pid:vid;pid:vid}. Built once per detail fetch, after which resolving
+ * a selection is a single hash lookup and naming a SKU never scans the attribute list.
+ */
+public final class SkuIndex {
+
+    /**
+     * One selectable value of a configurator property
+     */
+    public record Option(String pid, String vid, String propertyName, String value, String imageUrl) {
+    }
+
+    /**
+     * One configured item
+     *
+     * @param skuId ConfiguredItem ID
+     * @param key Canonical selection key
+     * @param options Selected option per property, in property order
+     */
+    public record Sku(String skuId, String key, List<Option> options, Double price, Integer quantity) {
+
+        /**
+         * @return Display name such as "Color: Red, Size: XL", or "Default" for an empty selection
+         */
+        public String name() {
+            if (options.isEmpty()) {
+                return "Default";
+            }
+            StringBuilder name = new StringBuilder();
+            for (Option option : options) {
+                if (!name.isEmpty()) {
+                    name.append(", ");
+                }
+                name.append(option.propertyName()).append(": ").append(option.value());
+            }
+            return name.toString();
+        }
+
+        /**
+         * @return Image of the first selected option that has one
+         */
+        public String imageUrl() {
+            for (Option option : options) {
+                if (option.imageUrl() != null) {
+                    return option.imageUrl();
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Map<String, Sku> skusByKey;
+    private final List<Sku> skus;
+    private final Map<String, List<Option>> optionsByProperty;
+
+    private SkuIndex(Map<String, Sku> skusByKey, List<Sku> skus, Map<String, List<Option>> optionsByProperty) {
+        this.skusByKey = skusByKey;
+        this.skus = skus;
+        this.optionsByProperty = optionsByProperty;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Resolve a selection
+     *
+     * @param props Selection as {@code pid:vid} pairs separated by ';' or ',', in any order
+     * @return Matching SKU, empty when the selection is malformed or matches none
+     */
+    public Optional<Sku> resolve(String props) {
+        if (props == null || props.isBlank()) {
+            return skus.size() == 1 ? Optional.of(skus.get(0)) : Optional.empty();
+        }
+        String[] pairs = props.split("[;,]");
+        List<String[]> selection = new ArrayList<>(pairs.length);
+        for (String pair : pairs) {
+            int colon = pair.indexOf(':');
+            if (colon <= 0 || colon == pair.length() - 1) {
+                return Optional.empty();
+            }
+            selection.add(new String[]{pair.substring(0, colon).trim(), pair.substring(colon + 1).trim()});
+        }
+        return Optional.ofNullable(skusByKey.get(canonicalKey(selection)));
+    }
+
+    /**
+     * @return All SKUs in upstream order
+     */
+    public List<Sku> skus() {
+        return skus;
+    }
+
+    public int size() {
+        return skus.size();
+    }
+
+    /**
+     * @return Selectable options grouped by property ID, in upstream order
+     */
+    public Map<String, List<Option>> optionsByProperty() {
+        return optionsByProperty;
+    }
+
+    /**
+     * Sort (pid, vid) pairs by pid and join them as {@code pid:vid;pid:vid}
+     */
+    static String canonicalKey(List<String[]> pairs) {
+        String[][] sorted = pairs.toArray(new String[0][]);
+        Arrays.sort(sorted, (a, b) -> a[0].compareTo(b[0]));
+        StringBuilder key = new StringBuilder();
+        for (String[] pair : sorted) {
+            if (!key.isEmpty()) {
+                key.append(';');
+            }
+            key.append(pair[0]).append(':').append(pair[1]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Collects attributes and configured items from a detail response, in any order
+     */
+    public static final class Builder {
+
+        private record PendingSku(String skuId, List<String[]> pairs, Double price, Integer quantity) {
+        }
+
+        private final Map<String, Option> optionsByPair = new HashMap<>();
+        private final List<PendingSku> pending = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Register a product attribute; non-configurator attributes are accepted and simply never selected
+         */
+        public Builder attribute(String pid, String vid, String propertyName, String value, String imageUrl) {
+            if (pid != null && vid != null) {
+                optionsByPair.putIfAbsent(pid + ':' + vid, new Option(pid, vid, propertyName, value, imageUrl));
+            }
+            return this;
+        }
+
+        /**
+         * Register a configured item
+         *
+         * @param pairs Its (pid, vid) configurators
+         */
+        public Builder sku(String skuId, List<String[]> pairs, Double price, Integer quantity) {
+            pending.add(new PendingSku(skuId, pairs != null ? pairs : List.of(), price, quantity));
+            return this;
+        }
+
+        public SkuIndex build() {
+            Map<String, Sku> skusByKey = new HashMap<>(pending.size() * 2);
+            List<Sku> skus = new ArrayList<>(pending.size());
+            Map<String, List<Option>> optionsByProperty = new LinkedHashMap<>();
+
+            for (PendingSku item : pending) {
+                List<Option> options = new ArrayList<>(item.pairs().size());
+                for (String[] pair : item.pairs()) {
+                    if (pair[0] == null || pair[1] == null) {
+                        continue;
+                    }
+                    Option option = optionsByPair.getOrDefault(pair[0] + ':' + pair[1],
+                            new Option(pair[0], pair[1], pair[0], pair[1], null));
+                    options.add(option);
+
+                    List<Option> values = optionsByProperty.computeIfAbsent(option.pid(), pid -> new ArrayList<>());
+                    if (!values.contains(option)) {
+                        values.add(option);
+                    }
+                }
+
+                String key = canonicalKey(options.stream().map(option -> new String[]{option.pid(), option.vid()}).toList());
+                Sku sku = new Sku(item.skuId(), key, List.copyOf(options), item.price(), item.quantity());
+                // Upstream occasionally repeats a selection; the first item wins
+                if (skusByKey.putIfAbsent(key, sku) == null) {
+                    skus.add(sku);
+                }
+            }
+
+            optionsByProperty.replaceAll((pid, values) -> List.copyOf(values));
+            return new SkuIndex(skusByKey, Collections.unmodifiableList(skus), Collections.unmodifiableMap(optionsByProperty));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SKU indexes of recently fetched products, kept next to the detail cache so a variant
+ * lookup does not decode the full detail payload
+ */
+@Component
+public class SkuIndexCache {
+
+    private record Entry(SkuIndex index, long createdAtNanos) {
+    }
+
+    private final Map<ProductKey, Entry> indexes = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final int maxEntries;
+
+    public SkuIndexCache(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.detail-cache.ttl:15m}") Duration ttl,
+            @Value("${marketplace.detail-cache.max-entries:5000}") int maxEntries) {
+
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+
+        Gauge.builder("marketplace.sku.index.size", indexes, Map::size)
+                .description("Products with a cached SKU index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Cached index, or null when absent or expired
+     */
+    public SkuIndex get(Marketplace marketplace, String productId) {
+        ProductKey key = new ProductKey(marketplace, productId);
+        Entry entry = indexes.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            indexes.remove(key, entry);
+            return null;
+        }
+        return entry.index();
+    }
+
+    public void put(Marketplace marketplace, String productId, SkuIndex index) {
+        ProductKey key = new ProductKey(marketplace, productId);
+        if (!indexes.containsKey(key) && indexes.size() >= maxEntries) {
+            purgeExpired();
+            if (indexes.size() >= maxEntries) {
+                // Indexes are rebuilt from cached details on demand; drop any one
+                indexes.keySet().stream().findAny().ifPresent(indexes::remove);
+            }
+        }
+        indexes.put(key, new Entry(index, System.nanoTime()));
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.createdAtNanos() > ttl.toNanos();
+    }
+
+    @Scheduled(fixedDelayString = "${marketplace.detail-cache.purge-interval:60000}")
+    void purgeExpired() {
+        indexes.values().removeIf(this::isExpired);
+    }
+}
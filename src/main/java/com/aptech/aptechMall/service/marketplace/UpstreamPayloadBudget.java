@@ -0,0 +1,198 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.UpstreamCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Global budget for upstream response bytes held in memory at the same time.
+ *
+ * Every buffered marketplace call takes a {@link Lease} before the request is sent. The
+ * lease starts with a small admission reservation and grows as body bytes arrive, and is
+ * returned once the caller has finished parsing. When the budget is exhausted, new calls
+ * wait up to {@code max-wait} for room and are then rejected; calls whose body outgrows
+ * what is left fail immediately. Both surface as {@link UpstreamCapacityExceededException}
+ * (HTTP 503).
+ */
+@Slf4j
+@Component
+public class UpstreamPayloadBudget {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private final long maxBytes;
+    private final long admissionBytes;
+    private final long maxResponseBytes;
+    private final Duration maxWait;
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final Counter admissionRejections;
+    private final Counter overflowRejections;
+
+    public UpstreamPayloadBudget(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.payload-budget.max-bytes:256MB}") DataSize maxBytes,
+            @Value("${marketplace.payload-budget.admission-bytes:256KB}") DataSize admissionBytes,
+            @Value("${marketplace.payload-budget.max-response-bytes:10MB}") DataSize maxResponseBytes,
+            @Value("${marketplace.payload-budget.max-wait:250ms}") Duration maxWait) {
+
+        this.maxBytes = maxBytes.toBytes();
+        this.admissionBytes = Math.min(admissionBytes.toBytes(), this.maxBytes);
+        this.maxResponseBytes = maxResponseBytes.toBytes();
+        this.maxWait = maxWait;
+
+        Gauge.builder("marketplace.payload.inflight.bytes", inFlightBytes, AtomicLong::get)
+                .description("Upstream response bytes currently held in memory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("marketplace.payload.budget.bytes", () -> this.maxBytes)
+                .description("Configured budget for in-flight upstream response bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.admissionRejections = Counter.builder("marketplace.payload.rejections")
+                .description("Upstream calls rejected because the payload budget was exhausted")
+                .tag("reason", "admission")
+                .register(meterRegistry);
+        this.overflowRejections = Counter.builder("marketplace.payload.rejections")
+                .description("Upstream calls rejected because the payload budget was exhausted")
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+
+        log.info("UpstreamPayloadBudget initialized - budget: {} bytes, admission: {} bytes, max wait: {}",
+                this.maxBytes, this.admissionBytes, maxWait);
+    }
+
+    /**
+     * Run an upstream call inside a lease
+     * The lease is returned when the Mono returned by the call terminates or is cancelled
+     *
+     * @param call Upstream call reading its body through {@link Lease#readBody(Flux)}
+     * @return Result of the call
+     */
+    public <T> Mono<T> withinBudget(Function<Lease, Mono<T>> call) {
+        return Mono.usingWhen(
+                admit(),
+                call,
+                lease -> Mono.fromRunnable(lease::release),
+                (lease, error) -> Mono.fromRunnable(lease::release),
+                lease -> Mono.fromRunnable(lease::release));
+    }
+
+    /**
+     * @return bytes currently reserved by in-flight calls
+     */
+    public long getInFlightBytes() {
+        return inFlightBytes.get();
+    }
+
+    private Mono<Lease> admit() {
+        return Mono.defer(() -> {
+            long deadline = System.nanoTime() + maxWait.toNanos();
+            return Mono.fromSupplier(() -> tryReserve(admissionBytes) ? new Lease(admissionBytes) : null)
+                    .repeatWhenEmpty(attempts -> attempts.concatMap(attempt -> {
+                        if (System.nanoTime() < deadline) {
+                            return Mono.delay(POLL_INTERVAL);
+                        }
+                        admissionRejections.increment();
+                        log.warn("Upstream payload budget exhausted ({} of {} bytes in flight), rejecting call",
+                                inFlightBytes.get(), maxBytes);
+                        return Mono.error(new UpstreamCapacityExceededException(
+                                "Marketplace service is busy, please retry shortly"));
+                    }));
+        });
+    }
+
+    private boolean tryReserve(long bytes) {
+        while (true) {
+            long current = inFlightBytes.get();
+            if (current + bytes > maxBytes) {
+                return false;
+            }
+            if (inFlightBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Bytes reserved by a single upstream call
+     */
+    public final class Lease {
+        private final AtomicLong reserved;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(long initialBytes) {
+            this.reserved = new AtomicLong(initialBytes);
+        }
+
+        /**
+         * Aggregate a response body into a String, growing the lease as buffers arrive
+         *
+         * @param body Response body
+         * @return Body decoded as UTF-8
+         */
+        public Mono<String> readBody(Flux<DataBuffer> body) {
+            AtomicLong received = new AtomicLong();
+            Flux<DataBuffer> accounted = body.handle((buffer, sink) -> {
+                long total = received.addAndGet(buffer.readableByteCount());
+                if (total > maxResponseBytes) {
+                    DataBufferUtils.release(buffer);
+                    sink.error(new DataBufferLimitException(
+                            "Exceeded limit on max bytes to buffer : " + maxResponseBytes));
+                    return;
+                }
+                if (!grow(total)) {
+                    DataBufferUtils.release(buffer);
+                    sink.error(new UpstreamCapacityExceededException(
+                            "Marketplace service is busy, please retry shortly"));
+                    return;
+                }
+                sink.next(buffer);
+            });
+
+            return DataBufferUtils.join(accounted)
+                    .map(joined -> {
+                        try {
+                            return joined.toString(StandardCharsets.UTF_8);
+                        } finally {
+                            DataBufferUtils.release(joined);
+                        }
+                    });
+        }
+
+        private boolean grow(long total) {
+            long extra = total - reserved.get();
+            if (extra <= 0) {
+                return true;
+            }
+            if (!tryReserve(extra)) {
+                overflowRejections.increment();
+                log.warn("Upstream payload budget exhausted while reading a {} byte body, rejecting call", total);
+                return false;
+            }
+            reserved.addAndGet(extra);
+            return true;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlightBytes.addAndGet(-reserved.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.dto.ProductDetailDTO;
+import com.aptech.aptechMall.dto.VendorStorefrontDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Vendor profiles and vendor items, kept per vendor instead of per product.
+ *
+ * Many products share a handful of vendors, so the mapped vendor block is reused across
+ * their details until it expires. Vendor items from every fetch are merged into one list per
+ * vendor, which backs the related products of a detail and the local storefront endpoint.
+ */
+@Component
+public class VendorCache {
+
+    private record VendorKey(Marketplace marketplace, String vendorId) {
+    }
+
+    private static final class Storefront {
+        volatile ProductDetailDTO.VendorDTO vendor;
+        volatile long vendorFetchedAtNanos;
+        volatile long touchedAtNanos;
+        // Insertion order is "last seen" order; guarded by the storefront itself
+        final LinkedHashMap<String, ProductDetailDTO.RelatedProductDTO> items = new LinkedHashMap<>();
+    }
+
+    // Access order, so at max-vendors the vendor neither fetched nor viewed for longest goes first
+    private final Map<VendorKey, Storefront> storefronts;
+    private final Duration ttl;
+    private final Duration retention;
+    private final int maxVendors;
+    private final int maxItemsPerVendor;
+
+    public VendorCache(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.vendors.ttl:6h}") Duration ttl,
+            @Value("${marketplace.vendors.retention:24h}") Duration retention,
+            @Value("${marketplace.vendors.max-vendors:20000}") int maxVendors,
+            @Value("${marketplace.vendors.max-items-per-vendor:500}") int maxItemsPerVendor) {
+
+        this.ttl = ttl;
+        this.retention = retention;
+        this.maxVendors = maxVendors;
+        this.maxItemsPerVendor = maxItemsPerVendor;
+        this.storefronts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<VendorKey, Storefront> eldest) {
+                return size() > maxVendors;
+            }
+        });
+
+        Gauge.builder("marketplace.vendors.size", storefronts, Map::size)
+                .description("Vendors with a cached profile or storefront")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Store a vendor profile and merge items seen for it
+     *
+     * @param vendor Mapped vendor block; ignored when it has no ID
+     * @param items Vendor items of the fetched detail, the fetched product included
+     */
+    public void record(Marketplace marketplace, ProductDetailDTO.VendorDTO vendor,
+                       List<ProductDetailDTO.RelatedProductDTO> items) {
+        if (vendor == null || vendor.getVendorId() == null) {
+            return;
+        }
+        VendorKey key = new VendorKey(marketplace, vendor.getVendorId());
+        long now = System.nanoTime();
+        Storefront storefront = storefronts.computeIfAbsent(key, k -> new Storefront());
+        storefront.vendor = vendor;
+        storefront.vendorFetchedAtNanos = now;
+        storefront.touchedAtNanos = now;
+
+        synchronized (storefront) {
+            for (ProductDetailDTO.RelatedProductDTO item : items) {
+                if (item.getItemId() == null) {
+                    continue;
+                }
+                // Re-insert so the item moves to the "most recently seen" end
+                storefront.items.remove(item.getItemId());
+                storefront.items.put(item.getItemId(), item);
+            }
+            Iterator<String> oldest = storefront.items.keySet().iterator();
+            while (storefront.items.size() > maxItemsPerVendor && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+    }
+
+    /**
+     * @return Cached vendor profile, or null when absent or older than the TTL
+     */
+    public ProductDetailDTO.VendorDTO getVendor(Marketplace marketplace, String vendorId) {
+        if (vendorId == null) {
+            return null;
+        }
+        Storefront storefront = storefronts.get(new VendorKey(marketplace, vendorId));
+        if (storefront == null || System.nanoTime() - storefront.vendorFetchedAtNanos > ttl.toNanos()) {
+            return null;
+        }
+        return storefront.vendor;
+    }
+
+    /**
+     * @return Up to limit items of the vendor, most recently seen first, without the given product
+     */
+    public List<ProductDetailDTO.RelatedProductDTO> related(Marketplace marketplace, String vendorId,
+                                                            String excludeProductId, int limit) {
+        if (vendorId == null) {
+            return List.of();
+        }
+        Storefront storefront = storefronts.get(new VendorKey(marketplace, vendorId));
+        if (storefront == null) {
+            return List.of();
+        }
+        return newestFirst(storefront).stream()
+                .filter(item -> !item.getItemId().equals(excludeProductId))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Page through everything known about a vendor
+     *
+     * @param page Page number starting from 1
+     * @return Storefront, empty when the vendor was never seen or has been purged
+     */
+    public Optional<VendorStorefrontDTO> storefront(Marketplace marketplace, String vendorId, int page, int pageSize) {
+        Storefront storefront = storefronts.get(new VendorKey(marketplace, vendorId));
+        if (storefront == null) {
+            return Optional.empty();
+        }
+
+        List<ProductDetailDTO.RelatedProductDTO> items = newestFirst(storefront);
+        int from = Math.min(Math.max(page - 1, 0) * pageSize, items.size());
+        int to = Math.min(from + pageSize, items.size());
+
+        return Optional.of(VendorStorefrontDTO.builder()
+                .marketplace(marketplace)
+                .vendor(storefront.vendor)
+                .totalProducts(items.size())
+                .page(page)
+                .pageSize(pageSize)
+                .products(List.copyOf(items.subList(from, to)))
+                .build());
+    }
+
+    private static List<ProductDetailDTO.RelatedProductDTO> newestFirst(Storefront storefront) {
+        List<ProductDetailDTO.RelatedProductDTO> items;
+        synchronized (storefront) {
+            items = new ArrayList<>(storefront.items.values());
+        }
+        Collections.reverse(items);
+        return items;
+    }
+
+    /**
+     * Drop vendors not seen in any fetch for longer than the retention period
+     */
+    @Scheduled(fixedDelayString = "${marketplace.vendors.purge-interval:60000}")
+    void purgeExpired() {
+        long now = System.nanoTime();
+        synchronized (storefronts) {
+            storefronts.values().removeIf(storefront -> now - storefront.touchedAtNanos > retention.toNanos());
+        }
+    }
+}
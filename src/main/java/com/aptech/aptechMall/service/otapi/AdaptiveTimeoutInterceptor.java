@@ -0,0 +1,24 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.service.marketplace.AdaptiveTimeouts;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bounds each attempt by the endpoint's adaptive timeout and the request deadline,
+ * keyed as "{marketplace}.{operation}", e.g. "AliExpress.detail"; the client records the latency samples
+ */
+@Component
+@Order(700)
+@RequiredArgsConstructor
+public class AdaptiveTimeoutInterceptor implements OtApiInterceptor {
+
+    private final AdaptiveTimeouts adaptiveTimeouts;
+
+    @Override
+    public <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain) {
+        return adaptiveTimeouts.apply(endpoint.name() + "." + call.getOperation(), Mono.defer(chain::proceed));
+    }
+}
@@ -0,0 +1,68 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shares one execution between identical calls in flight at the same time (same marketplace, path,
+ * params and cache mode), so a burst of requests for a hot product or keyword costs one upstream call.
+ *
+ * The shared execution runs without any caller's request deadline, bounded only by the adaptive
+ * per-attempt timeouts; each caller waits for it up to its own deadline. It ends once it completes,
+ * so later identical calls start a fresh one.
+ */
+@Component
+@Order(100)
+public class CoalescingInterceptor implements OtApiInterceptor {
+
+    private final Map<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public CoalescingInterceptor(MeterRegistry meterRegistry) {
+        Gauge.builder("marketplace.otapi.in.flight", inFlight, Map::size)
+                .description("Distinct OtAPI calls currently in flight")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("marketplace.otapi.coalesced")
+                .description("OtAPI calls that joined an identical call already in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain) {
+        String key = endpoint.name() + ' ' + call.getKey();
+
+        AtomicReference<Mono<Object>> self = new AtomicReference<>();
+        Mono<Object> execution = Mono.defer(chain::proceed)
+                .<Object>map(response -> response)
+                .contextWrite(RequestDeadline.detached())
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(execution);
+
+        Mono<Object> shared = inFlight.putIfAbsent(key, execution);
+        if (shared != null) {
+            coalesced.increment();
+            return withOwnDeadline(shared).map(call.getResponseType()::cast);
+        }
+        return withOwnDeadline(execution).map(call.getResponseType()::cast);
+    }
+
+    /**
+     * Give up waiting on the shared execution when the subscriber's deadline runs out; the
+     * execution itself keeps going for the other callers
+     */
+    private static Mono<Object> withOwnDeadline(Mono<Object> execution) {
+        return Mono.deferContextual(context -> RequestDeadline.from(context)
+                .map(deadline -> execution.timeout(deadline.remaining()))
+                .orElse(execution));
+    }
+}
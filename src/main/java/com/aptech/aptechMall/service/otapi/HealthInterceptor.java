@@ -0,0 +1,30 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.service.marketplace.MarketplaceHealth;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Feeds every upstream attempt into the marketplace's health window; only transient upstream
+ * failures (the ones worth retrying) count as failures
+ */
+@Component
+@Order(650)
+@RequiredArgsConstructor
+public class HealthInterceptor implements OtApiInterceptor {
+
+    private final MarketplaceHealth health;
+
+    @Override
+    public <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return chain.proceed()
+                    .doOnSuccess(response -> health.record(endpoint.marketplace(), false, System.nanoTime() - startedAt))
+                    .doOnError(error -> health.record(endpoint.marketplace(), RetryInterceptor.isTransient(error),
+                            System.nanoTime() - startedAt));
+        });
+    }
+}
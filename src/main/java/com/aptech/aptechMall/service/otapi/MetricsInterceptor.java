@@ -0,0 +1,64 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.Exception.ProductNotFoundException;
+import com.aptech.aptechMall.Exception.UpstreamCapacityExceededException;
+import com.aptech.aptechMall.Exception.UpstreamErrorCodeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Times every upstream attempt as marketplace.otapi.calls{marketplace, operation, outcome}
+ */
+@Component
+@Order(600)
+@RequiredArgsConstructor
+public class MetricsInterceptor implements OtApiInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return chain.proceed()
+                    .doOnSuccess(response -> stop(sample, endpoint, call, "success"))
+                    .doOnError(error -> stop(sample, endpoint, call, outcomeOf(error)))
+                    .doOnCancel(() -> stop(sample, endpoint, call, "cancelled"));
+        });
+    }
+
+    private void stop(Timer.Sample sample, OtApiEndpoint endpoint, OtApiCall<?> call, String outcome) {
+        sample.stop(Timer.builder("marketplace.otapi.calls")
+                .description("OtAPI upstream call attempts")
+                .tag("marketplace", endpoint.name())
+                .tag("operation", call.getOperation())
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private static String outcomeOf(Throwable error) {
+        if (error instanceof ProductNotFoundException) {
+            return "not_found";
+        }
+        if (error instanceof UpstreamErrorCodeException) {
+            return "error_code";
+        }
+        if (error instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (error instanceof UpstreamCapacityExceededException) {
+            return "rejected";
+        }
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is4xxClientError() ? "client_error" : "server_error";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,26 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.service.marketplace.NegativeProductCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Guards product calls with the negative cache, so known-bad IDs never reach the rate limiter or upstream
+ */
+@Component
+@Order(300)
+@RequiredArgsConstructor
+public class NegativeCacheInterceptor implements OtApiInterceptor {
+
+    private final NegativeProductCache negativeCache;
+
+    @Override
+    public <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain) {
+        if (!call.isProductCall()) {
+            return chain.proceed();
+        }
+        return negativeCache.guard(endpoint.marketplace(), call.getProductId(), Mono.defer(chain::proceed));
+    }
+}
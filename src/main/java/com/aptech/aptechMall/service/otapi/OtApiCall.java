@@ -0,0 +1,125 @@
+package com.aptech.aptechMall.service.otapi;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Immutable description of one buffered OtAPI GET call, as seen by the interceptors
+ */
+@Getter
+public final class OtApiCall<T> {
+
+    /**
+     * How the response cache treats the call; only product calls are cached
+     */
+    public enum CacheMode {
+        NONE,
+        /** Serve from cache when fresh, fetch and cache otherwise */
+        READ,
+        /** Always fetch, then replace the cached copy */
+        REFRESH
+    }
+
+    private final String operation;
+    private final String path;
+    private final Map<String, Object> params;
+    private final Class<T> responseType;
+    private final String productId;
+    private final Predicate<T> found;
+    private final CacheMode cacheMode;
+    private final Duration maxAge;
+    private final Consumer<T> onFetched;
+    private final String key;
+
+    private OtApiCall(Builder<T> builder) {
+        this.operation = builder.operation;
+        this.path = builder.path;
+        this.params = Collections.unmodifiableMap(new LinkedHashMap<>(builder.params));
+        this.responseType = builder.responseType;
+        this.productId = builder.productId;
+        this.found = builder.found;
+        this.cacheMode = builder.cacheMode;
+        this.maxAge = builder.maxAge;
+        this.onFetched = builder.onFetched;
+        // Calls with the same key return the same result and may share one upstream request
+        this.key = operation + ' ' + path + this.params + ' ' + cacheMode + (maxAge != null ? "<=" + maxAge : "");
+    }
+
+    /**
+     * @param operation Operation name used in timeout keys and metrics, e.g. "detail"
+     * @param path Endpoint path, e.g. "/BatchGetItemFullInfo"
+     * @param responseType Model type, or String for the raw body
+     */
+    public static <T> Builder<T> get(String operation, String path, Class<T> responseType) {
+        return new Builder<>(operation, path, responseType);
+    }
+
+    public boolean isProductCall() {
+        return productId != null;
+    }
+
+    public static final class Builder<T> {
+        private final String operation;
+        private final String path;
+        private final Class<T> responseType;
+        private final Map<String, Object> params = new LinkedHashMap<>();
+        private String productId;
+        private Predicate<T> found;
+        private CacheMode cacheMode = CacheMode.NONE;
+        private Duration maxAge;
+        private Consumer<T> onFetched;
+
+        private Builder(String operation, String path, Class<T> responseType) {
+            this.operation = operation;
+            this.path = path;
+            this.responseType = responseType;
+        }
+
+        public Builder<T> param(String name, Object value) {
+            params.put(name, value);
+            return this;
+        }
+
+        /**
+         * Mark the call as a lookup of one product, which enables the negative and response caches
+         *
+         * @param found Whether a successful response contains the product; ProductNotFoundException otherwise
+         */
+        public Builder<T> product(String productId, Predicate<T> found) {
+            this.productId = productId;
+            this.found = found;
+            return this;
+        }
+
+        public Builder<T> cache(CacheMode cacheMode) {
+            this.cacheMode = cacheMode;
+            return this;
+        }
+
+        /**
+         * Serve from cache only when the cached copy is at most maxAge old, without counting an access
+         */
+        public Builder<T> maxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+            return this;
+        }
+
+        /**
+         * @param onFetched Called once per response fetched from upstream, before it is cached
+         */
+        public Builder<T> onFetched(Consumer<T> onFetched) {
+            this.onFetched = onFetched;
+            return this;
+        }
+
+        public OtApiCall<T> build() {
+            return new OtApiCall<>(this);
+        }
+    }
+}
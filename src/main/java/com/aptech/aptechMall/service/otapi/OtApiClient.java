@@ -0,0 +1,272 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.Exception.ProductNotFoundException;
+import com.aptech.aptechMall.Exception.UpstreamErrorCodeException;
+import com.aptech.aptechMall.model.OtApiResponse;
+import com.aptech.aptechMall.service.marketplace.AdaptiveTimeouts;
+import com.aptech.aptechMall.service.marketplace.MarketplaceWorkScheduler;
+import com.aptech.aptechMall.service.marketplace.OtApiPayloads;
+import com.aptech.aptechMall.service.marketplace.UpstreamPayloadBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OtAPI client of one marketplace, shared by every marketplace through {@link OtApiClientFactory}
+ *
+ * Buffered calls run through the interceptor pipeline and end in one budgeted read, a parse on the
+ * work pool and the ErrorCode / item checks. Raw calls stream the body untouched and only pass the
+ * rate limiter, the leading ErrorCode check and the adaptive timeout.
+ *
+ * @param <D> BatchGetItemFullInfo model type
+ * @param <S> BatchSearchItemsFrame model type
+ */
+@Slf4j
+public class OtApiClient<D extends OtApiResponse, S extends OtApiResponse> {
+
+    private static final String DETAIL_PATH = "/BatchGetItemFullInfo";
+    private static final String SEARCH_PATH = "/BatchSearchItemsFrame";
+    private static final String REVIEWS_PATH = "/api/product/reviews";
+    private static final String PROBE_KEYWORD = "phone";
+
+    private final OtApiEndpoint endpoint;
+    private final OtApiModel<D, S> model;
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final MarketplaceWorkScheduler workScheduler;
+    private final UpstreamPayloadBudget payloadBudget;
+    private final AdaptiveTimeouts adaptiveTimeouts;
+    private final OtApiRateLimiter rateLimiter;
+    private final OtApiMetrics metrics;
+    private final List<OtApiInterceptor> interceptors;
+
+    OtApiClient(OtApiEndpoint endpoint, OtApiModel<D, S> model, ObjectMapper objectMapper,
+                MarketplaceWorkScheduler workScheduler, UpstreamPayloadBudget payloadBudget,
+                AdaptiveTimeouts adaptiveTimeouts, OtApiRateLimiter rateLimiter, OtApiMetrics metrics,
+                List<OtApiInterceptor> interceptors) {
+
+        // Increase buffer size to 10MB to handle large API responses
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(configurer -> configurer
+                        .defaultCodecs()
+                        .maxInMemorySize(10 * 1024 * 1024)) // 10MB
+                .build();
+
+        this.webClient = WebClient.builder()
+                .baseUrl(endpoint.baseUrl())
+                .exchangeStrategies(strategies)
+                .defaultHeader("Accept", "application/json")
+                .defaultHeader("Content-Type", "application/json")
+                .defaultHeader("X-RapidAPI-Key", endpoint.apiKey())
+                .defaultHeader("X-RapidAPI-Host", endpoint.apiHost())
+                .filter(metrics.exchangeFilter(endpoint.name()))
+                .build();
+        this.endpoint = endpoint;
+        this.model = model;
+        this.objectMapper = objectMapper;
+        this.workScheduler = workScheduler;
+        this.payloadBudget = payloadBudget;
+        this.adaptiveTimeouts = adaptiveTimeouts;
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+        this.interceptors = List.copyOf(interceptors);
+
+        log.info("{} OtAPI client initialized with {} interceptors", endpoint.name(), this.interceptors.size());
+    }
+
+    public OtApiEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Full product details, served from the detail cache when fresh
+     */
+    public Mono<D> getItemFullInfo(String productId) {
+        return execute(itemFullInfo(productId, OtApiCall.CacheMode.READ).build());
+    }
+
+    /**
+     * Full product details from a cached copy no older than maxAge, without counting an access
+     */
+    public Mono<D> getItemFullInfo(String productId, Duration maxAge) {
+        return execute(itemFullInfo(productId, OtApiCall.CacheMode.READ).maxAge(maxAge).build());
+    }
+
+    /**
+     * Re-fetch full product details and replace the cached copy
+     */
+    public Mono<D> refreshItemFullInfo(String productId) {
+        return execute(itemFullInfo(productId, OtApiCall.CacheMode.REFRESH).build());
+    }
+
+    private OtApiCall.Builder<D> itemFullInfo(String productId, OtApiCall.CacheMode cacheMode) {
+        return OtApiCall.get("detail", DETAIL_PATH, model.detailType())
+                .param("language", "en")
+                .param("itemId", productId)
+                .product(productId, model.hasItem())
+                .cache(cacheMode)
+                .onFetched(response -> model.onItemFetched().accept(productId, response));
+    }
+
+    public Mono<S> searchItemsFrame(String keyword, String language, int framePosition, int frameSize) {
+        return execute(OtApiCall.get("search", SEARCH_PATH, model.searchType())
+                .param("ItemTitle", keyword)
+                .param("language", language)
+                .param("framePosition", framePosition)
+                .param("frameSize", frameSize)
+                .build());
+    }
+
+    /**
+     * Cheapest real call: a one-item search frame
+     */
+    public Mono<Void> probe() {
+        return searchItemsFrame(PROBE_KEYWORD, "en", 0, 1).then();
+    }
+
+    /**
+     * @return Reviews page as the raw JSON body
+     */
+    public Mono<String> getReviews(String productId, int page) {
+        return execute(OtApiCall.get("reviews", REVIEWS_PATH, String.class)
+                .param("productId", productId)
+                .param("page", page)
+                .build());
+    }
+
+    public Flux<DataBuffer> streamItemFullInfo(String productId) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("language", "en");
+        params.put("itemId", productId);
+        return stream("detail", DETAIL_PATH, params);
+    }
+
+    public Flux<DataBuffer> streamSearchItemsFrame(String keyword, String language, int framePosition, int frameSize) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("ItemTitle", keyword);
+        params.put("language", language);
+        params.put("framePosition", framePosition);
+        params.put("frameSize", frameSize);
+        return stream("search", SEARCH_PATH, params);
+    }
+
+    /**
+     * Execute a buffered call through the interceptor pipeline
+     */
+    public <T> Mono<T> execute(OtApiCall<T> call) {
+        return proceed(0, call)
+                .doOnError(WebClientResponseException.class, error ->
+                        log.error("{} OtAPI {} failed: Status={}, Body={}", endpoint.name(), call.getPath(),
+                                error.getStatusCode(), error.getResponseBodyAsString()))
+                .doOnError(ProductNotFoundException.class, error ->
+                        log.debug("Product not found: {}", error.getMessage()))
+                .doOnError(error -> !(error instanceof ProductNotFoundException || error instanceof WebClientResponseException),
+                        error -> log.error("{} OtAPI {} {} failed: {}", endpoint.name(), call.getPath(),
+                                call.getParams(), error.getMessage()));
+    }
+
+    /**
+     * Stream a raw OtAPI payload without decoding; only the leading bytes are inspected to check ErrorCode
+     */
+    public Flux<DataBuffer> stream(String operation, String path, Map<String, Object> params) {
+        log.info("Streaming raw {} OtAPI {} {}", endpoint.name(), path, params);
+
+        Flux<DataBuffer> body = webClient.get()
+                .uri(uriBuilder -> {
+                    uriBuilder.path(path);
+                    params.forEach(uriBuilder::queryParam);
+                    return uriBuilder.build();
+                })
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> {
+                    log.error("Error response from {} OtAPI {}: {}", endpoint.name(), path, response.statusCode());
+                    return response.createException();
+                })
+                .bodyToFlux(DataBuffer.class)
+                .transform(payload -> OtApiPayloads.verifyLeadingErrorCode(payload, endpoint.name() + " OtAPI",
+                        errorCode -> metrics.recordErrorCode(endpoint.name(), path, errorCode)))
+                .transform(payload -> adaptiveTimeouts.applyToStream(endpoint.name() + "." + operation + "-raw", payload));
+
+        return rateLimiter.acquire(endpoint)
+                .thenMany(body)
+                .doOnError(error ->
+                        log.error("Error streaming raw {} OtAPI {} {}: {}", endpoint.name(), path, params, error.getMessage()));
+    }
+
+    private <T> Mono<T> proceed(int index, OtApiCall<T> call) {
+        if (index == interceptors.size()) {
+            return exchange(call);
+        }
+        return Mono.defer(() -> interceptors.get(index).intercept(endpoint, call, () -> proceed(index + 1, call)));
+    }
+
+    /**
+     * End of the pipeline: one upstream request, read within the payload budget and parsed off the event loop
+     */
+    private <T> Mono<T> exchange(OtApiCall<T> call) {
+        log.info("Calling {} OtAPI {} {}", endpoint.name(), call.getPath(), call.getParams());
+
+        // Only the HTTP exchange is a latency sample, not the wait for a lease or the parse
+        return payloadBudget.withinBudget(lease -> adaptiveTimeouts
+                        .recordLatency(endpoint.name() + "." + call.getOperation(), send(call, lease))
+                        .flatMap(json -> decode(call, json)))
+                .flatMap(response -> verify(call, response));
+    }
+
+    private Mono<String> send(OtApiCall<?> call, UpstreamPayloadBudget.Lease lease) {
+        return webClient.get()
+                .uri(uriBuilder -> {
+                    uriBuilder.path(call.getPath());
+                    call.getParams().forEach(uriBuilder::queryParam);
+                    return uriBuilder.build();
+                })
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> {
+                    log.error("Error response from {} OtAPI {}: {}", endpoint.name(), call.getPath(), response.statusCode());
+                    return response.createException();
+                })
+                .bodyToFlux(DataBuffer.class)
+                .as(lease::readBody);
+    }
+
+    private <T> Mono<T> decode(OtApiCall<T> call, String json) {
+        if (call.getResponseType() == String.class) {
+            return Mono.just(call.getResponseType().cast(json));
+        }
+        return workScheduler.offload(endpoint.name(), call.getOperation() + "-parse", () -> {
+            try {
+                return objectMapper.readValue(json, call.getResponseType());
+            } catch (Exception e) {
+                log.error("Error parsing {} OtAPI {} JSON: {}", endpoint.name(), call.getPath(), e.getMessage());
+                log.debug("Problematic JSON: {}", json);
+                throw new RuntimeException("JSON parsing error: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private <T> Mono<T> verify(OtApiCall<T> call, T response) {
+        if (response instanceof OtApiResponse otApiResponse) {
+            metrics.recordErrorCode(endpoint.name(), call.getPath(), otApiResponse.getErrorCode());
+        }
+        if (response instanceof OtApiResponse otApiResponse && !"Ok".equalsIgnoreCase(otApiResponse.getErrorCode())) {
+            log.error("{} OtAPI {} returned error: {}", endpoint.name(), call.getPath(), otApiResponse.getErrorCode());
+            return Mono.error(new UpstreamErrorCodeException(endpoint.name() + " OtAPI", otApiResponse.getErrorCode()));
+        }
+        if (call.isProductCall() && call.getFound() != null && !call.getFound().test(response)) {
+            log.warn("{} OtAPI returned no item for product {}", endpoint.name(), call.getProductId());
+            return Mono.error(new ProductNotFoundException(endpoint.marketplace(), call.getProductId()));
+        }
+        return Mono.just(response);
+    }
+}
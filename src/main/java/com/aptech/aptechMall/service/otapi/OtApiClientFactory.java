@@ -0,0 +1,34 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.model.OtApiResponse;
+import com.aptech.aptechMall.service.marketplace.AdaptiveTimeouts;
+import com.aptech.aptechMall.service.marketplace.MarketplaceWorkScheduler;
+import com.aptech.aptechMall.service.marketplace.UpstreamPayloadBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds the OtAPI client of a marketplace, wired to the shared payload budget, work pool,
+ * adaptive timeouts, rate limiter, metrics and interceptor pipeline
+ */
+@Component
+@RequiredArgsConstructor
+public class OtApiClientFactory {
+
+    private final ObjectMapper objectMapper;
+    private final MarketplaceWorkScheduler workScheduler;
+    private final UpstreamPayloadBudget payloadBudget;
+    private final AdaptiveTimeouts adaptiveTimeouts;
+    private final OtApiRateLimiter rateLimiter;
+    private final OtApiMetrics metrics;
+    private final List<OtApiInterceptor> interceptors;  // Sorted by @Order
+
+    public <D extends OtApiResponse, S extends OtApiResponse> OtApiClient<D, S> create(OtApiEndpoint endpoint,
+                                                                                      OtApiModel<D, S> model) {
+        return new OtApiClient<>(endpoint, model, objectMapper, workScheduler, payloadBudget,
+                adaptiveTimeouts, rateLimiter, metrics, interceptors);
+    }
+}
@@ -0,0 +1,15 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+
+/**
+ * Connection settings of one OtAPI marketplace on RapidAPI
+ *
+ * @param marketplace Marketplace served by the endpoint
+ * @param name Marketplace name used in logs, metrics and timeout keys, e.g. "AliExpress"
+ * @param baseUrl Base URL, e.g. https://otapi-aliexpress.p.rapidapi.com
+ * @param apiKey RapidAPI key
+ * @param apiHost RapidAPI host
+ */
+public record OtApiEndpoint(Marketplace marketplace, String name, String baseUrl, String apiKey, String apiHost) {
+}
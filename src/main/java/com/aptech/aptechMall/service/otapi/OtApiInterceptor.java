@@ -0,0 +1,29 @@
+package com.aptech.aptechMall.service.otapi;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * One stage of the OtAPI call pipeline
+ *
+ * Interceptors are Spring beans applied by every {@link OtApiClient} in @Order order, outermost first:
+ * coalescing (100), response cache (200), negative cache (300), rate limit (400), retry (500),
+ * metrics (600), health (650), adaptive timeout (700). Stages after retry run once per attempt.
+ */
+public interface OtApiInterceptor {
+
+    /**
+     * Rest of the pipeline for one call
+     */
+    @FunctionalInterface
+    interface Chain<T> {
+        Mono<T> proceed();
+    }
+
+    /**
+     * @param endpoint Marketplace the call goes to
+     * @param call Call being executed
+     * @param chain Rest of the pipeline; may be subscribed to zero, one or several times
+     * @return Result of the call
+     */
+    <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain);
+}
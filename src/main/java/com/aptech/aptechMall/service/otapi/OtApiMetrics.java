@@ -0,0 +1,88 @@
+package com.aptech.aptechMall.service.otapi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport-level meters of outbound marketplace calls, tagged by marketplace and endpoint path:
+ * <ul>
+ *     <li>marketplace.otapi.http.requests{status}: time to response headers, one count per HTTP status
+ *     (IO_ERROR when no response arrived)</li>
+ *     <li>marketplace.otapi.response.size: bytes of every response body read</li>
+ *     <li>marketplace.otapi.error.codes{code}: OtAPI ErrorCode of every payload checked, including "Ok"</li>
+ * </ul>
+ * Percentile histograms are enabled through management.metrics.distribution properties.
+ */
+@Component
+@RequiredArgsConstructor
+public class OtApiMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * WebClient filter recording status, latency and body size of every exchange
+     *
+     * @param marketplace Marketplace name used as metric tag
+     */
+    public ExchangeFilterFunction exchangeFilter(String marketplace) {
+        return (request, next) -> {
+            String endpoint = request.url().getPath();
+            long startedAt = System.nanoTime();
+            return next.exchange(request)
+                    .doOnError(error -> requests(marketplace, endpoint, "IO_ERROR")
+                            .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS))
+                    .map(response -> {
+                        requests(marketplace, endpoint, String.valueOf(response.statusCode().value()))
+                                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+                        AtomicLong bytes = new AtomicLong();
+                        return response.mutate()
+                                .body(body -> body
+                                        .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                                        .doOnComplete(() -> responseSize(marketplace, endpoint).record(bytes.get())))
+                                .build();
+                    });
+        };
+    }
+
+    /**
+     * Count the ErrorCode of an OtAPI payload
+     *
+     * @param errorCode ErrorCode as returned, or null when the payload had none
+     */
+    public void recordErrorCode(String marketplace, String endpoint, String errorCode) {
+        Counter.builder("marketplace.otapi.error.codes")
+                .description("OtAPI payloads by ErrorCode")
+                .tag("marketplace", marketplace)
+                .tag("endpoint", endpoint)
+                .tag("code", errorCode != null && !errorCode.isBlank() ? errorCode : "none")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer requests(String marketplace, String endpoint, String status) {
+        return Timer.builder("marketplace.otapi.http.requests")
+                .description("Outbound marketplace HTTP exchanges, timed to response headers")
+                .tag("marketplace", marketplace)
+                .tag("endpoint", endpoint)
+                .tag("status", status)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary responseSize(String marketplace, String endpoint) {
+        return DistributionSummary.builder("marketplace.otapi.response.size")
+                .description("Size of marketplace response bodies")
+                .baseUnit("bytes")
+                .tag("marketplace", marketplace)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,22 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.model.OtApiResponse;
+
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Model types of one marketplace's OtAPI payloads and the hooks the client needs around them
+ *
+ * @param detailType BatchGetItemFullInfo response type
+ * @param searchType BatchSearchItemsFrame response type
+ * @param hasItem Whether a detail response with ErrorCode "Ok" actually contains an item
+ * @param onItemFetched Called once per detail response fetched from upstream (not for cache hits),
+ *                      with the product ID; used to feed derived indexes
+ */
+public record OtApiModel<D extends OtApiResponse, S extends OtApiResponse>(
+        Class<D> detailType,
+        Class<S> searchType,
+        Predicate<D> hasItem,
+        BiConsumer<String, D> onItemFetched) {
+}
@@ -0,0 +1,116 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.Exception.UpstreamCapacityExceededException;
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per marketplace that keeps calls under the RapidAPI plan's request rate.
+ *
+ * A call that finds the bucket empty reserves the next free slot and waits for it, as long as
+ * the wait fits in both max-wait and the request deadline; otherwise it is rejected with
+ * {@link UpstreamCapacityExceededException} (503) instead of being sent and throttled upstream.
+ */
+@Component
+public class OtApiRateLimiter {
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Duration maxWait;
+    private final Counter delayed;
+    private final Counter rejected;
+
+    public OtApiRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.otapi.rate-limit.permits-per-second:20}") double permitsPerSecond,
+            @Value("${marketplace.otapi.rate-limit.burst:40}") int burst,
+            @Value("${marketplace.otapi.rate-limit.max-wait:2s}") Duration maxWait) {
+
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(burst, 1);
+        this.maxWait = maxWait;
+
+        this.delayed = Counter.builder("marketplace.otapi.rate.limit")
+                .tag("outcome", "delayed")
+                .description("OtAPI calls delayed or rejected by the rate limiter")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("marketplace.otapi.rate.limit")
+                .tag("outcome", "rejected")
+                .description("OtAPI calls delayed or rejected by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take one permit for a call to the endpoint
+     *
+     * @return Completes when the call may be sent, or fails with UpstreamCapacityExceededException
+     */
+    public Mono<Void> acquire(OtApiEndpoint endpoint) {
+        if (permitsPerSecond <= 0) {
+            return Mono.empty();
+        }
+        return Mono.deferContextual(context -> {
+            long maxWaitNanos = maxWait.toNanos();
+            var deadline = RequestDeadline.from(context);
+            if (deadline.isPresent()) {
+                maxWaitNanos = Math.min(maxWaitNanos, deadline.get().remaining().toNanos());
+            }
+
+            long waitNanos = buckets.computeIfAbsent(endpoint.name(), name -> new Bucket(permitsPerSecond, burst))
+                    .reserve(maxWaitNanos);
+            if (waitNanos < 0) {
+                rejected.increment();
+                return Mono.error(new UpstreamCapacityExceededException(
+                        endpoint.name() + " OtAPI rate limit reached, try again shortly"));
+            }
+            if (waitNanos == 0) {
+                return Mono.empty();
+            }
+            delayed.increment();
+            return Mono.delay(Duration.ofNanos(waitNanos)).then();
+        });
+    }
+
+    /**
+     * Lock-free bucket tracking the time the next permit becomes free; idle time banks up to burst permits
+     */
+    private static final class Bucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong nextFreeNanos;
+
+        Bucket(double permitsPerSecond, int burst) {
+            this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+            this.burstNanos = intervalNanos * burst;
+            this.nextFreeNanos = new AtomicLong(System.nanoTime() - burstNanos);
+        }
+
+        /**
+         * @return Nanoseconds to wait before sending, or -1 when that exceeds maxWaitNanos
+         */
+        long reserve(long maxWaitNanos) {
+            while (true) {
+                long now = System.nanoTime();
+                long nextFree = nextFreeNanos.get();
+                long slot = Math.max(nextFree, now - burstNanos);
+                long wait = slot - now;
+                if (wait > maxWaitNanos) {
+                    return -1;
+                }
+                if (nextFreeNanos.compareAndSet(nextFree, slot + intervalNanos)) {
+                    return Math.max(wait, 0);
+                }
+            }
+        }
+    }
+}
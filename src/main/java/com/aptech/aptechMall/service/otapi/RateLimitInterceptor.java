@@ -0,0 +1,23 @@
+package com.aptech.aptechMall.service.otapi;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Takes a rate-limit permit before the call, once per call rather than per retry attempt
+ * (retries are few and already spaced by their backoff)
+ */
+@Component
+@Order(400)
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements OtApiInterceptor {
+
+    private final OtApiRateLimiter rateLimiter;
+
+    @Override
+    public <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain) {
+        return rateLimiter.acquire(endpoint).then(Mono.defer(chain::proceed));
+    }
+}
@@ -0,0 +1,50 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.service.marketplace.ProductDetailCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves product calls from the detail cache and stores fresh responses in it.
+ * Also runs the call's onFetched hook, once per response actually fetched from upstream.
+ */
+@Slf4j
+@Component
+@Order(200)
+@RequiredArgsConstructor
+public class ResponseCacheInterceptor implements OtApiInterceptor {
+
+    private final ProductDetailCache detailCache;
+
+    @Override
+    public <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain) {
+        boolean cached = call.isProductCall() && call.getCacheMode() != OtApiCall.CacheMode.NONE;
+        if (!cached && call.getOnFetched() == null) {
+            return chain.proceed();
+        }
+
+        Mono<T> fetch = Mono.defer(chain::proceed)
+                .doOnNext(response -> {
+                    if (call.getOnFetched() != null) {
+                        call.getOnFetched().accept(response);
+                    }
+                    if (cached) {
+                        detailCache.put(endpoint.marketplace(), call.getProductId(), response);
+                    }
+                });
+        if (!cached || call.getCacheMode() == OtApiCall.CacheMode.REFRESH) {
+            return fetch;
+        }
+
+        Mono<T> lookup = call.getMaxAge() != null
+                ? detailCache.get(endpoint.marketplace(), call.getProductId(), call.getResponseType(), call.getMaxAge())
+                : detailCache.get(endpoint.marketplace(), call.getProductId(), call.getResponseType());
+        return lookup
+                .doOnNext(hit -> log.debug("Serving {} {} for ID {} from cache",
+                        endpoint.name(), call.getOperation(), call.getProductId()))
+                .switchIfEmpty(fetch);
+    }
+}
@@ -0,0 +1,71 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retries transient failures (5xx, 429, connection errors, timeouts) with jittered backoff.
+ *
+ * Errors that would fail again (not found, 4xx, ErrorCode, parse errors, budget rejections) are
+ * never retried, and no retry starts once less than the backoff remains of the request deadline.
+ */
+@Slf4j
+@Component
+@Order(500)
+public class RetryInterceptor implements OtApiInterceptor {
+
+    private final int maxRetries;
+    private final Duration backoff;
+    private final Counter retries;
+
+    public RetryInterceptor(
+            MeterRegistry meterRegistry,
+            @Value("${marketplace.otapi.retry.max-retries:1}") int maxRetries,
+            @Value("${marketplace.otapi.retry.backoff:200ms}") Duration backoff) {
+
+        this.maxRetries = maxRetries;
+        this.backoff = backoff;
+        this.retries = Counter.builder("marketplace.otapi.retries")
+                .description("OtAPI call attempts retried after a transient failure")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> Mono<T> intercept(OtApiEndpoint endpoint, OtApiCall<T> call, Chain<T> chain) {
+        if (maxRetries <= 0) {
+            return chain.proceed();
+        }
+        return Mono.deferContextual(context -> {
+            var deadline = RequestDeadline.from(context);
+            return Mono.defer(chain::proceed)
+                    .retryWhen(Retry.backoff(maxRetries, backoff)
+                            .filter(error -> isTransient(error)
+                                    && deadline.map(d -> d.remaining().compareTo(backoff) > 0).orElse(true))
+                            .doBeforeRetry(signal -> {
+                                retries.increment();
+                                log.warn("Retrying {} OtAPI {} (attempt {}) after: {}", endpoint.name(),
+                                        call.getPath(), signal.totalRetries() + 2, signal.failure().toString());
+                            })
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        });
+    }
+
+    static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+}
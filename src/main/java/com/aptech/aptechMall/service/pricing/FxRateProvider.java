@@ -0,0 +1,138 @@
+package com.aptech.aptechMall.service.pricing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the current FX table, loaded from a JSON rates file and reloaded on a schedule.
+ *
+ * The file lists units of each currency per one unit of its base:
+ * {@code {"base": "USD", "asOf": "2026-10-01T00:00:00Z", "rates": {"USD": 1, "VND": 26300}}}.
+ * Without asOf the file's modification time stands in for it.
+ * A failed reload keeps the previous table, so prices never disappear because of a bad file.
+ *
+ * The bundled classpath file is a fixed snapshot for development. In production
+ * pricing.fx.rates-location must point at a file: or https: resource that a rates job
+ * rewrites at least once per max-age. Once the loaded rates are older than max-age every
+ * reload logs an error, pricing.fx.stale reads 1 and the fxRates health shows STALE.
+ */
+@Slf4j
+@Component
+public class FxRateProvider {
+
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+    private final String ratesLocation;
+    private final Duration maxAge;
+    private volatile FxRates rates = FxRates.of(Map.of("USD", BigDecimal.ONE), Instant.EPOCH);
+
+    public FxRateProvider(
+            ObjectMapper objectMapper,
+            ResourceLoader resourceLoader,
+            MeterRegistry meterRegistry,
+            @Value("${pricing.fx.rates-location:classpath:fx-rates.json}") String ratesLocation,
+            @Value("${pricing.fx.max-age:36h}") Duration maxAge) {
+
+        this.objectMapper = objectMapper;
+        this.resourceLoader = resourceLoader;
+        this.ratesLocation = ratesLocation;
+        this.maxAge = maxAge;
+
+        Gauge.builder("pricing.fx.age", this, provider -> provider.age().toSeconds())
+                .description("Age of the loaded FX rates")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("pricing.fx.stale", this, provider -> provider.isStale() ? 1 : 0)
+                .description("1 when the loaded FX rates are older than pricing.fx.max-age")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Current table; replaced as a whole on reload, so one request sees one table
+     */
+    public FxRates current() {
+        return rates;
+    }
+
+    /**
+     * @return Time since the loaded rates were published
+     */
+    public Duration age() {
+        return Duration.between(rates.asOf(), Instant.now());
+    }
+
+    /**
+     * @return Whether the loaded rates are older than max-age, i.e. the rates file is no longer maintained
+     */
+    public boolean isStale() {
+        return age().compareTo(maxAge) > 0;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public String getRatesLocation() {
+        return ratesLocation;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${pricing.fx.refresh-interval:3600000}",
+            initialDelayString = "${pricing.fx.refresh-interval:3600000}")
+    void reload() {
+        Resource resource = resourceLoader.getResource(ratesLocation);
+        try (InputStream in = resource.getInputStream()) {
+            JsonNode root = objectMapper.readTree(in);
+            Map<String, BigDecimal> unitsPerBase = new HashMap<>();
+            root.path("rates").properties().forEach(rate -> unitsPerBase.put(rate.getKey(), rate.getValue().decimalValue()));
+
+            String base = root.path("base").asText("USD");
+            unitsPerBase.putIfAbsent(base, BigDecimal.ONE);
+            Instant asOf = root.hasNonNull("asOf") ? Instant.parse(root.get("asOf").asText()) : lastModified(resource);
+
+            rates = FxRates.of(unitsPerBase, asOf);
+            log.info("Loaded FX rates for {} currencies (base {}, as of {}) from {}",
+                    rates.currencies().size(), base, asOf, ratesLocation);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load FX rates from {}, keeping previous table: {}", ratesLocation, e.getMessage());
+        }
+        if (isStale()) {
+            log.error("FX rates from {} are {}h old (as of {}), over the {}h limit; display prices are converted at stale rates",
+                    ratesLocation, age().toHours(), rates.asOf(), maxAge.toHours());
+        }
+    }
+
+    /**
+     * Publication time of a rates file without asOf: when it was last written, or the epoch (so
+     * it counts as stale) when the resource cannot tell
+     */
+    private Instant lastModified(Resource resource) {
+        try {
+            long millis = resource.lastModified();
+            if (millis > 0) {
+                return Instant.ofEpochMilli(millis);
+            }
+        } catch (IOException e) {
+            // Falls through to the epoch
+        }
+        log.warn("FX rates from {} have no asOf and no modification time; treating them as stale", ratesLocation);
+        return Instant.EPOCH;
+    }
+}
@@ -0,0 +1,186 @@
+package com.aptech.aptechMall.service.pricing;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable FX table working on amounts in minor units (cents, fen, dong).
+ *
+ * Every pair's factor, including the difference in minor-unit digits, is computed once when the
+ * table is built and kept as a 9-digit mantissa and a power-of-ten shift. A conversion is then
+ * one long multiply and one rounding divide with no allocation; only products that overflow 64 bits
+ * (amounts far above any product price) take a BigDecimal path.
+ */
+public final class FxRates {
+
+    /**
+     * Returned by conversions involving an unknown currency
+     */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static final MathContext FACTOR_PRECISION = new MathContext(9, RoundingMode.HALF_UP);
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final Map<String, Integer> indexByCode;
+    private final String[] codes;
+    private final int[] fractionDigits;
+    // Flattened [from * n + to]; factor = mantissa / 10^shift
+    private final long[] mantissas;
+    private final int[] shifts;
+    private final Instant asOf;
+
+    private FxRates(Map<String, Integer> indexByCode, String[] codes, int[] fractionDigits,
+                    long[] mantissas, int[] shifts, Instant asOf) {
+        this.indexByCode = indexByCode;
+        this.codes = codes;
+        this.fractionDigits = fractionDigits;
+        this.mantissas = mantissas;
+        this.shifts = shifts;
+        this.asOf = asOf;
+    }
+
+    /**
+     * Build a table from rates quoted against one base currency
+     *
+     * @param unitsPerBase Units of each currency per one unit of the base; unknown ISO codes are skipped
+     * @param asOf When the rates were published
+     */
+    public static FxRates of(Map<String, BigDecimal> unitsPerBase, Instant asOf) {
+        List<String> known = unitsPerBase.entrySet().stream()
+                .filter(entry -> entry.getValue() != null && entry.getValue().signum() > 0 && isIsoCode(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+
+        int n = known.size();
+        String[] codes = known.toArray(new String[0]);
+        int[] fractionDigits = new int[n];
+        Map<String, Integer> indexByCode = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            indexByCode.put(codes[i], i);
+            fractionDigits[i] = Math.max(Currency.getInstance(codes[i]).getDefaultFractionDigits(), 0);
+        }
+
+        long[] mantissas = new long[n * n];
+        int[] shifts = new int[n * n];
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                BigDecimal factor = unitsPerBase.get(codes[to])
+                        .divide(unitsPerBase.get(codes[from]), FACTOR_PRECISION)
+                        .scaleByPowerOfTen(fractionDigits[to] - fractionDigits[from])
+                        .round(FACTOR_PRECISION)
+                        .stripTrailingZeros();
+                if (factor.scale() < 0) {
+                    factor = factor.setScale(0);
+                }
+                mantissas[from * n + to] = factor.unscaledValue().longValueExact();
+                shifts[from * n + to] = factor.scale();
+            }
+        }
+        return new FxRates(Map.copyOf(indexByCode), codes, fractionDigits, mantissas, shifts, asOf);
+    }
+
+    private static boolean isIsoCode(String code) {
+        try {
+            return code != null && Currency.getInstance(code) != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return Index of the currency in this table, or -1 when unknown
+     */
+    public int indexOf(String currencyCode) {
+        if (currencyCode == null) {
+            return -1;
+        }
+        Integer index = indexByCode.get(currencyCode);
+        return index != null ? index : -1;
+    }
+
+    public String codeOf(int index) {
+        return codes[index];
+    }
+
+    public int fractionDigits(int index) {
+        return fractionDigits[index];
+    }
+
+    public Set<String> currencies() {
+        return indexByCode.keySet();
+    }
+
+    public Instant asOf() {
+        return asOf;
+    }
+
+    /**
+     * @return Amount in minor units of the currency, rounded half-up
+     */
+    public long toMinor(double amount, int currency) {
+        return Math.round(amount * POW10[fractionDigits[currency]]);
+    }
+
+    /**
+     * @return Minor units as a decimal in major units
+     */
+    public BigDecimal toMajor(long minor, int currency) {
+        return BigDecimal.valueOf(minor, fractionDigits[currency]);
+    }
+
+    /**
+     * Convert an amount in minor units, rounding half-up to the target's minor unit
+     *
+     * @return Converted amount, or {@link #UNKNOWN} when either index is -1
+     */
+    public long convert(long minor, int from, int to) {
+        if (from < 0 || to < 0) {
+            return UNKNOWN;
+        }
+        if (from == to) {
+            return minor;
+        }
+        int pair = from * codes.length + to;
+        long mantissa = mantissas[pair];
+        int shift = shifts[pair];
+
+        boolean negative = minor < 0;
+        long amount = negative ? -minor : minor;
+        long product = amount * mantissa;
+        if (amount < 0 || Math.multiplyHigh(amount, mantissa) != 0 || product < 0 || shift >= POW10.length) {
+            return convertExact(minor, mantissa, shift);
+        }
+
+        long result = product;
+        if (shift > 0) {
+            long divisor = POW10[shift];
+            result = product / divisor;
+            if ((product % divisor) * 2 >= divisor) {
+                result++;
+            }
+        }
+        return negative ? -result : result;
+    }
+
+    private static long convertExact(long minor, long mantissa, int shift) {
+        return BigDecimal.valueOf(minor)
+                .multiply(BigDecimal.valueOf(mantissa, shift))
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+}
@@ -0,0 +1,161 @@
+package com.aptech.aptechMall.service.pricing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts marketplace prices into the currency a user asked for and formats them for the
+ * user's locale, using the scheduled FX table and cached per-locale formatters.
+ */
+@Component
+public class PriceEngine {
+
+    /**
+     * Currency and locale prices are displayed in for one request
+     */
+    public record Display(String currency, Locale locale) {
+    }
+
+    private static final Map<String, String> CURRENCY_BY_SIGN = Map.of(
+            "$", "USD", "US$", "USD", "¥", "CNY", "￥", "CNY", "€", "EUR",
+            "£", "GBP", "₫", "VND", "₩", "KRW", "руб.", "RUB", "₽", "RUB");
+
+    private final FxRateProvider rateProvider;
+    private final Map<Locale, Map<String, PriceFormat>> formats = new ConcurrentHashMap<>();
+    private final String defaultCurrency;
+    private final List<Locale> locales;
+
+    public PriceEngine(
+            FxRateProvider rateProvider,
+            @Value("${pricing.display.default-currency:VND}") String defaultCurrency,
+            @Value("${pricing.display.locales:vi-VN,en-US,zh-CN}") List<String> locales) {
+
+        this.rateProvider = rateProvider;
+        this.defaultCurrency = defaultCurrency;
+        // The first configured locale is the default
+        this.locales = locales.stream().map(Locale::forLanguageTag).toList();
+    }
+
+    /**
+     * Resolve the display settings of a request
+     *
+     * @param currency Requested ISO code; the default is used when absent or not in the FX table
+     * @param acceptLanguage Accept-Language header; matched against the configured locales only,
+     *                       which keeps the formatter cache bounded
+     */
+    public Display display(String currency, String acceptLanguage) {
+        String code = currency != null ? currency.trim().toUpperCase(Locale.ROOT) : null;
+        if (code == null || rateProvider.current().indexOf(code) < 0) {
+            code = defaultCurrency;
+        }
+
+        Locale locale = locales.get(0);
+        if (acceptLanguage != null && !acceptLanguage.isBlank()) {
+            try {
+                // Filtering (not lookup) so a bare "zh" still matches zh-CN
+                List<Locale> matches = Locale.filter(Locale.LanguageRange.parse(acceptLanguage), locales);
+                if (!matches.isEmpty()) {
+                    locale = matches.get(0);
+                }
+            } catch (IllegalArgumentException e) {
+                // Malformed header; keep the default locale
+            }
+        }
+        return new Display(code, locale);
+    }
+
+    /**
+     * @return ISO code for a currency code or sign as sent by OtAPI, or null when unrecognised
+     */
+    public static String currencyOf(String currencyCode, String currencySign) {
+        if (currencyCode != null && !currencyCode.isBlank()) {
+            return currencyCode;
+        }
+        if (currencySign == null) {
+            return null;
+        }
+        String sign = currencySign.trim();
+        String code = CURRENCY_BY_SIGN.get(sign);
+        if (code == null && sign.length() == 3 && sign.chars().allMatch(Character::isUpperCase)) {
+            return sign;
+        }
+        return code;
+    }
+
+    /**
+     * Convert an amount to the display currency
+     *
+     * @return Amount in minor units of the display currency, or {@link FxRates#UNKNOWN}
+     */
+    public long toDisplayMinor(double amount, String fromCurrency, Display display) {
+        FxRates rates = rateProvider.current();
+        int from = rates.indexOf(fromCurrency);
+        if (from < 0) {
+            return FxRates.UNKNOWN;
+        }
+        return rates.convert(rates.toMinor(amount, from), from, rates.indexOf(display.currency()));
+    }
+
+    /**
+     * @param minor Amount in minor units of the display currency
+     * @return Formatted amount, or null for {@link FxRates#UNKNOWN}
+     */
+    public String format(long minor, Display display) {
+        if (minor == FxRates.UNKNOWN) {
+            return null;
+        }
+        return formatFor(display).format(minor);
+    }
+
+    /**
+     * Convert and format an amount
+     *
+     * @return Formatted amount such as "263.000 ₫", or null when the amount or its currency is unknown
+     */
+    public String format(Double amount, String fromCurrency, Display display) {
+        if (amount == null) {
+            return null;
+        }
+        return format(toDisplayMinor(amount, fromCurrency, display), display);
+    }
+
+    public String format(BigDecimal amount, String fromCurrency, Display display) {
+        return amount != null ? format(amount.doubleValue(), fromCurrency, display) : null;
+    }
+
+    /**
+     * Parse a plain upstream price string such as "12.34" and convert and format it
+     */
+    public String format(String amount, String fromCurrency, Display display) {
+        if (amount == null || amount.isBlank()) {
+            return null;
+        }
+        try {
+            return format(Double.parseDouble(amount.replace(",", "")), fromCurrency, display);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private PriceFormat formatFor(Display display) {
+        Map<String, PriceFormat> byCurrency = formats.get(display.locale());
+        if (byCurrency == null) {
+            byCurrency = formats.computeIfAbsent(display.locale(), locale -> new ConcurrentHashMap<>());
+        }
+        PriceFormat format = byCurrency.get(display.currency());
+        if (format == null) {
+            FxRates rates = rateProvider.current();
+            int fractionDigits = rates.fractionDigits(rates.indexOf(display.currency()));
+            format = byCurrency.computeIfAbsent(display.currency(),
+                    code -> PriceFormat.of(Currency.getInstance(code), display.locale(), fractionDigits));
+        }
+        return format;
+    }
+}
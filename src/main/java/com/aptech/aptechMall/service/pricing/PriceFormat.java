@@ -0,0 +1,101 @@
+package com.aptech.aptechMall.service.pricing;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * Formatter for one currency in one locale, resolved once from the JDK's locale data.
+ *
+ * Unlike {@link DecimalFormat} it is immutable and thread-safe, and writes digits straight from
+ * a long amount in minor units, so it can be cached and shared by every request.
+ */
+public final class PriceFormat {
+
+    private static final PriceFormat PLAIN = new PriceFormat("", "", (char) 0, 3, '.', 2);
+
+    private final String prefix;
+    private final String suffix;
+    private final char groupingSeparator;  // 0 when the locale does not group digits
+    private final int groupingSize;
+    private final char decimalSeparator;
+    private final int fractionDigits;
+
+    private PriceFormat(String prefix, String suffix, char groupingSeparator, int groupingSize,
+                        char decimalSeparator, int fractionDigits) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.groupingSeparator = groupingSeparator;
+        this.groupingSize = groupingSize > 0 ? groupingSize : 3;
+        this.decimalSeparator = decimalSeparator;
+        this.fractionDigits = fractionDigits;
+    }
+
+    /**
+     * Resolve symbol placement and separators of a currency in a locale
+     *
+     * @param fractionDigits Minor-unit digits of the currency; taken from the FX table because the
+     *                       JDK keeps the locale's own currency digits after setCurrency
+     */
+    public static PriceFormat of(Currency currency, Locale locale, int fractionDigits) {
+        DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
+        format.setCurrency(currency);
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+
+        return new PriceFormat(
+                format.getPositivePrefix(),
+                format.getPositiveSuffix(),
+                format.isGroupingUsed() ? symbols.getMonetaryGroupingSeparator() : 0,
+                format.getGroupingSize(),
+                symbols.getMonetaryDecimalSeparator(),
+                fractionDigits);
+    }
+
+    /**
+     * Format an amount as a plain "1234.50" string, without symbol or grouping
+     *
+     * @return Formatted amount, or "N/A" when amount is null
+     */
+    public static String plain(Double amount) {
+        if (amount == null || amount.isNaN() || amount.isInfinite()) {
+            return "N/A";
+        }
+        return PLAIN.format(Math.round(amount * 100));
+    }
+
+    /**
+     * @param minor Amount in minor units of this format's currency, not {@link FxRates#UNKNOWN}
+     */
+    public String format(long minor) {
+        // Digits are written backwards into a buffer large enough for any long with separators
+        char[] digits = new char[40];
+        int pos = digits.length;
+        boolean negative = minor < 0;
+        long value = negative ? -minor : minor;
+
+        for (int i = 0; i < fractionDigits; i++) {
+            digits[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        if (fractionDigits > 0) {
+            digits[--pos] = decimalSeparator;
+        }
+        int written = 0;
+        do {
+            if (groupingSeparator != 0 && written > 0 && written % groupingSize == 0) {
+                digits[--pos] = groupingSeparator;
+            }
+            digits[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+            written++;
+        } while (value > 0);
+
+        StringBuilder formatted = new StringBuilder(prefix.length() + suffix.length() + digits.length - pos + 1);
+        if (negative) {
+            formatted.append('-');
+        }
+        return formatted.append(prefix).append(digits, pos, digits.length - pos).append(suffix).toString();
+    }
+}
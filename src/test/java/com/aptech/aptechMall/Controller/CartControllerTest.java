@@ -0,0 +1,133 @@
+package com.aptech.aptechMall.Controller;
+
+import com.aptech.aptechMall.Exception.CartVersionMismatchException;
+import com.aptech.aptechMall.Exception.GlobalExceptionHandler;
+import com.aptech.aptechMall.dto.cart.CartBatchRequest;
+import com.aptech.aptechMall.dto.cart.CartOperation;
+import com.aptech.aptechMall.dto.cart.CartResponse;
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.CartService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CartControllerTest {
+
+	private static final Long USER_ID = 7L;
+	private static final String BATCH = """
+			{"operations": [
+				{"op": "UPDATE", "itemId": 11, "quantity": 3},
+				{"op": "REMOVE", "itemId": 12}
+			]}""";
+
+	private final CartService cartService = mock(CartService.class);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new CartController(cartService))
+			.setControllerAdvice(new GlobalExceptionHandler())
+			.build();
+
+	@Test
+	void summaryCarriesTheCartVersionAsWeakEtag() throws Exception {
+		when(cartService.getSummary(USER_ID)).thenReturn(new CartSummaryResponse(USER_ID, 4L, 3, new BigDecimal("37.50")));
+
+		mockMvc.perform(get("/api/cart/summary").param("userId", "7"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "W/\"4\""))
+				.andExpect(jsonPath("$.data.totalItems").value(3))
+				.andExpect(jsonPath("$.data.totalAmount").value(37.5));
+	}
+
+	@Test
+	void emptyCartSummaryHasNoEtag() throws Exception {
+		when(cartService.getSummary(USER_ID)).thenReturn(CartSummaryResponse.empty(USER_ID));
+
+		mockMvc.perform(get("/api/cart/summary").param("userId", "7"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG))
+				.andExpect(jsonPath("$.data.totalItems").value(0));
+	}
+
+	@Test
+	void batchPassesKeyAndIfMatchAndReturnsTheNewVersion() throws Exception {
+		when(cartService.applyBatch(eq(USER_ID), anyString(), any(), any())).thenReturn(CartResponse.fromEntity(cart(5L)));
+
+		mockMvc.perform(patch("/api/cart/items:batch").param("userId", "7")
+						.header("Idempotency-Key", "0b7f3c6e-batch")
+						.header(HttpHeaders.IF_MATCH, "W/\"4\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(BATCH))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "W/\"5\""))
+				.andExpect(jsonPath("$.data.totalItems").value(3));
+
+		ArgumentCaptor<CartBatchRequest> request = ArgumentCaptor.forClass(CartBatchRequest.class);
+		verify(cartService).applyBatch(eq(USER_ID), eq("0b7f3c6e-batch"), request.capture(), eq(4L));
+		assertEquals(CartOperation.Type.UPDATE, request.getValue().getOperations().get(0).getOp());
+		assertEquals(CartOperation.Type.REMOVE, request.getValue().getOperations().get(1).getOp());
+	}
+
+	@Test
+	void staleIfMatchIsPreconditionFailed() throws Exception {
+		when(cartService.applyBatch(eq(USER_ID), any(), any(), eq(3L))).thenThrow(new CartVersionMismatchException(3L));
+
+		mockMvc.perform(patch("/api/cart/items:batch").param("userId", "7")
+						.header(HttpHeaders.IF_MATCH, "\"3\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(BATCH))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	void invalidOperationRejectsTheWholeBatch() throws Exception {
+		mockMvc.perform(patch("/api/cart/items:batch").param("userId", "7")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("""
+								{"operations": [
+									{"op": "UPDATE", "itemId": 11, "quantity": 3},
+									{"op": "UPDATE", "itemId": 12}
+								]}"""))
+				.andExpect(status().isBadRequest());
+
+		verifyNoInteractions(cartService);
+	}
+
+	private static Cart cart(Long version) {
+		Cart cart = new Cart();
+		cart.setId(1L);
+		cart.setUserId(USER_ID);
+		cart.setVersion(version);
+		cart.setCreatedAt(LocalDateTime.of(2026, 10, 1, 9, 0));
+		cart.setUpdatedAt(LocalDateTime.of(2026, 10, 1, 9, 5));
+		CartItem item = new CartItem();
+		item.setId(11L);
+		item.setProductId("1005001234567890");
+		item.setProductName("Hoodie");
+		item.setPrice(new BigDecimal("12.50"));
+		item.setQuantity(3);
+		item.setMarketplace(Marketplace.ALIEXPRESS);
+		cart.addItem(item);
+		return cart;
+	}
+}
@@ -0,0 +1,40 @@
+package com.aptech.aptechMall;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Properties;
+
+/**
+ * Condition for tests that need the MySQL instance from application.properties:
+ * {@code @EnabledIf("com.aptech.aptechMall.MySqlAvailable#isReachable")}
+ * They are skipped, not failed, on machines without it
+ */
+public final class MySqlAvailable {
+
+	private static final int CONNECT_TIMEOUT_MILLIS = 500;
+
+	private MySqlAvailable() {
+	}
+
+	public static boolean isReachable() {
+		Properties properties = new Properties();
+		try (InputStream in = MySqlAvailable.class.getResourceAsStream("/application.properties")) {
+			properties.load(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		// jdbc:mysql://host:port/db?...
+		URI uri = URI.create(properties.getProperty("spring.datasource.url").substring("jdbc:".length()));
+		try (Socket socket = new Socket()) {
+			socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort() > 0 ? uri.getPort() : 3306),
+					CONNECT_TIMEOUT_MILLIS);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.aptech.aptechMall.config;
+
+import com.aptech.aptechMall.service.marketplace.MarketplaceHealth;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.SimpleHttpCodeStatusMapper;
+import org.springframework.boot.actuate.health.SimpleStatusAggregator;
+import org.springframework.boot.actuate.health.Status;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the health statuses against the status orders and HTTP mappings in application.properties
+ */
+class MarketplaceHealthContributorTest {
+
+	private static SimpleStatusAggregator root;
+	private static SimpleStatusAggregator upstream;
+	private static SimpleHttpCodeStatusMapper upstreamHttp;
+
+	@BeforeAll
+	static void loadHealthSettings() throws Exception {
+		Properties properties = new Properties();
+		try (InputStream in = MarketplaceHealthContributorTest.class.getResourceAsStream("/application.properties")) {
+			properties.load(in);
+		}
+		root = new SimpleStatusAggregator(properties.getProperty("management.endpoint.health.status.order").split(","));
+		upstream = new SimpleStatusAggregator(
+				properties.getProperty("management.endpoint.health.group.upstream.status.order").split(","));
+		upstreamHttp = new SimpleHttpCodeStatusMapper(Map.of(
+				"UNAVAILABLE", Integer.parseInt(properties.getProperty("management.endpoint.health.group.upstream.status.http-mapping.unavailable")),
+				"DEGRADED", Integer.parseInt(properties.getProperty("management.endpoint.health.group.upstream.status.http-mapping.degraded"))));
+	}
+
+	@Test
+	void mapsMarketplaceStates() {
+		assertEquals(Status.UP, status(MarketplaceHealth.State.UP));
+		assertEquals(MarketplaceHealthContributor.DEGRADED, status(MarketplaceHealth.State.DEGRADED));
+		assertEquals(MarketplaceHealthContributor.UNAVAILABLE, status(MarketplaceHealth.State.DOWN));
+		assertEquals(Status.UNKNOWN, status(MarketplaceHealth.State.UNKNOWN));
+	}
+
+	@Test
+	void upstreamOutageDoesNotChangeTheRootStatus() {
+		Status marketplaces = upstream.getAggregateStatus(Set.of(MarketplaceHealthContributor.UNAVAILABLE, Status.UP));
+
+		assertEquals(Status.UP, root.getAggregateStatus(Set.of(Status.UP, marketplaces)));
+		assertEquals(Status.UP, root.getAggregateStatus(Set.of(Status.UP, MarketplaceHealthContributor.DEGRADED)));
+		assertEquals(Status.DOWN, root.getAggregateStatus(Set.of(Status.DOWN, MarketplaceHealthContributor.UNAVAILABLE)));
+	}
+
+	@Test
+	void upstreamGroupReportsTheWorstMarketplace() {
+		Status unavailable = upstream.getAggregateStatus(Set.of(MarketplaceHealthContributor.UNAVAILABLE, Status.UP));
+		Status degraded = upstream.getAggregateStatus(Set.of(MarketplaceHealthContributor.DEGRADED, Status.UP, Status.UNKNOWN));
+
+		assertEquals(MarketplaceHealthContributor.UNAVAILABLE, unavailable);
+		assertEquals(503, upstreamHttp.getStatusCode(unavailable));
+		assertEquals(MarketplaceHealthContributor.DEGRADED, degraded);
+		assertEquals(200, upstreamHttp.getStatusCode(degraded));
+	}
+
+	private static Status status(MarketplaceHealth.State state) {
+		return MarketplaceHealthContributor.toHealth(
+				new MarketplaceHealth.Snapshot(state, 10, 0, Duration.ofMillis(100), Duration.ZERO)).getStatus();
+	}
+}
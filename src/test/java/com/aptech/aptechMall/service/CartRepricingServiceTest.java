@@ -0,0 +1,105 @@
+package com.aptech.aptechMall.service;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.repository.CartItemRepository;
+import com.aptech.aptechMall.service.marketplace.MarketplaceServiceRegistry;
+import com.aptech.aptechMall.service.marketplace.ProductKey;
+import com.aptech.aptechMall.service.marketplace.ProductQuote;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CartRepricingServiceTest {
+
+	private static final Duration QUOTE_MAX_AGE = Duration.ofMinutes(10);
+	private static final LocalDateTime QUOTED_AT = LocalDateTime.of(2026, 10, 1, 9, 0);
+
+	private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+	private final ProductMarketplaceService aliExpress = mock(ProductMarketplaceService.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void setUp() {
+		when(aliExpress.getMarketplace()).thenReturn(Marketplace.ALIEXPRESS);
+	}
+
+	@Test
+	void eachProductIsQuotedOnceAndDriftIsCounted() {
+		// No 1688 service registered here: that product is skipped
+		products(key(Marketplace.ALIEXPRESS, "1005001234567890"), key(Marketplace.ALIBABA1688, "610947572360"));
+		when(aliExpress.getProductQuote("1005001234567890", QUOTE_MAX_AGE))
+				.thenReturn(Mono.just(quote("1005001234567890", new BigDecimal("14.00"), true)));
+		when(cartItemRepository.countCartsWithDifferentPrice(Marketplace.ALIEXPRESS, "1005001234567890",
+				new BigDecimal("14.00"))).thenReturn(3L);
+
+		service(true).repriceCartItems();
+
+		verify(cartItemRepository).updateLatestQuote(Marketplace.ALIEXPRESS, "1005001234567890",
+				new BigDecimal("14.00"), true, QUOTED_AT);
+		assertEquals(1.0, registry.get("cart.repricing.products").tag("result", "drifted").counter().count());
+		assertEquals(3.0, registry.get("cart.repricing.carts.drifted").counter().count());
+	}
+
+	@Test
+	void failedQuoteLeavesTheItemsUncheckedForTheNextRun() {
+		products(key(Marketplace.ALIEXPRESS, "1005001234567890"));
+		when(aliExpress.getProductQuote(anyString(), any())).thenReturn(Mono.error(new IllegalStateException("timeout")));
+
+		service(true).repriceCartItems();
+
+		verify(cartItemRepository, never()).updateLatestQuote(any(), anyString(), any(), anyBoolean(), any());
+		assertEquals(0.0, registry.get("cart.repricing.products").tag("result", "checked").counter().count());
+	}
+
+	@Test
+	void goneProductIsMarkedUnavailableWithoutCountingDrift() {
+		products(key(Marketplace.ALIEXPRESS, "1005001234567890"));
+		when(aliExpress.getProductQuote("1005001234567890", QUOTE_MAX_AGE))
+				.thenReturn(Mono.just(quote("1005001234567890", null, false)));
+
+		service(true).repriceCartItems();
+
+		verify(cartItemRepository, never()).countCartsWithDifferentPrice(any(), anyString(), any());
+		verify(cartItemRepository).updateLatestQuote(Marketplace.ALIEXPRESS, "1005001234567890", null, false, QUOTED_AT);
+	}
+
+	@Test
+	void disabledJobDoesNothing() {
+		service(false).repriceCartItems();
+
+		verifyNoInteractions(cartItemRepository);
+	}
+
+	private CartRepricingService service(boolean enabled) {
+		return new CartRepricingService(cartItemRepository, new MarketplaceServiceRegistry(List.of(aliExpress)),
+				registry, enabled, 200, Duration.ofMinutes(30), QUOTE_MAX_AGE, 60_000, 4);
+	}
+
+	private void products(ProductKey... keys) {
+		when(cartItemRepository.findProductsToReprice(any(), any())).thenReturn(List.of(keys));
+	}
+
+	private static ProductKey key(Marketplace marketplace, String productId) {
+		return new ProductKey(marketplace, productId);
+	}
+
+	private static ProductQuote quote(String productId, BigDecimal unitPrice, boolean available) {
+		return new ProductQuote(Marketplace.ALIEXPRESS, productId, unitPrice, "USD", available, QUOTED_AT);
+	}
+}
@@ -0,0 +1,151 @@
+package com.aptech.aptechMall.service;
+
+import com.aptech.aptechMall.Exception.IdempotencyKeyConflictException;
+import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartBatchRequest;
+import com.aptech.aptechMall.dto.cart.CartOperation;
+import com.aptech.aptechMall.dto.cart.CartResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.cart.CartStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartServiceTest {
+
+	private static final Long USER_ID = 7L;
+	private static final String KEY = "0b7f3c6e-batch";
+
+	// Idempotency records, standing in for Redis
+	private final Map<String, String> redis = new ConcurrentHashMap<>();
+	private final CartStore cartStore = mock(CartStore.class);
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, String> values = mock(ValueOperations.class);
+	private final CartService cartService = new CartService(cartStore, redisTemplate,
+			new ObjectMapper().findAndRegisterModules(), Duration.ofHours(24), Duration.ofSeconds(30));
+
+	@BeforeEach
+	void setUp() {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		when(values.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+				.thenAnswer(call -> redis.putIfAbsent(call.getArgument(0), call.getArgument(1)) == null);
+		when(values.get(anyString())).thenAnswer(call -> redis.get(call.<String>getArgument(0)));
+		doAnswer(call -> redis.put(call.getArgument(0), call.getArgument(1)))
+				.when(values).set(anyString(), anyString(), any(Duration.class));
+		when(redisTemplate.delete(anyString())).thenAnswer(call -> redis.remove(call.<String>getArgument(0)) != null);
+		when(cartStore.applyBatch(eq(USER_ID), anyList(), any())).thenReturn(cart(2));
+	}
+
+	@Test
+	void retryWithTheSameKeyReplaysTheFirstResponse() {
+		CartResponse first = cartService.applyBatch(USER_ID, KEY, batch(2), 3L);
+		CartResponse retry = cartService.applyBatch(USER_ID, KEY, batch(2), 3L);
+
+		verify(cartStore, times(1)).applyBatch(eq(USER_ID), anyList(), eq(3L));
+		assertEquals(first, retry);
+		assertEquals(2, retry.getTotalItems());
+	}
+
+	@Test
+	void sameKeyForADifferentBatchIsAConflict() {
+		cartService.applyBatch(USER_ID, KEY, batch(2), null);
+
+		assertThrows(IdempotencyKeyConflictException.class, () -> cartService.applyBatch(USER_ID, KEY, batch(5), null));
+		verify(cartStore, times(1)).applyBatch(anyLong(), anyList(), any());
+	}
+
+	@Test
+	void retryWhileTheFirstRequestRunsIsAConflict() {
+		when(cartStore.applyBatch(eq(USER_ID), anyList(), any())).thenAnswer(call -> {
+			assertThrows(IdempotencyKeyConflictException.class, () -> cartService.applyBatch(USER_ID, KEY, batch(2), null));
+			return cart(2);
+		});
+
+		cartService.applyBatch(USER_ID, KEY, batch(2), null);
+		verify(cartStore, times(1)).applyBatch(anyLong(), anyList(), any());
+	}
+
+	@Test
+	void failedBatchReleasesTheKey() {
+		when(cartStore.applyBatch(eq(USER_ID), anyList(), any()))
+				.thenThrow(new IllegalStateException("upstream"))
+				.thenReturn(cart(2));
+
+		assertThrows(IllegalStateException.class, () -> cartService.applyBatch(USER_ID, KEY, batch(2), null));
+		assertTrue(redis.isEmpty());
+
+		assertEquals(2, cartService.applyBatch(USER_ID, KEY, batch(2), null).getTotalItems());
+		verify(cartStore, times(2)).applyBatch(anyLong(), anyList(), any());
+	}
+
+	@Test
+	void keysAreScopedToTheUser() {
+		when(cartStore.applyBatch(eq(8L), anyList(), any())).thenReturn(cart(2));
+
+		cartService.applyBatch(USER_ID, KEY, batch(2), null);
+		cartService.applyBatch(8L, KEY, batch(2), null);
+
+		verify(cartStore, times(1)).applyBatch(eq(USER_ID), anyList(), any());
+		verify(cartStore, times(1)).applyBatch(eq(8L), anyList(), any());
+	}
+
+	@Test
+	void withoutAKeyEveryRequestIsApplied() {
+		cartService.applyBatch(USER_ID, null, batch(2), null);
+		cartService.applyBatch(USER_ID, " ", batch(2), null);
+
+		verify(cartStore, times(2)).applyBatch(anyLong(), anyList(), any());
+		assertFalse(redis.containsKey(KEY));
+	}
+
+	private static CartBatchRequest batch(int quantity) {
+		return new CartBatchRequest(List.of(new CartOperation(CartOperation.Type.ADD,
+				new AddToCartRequest("1005001234567890", "Hoodie", null, new BigDecimal("12.50"), quantity, Marketplace.ALIEXPRESS),
+				null, null)));
+	}
+
+	private static Cart cart(int quantity) {
+		Cart cart = new Cart();
+		cart.setId(1L);
+		cart.setUserId(USER_ID);
+		cart.setVersion(4L);
+		cart.setCreatedAt(LocalDateTime.of(2026, 10, 1, 9, 0));
+		cart.setUpdatedAt(LocalDateTime.of(2026, 10, 1, 9, 5));
+		CartItem item = new CartItem();
+		item.setId(11L);
+		item.setProductId("1005001234567890");
+		item.setProductName("Hoodie");
+		item.setPrice(new BigDecimal("12.50"));
+		item.setQuantity(quantity);
+		item.setMarketplace(Marketplace.ALIEXPRESS);
+		cart.addItem(item);
+		return cart;
+	}
+}
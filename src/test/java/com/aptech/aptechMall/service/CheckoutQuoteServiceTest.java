@@ -0,0 +1,177 @@
+package com.aptech.aptechMall.service;
+
+import com.aptech.aptechMall.Exception.CheckoutQuoteConflictException;
+import com.aptech.aptechMall.dto.order.CheckoutQuoteResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.repository.CartItemRepository;
+import com.aptech.aptechMall.repository.CartRepository;
+import com.aptech.aptechMall.service.cart.CartStore;
+import com.aptech.aptechMall.service.marketplace.MarketplaceServiceRegistry;
+import com.aptech.aptechMall.service.marketplace.ProductQuote;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CheckoutQuoteServiceTest {
+
+	private static final String QUOTE_ID = "7f0c2f5e-quote";
+	private static final String KEY = "checkout:quote:" + QUOTE_ID;
+	private static final String CLAIM_KEY = KEY + ":claimed";
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private final CartRepository cartRepository = mock(CartRepository.class);
+	private final ProductMarketplaceService aliExpress = mock(ProductMarketplaceService.class);
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, String> values = mock(ValueOperations.class);
+
+	private CheckoutQuoteService service;
+	private String json;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		when(aliExpress.getMarketplace()).thenReturn(Marketplace.ALIEXPRESS);
+		service = new CheckoutQuoteService(cartRepository, mock(CartItemRepository.class),
+				mock(CartStore.class), new MarketplaceServiceRegistry(List.of(aliExpress)), redisTemplate, objectMapper,
+				Duration.ofMinutes(2), Duration.ofMillis(300), Duration.ofMinutes(10));
+		json = objectMapper.writeValueAsString(CheckoutQuoteResponse.builder()
+				.quoteId(QUOTE_ID)
+				.userId(1L)
+				.complete(true)
+				.build());
+		when(values.get(KEY)).thenReturn(json);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void anotherUsersQuoteIsLeftAlone() {
+		assertThrows(CheckoutQuoteConflictException.class, () -> service.redeem(2L, QUOTE_ID));
+
+		verify(redisTemplate, never()).execute(any(RedisScript.class), any(List.class), any(Object[].class));
+		verify(redisTemplate, never()).delete(anyString());
+	}
+
+	@Test
+	void unknownQuoteIsAConflict() {
+		when(values.get(KEY)).thenReturn(null);
+
+		assertThrows(CheckoutQuoteConflictException.class, () -> service.redeem(1L, QUOTE_ID));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void quoteClaimedConcurrentlyIsAConflict() {
+		when(redisTemplate.execute(any(RedisScript.class), eq(List.of(KEY, CLAIM_KEY)), eq(json))).thenReturn(0L);
+
+		assertThrows(CheckoutQuoteConflictException.class, () -> service.redeem(1L, QUOTE_ID));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void quoteIsDeletedOnlyAfterCommit() {
+		when(redisTemplate.execute(any(RedisScript.class), eq(List.of(KEY, CLAIM_KEY)), eq(json))).thenReturn(1L);
+		TransactionSynchronizationManager.initSynchronization();
+
+		assertEquals(QUOTE_ID, service.redeem(1L, QUOTE_ID).getQuoteId());
+		verify(redisTemplate, never()).delete(anyString());
+
+		TransactionSynchronizationManager.getSynchronizations()
+				.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+		verify(redisTemplate).delete(CLAIM_KEY);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void rolledBackCheckoutPutsTheQuoteBack() {
+		when(redisTemplate.execute(any(RedisScript.class), eq(List.of(KEY, CLAIM_KEY)), eq(json))).thenReturn(1L);
+		TransactionSynchronizationManager.initSynchronization();
+
+		service.redeem(1L, QUOTE_ID);
+		TransactionSynchronizationManager.getSynchronizations()
+				.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+		verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(CLAIM_KEY, KEY)));
+		verify(redisTemplate, never()).delete(anyString());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void quoteWithATimedOutProductCannotBeRedeemed() throws Exception {
+		when(cartRepository.findByUserIdWithItems(1L)).thenReturn(Optional.of(cart(item(11L, "1005001111111111"),
+				item(12L, "1005002222222222"))));
+		when(aliExpress.getProductQuote(eq("1005001111111111"), any())).thenReturn(Mono.just(new ProductQuote(
+				Marketplace.ALIEXPRESS, "1005001111111111", new BigDecimal("9.00"), "USD", true, LocalDateTime.now())));
+		// Never answers: only the pre-flight deadline ends it
+		when(aliExpress.getProductQuote(eq("1005002222222222"), any())).thenReturn(Mono.never());
+
+		CheckoutQuoteResponse quote = service.preflight(1L);
+
+		assertFalse(quote.getComplete());
+		assertTrue(quote.getItems().get(0).getQuoted());
+		assertFalse(quote.getItems().get(1).getQuoted());
+
+		ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+		verify(values).set(eq("checkout:quote:" + quote.getQuoteId()), stored.capture(), any(Duration.class));
+		when(values.get("checkout:quote:" + quote.getQuoteId())).thenReturn(stored.getValue());
+
+		assertThrows(CheckoutQuoteConflictException.class, () -> service.redeem(1L, quote.getQuoteId()));
+		verify(redisTemplate, never()).execute(any(RedisScript.class), any(List.class), any(Object[].class));
+	}
+
+	private static Cart cart(CartItem... items) {
+		Cart cart = new Cart();
+		cart.setId(3L);
+		cart.setUserId(1L);
+		for (CartItem item : items) {
+			cart.addItem(item);
+		}
+		return cart;
+	}
+
+	private static CartItem item(Long id, String productId) {
+		CartItem item = new CartItem();
+		item.setId(id);
+		item.setProductId(productId);
+		item.setProductName("Hoodie");
+		item.setPrice(new BigDecimal("12.50"));
+		item.setQuantity(1);
+		item.setMarketplace(Marketplace.ALIEXPRESS);
+		return item;
+	}
+}
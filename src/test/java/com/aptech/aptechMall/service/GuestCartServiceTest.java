@@ -0,0 +1,110 @@
+package com.aptech.aptechMall.service;
+
+import com.aptech.aptechMall.dto.cart.CartOperation;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.cart.CartStore;
+import com.aptech.aptechMall.service.cart.GuestCartStore;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class GuestCartServiceTest {
+
+	private static final Long USER_ID = 7L;
+	private static final String TOKEN = "q3Jb8x1ZkR0m-Yt_5VwLcA";
+
+	private final GuestCartStore guestCartStore = mock(GuestCartStore.class);
+	private final CartStore cartStore = mock(CartStore.class);
+	private final GuestCartService guestCartService = new GuestCartService(guestCartStore, cartStore);
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void mergeAddsGuestItemsAsOneBatchAndDropsTheCookie() {
+		List<CartItem> items = List.of(item("1005001234567890", 2), item("1005009876543210", 1));
+		when(guestCartStore.take(TOKEN)).thenReturn(items);
+
+		guestCartService.mergeOnLogin(request(TOKEN), response, USER_ID);
+
+		ArgumentCaptor<List<CartOperation>> operations = ArgumentCaptor.forClass(List.class);
+		verify(cartStore).applyBatch(eq(USER_ID), operations.capture(), eq(null));
+		assertEquals(2, operations.getValue().size());
+		assertTrue(operations.getValue().stream().allMatch(operation -> operation.getOp() == CartOperation.Type.ADD));
+		assertEquals("1005001234567890", operations.getValue().get(0).getItem().getProductId());
+		assertEquals(2, operations.getValue().get(0).getItem().getQuantity());
+		assertExpiredCookie();
+	}
+
+	@Test
+	void failedMergePutsTheItemsBackAndKeepsTheCookie() {
+		List<CartItem> items = List.of(item("1005001234567890", 2));
+		when(guestCartStore.take(TOKEN)).thenReturn(items);
+		when(cartStore.applyBatch(eq(USER_ID), anyList(), any())).thenThrow(new IllegalStateException("database down"));
+
+		guestCartService.mergeOnLogin(request(TOKEN), response, USER_ID);
+
+		verify(guestCartStore).restore(TOKEN, items);
+		assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+	}
+
+	@Test
+	void emptyGuestCartOnlyDropsTheCookie() {
+		when(guestCartStore.take(TOKEN)).thenReturn(List.of());
+
+		guestCartService.mergeOnLogin(request(TOKEN), response, USER_ID);
+
+		verifyNoInteractions(cartStore);
+		verify(guestCartStore, never()).restore(any(), anyList());
+		assertExpiredCookie();
+	}
+
+	@Test
+	void missingOrMalformedCookieIsIgnored() {
+		guestCartService.mergeOnLogin(new MockHttpServletRequest(), response, USER_ID);
+		guestCartService.mergeOnLogin(request("not-a-token"), response, USER_ID);
+
+		verifyNoInteractions(guestCartStore, cartStore);
+		assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+	}
+
+	private void assertExpiredCookie() {
+		String cookie = response.getHeader(HttpHeaders.SET_COOKIE);
+		assertTrue(cookie.startsWith(GuestCartService.COOKIE_NAME + "=" + TOKEN), cookie);
+		assertTrue(cookie.contains("Max-Age=0"), cookie);
+	}
+
+	private static MockHttpServletRequest request(String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie(GuestCartService.COOKIE_NAME, token));
+		return request;
+	}
+
+	private static CartItem item(String productId, int quantity) {
+		CartItem item = new CartItem();
+		item.setProductId(productId);
+		item.setProductName("Hoodie");
+		item.setPrice(new BigDecimal("12.50"));
+		item.setQuantity(quantity);
+		item.setMarketplace(Marketplace.ALIEXPRESS);
+		return item;
+	}
+}
@@ -0,0 +1,133 @@
+package com.aptech.aptechMall.service.cart;
+
+import com.aptech.aptechMall.Exception.CartVersionMismatchException;
+import com.aptech.aptechMall.Exception.UserNotFoundException;
+import com.aptech.aptechMall.dto.cart.AddToCartRequest;
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.User;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.repository.UserRepository;
+import com.aptech.aptechMall.security.Role;
+import com.aptech.aptechMall.security.Status;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+		"cart.storage.mode=database",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional
+@EnabledIf("com.aptech.aptechMall.MySqlAvailable#isReachable")
+class DatabaseCartStoreTest {
+
+	@Autowired
+	private CartStore cartStore;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Long userId;
+
+	@BeforeEach
+	void setUp() {
+		String name = "cart-" + UUID.randomUUID().toString().substring(0, 8);
+		User user = userRepository.saveAndFlush(User.builder()
+				.username(name)
+				.email(name + "@example.com")
+				.password("secret123")
+				.fullName("Cart Test")
+				.role(Role.CUSTOMER)
+				.status(Status.ACTIVE)
+				.oAuth(new HashMap<>())
+				.build());
+		userId = user.getId();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void addingSameProductTakesFourStatements() {
+		cartStore.addItem(userId, request("1005001234567890", 2), null);
+		statistics.clear();
+
+		Cart cart = cartStore.addItem(userId, request("1005001234567890", 3), null);
+
+		// Cart ID lookup, quantity delta, totals, read back
+		assertEquals(4, statistics.getPrepareStatementCount());
+		assertEquals(1, cart.getItems().size());
+		assertEquals(5, cart.getItems().get(0).getQuantity());
+		assertEquals(1L, cart.getVersion());
+	}
+
+	@Test
+	void addingNewProductTakesFourStatements() {
+		cartStore.addItem(userId, request("1005001234567890", 2), null);
+		statistics.clear();
+
+		Cart cart = cartStore.addItem(userId, request("1005009876543210", 1), null);
+
+		// Cart ID lookup, insert, totals with version increment, read back
+		assertEquals(4, statistics.getPrepareStatementCount());
+		assertEquals(2, cart.getItems().size());
+		assertEquals(2L, cart.getVersion());
+	}
+
+	@Test
+	void summaryFollowsEveryMutation() {
+		Cart cart = cartStore.addItem(userId, request("1005001234567890", 2), null);
+		cartStore.addItem(userId, request("1005009876543210", 1), null);
+		cartStore.updateItemQuantity(userId, cart.getItems().get(0).getId(), 4, null);
+		statistics.clear();
+
+		CartSummaryResponse summary = cartStore.findSummary(userId).orElseThrow();
+
+		// One single-row lookup on carts
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(5, summary.getTotalItems());
+		assertEquals(0, new BigDecimal("62.50").compareTo(summary.getTotalAmount()));
+		assertEquals(2L, summary.getVersion());
+
+		cartStore.clear(userId);
+		assertEquals(0, cartStore.findSummary(userId).orElseThrow().getTotalItems());
+	}
+
+	@Test
+	void staleIfMatchIsRejected() {
+		Cart cart = cartStore.addItem(userId, request("1005001234567890", 2), null);
+
+		assertThrows(CartVersionMismatchException.class,
+				() -> cartStore.addItem(userId, request("1005001234567890", 1), cart.getVersion() - 1));
+		assertEquals(cart.getVersion() + 1,
+				cartStore.addItem(userId, request("1005001234567890", 1), cart.getVersion()).getVersion());
+	}
+
+	@Test
+	void addItemForUnknownUserFails() {
+		assertThrows(UserNotFoundException.class, () -> cartStore.addItem(-1L, request("1005001234567890", 1), null));
+	}
+
+	private static AddToCartRequest request(String productId, int quantity) {
+		return new AddToCartRequest(productId, "Test product", null,
+				new BigDecimal("12.50"), quantity, Marketplace.ALIEXPRESS);
+	}
+}
@@ -0,0 +1,206 @@
+package com.aptech.aptechMall.service.cart;
+
+import com.aptech.aptechMall.Exception.CartVersionMismatchException;
+import com.aptech.aptechMall.dto.cart.CartSummaryResponse;
+import com.aptech.aptechMall.entity.Cart;
+import com.aptech.aptechMall.entity.CartItem;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.repository.CartRepository;
+import com.aptech.aptechMall.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisCartStoreTest {
+
+	private static final Long USER_ID = 7L;
+	private static final String KEY = "cart:live:7";
+
+	// The live hash, standing in for Redis; the mutation script is reduced to its If-Match check
+	private final Map<String, String> hash = new HashMap<>();
+	private final List<String> expectedVersions = new ArrayList<>();
+	private final List<List<Object>> scriptArgs = new ArrayList<>();
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+	@SuppressWarnings("unchecked")
+	private final HashOperations<String, Object, Object> hashes = mock(HashOperations.class);
+	@SuppressWarnings("unchecked")
+	private final ZSetOperations<String, String> zsets = mock(ZSetOperations.class);
+	private final CartRepository cartRepository = mock(CartRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final RedisCartStore store = new RedisCartStore(redisTemplate, new ObjectMapper().findAndRegisterModules(),
+			cartRepository, userRepository, mock(JdbcTemplate.class), mock(TransactionTemplate.class),
+			new SimpleMeterRegistry(), Duration.ofSeconds(2), 200, Duration.ofDays(7));
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		when(redisTemplate.opsForHash()).thenReturn(hashes);
+		when(redisTemplate.opsForZSet()).thenReturn(zsets);
+		when(zsets.score(anyString(), anyString())).thenReturn(null);
+		when(hashes.multiGet(eq(KEY), anyCollection())).thenAnswer(call -> call.<Collection<Object>>getArgument(1).stream()
+				.map(hash::get)
+				.toList());
+		when(hashes.entries(KEY)).thenAnswer(call -> new HashMap<Object, Object>(hash));
+		when(userRepository.existsById(USER_ID)).thenReturn(true);
+		when(cartRepository.findByUserIdWithItems(USER_ID)).thenReturn(Optional.of(storedCart(12L)));
+		when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(call -> {
+			List<String> keys = call.getArgument(1);
+			Object[] args = Arrays.copyOfRange(call.getArguments(), 2, call.getArguments().length);
+			return keys.size() == 1 ? load(args) : mutate(args);
+		});
+	}
+
+	@Test
+	void liveCartStartsAtTheStoredVersion() {
+		assertEquals(12L, store.find(USER_ID).orElseThrow().getVersion());
+		assertEquals("12", hash.get("v"));
+	}
+
+	@Test
+	void summaryEtagOfALiveCartIsAcceptedAsIfMatch() {
+		store.find(USER_ID);
+		CartSummaryResponse summary = store.findSummary(USER_ID).orElseThrow();
+
+		Cart cart = store.updateItemQuantity(USER_ID, 31L, 3, summary.getVersion());
+
+		assertEquals(List.of("12"), expectedVersions);
+		assertEquals(12L, cart.getVersion());
+	}
+
+	@Test
+	void summaryEtagFromTheTablesIsAcceptedOnceTheCartGoesLive() {
+		when(cartRepository.findSummaryByUserId(USER_ID))
+				.thenReturn(Optional.of(new CartSummaryResponse(USER_ID, 12L, 2, new BigDecimal("25.00"))));
+		CartSummaryResponse summary = store.findSummary(USER_ID).orElseThrow();
+
+		// Not live yet: the mutation loads the cart, then checks If-Match against the loaded version
+		store.updateItemQuantity(USER_ID, 31L, 3, summary.getVersion());
+
+		assertEquals(List.of("12"), expectedVersions);
+		assertEquals("12", hash.get("v"));
+	}
+
+	@Test
+	void staleEtagIsRejected() {
+		store.find(USER_ID);
+
+		assertThrows(CartVersionMismatchException.class, () -> store.updateItemQuantity(USER_ID, 31L, 3, 11L));
+	}
+
+	@Test
+	void cartWithoutRowOrPendingFlushIsAbsent() {
+		when(cartRepository.findByUserIdWithItems(USER_ID)).thenReturn(Optional.empty());
+
+		assertEquals(Optional.empty(), store.find(USER_ID));
+		assertEquals("0", hash.get("v"));
+		assertEquals(Optional.empty(), store.findSummary(USER_ID));
+		verify(cartRepository, never()).findSummaryByUserId(USER_ID);
+
+		when(zsets.score(anyString(), eq(USER_ID.toString()))).thenReturn(1.0);
+		assertEquals(USER_ID, store.find(USER_ID).orElseThrow().getUserId());
+	}
+
+	@Test
+	void orderedItemsLeaveTheCartByIdAndQuantityOnlyAfterCommit() {
+		store.find(USER_ID);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			store.removeOrdered(USER_ID, storedCart(12L).getItems());
+			assertTrue(scriptArgs.isEmpty());
+
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		// Not a blanket clear: only item 31, less the 2 that were ordered
+		assertEquals(List.of(List.of("31", "2")), scriptArgs);
+		assertEquals(List.of(""), expectedVersions);
+	}
+
+	private List<String> load(Object[] args) {
+		if (!hash.containsKey("c")) {
+			for (int i = 1; i + 1 < args.length; i += 2) {
+				hash.put((String) args[i], (String) args[i + 1]);
+			}
+		}
+		return flat(null);
+	}
+
+	private List<String> mutate(Object[] args) {
+		if (!hash.containsKey("c")) {
+			return List.of("NOT_LOADED");
+		}
+		String expected = (String) args[4];
+		expectedVersions.add(expected);
+		scriptArgs.add(List.of(args).subList(5, args.length));
+		if (!expected.isEmpty() && !expected.equals(hash.get("v"))) {
+			return List.of("VERSION_MISMATCH");
+		}
+		return flat("OK");
+	}
+
+	private List<String> flat(String status) {
+		List<String> reply = new ArrayList<>();
+		if (status != null) {
+			reply.add(status);
+		}
+		hash.forEach((field, value) -> {
+			reply.add(field);
+			reply.add(value);
+		});
+		return reply;
+	}
+
+	private static Cart storedCart(Long version) {
+		Cart cart = new Cart();
+		cart.setId(3L);
+		cart.setUserId(USER_ID);
+		cart.setVersion(version);
+		cart.setCreatedAt(LocalDateTime.of(2026, 10, 1, 9, 0));
+		cart.setUpdatedAt(LocalDateTime.of(2026, 10, 1, 9, 5));
+		CartItem item = new CartItem();
+		item.setId(31L);
+		item.setProductId("1005001234567890");
+		item.setProductName("Hoodie");
+		item.setPrice(new BigDecimal("12.50"));
+		item.setQuantity(2);
+		item.setMarketplace(Marketplace.ALIEXPRESS);
+		item.setCreatedAt(LocalDateTime.of(2026, 10, 1, 9, 0));
+		cart.addItem(item);
+		return cart;
+	}
+}
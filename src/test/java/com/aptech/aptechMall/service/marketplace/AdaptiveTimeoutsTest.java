@@ -0,0 +1,103 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveTimeoutsTest {
+
+	private static final String ENDPOINT = "AliExpress.detail";
+
+	@Test
+	void usesMaxUntilEnoughSamples() {
+		AdaptiveTimeouts timeouts = timeouts(0.99, 3.0, Duration.ofMillis(10), Duration.ofSeconds(5), 16);
+
+		assertEquals(Duration.ofSeconds(5), timeouts.currentTimeout(ENDPOINT));
+	}
+
+	@Test
+	void adaptiveTimeoutFiringIsRecordedAsSample() {
+		AdaptiveTimeouts timeouts = timeouts(0.5, 0.5, Duration.ofMillis(1), Duration.ofMillis(40), 1);
+
+		for (int i = 0; i < 16; i++) {
+			assertThrows(RuntimeException.class, () -> timeouts.apply(ENDPOINT, Mono.never()).block());
+		}
+
+		// Sixteen 40ms samples times the 0.5 factor
+		assertEquals(Duration.ofMillis(20), timeouts.currentTimeout(ENDPOINT));
+	}
+
+	@Test
+	void deadlineCutIsNotRecordedAsSample() {
+		AdaptiveTimeouts timeouts = timeouts(0.5, 3.0, Duration.ofMillis(1), Duration.ofSeconds(5), 1);
+		for (int i = 0; i < 16; i++) {
+			timeouts.apply(ENDPOINT, timeouts.recordLatency(ENDPOINT, Mono.delay(Duration.ofMillis(30)))).block();
+		}
+		Duration learned = timeouts.currentTimeout(ENDPOINT);
+		assertTrue(learned.compareTo(Duration.ofMillis(90)) >= 0 && learned.compareTo(Duration.ofSeconds(5)) < 0,
+				learned.toString());
+
+		for (int i = 0; i < 16; i++) {
+			RuntimeException error = assertThrows(RuntimeException.class, () -> timeouts.apply(ENDPOINT, Mono.never())
+					.contextWrite(RequestDeadline.within(Duration.ofMillis(20)))
+					.block());
+			assertInstanceOf(TimeoutException.class, error.getCause());
+		}
+
+		assertEquals(learned, timeouts.currentTimeout(ENDPOINT));
+	}
+
+	@Test
+	void onlyTheExchangeIsRecordedAsSample() {
+		AdaptiveTimeouts timeouts = timeouts(0.5, 1.0, Duration.ofMillis(1), Duration.ofSeconds(5), 1);
+
+		// A 40ms wait for a lease before a 5ms exchange, as in OtApiClient
+		for (int i = 0; i < 16; i++) {
+			timeouts.apply(ENDPOINT, Mono.delay(Duration.ofMillis(40))
+					.then(timeouts.recordLatency(ENDPOINT, Mono.delay(Duration.ofMillis(5))))).block();
+		}
+
+		Duration learned = timeouts.currentTimeout(ENDPOINT);
+		assertTrue(learned.compareTo(Duration.ofMillis(40)) < 0, learned.toString());
+	}
+
+	@Test
+	void expiredDeadlineFailsWithoutCalling() {
+		AdaptiveTimeouts timeouts = timeouts(0.99, 3.0, Duration.ofMillis(10), Duration.ofSeconds(5), 16);
+		boolean[] subscribed = new boolean[1];
+
+		RuntimeException error = assertThrows(RuntimeException.class, () -> timeouts
+				.apply(ENDPOINT, Mono.fromCallable(() -> subscribed[0] = true))
+				.contextWrite(RequestDeadline.within(Duration.ZERO))
+				.block());
+
+		assertInstanceOf(TimeoutException.class, error.getCause());
+		assertEquals(false, subscribed[0]);
+	}
+
+	@Test
+	void streamDeadlineCutIsNotRecordedAsSample() {
+		AdaptiveTimeouts timeouts = timeouts(0.5, 0.5, Duration.ofMillis(1), Duration.ofMillis(400), 1);
+
+		for (int i = 0; i < 16; i++) {
+			assertThrows(RuntimeException.class, () -> timeouts.applyToStream(ENDPOINT, Flux.never())
+					.contextWrite(RequestDeadline.within(Duration.ofMillis(50)))
+					.blockLast());
+		}
+
+		assertEquals(Duration.ofMillis(400), timeouts.currentTimeout(ENDPOINT));
+	}
+
+	private static AdaptiveTimeouts timeouts(double percentile, double factor, Duration min, Duration max, int minSamples) {
+		return new AdaptiveTimeouts(new SimpleMeterRegistry(), percentile, factor, min, max, 512, minSamples);
+	}
+}
@@ -0,0 +1,111 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.dto.CategoryDTO;
+import com.aptech.aptechMall.dto.ProductSearchDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CategoryTreeTest {
+
+	private static final List<CategoryTree.PathEntry> PHONES = List.of(
+			new CategoryTree.PathEntry("1", "Electronics"),
+			new CategoryTree.PathEntry("11", "Phones"));
+	private static final List<CategoryTree.PathEntry> CAMERAS = List.of(
+			new CategoryTree.PathEntry("1", "Electronics"),
+			new CategoryTree.PathEntry("12", "Cameras"));
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void productCountsCoverTheWholeSubtree() {
+		CategoryTree tree = tree(100);
+		tree.record(Marketplace.ALIEXPRESS, "p1", "Android phone", null, 99.0, "$", PHONES);
+		tree.record(Marketplace.ALIEXPRESS, "p2", "Phone case", null, 2.5, "$", PHONES);
+		tree.record(Marketplace.ALIEXPRESS, "p3", "Action camera", null, 45.0, "$", CAMERAS);
+
+		List<CategoryDTO> roots = tree.roots(Marketplace.ALIEXPRESS);
+
+		assertEquals(1, roots.size());
+		assertEquals(3, roots.get(0).getProductCount());
+		assertEquals(List.of("11", "12"), roots.get(0).getChildren().stream().map(CategoryDTO::getId).toList());
+		assertTrue(tree.roots(Marketplace.ALIBABA1688).isEmpty());
+
+		CategoryDTO phones = tree.category(Marketplace.ALIEXPRESS, "11").orElseThrow();
+		assertEquals(2, phones.getProductCount());
+		assertEquals(List.of("Electronics"), phones.getPath().stream().map(CategoryDTO::getName).toList());
+	}
+
+	@Test
+	void movedProductLeavesItsOldChain() {
+		CategoryTree tree = tree(100);
+		tree.record(Marketplace.ALIEXPRESS, "p1", "Android phone", null, 99.0, "$", PHONES);
+
+		tree.record(Marketplace.ALIEXPRESS, "p1", "Android phone with camera", null, 99.0, "$", CAMERAS);
+
+		assertEquals(0, tree.category(Marketplace.ALIEXPRESS, "11").orElseThrow().getProductCount());
+		assertEquals(1, tree.category(Marketplace.ALIEXPRESS, "12").orElseThrow().getProductCount());
+		assertEquals(1, tree.category(Marketplace.ALIEXPRESS, "1").orElseThrow().getProductCount());
+	}
+
+	@Test
+	void searchMatchesEveryWordWithinTheSubtreeAndPages() {
+		CategoryTree tree = tree(100);
+		tree.record(Marketplace.ALIEXPRESS, "p1", "Android phone", null, 99.0, "$", PHONES);
+		tree.record(Marketplace.ALIEXPRESS, "p2", "Android phone case", null, 2.5, "$", PHONES);
+		tree.record(Marketplace.ALIEXPRESS, "p3", "Android camera", null, 45.0, "$", CAMERAS);
+
+		ProductSearchDTO firstPage = tree.search(Marketplace.ALIEXPRESS, "1", "PHONE android", 1, 1).orElseThrow();
+		ProductSearchDTO secondPage = tree.search(Marketplace.ALIEXPRESS, "1", "phone android", 2, 1).orElseThrow();
+
+		assertEquals(2, firstPage.getMeta().getTotalResults());
+		assertEquals(1, firstPage.getProducts().size());
+		assertEquals(1, secondPage.getProducts().size());
+		assertNotEquals(firstPage.getProducts().get(0).getItemId(), secondPage.getProducts().get(0).getItemId());
+		assertEquals(1, tree.search(Marketplace.ALIEXPRESS, "12", null, 1, 10).orElseThrow().getMeta().getTotalResults());
+		assertTrue(tree.search(Marketplace.ALIEXPRESS, "99", null, 1, 10).isEmpty());
+	}
+
+	@Test
+	void newProductsStopAtTheCapButKnownOnesStillMove() {
+		CategoryTree tree = tree(1);
+		tree.record(Marketplace.ALIEXPRESS, "p1", "Android phone", null, 99.0, "$", PHONES);
+
+		tree.record(Marketplace.ALIEXPRESS, "p2", "Action camera", null, 45.0, "$", CAMERAS);
+		tree.record(Marketplace.ALIEXPRESS, "p1", "Android phone", null, 89.0, "$", CAMERAS);
+
+		assertEquals(1, tree.category(Marketplace.ALIEXPRESS, "1").orElseThrow().getProductCount());
+		assertEquals(1, tree.category(Marketplace.ALIEXPRESS, "12").orElseThrow().getProductCount());
+	}
+
+	@Test
+	void snapshotRestoresTheTree() {
+		CategoryTree tree = tree(100);
+		tree.record(Marketplace.ALIEXPRESS, "p1", "Android phone", null, 99.0, "$", PHONES);
+		tree.record(Marketplace.ALIEXPRESS, "p3", "Action camera", null, 45.0, "$", CAMERAS);
+		tree.writeSnapshot();
+
+		CategoryTree restored = tree(100);
+		restored.loadSnapshot();
+
+		assertEquals(2, restored.category(Marketplace.ALIEXPRESS, "1").orElseThrow().getProductCount());
+		assertEquals("Phones", restored.category(Marketplace.ALIEXPRESS, "11").orElseThrow().getName());
+		assertEquals(1, restored.search(Marketplace.ALIEXPRESS, "12", "camera", 1, 10)
+				.orElseThrow().getMeta().getTotalResults());
+	}
+
+	private CategoryTree tree(int maxProducts) {
+		return new CategoryTree(new ObjectMapper(), new SimpleMeterRegistry(),
+				dir.resolve("category-tree.json").toString(), maxProducts);
+	}
+}
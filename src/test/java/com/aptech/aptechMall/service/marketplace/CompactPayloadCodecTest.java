@@ -0,0 +1,189 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.dto.ProductDetailDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Adler32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactPayloadCodecTest {
+
+	private static final int TRAINING_SAMPLES = 16;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void roundTripsBeforeAndAfterTraining() {
+		CompactPayloadCodec codec = codec(8);
+		ProductDetailDTO untrained = product(0);
+		assertEquals(untrained, codec.decode(codec.encode(untrained), ProductDetailDTO.class));
+
+		train(codec);
+		ProductDetailDTO trained = product(TRAINING_SAMPLES + 1);
+		byte[] payload = codec.encode(trained);
+
+		assertNotEquals(0, codec.getActiveDictionaryId());
+		assertEquals(codec.getActiveDictionaryId(), codec.dictionaryIdOf(payload));
+		assertEquals(trained, codec.decode(payload, ProductDetailDTO.class));
+	}
+
+	@Test
+	void payloadFromAnotherInstanceNeedsItsDictionary() {
+		CompactPayloadCodec writer = codec(8);
+		train(writer);
+		byte[] payload = writer.encode(product(99));
+		CompactPayloadCodec reader = codec(8);
+
+		assertFalse(reader.hasDictionary(writer.dictionaryIdOf(payload)));
+		assertThrows(InternalServerException.class, () -> reader.decode(payload, ProductDetailDTO.class));
+
+		reader.registerDictionary(writer.getDictionary(writer.getActiveDictionaryId()));
+		assertEquals(product(99), reader.decode(payload, ProductDetailDTO.class));
+	}
+
+	@Test
+	void keepsAtMostMaxDictionariesButNeverTheActiveOne() {
+		CompactPayloadCodec codec = codec(3);
+		train(codec);
+		long active = codec.getActiveDictionaryId();
+
+		List<Long> foreign = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			byte[] dictionary = ("dictionary of instance " + i).getBytes();
+			codec.registerDictionary(dictionary);
+			Adler32 adler = new Adler32();
+			adler.update(dictionary);
+			foreign.add(adler.getValue());
+		}
+
+		assertTrue(codec.hasDictionary(active));
+		assertFalse(codec.hasDictionary(foreign.get(0)));
+		assertFalse(codec.hasDictionary(foreign.get(2)));
+		assertTrue(codec.hasDictionary(foreign.get(3)));
+		assertTrue(codec.hasDictionary(foreign.get(4)));
+	}
+
+	/**
+	 * Not a strict benchmark: reports bytes per entry and encode/decode time for detail-sized
+	 * payloads, and fails if the trained format stops beating plain JSON by a wide margin
+	 */
+	@Test
+	void benchmarkBytesPerEntryAndSpeed() throws Exception {
+		CompactPayloadCodec codec = codec(8);
+		train(codec);
+
+		int entries = 2000;
+		List<ProductDetailDTO> products = new ArrayList<>(entries);
+		long jsonBytes = 0;
+		for (int i = 0; i < entries; i++) {
+			ProductDetailDTO product = product(1000 + i);
+			products.add(product);
+			jsonBytes += objectMapper.writeValueAsBytes(product).length;
+		}
+
+		List<byte[]> payloads = new ArrayList<>(entries);
+		long encodedBytes = 0;
+		long encodeStart = System.nanoTime();
+		for (ProductDetailDTO product : products) {
+			byte[] payload = codec.encode(product);
+			payloads.add(payload);
+			encodedBytes += payload.length;
+		}
+		long encodeNanos = System.nanoTime() - encodeStart;
+
+		long decodeStart = System.nanoTime();
+		for (int i = 0; i < entries; i++) {
+			assertEquals(products.get(i).getItemId(), codec.decode(payloads.get(i), ProductDetailDTO.class).getItemId());
+		}
+		long decodeNanos = System.nanoTime() - decodeStart;
+
+		System.out.printf("Compact payload codec: %d B/entry JSON, %d B/entry encoded, encode %d us/op, decode %d us/op%n",
+				jsonBytes / entries, encodedBytes / entries, encodeNanos / entries / 1000, decodeNanos / entries / 1000);
+		assertTrue(encodedBytes * 3 < jsonBytes, "encoded payloads should be under a third of the JSON size");
+	}
+
+	private CompactPayloadCodec codec(int maxDictionaries) {
+		return new CompactPayloadCodec(objectMapper, new SimpleMeterRegistry(), 1, 32 * 1024, TRAINING_SAMPLES, maxDictionaries);
+	}
+
+	private void train(CompactPayloadCodec codec) {
+		for (int i = 1; i <= TRAINING_SAMPLES; i++) {
+			codec.encode(product(i));
+		}
+	}
+
+	/**
+	 * A detail response shaped like a typical AliExpress product: a few images, colour and size
+	 * options and one variant per combination
+	 */
+	private static ProductDetailDTO product(int n) {
+		String itemId = "ae-100500" + (6000000 + n * 7919);
+		List<ProductDetailDTO.ImageDTO> images = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			String url = "https://ae01.alicdn.com/kf/S" + Integer.toHexString(n * 31 + i) + "a7c2d4e" + i + ".jpg";
+			images.add(ProductDetailDTO.ImageDTO.builder()
+					.url(url).smallUrl(url + "_50x50.jpg").mediumUrl(url + "_220x220.jpg").largeUrl(url + "_640x640.jpg")
+					.isMain(i == 0)
+					.build());
+		}
+
+		List<String> colors = List.of("Black", "White", "Navy Blue", "Pink", "Grey");
+		List<String> sizes = List.of("S", "M", "L", "XL", "XXL", "3XL");
+		List<ProductDetailDTO.VariantDTO> variants = new ArrayList<>();
+		for (String color : colors) {
+			for (String size : sizes) {
+				double price = 8.5 + (n % 13) + sizes.indexOf(size) * 0.75;
+				variants.add(ProductDetailDTO.VariantDTO.builder()
+						.variantId(itemId + ":" + color.hashCode() + ";" + size.hashCode())
+						.name(color + " / " + size)
+						.options(List.of(color, size))
+						.price(price)
+						.displayPrice(String.format("%,.0f ₫", price * 25400))
+						.quantity((n * 17 + variants.size() * 3) % 500)
+						.build());
+			}
+		}
+
+		return ProductDetailDTO.builder()
+				.itemId(itemId)
+				.title("Women's Oversized Cotton Hoodie Casual Long Sleeve Pullover Sweatshirt " + n)
+				.originalTitle("2024 New Autumn Winter Women Hoodies Loose Fleece Sweatshirt Model " + n)
+				.hasDescription(true)
+				.itemUrl("https://www.aliexpress.com/item/" + itemId.substring(3) + ".html")
+				.mainImage(images.get(0).getUrl())
+				.images(images)
+				.available(true)
+				.currentPrice(ProductDetailDTO.PriceDTO.builder()
+						.originalPrice(12.99 + n % 7).currencyCode("USD").currencySign("$")
+						.formattedPrice("$" + (12.99 + n % 7)).displayPrice("329,946 ₫")
+						.build())
+				.discountPercent(n % 60)
+				.totalQuantity(1000 + n)
+				.categoryId(String.valueOf(200000345 + n % 5))
+				.brandName("NoEnName_Null")
+				.categoryPath(List.of("Women's Clothing", "Hoodies & Sweatshirts", "Hoodies"))
+				.vendor(ProductDetailDTO.VendorDTO.builder()
+						.vendorId("ae-" + (1100000 + n % 50)).vendorName("Fashion Store " + n % 50)
+						.displayName("Fashion Store " + n % 50).shopUrl("https://www.aliexpress.com/store/" + (1100000 + n % 50))
+						.positiveRating(90 + n % 10).totalFeedbacks(1500 + n)
+						.build())
+				.variants(variants)
+				.skuCount(variants.size())
+				.totalSales(n * 13)
+				.rating(4.0 + (n % 10) / 10.0)
+				.reviewCount(n * 3)
+				.favoriteCount(n * 5)
+				.displayCurrency("VND")
+				.build();
+	}
+}
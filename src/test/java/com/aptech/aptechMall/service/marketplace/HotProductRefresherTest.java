@@ -0,0 +1,93 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.ProductMarketplaceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HotProductRefresherTest {
+
+	private static final Duration TTL = Duration.ofMinutes(10);
+
+	private final Map<ProductKey, ProductDetailCache.Entry> cached = new LinkedHashMap<>();
+	private final Map<ProductKey, Integer> hits = new LinkedHashMap<>();
+	private final List<String> refreshed = new ArrayList<>();
+	private final ProductDetailCache detailCache = mock(ProductDetailCache.class);
+	private final ProductPopularity popularity = mock(ProductPopularity.class);
+	private final ProductMarketplaceService aliExpress = mock(ProductMarketplaceService.class);
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		when(detailCache.getTtl()).thenReturn(TTL);
+		doAnswer(call -> {
+			cached.forEach(call.<BiConsumer<ProductKey, ProductDetailCache.Entry>>getArgument(0));
+			return null;
+		}).when(detailCache).forEach(any());
+		when(popularity.estimate(any())).thenAnswer(call -> hits.getOrDefault(call.<ProductKey>getArgument(0), 0));
+		when(aliExpress.getMarketplace()).thenReturn(Marketplace.ALIEXPRESS);
+		when(aliExpress.refreshProductDetails(anyString())).thenAnswer(call -> {
+			refreshed.add(call.getArgument(0));
+			return Mono.empty();
+		});
+	}
+
+	@Test
+	void refreshesTheStaleOnesAmongTheHottestByPopularityTimesStaleness() {
+		cache(Marketplace.ALIEXPRESS, "warm", 10, 0.9);      // score 9
+		cache(Marketplace.ALIEXPRESS, "hot", 20, 0.7);       // score 14
+		cache(Marketplace.ALIEXPRESS, "fresh", 50, 0.1);     // not stale yet
+		cache(Marketplace.ALIEXPRESS, "rare", 2, 0.99);      // under min-hits
+		cache(Marketplace.ALIEXPRESS, "lukewarm", 4, 0.95);  // outside the top 3
+		cache(Marketplace.ALIBABA1688, "elsewhere", 90, 0.9); // no service
+
+		refresher(3, 30).refreshHotProducts();
+
+		assertEquals(List.of("hot", "warm"), refreshed);
+	}
+
+	@Test
+	void refreshesStopAtTheBudgetAndUnusedTokensCarryOver() {
+		cache(Marketplace.ALIEXPRESS, "first", 30, 0.9);
+		HotProductRefresher refresher = refresher(10, 2);
+
+		// One due out of a budget of two: the spare token stays in the bucket
+		refresher.refreshHotProducts();
+		cache(Marketplace.ALIEXPRESS, "first", 30, 0.0);
+		cache(Marketplace.ALIEXPRESS, "second", 20, 0.9);
+		cache(Marketplace.ALIEXPRESS, "third", 10, 0.9);
+
+		// Two due, but only the carried-over token is left this minute
+		refresher.refreshHotProducts();
+
+		assertEquals(List.of("first", "second"), refreshed);
+	}
+
+	private HotProductRefresher refresher(int topN, int maxPerMinute) {
+		return new HotProductRefresher(new MarketplaceServiceRegistry(List.of(aliExpress)), detailCache, popularity,
+				new SimpleMeterRegistry(), true, topN, 0.6, 3, maxPerMinute, 1);
+	}
+
+	private void cache(Marketplace marketplace, String productId, int frequency, double staleness) {
+		ProductKey key = new ProductKey(marketplace, productId);
+		long age = (long) (TTL.toNanos() * staleness);
+		cached.put(key, new ProductDetailCache.Entry(new byte[0], Object.class, System.nanoTime() - age));
+		hits.put(key, frequency);
+	}
+}
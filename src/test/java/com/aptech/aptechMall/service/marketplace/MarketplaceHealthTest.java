@@ -0,0 +1,102 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MarketplaceHealthTest {
+
+	private static final long FAST = Duration.ofMillis(200).toNanos();
+	private static final long SLOW = Duration.ofSeconds(8).toNanos();
+
+	private final MarketplaceHealth health = new MarketplaceHealth(20, Duration.ofMinutes(5), 5, 0.1, 0.5, Duration.ofSeconds(5));
+
+	@Test
+	void unknownWithoutEnoughSamples() {
+		MarketplaceHealth.Snapshot empty = health.snapshot(Marketplace.ALIEXPRESS);
+		assertEquals(MarketplaceHealth.State.UNKNOWN, empty.state());
+		assertNull(empty.p95Latency());
+		assertNull(empty.lastCallAgo());
+
+		record(4, 0, FAST);
+		assertEquals(MarketplaceHealth.State.UNKNOWN, health.snapshot(Marketplace.ALIEXPRESS).state());
+	}
+
+	@Test
+	void upWhenFastAndMostlySucceeding() {
+		record(19, 1, FAST);
+
+		MarketplaceHealth.Snapshot snapshot = health.snapshot(Marketplace.ALIEXPRESS);
+		assertEquals(MarketplaceHealth.State.UP, snapshot.state());
+		assertEquals(19, snapshot.samples());
+		assertEquals(1, snapshot.failures());
+		assertNotNull(snapshot.lastCallAgo());
+	}
+
+	@Test
+	void degradedByFailureRatio() {
+		record(10, 1, FAST);
+
+		assertEquals(MarketplaceHealth.State.DEGRADED, health.snapshot(Marketplace.ALIEXPRESS).state());
+	}
+
+	@Test
+	void degradedByP95Latency() {
+		record(18, 0, FAST);
+		record(2, 0, SLOW);
+
+		MarketplaceHealth.Snapshot snapshot = health.snapshot(Marketplace.ALIEXPRESS);
+		assertEquals(MarketplaceHealth.State.DEGRADED, snapshot.state());
+		assertEquals(Duration.ofSeconds(8), snapshot.p95Latency());
+	}
+
+	@Test
+	void downWhenHalfTheCallsFail() {
+		record(10, 5, FAST);
+
+		assertEquals(MarketplaceHealth.State.DOWN, health.snapshot(Marketplace.ALIEXPRESS).state());
+	}
+
+	@Test
+	void onlyTheLatestAttemptsCount() {
+		record(20, 20, FAST);
+		record(20, 0, FAST);
+
+		MarketplaceHealth.Snapshot snapshot = health.snapshot(Marketplace.ALIEXPRESS);
+		assertEquals(MarketplaceHealth.State.UP, snapshot.state());
+		assertEquals(20, snapshot.samples());
+		assertEquals(0, snapshot.failures());
+	}
+
+	@Test
+	void attemptsOlderThanTheWindowAgeAreIgnored() throws InterruptedException {
+		MarketplaceHealth shortWindow = new MarketplaceHealth(20, Duration.ofMillis(50), 5, 0.1, 0.5, Duration.ofSeconds(5));
+		for (int i = 0; i < 10; i++) {
+			shortWindow.record(Marketplace.ALIEXPRESS, true, FAST);
+		}
+		Thread.sleep(100);
+
+		MarketplaceHealth.Snapshot snapshot = shortWindow.snapshot(Marketplace.ALIEXPRESS);
+		assertEquals(MarketplaceHealth.State.UNKNOWN, snapshot.state());
+		assertEquals(0, snapshot.samples());
+		assertNotNull(snapshot.lastCallAgo());
+	}
+
+	@Test
+	void marketplacesAreTrackedSeparately() {
+		record(10, 10, FAST);
+
+		assertEquals(MarketplaceHealth.State.UNKNOWN, health.snapshot(Marketplace.ALIBABA1688).state());
+	}
+
+	private void record(int attempts, int failures, long latencyNanos) {
+		for (int i = 0; i < attempts; i++) {
+			health.record(Marketplace.ALIEXPRESS, i < failures, latencyNanos);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.Exception.UpstreamCapacityExceededException;
+import com.aptech.aptechMall.Exception.UpstreamErrors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarketplaceWorkSchedulerTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private MarketplaceWorkScheduler scheduler;
+
+	@AfterEach
+	void tearDown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void runOnEventLoopFailsWhenGuardIsOn() throws Exception {
+		scheduler = new MarketplaceWorkScheduler(registry, 1, 4, true);
+
+		Throwable error = onEventLoop(() -> scheduler.run("ALIEXPRESS", "detail-parse", () -> "parsed"));
+
+		assertInstanceOf(InternalServerException.class, error);
+		assertEquals(1.0, registry.get("marketplace.work.event.loop.violations")
+				.tag("stage", "detail-parse").counter().count());
+	}
+
+	@Test
+	void runOnEventLoopIsRecordedWhenGuardIsOff() throws Exception {
+		scheduler = new MarketplaceWorkScheduler(registry, 1, 4, false);
+
+		assertNull(onEventLoop(() -> scheduler.run("ALIEXPRESS", "detail-parse", () -> "parsed")));
+		assertEquals(1, registry.get("marketplace.work.cpu").tag("thread", "event-loop").timer().count());
+	}
+
+	@Test
+	void offloadFromEventLoopRunsOnWorker() throws Exception {
+		scheduler = new MarketplaceWorkScheduler(registry, 1, 4, true);
+		AtomicReference<String> ranOn = new AtomicReference<>();
+
+		Throwable error = onEventLoop(() -> scheduler.offload("ALIEXPRESS", "detail-parse", () -> {
+			ranOn.set(Thread.currentThread().getName());
+			return "parsed";
+		}).block(Duration.ofSeconds(5)));
+
+		assertNull(error);
+		assertTrue(ranOn.get().startsWith("marketplace-work-"), ranOn.get());
+	}
+
+	@Test
+	void stageMetersAreRegisteredOnce() throws Exception {
+		scheduler = new MarketplaceWorkScheduler(registry, 1, 4, true);
+
+		for (int i = 0; i < 3; i++) {
+			scheduler.run("ALIEXPRESS", "search-mapping", () -> "mapped");
+		}
+
+		assertEquals(1, registry.find("marketplace.work.cpu").timers().size());
+		assertEquals(3, registry.get("marketplace.work.cpu").tag("thread", "worker").timer().count());
+	}
+
+	@Test
+	void saturatedPoolAnswers503() throws Exception {
+		scheduler = new MarketplaceWorkScheduler(registry, 1, 1, false);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+
+		// One task occupies the only worker, a second fills the queue
+		scheduler.offload("ALIEXPRESS", "detail-parse", () -> {
+			started.countDown();
+			return release.await(5, TimeUnit.SECONDS);
+		}).subscribe();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		scheduler.offload("ALIEXPRESS", "detail-parse", () -> true).subscribe();
+
+		try {
+			UpstreamCapacityExceededException error = assertThrows(UpstreamCapacityExceededException.class,
+					() -> scheduler.offload("ALIEXPRESS", "detail-parse", () -> true).block(Duration.ofSeconds(5)));
+			assertEquals(HttpStatus.SERVICE_UNAVAILABLE, UpstreamErrors.statusOf(error));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	/**
+	 * Run on a thread named like a Reactor Netty event loop
+	 * @return What the work threw, or null
+	 */
+	private static Throwable onEventLoop(ThrowingRunnable work) throws InterruptedException {
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread loop = new Thread(() -> {
+			try {
+				work.run();
+			} catch (Throwable e) {
+				error.set(e);
+			}
+		}, "reactor-http-nio-1");
+		loop.start();
+		loop.join(5000);
+		return error.get();
+	}
+
+	private interface ThrowingRunnable {
+		void run() throws Exception;
+	}
+}
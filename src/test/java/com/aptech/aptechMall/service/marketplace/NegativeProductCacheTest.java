@@ -0,0 +1,131 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.ProductNotFoundException;
+import com.aptech.aptechMall.Exception.UpstreamErrorCodeException;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.marketplace.NegativeProductCache.FailureClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NegativeProductCacheTest {
+
+	private static final String PRODUCT_ID = "1005001234567890";
+
+	private final NegativeProductCache cache = new NegativeProductCache(new SimpleMeterRegistry(),
+			Duration.ofMinutes(30), Duration.ofMinutes(10), Duration.ofMinutes(1), 100);
+
+	@Test
+	void notFoundCodesAreNotFound() {
+		assertEquals(FailureClass.NOT_FOUND, NegativeProductCache.classify(errorCode("NotFound")));
+		assertEquals(FailureClass.NOT_FOUND, NegativeProductCache.classify(errorCode("ItemNotFound")));
+		assertEquals(FailureClass.NOT_FOUND, NegativeProductCache.classify(new ProductNotFoundException(Marketplace.ALIEXPRESS, PRODUCT_ID)));
+	}
+
+	@Test
+	void itemLevelCodesAreCached() {
+		assertEquals(FailureClass.ERROR_CODE, NegativeProductCache.classify(errorCode("NotAvailable")));
+		assertEquals(FailureClass.ERROR_CODE, NegativeProductCache.classify(errorCode("InvalidItemId")));
+	}
+
+	@Test
+	void accountLevelCodesAreNotCached() {
+		assertNull(NegativeProductCache.classify(errorCode("AccessDenied")));
+		assertNull(NegativeProductCache.classify(errorCode("InstanceKeyIsBlocked")));
+		assertNull(NegativeProductCache.classify(errorCode("NotEnoughMoney")));
+		assertNull(NegativeProductCache.classify(errorCode("TotalLimitExceeded")));
+		assertNull(NegativeProductCache.classify(errorCode("SessionExpired")));
+		assertNull(NegativeProductCache.classify(errorCode("InternalError")));
+		assertNull(NegativeProductCache.classify(errorCode(null)));
+	}
+
+	@Test
+	void classificationIgnoresDefaultLocale() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+		try {
+			assertEquals(FailureClass.ERROR_CODE, NegativeProductCache.classify(errorCode("INVALIDITEMID")));
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+
+	@Test
+	void httpStatusesAreClassified() {
+		assertEquals(FailureClass.NOT_FOUND, NegativeProductCache.classify(status(HttpStatus.NOT_FOUND)));
+		assertEquals(FailureClass.NOT_FOUND, NegativeProductCache.classify(status(HttpStatus.GONE)));
+		assertEquals(FailureClass.CLIENT_ERROR, NegativeProductCache.classify(status(HttpStatus.BAD_REQUEST)));
+		assertNull(NegativeProductCache.classify(status(HttpStatus.UNAUTHORIZED)));
+		assertNull(NegativeProductCache.classify(status(HttpStatus.TOO_MANY_REQUESTS)));
+		assertNull(NegativeProductCache.classify(status(HttpStatus.BAD_GATEWAY)));
+		assertNull(NegativeProductCache.classify(new TimeoutException()));
+	}
+
+	@Test
+	void cachedFailureAnswersSameStatusWithoutCalling() {
+		AtomicInteger calls = new AtomicInteger();
+		Mono<String> call = Mono.defer(() -> {
+			calls.incrementAndGet();
+			return Mono.error(errorCode("NotAvailable"));
+		});
+
+		assertThrows(ProductNotFoundException.class,
+				() -> cache.guard(Marketplace.ALIEXPRESS, PRODUCT_ID, call).block());
+		assertThrows(ProductNotFoundException.class,
+				() -> cache.guard(Marketplace.ALIEXPRESS, PRODUCT_ID, call).block());
+
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void accountFailureIsPassedThroughEveryTime() {
+		AtomicInteger calls = new AtomicInteger();
+		Mono<String> call = Mono.defer(() -> {
+			calls.incrementAndGet();
+			return Mono.error(errorCode("TotalLimitExceeded"));
+		});
+
+		for (int i = 0; i < 2; i++) {
+			assertThrows(UpstreamErrorCodeException.class,
+					() -> cache.guard(Marketplace.ALIEXPRESS, PRODUCT_ID, call).block());
+		}
+
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void evictedProductIsCalledAgain() {
+		AtomicInteger calls = new AtomicInteger();
+		Mono<String> call = Mono.defer(() -> {
+			calls.incrementAndGet();
+			return Mono.error(errorCode("NotFound"));
+		});
+		assertThrows(ProductNotFoundException.class,
+				() -> cache.guard(Marketplace.ALIEXPRESS, PRODUCT_ID, call).block());
+
+		cache.evict(Marketplace.ALIEXPRESS, PRODUCT_ID);
+		assertThrows(ProductNotFoundException.class,
+				() -> cache.guard(Marketplace.ALIEXPRESS, PRODUCT_ID, call).block());
+
+		assertEquals(2, calls.get());
+	}
+
+	private static UpstreamErrorCodeException errorCode(String code) {
+		return new UpstreamErrorCodeException("AliExpress OtAPI", code);
+	}
+
+	private static WebClientResponseException status(HttpStatus status) {
+		return WebClientResponseException.create(status.value(), status.getReasonPhrase(), null, null, null);
+	}
+}
@@ -0,0 +1,30 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductDescriptionCacheTest {
+
+	@Test
+	void keepsFormattingProperties() {
+		assertEquals("text-align:center;color:#333;font-size:14px",
+				ProductDescriptionCache.filterStyle("text-align: center; COLOR: #333; font-size:14px;"));
+		assertEquals("color:rgb(255, 0, 0);width:100%",
+				ProductDescriptionCache.filterStyle("color: rgb(255, 0, 0); width: 100%"));
+	}
+
+	@Test
+	void dropsPositioningProperties() {
+		assertEquals("", ProductDescriptionCache.filterStyle(
+				"position:fixed;top:0;left:0;z-index:9999;display:block"));
+	}
+
+	@Test
+	void dropsValuesThatLoadOrRunAnything() {
+		assertEquals("", ProductDescriptionCache.filterStyle("background-color:url(https://evil.example/x.png)"));
+		assertEquals("", ProductDescriptionCache.filterStyle("width:expression(alert(1))"));
+		assertEquals("", ProductDescriptionCache.filterStyle("color:\\75 rl(x)"));
+		assertEquals("font-weight:bold", ProductDescriptionCache.filterStyle("background:url(x);font-weight:bold"));
+	}
+}
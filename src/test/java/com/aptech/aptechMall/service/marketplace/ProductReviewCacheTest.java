@@ -0,0 +1,103 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.InternalServerException;
+import com.aptech.aptechMall.Exception.UpstreamErrorCodeException;
+import com.aptech.aptechMall.dto.ProductDetailDTO;
+import com.aptech.aptechMall.dto.ReviewPageDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.ProductMarketplaceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductReviewCacheTest {
+
+	private static final String PRODUCT_ID = "1005001234567890";
+	private static final String LAST_PAGE = """
+			{"ErrorCode":"Ok","Result":{"TotalCount":2,"Content":[
+			{"ExternalId":"r1","UserNick":"A***a","Rating":"100","Content":"Great"},
+			{"ExternalId":"r2","UserNick":"B***b","Rating":"4","Content":"Good"}]}}
+			""";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ProductMarketplaceService service = mock(ProductMarketplaceService.class);
+	private final MarketplaceWorkScheduler workScheduler = new MarketplaceWorkScheduler(registry, 1, 16, false);
+
+	@AfterEach
+	void tearDown() {
+		workScheduler.shutdown();
+	}
+
+	@Test
+	void parsesAndCachesAPage() {
+		when(service.getProductReviews(PRODUCT_ID, 1)).thenReturn(Mono.just(LAST_PAGE));
+		ProductReviewCache cache = cache(100);
+
+		ReviewPageDTO page = cache.getPage(Marketplace.ALIEXPRESS, PRODUCT_ID, null).block();
+		cache.getPage(Marketplace.ALIEXPRESS, PRODUCT_ID, null).block();
+
+		assertEquals(List.of(5, 4), page.getReviews().stream().map(ProductDetailDTO.ReviewDTO::getRating).toList());
+		assertFalse(page.getHasMore());
+		verify(service, times(1)).getProductReviews(PRODUCT_ID, 1);
+		assertEquals(1.0, registry.get("marketplace.reviews.pages").tag("result", "load").counter().count());
+		assertEquals(1.0, registry.get("marketplace.reviews.pages").tag("result", "hit").counter().count());
+	}
+
+	@Test
+	void failedCallIsNotCached() {
+		when(service.getProductReviews(PRODUCT_ID, 1))
+				.thenReturn(Mono.just("{\"ErrorCode\":\"InternalError\",\"ErrorDescription\":\"Try later\"}"));
+		ProductReviewCache cache = cache(100);
+
+		UpstreamErrorCodeException error = assertThrows(UpstreamErrorCodeException.class,
+				() -> cache.getPage(Marketplace.ALIEXPRESS, PRODUCT_ID, null).block());
+		assertEquals("InternalError", error.getErrorCode());
+
+		when(service.getProductReviews(PRODUCT_ID, 1)).thenReturn(Mono.just(LAST_PAGE));
+		assertEquals(2, cache.getPage(Marketplace.ALIEXPRESS, PRODUCT_ID, null).block().getReviews().size());
+		verify(service, times(2)).getProductReviews(PRODUCT_ID, 1);
+	}
+
+	@Test
+	void payloadOfUnknownShapeIsNotCached() {
+		when(service.getProductReviews(PRODUCT_ID, 1)).thenReturn(Mono.just("{\"ErrorCode\":\"Ok\",\"Result\":{\"Foo\":1}}"));
+		ProductReviewCache cache = cache(100);
+
+		assertThrows(InternalServerException.class, () -> cache.getPage(Marketplace.ALIEXPRESS, PRODUCT_ID, null).block());
+		assertThrows(InternalServerException.class, () -> cache.getPage(Marketplace.ALIEXPRESS, PRODUCT_ID, null).block());
+		verify(service, times(2)).getProductReviews(PRODUCT_ID, 1);
+	}
+
+	@Test
+	void neverHoldsMoreThanMaxPages() {
+		when(service.getProductReviews(anyString(), anyInt())).thenReturn(Mono.just(LAST_PAGE));
+		ProductReviewCache cache = cache(20);
+
+		for (int product = 0; product < 50; product++) {
+			cache.getPage(Marketplace.ALIEXPRESS, "p" + product, null).block();
+			assertTrue(cache.pageCount() <= 20, "cache holds " + cache.pageCount() + " pages");
+		}
+	}
+
+	private ProductReviewCache cache(int maxPages) {
+		when(service.getMarketplace()).thenReturn(Marketplace.ALIEXPRESS);
+		return new ProductReviewCache(new MarketplaceServiceRegistry(List.of(service)), workScheduler, new ObjectMapper(),
+				registry, Duration.ofMinutes(30), Duration.ofHours(6), maxPages, 5);
+	}
+}
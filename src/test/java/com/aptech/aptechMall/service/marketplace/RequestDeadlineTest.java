@@ -0,0 +1,60 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import org.junit.jupiter.api.Test;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestDeadlineTest {
+
+	@Test
+	void absentWithoutDeadline() {
+		assertTrue(RequestDeadline.from(Context.empty()).isEmpty());
+	}
+
+	@Test
+	void stricterOuterDeadlineIsKept() {
+		Context outer = RequestDeadline.within(Duration.ofSeconds(1)).apply(Context.empty());
+
+		Context inner = RequestDeadline.within(Duration.ofSeconds(30)).apply(outer);
+
+		assertTrue(RequestDeadline.from(inner).orElseThrow().remaining().compareTo(Duration.ofSeconds(1)) <= 0);
+	}
+
+	@Test
+	void stricterInnerDeadlineReplacesOuter() {
+		Context outer = RequestDeadline.within(Duration.ofSeconds(30)).apply(Context.empty());
+
+		Context inner = RequestDeadline.within(Duration.ofSeconds(1)).apply(outer);
+
+		assertTrue(RequestDeadline.from(inner).orElseThrow().remaining().compareTo(Duration.ofSeconds(1)) <= 0);
+	}
+
+	@Test
+	void remainingNeverGoesNegative() {
+		RequestDeadline deadline = RequestDeadline.from(
+				RequestDeadline.within(Duration.ofMillis(-5)).apply(Context.empty())).orElseThrow();
+
+		assertEquals(Duration.ZERO, deadline.remaining());
+		assertTrue(deadline.isExpired());
+	}
+
+	@Test
+	void futureDeadlineIsNotExpired() {
+		RequestDeadline deadline = RequestDeadline.from(
+				RequestDeadline.within(Duration.ofMinutes(1)).apply(Context.empty())).orElseThrow();
+
+		assertFalse(deadline.isExpired());
+	}
+
+	@Test
+	void detachedContextHasNoDeadline() {
+		Context withDeadline = RequestDeadline.within(Duration.ofSeconds(1)).apply(Context.empty());
+
+		assertTrue(RequestDeadline.from(RequestDeadline.detached().apply(withDeadline)).isEmpty());
+	}
+}
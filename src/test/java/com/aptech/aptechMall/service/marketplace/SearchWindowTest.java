@@ -0,0 +1,100 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.dto.ProductSearchDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SearchWindowTest {
+
+	private final SearchWindow window = new SearchWindow(List.of(
+			product("a", "12.50", 40, 4, null),
+			product("b", null, 900, 5, 30),
+			product("c", "1,200.00", null, 3, 10),
+			product("d", "3.99", 15, null, 50)));
+
+	@Test
+	void sortsByPriceWithUnknownPricesLast() {
+		assertEquals(List.of("d", "a", "c", "b"), ids(window.page("kw", 1, 10, SearchSort.PRICE_ASC, SearchFilter.NONE)));
+		assertEquals(List.of("c", "a", "d", "b"), ids(window.page("kw", 1, 10, SearchSort.PRICE_DESC, SearchFilter.NONE)));
+	}
+
+	@Test
+	void sortsBySalesWithUnknownSalesLast() {
+		assertEquals(List.of("b", "a", "d", "c"), ids(window.page("kw", 1, 10, SearchSort.SALES, SearchFilter.NONE)));
+	}
+
+	@Test
+	void filtersSkipProductsWithUnknownValues() {
+		SearchFilter cheap = new SearchFilter(null, 20.0, null, null, null);
+		assertEquals(List.of("d", "a"), ids(window.page("kw", 1, 10, SearchSort.PRICE_ASC, cheap)));
+
+		SearchFilter discounted = new SearchFilter(null, null, null, null, 20);
+		assertEquals(List.of("b", "d"), ids(window.page("kw", 1, 10, SearchSort.DEFAULT, discounted)));
+	}
+
+	@Test
+	void pagesThroughMatches() {
+		ProductSearchDTO second = window.page("kw", 2, 3, SearchSort.PRICE_ASC, SearchFilter.NONE);
+
+		assertEquals(List.of("b"), ids(second));
+		assertEquals(2, second.getMeta().getCurrentPage());
+		assertEquals(3, second.getMeta().getPageSize());
+	}
+
+	@Test
+	void totalResultsCountsOnlyWhatTheWindowCanServe() {
+		assertEquals(4, window.page("kw", 1, 2, SearchSort.SALES, SearchFilter.NONE).getMeta().getTotalResults());
+		assertEquals(2, window.page("kw", 1, 10, SearchSort.PRICE_ASC,
+				new SearchFilter(5.0, null, null, null, null)).getMeta().getTotalResults());
+	}
+
+	@Test
+	void cacheSharesOneLoadPerKeyword() {
+		SearchWindowCache cache = new SearchWindowCache(new SimpleMeterRegistry(), 4, 2, 2, Duration.ofMinutes(10), 10);
+		AtomicInteger fetches = new AtomicInteger();
+		List<ProductSearchDTO.ProductSummaryDTO> upstream = List.of(
+				product("a", "1", 1, 1, 1), product("b", "2", 2, 2, 2), product("c", "3", 3, 3, 3),
+				product("d", "4", 4, 4, 4), product("e", "5", 5, 5, 5));
+
+		SearchWindow first = cache.get(null, "Phone ", "en", (position, size) -> {
+			fetches.incrementAndGet();
+			return Mono.just(frame(upstream.subList(position, Math.min(position + size, upstream.size())), 5000));
+		}).block();
+		SearchWindow second = cache.get(null, "phone", "en", (position, size) -> Mono.error(new IllegalStateException())).block();
+
+		assertSame(first, second);
+		assertEquals(2, fetches.get());
+		assertEquals(4, first.size());
+		assertEquals(4, first.page("phone", 1, 10, SearchSort.SALES, SearchFilter.NONE).getMeta().getTotalResults());
+	}
+
+	private static ProductSearchDTO.ProductSummaryDTO product(String id, String price, Integer sales, Integer rating, Integer discount) {
+		return ProductSearchDTO.ProductSummaryDTO.builder()
+				.itemId(id)
+				.currentPrice(price)
+				.salesCount(sales)
+				.rating(rating)
+				.promotionPercent(discount)
+				.build();
+	}
+
+	private static ProductSearchDTO frame(List<ProductSearchDTO.ProductSummaryDTO> products, int total) {
+		return ProductSearchDTO.builder()
+				.meta(ProductSearchDTO.SearchMeta.builder().totalResults(total).build())
+				.products(new ArrayList<>(products))
+				.build();
+	}
+
+	private static List<String> ids(ProductSearchDTO page) {
+		return page.getProducts().stream().map(ProductSearchDTO.ProductSummaryDTO::getItemId).toList();
+	}
+}
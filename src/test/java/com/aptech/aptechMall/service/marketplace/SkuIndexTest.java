@@ -0,0 +1,95 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SkuIndexTest {
+
+	private final SkuIndex index = SkuIndex.builder()
+			// Configured items may arrive before the attributes they reference
+			.sku("sku-red-xl", pairs("14", "29", "5", "100014064"), 12.5, 3)
+			.attribute("14", "29", "Color", "Red", "https://img.example/red.jpg")
+			.attribute("14", "193", "Color", "Blue", null)
+			.attribute("5", "100014064", "Size", "XL", null)
+			.attribute("5", "361386", "Size", "M", null)
+			.attribute("200000639", "201336100", "Material", "Cotton", null)
+			.sku("sku-blue-m", pairs("14", "193", "5", "361386"), 11.0, 0)
+			.sku("sku-red-m", pairs("5", "361386", "14", "29"), 11.0, 7)
+			.sku("sku-red-m-again", pairs("14", "29", "5", "361386"), 99.0, 1)
+			.build();
+
+	@Test
+	void resolvesSelectionInAnyOrderAndSeparator() {
+		assertEquals("sku-red-xl", index.resolve("14:29;5:100014064").orElseThrow().skuId());
+		assertEquals("sku-red-xl", index.resolve("5:100014064,14:29").orElseThrow().skuId());
+		assertEquals("sku-blue-m", index.resolve(" 5 : 361386 ; 14 : 193 ").orElseThrow().skuId());
+	}
+
+	@Test
+	void malformedOrUnknownSelectionResolvesToNothing() {
+		assertTrue(index.resolve("14:29").isEmpty());
+		assertTrue(index.resolve("14:29;5:999").isEmpty());
+		assertTrue(index.resolve("14:29;5").isEmpty());
+		assertTrue(index.resolve("14:;5:361386").isEmpty());
+		assertTrue(index.resolve(":29").isEmpty());
+	}
+
+	@Test
+	void emptySelectionResolvesOnlyASingleSku() {
+		assertTrue(index.resolve(null).isEmpty());
+		assertTrue(index.resolve(" ").isEmpty());
+
+		SkuIndex single = SkuIndex.builder().sku("only", List.of(), 5.0, 1).build();
+		SkuIndex.Sku sku = single.resolve("").orElseThrow();
+		assertEquals("only", sku.skuId());
+		assertEquals("Default", sku.name());
+	}
+
+	@Test
+	void repeatedSelectionKeepsTheFirstItem() {
+		assertEquals(3, index.size());
+		assertEquals("sku-red-m", index.resolve("14:29;5:361386").orElseThrow().skuId());
+		assertEquals(List.of("sku-red-xl", "sku-blue-m", "sku-red-m"),
+				index.skus().stream().map(SkuIndex.Sku::skuId).toList());
+	}
+
+	@Test
+	void namesSkusFromTheirOptions() {
+		SkuIndex.Sku redXl = index.resolve("14:29;5:100014064").orElseThrow();
+		assertEquals("14:29;5:100014064", redXl.key());
+		assertEquals("Color: Red, Size: XL", redXl.name());
+		assertEquals("https://img.example/red.jpg", redXl.imageUrl());
+
+		assertNull(index.resolve("14:193;5:361386").orElseThrow().imageUrl());
+	}
+
+	@Test
+	void unknownConfiguratorFallsBackToItsIds() {
+		SkuIndex unnamed = SkuIndex.builder().sku("sku", pairs("7", "42"), 1.0, 1).build();
+
+		assertEquals("7: 42", unnamed.resolve("7:42").orElseThrow().name());
+	}
+
+	@Test
+	void groupsSelectableOptionsByProperty() {
+		assertEquals(List.of("14", "5"), List.copyOf(index.optionsByProperty().keySet()));
+		assertEquals(List.of("Red", "Blue"),
+				index.optionsByProperty().get("14").stream().map(SkuIndex.Option::value).toList());
+		assertEquals(List.of("XL", "M"),
+				index.optionsByProperty().get("5").stream().map(SkuIndex.Option::value).toList());
+	}
+
+	private static List<String[]> pairs(String... pidVid) {
+		List<String[]> pairs = new ArrayList<>();
+		for (int i = 0; i < pidVid.length; i += 2) {
+			pairs.add(new String[]{pidVid[i], pidVid[i + 1]});
+		}
+		return pairs;
+	}
+}
@@ -0,0 +1,83 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.Exception.UpstreamCapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UpstreamPayloadBudgetTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void leaseGrowsWithTheBodyAndIsReturnedAfterTheCall() {
+		UpstreamPayloadBudget budget = budget(1024, 4, 1024);
+
+		Long heldWhileParsing = budget.withinBudget(lease -> lease.readBody(body("{\"ErrorCode\"", ":\"Ok\"}"))
+						.map(json -> budget.getInFlightBytes()))
+				.block();
+
+		assertEquals(18L, heldWhileParsing);
+		assertEquals(0L, budget.getInFlightBytes());
+	}
+
+	@Test
+	void callWaitsForRoomThenIsRejected() {
+		UpstreamPayloadBudget budget = budget(8, 8, 1024);
+		Sinks.Empty<Void> firstDone = Sinks.empty();
+		Disposable first = budget.withinBudget(lease -> firstDone.asMono()).subscribe();
+
+		assertThrows(UpstreamCapacityExceededException.class,
+				() -> budget.withinBudget(lease -> Mono.just("second")).block());
+		assertEquals(1.0, registry.get("marketplace.payload.rejections").tag("reason", "admission").counter().count());
+
+		firstDone.tryEmitEmpty();
+		assertEquals(0L, budget.getInFlightBytes());
+		assertEquals("third", budget.withinBudget(lease -> Mono.just("third")).block());
+		first.dispose();
+	}
+
+	@Test
+	void bodyOutgrowingTheBudgetFailsAndReturnsTheLease() {
+		UpstreamPayloadBudget budget = budget(16, 4, 1024);
+
+		assertThrows(UpstreamCapacityExceededException.class,
+				() -> budget.withinBudget(lease -> lease.readBody(body("0123456789", "0123456789"))).block());
+
+		assertEquals(1.0, registry.get("marketplace.payload.rejections").tag("reason", "overflow").counter().count());
+		assertEquals(0L, budget.getInFlightBytes());
+	}
+
+	@Test
+	void bodyOverTheResponseLimitFails() {
+		UpstreamPayloadBudget budget = budget(1024, 4, 8);
+
+		assertThrows(DataBufferLimitException.class,
+				() -> budget.withinBudget(lease -> lease.readBody(body("0123456789"))).block());
+		assertEquals(0L, budget.getInFlightBytes());
+	}
+
+	private UpstreamPayloadBudget budget(long maxBytes, long admissionBytes, long maxResponseBytes) {
+		return new UpstreamPayloadBudget(registry, DataSize.ofBytes(maxBytes), DataSize.ofBytes(admissionBytes),
+				DataSize.ofBytes(maxResponseBytes), Duration.ofMillis(50));
+	}
+
+	private static Flux<DataBuffer> body(String... chunks) {
+		return Flux.fromIterable(Arrays.asList(chunks))
+				.map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,56 @@
+package com.aptech.aptechMall.service.marketplace;
+
+import com.aptech.aptechMall.dto.ProductDetailDTO;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VendorCacheTest {
+
+	private final VendorCache cache = new VendorCache(new SimpleMeterRegistry(),
+			Duration.ofHours(6), Duration.ofHours(24), 3, 2);
+
+	@Test
+	void evictsTheVendorUnusedForLongestAtCapacity() {
+		record("v1", "i1");
+		record("v2", "i2");
+		record("v3", "i3");
+		// Viewing v1 keeps it; v2 is now the least recently used
+		assertNotNull(cache.getVendor(Marketplace.ALIEXPRESS, "v1"));
+
+		record("v4", "i4");
+
+		assertNotNull(cache.getVendor(Marketplace.ALIEXPRESS, "v1"));
+		assertNull(cache.getVendor(Marketplace.ALIEXPRESS, "v2"));
+		assertTrue(cache.storefront(Marketplace.ALIEXPRESS, "v2", 1, 10).isEmpty());
+		assertNotNull(cache.getVendor(Marketplace.ALIEXPRESS, "v3"));
+		assertNotNull(cache.getVendor(Marketplace.ALIEXPRESS, "v4"));
+	}
+
+	@Test
+	void keepsTheMostRecentlySeenItemsPerVendor() {
+		record("v1", "i1", "i2");
+		record("v1", "i3", "i1");
+
+		assertEquals(List.of("i1", "i3"), cache.related(Marketplace.ALIEXPRESS, "v1", null, 10).stream()
+				.map(ProductDetailDTO.RelatedProductDTO::getItemId).toList());
+		assertEquals(List.of("i3"), cache.related(Marketplace.ALIEXPRESS, "v1", "i1", 10).stream()
+				.map(ProductDetailDTO.RelatedProductDTO::getItemId).toList());
+	}
+
+	private void record(String vendorId, String... itemIds) {
+		cache.record(Marketplace.ALIEXPRESS, ProductDetailDTO.VendorDTO.builder().vendorId(vendorId).build(),
+				Arrays.stream(itemIds)
+						.map(id -> ProductDetailDTO.RelatedProductDTO.builder().itemId(id).build())
+						.toList());
+	}
+}
@@ -0,0 +1,65 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CoalescingInterceptorTest {
+
+	private static final OtApiEndpoint ENDPOINT =
+			new OtApiEndpoint(Marketplace.ALIEXPRESS, "AliExpress", "https://otapi.test", "key", "otapi.test");
+	private static final OtApiCall<String> CALL = OtApiCall.get("detail", "/BatchGetItemFullInfo", String.class)
+			.param("itemId", "abb-1005001234567890")
+			.build();
+
+	private final CoalescingInterceptor interceptor = new CoalescingInterceptor(new SimpleMeterRegistry());
+
+	@Test
+	void eachCallerWaitsUpToItsOwnDeadline() {
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		boolean[] sawDeadline = new boolean[1];
+		Sinks.One<String> upstream = Sinks.one();
+		OtApiInterceptor.Chain<String> chain = () -> Mono.deferContextual(context -> {
+			upstreamCalls.incrementAndGet();
+			sawDeadline[0] = RequestDeadline.from(context).isPresent();
+			return upstream.asMono();
+		});
+
+		Mono<String> hurried = interceptor.intercept(ENDPOINT, CALL, chain)
+				.contextWrite(RequestDeadline.within(Duration.ofMillis(50)));
+		Mono<String> patient = interceptor.intercept(ENDPOINT, CALL, chain)
+				.contextWrite(RequestDeadline.within(Duration.ofSeconds(5)));
+
+		var patientResult = patient.toFuture();
+		RuntimeException error = assertThrows(RuntimeException.class, hurried::block);
+		assertInstanceOf(TimeoutException.class, error.getCause());
+
+		// The first caller's deadline neither ends the shared call nor bounds the joined caller
+		upstream.tryEmitValue("{\"ErrorCode\":\"Ok\"}");
+		assertEquals("{\"ErrorCode\":\"Ok\"}", patientResult.join());
+		assertEquals(1, upstreamCalls.get());
+		assertFalse(sawDeadline[0]);
+	}
+
+	@Test
+	void finishedCallIsNotShared() {
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		OtApiInterceptor.Chain<String> chain = () -> Mono.fromCallable(() -> "call " + upstreamCalls.incrementAndGet());
+
+		assertEquals("call 1", interceptor.intercept(ENDPOINT, CALL, chain).block());
+		assertEquals("call 2", interceptor.intercept(ENDPOINT, CALL, chain).block());
+		assertEquals(2, upstreamCalls.get());
+	}
+}
@@ -0,0 +1,144 @@
+package com.aptech.aptechMall.service.otapi;
+
+import com.aptech.aptechMall.Exception.ProductNotFoundException;
+import com.aptech.aptechMall.Exception.UpstreamErrorCodeException;
+import com.aptech.aptechMall.entity.enums.Marketplace;
+import com.aptech.aptechMall.model.Aliexpress.AliexpressProductDetailResponse;
+import com.aptech.aptechMall.model.Aliexpress.AliexpressProductSearchResponse;
+import com.aptech.aptechMall.service.marketplace.AdaptiveTimeouts;
+import com.aptech.aptechMall.service.marketplace.MarketplaceWorkScheduler;
+import com.aptech.aptechMall.service.marketplace.RequestDeadline;
+import com.aptech.aptechMall.service.marketplace.UpstreamPayloadBudget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Buffered calls through the real interceptor pipeline against a local HTTP server standing in for OtAPI
+ */
+class OtApiClientTest {
+
+	private static final String PRODUCT_ID = "abb-1005001234567890";
+	private static final String ITEM = "{\"ErrorCode\":\"Ok\",\"Result\":{\"Item\":{\"Id\":\"" + PRODUCT_ID + "\"}}}";
+
+	// Replies served in order, one per request: status code and body
+	private final Queue<Object[]> replies = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger requests = new AtomicInteger();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	// Daemon workers, shared by the whole class
+	private static final MarketplaceWorkScheduler WORK_SCHEDULER =
+			new MarketplaceWorkScheduler(new SimpleMeterRegistry(), 1, 4, false);
+
+	private HttpServer server;
+	private OtApiClient<AliexpressProductDetailResponse, AliexpressProductSearchResponse> client;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			requests.incrementAndGet();
+			Object[] reply = replies.poll();
+			byte[] body = ((String) reply[1]).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders((int) reply[0], body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+
+		AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts(registry, 0.99, 3.0,
+				Duration.ofMillis(100), Duration.ofSeconds(2), 16, 16);
+		OtApiMetrics metrics = new OtApiMetrics(registry);
+		List<OtApiInterceptor> interceptors = List.of(
+				new RetryInterceptor(registry, 1, Duration.ofMillis(200)),
+				new AdaptiveTimeoutInterceptor(adaptiveTimeouts));
+		client = new OtApiClient<>(
+				new OtApiEndpoint(Marketplace.ALIEXPRESS, "AliExpress",
+						"http://127.0.0.1:" + server.getAddress().getPort(), "key", "otapi.test"),
+				new OtApiModel<>(AliexpressProductDetailResponse.class, AliexpressProductSearchResponse.class,
+						response -> response.getResult() != null && response.getResult().getItem() != null,
+						(productId, response) -> {
+						}),
+				new ObjectMapper(), WORK_SCHEDULER,
+				new UpstreamPayloadBudget(registry, DataSize.ofMegabytes(16), DataSize.ofKilobytes(64),
+						DataSize.ofMegabytes(10), Duration.ofMillis(250)),
+				adaptiveTimeouts, new OtApiRateLimiter(registry, 0, 1, Duration.ofSeconds(2)), metrics, interceptors);
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void okPayloadIsDecoded() {
+		replies.add(new Object[]{200, ITEM});
+
+		AliexpressProductDetailResponse response = client.getItemFullInfo(PRODUCT_ID).block();
+
+		assertEquals(PRODUCT_ID, response.getResult().getItem().getId());
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	void errorCodeFailsTheCallWithoutRetry() {
+		replies.add(new Object[]{200, "{\"ErrorCode\":\"InternalError\"}"});
+
+		UpstreamErrorCodeException error = assertThrows(UpstreamErrorCodeException.class,
+				() -> client.getItemFullInfo(PRODUCT_ID).block());
+
+		assertEquals(1, requests.get(), error.getMessage());
+		assertEquals(1.0, registry.get("marketplace.otapi.error.codes").tag("code", "InternalError").counter().count());
+	}
+
+	@Test
+	void okPayloadWithoutItemIsProductNotFound() {
+		replies.add(new Object[]{200, "{\"ErrorCode\":\"Ok\",\"Result\":{}}"});
+
+		assertThrows(ProductNotFoundException.class, () -> client.getItemFullInfo(PRODUCT_ID).block());
+		assertEquals(1, requests.get());
+	}
+
+	@Test
+	void transientFailureIsRetriedWithinTheDeadline() {
+		replies.add(new Object[]{503, "{}"});
+		replies.add(new Object[]{200, ITEM});
+
+		AliexpressProductDetailResponse response = client.getItemFullInfo(PRODUCT_ID)
+				.contextWrite(RequestDeadline.within(Duration.ofSeconds(5)))
+				.block();
+
+		assertEquals(PRODUCT_ID, response.getResult().getItem().getId());
+		assertEquals(2, requests.get());
+	}
+
+	@Test
+	void noRetryStartsOnceTheDeadlineIsShorterThanTheBackoff() {
+		replies.add(new Object[]{503, "{}"});
+		replies.add(new Object[]{200, ITEM});
+
+		assertThrows(WebClientResponseException.ServiceUnavailable.class, () -> client.getItemFullInfo(PRODUCT_ID)
+				.contextWrite(RequestDeadline.within(Duration.ofMillis(150)))
+				.block());
+		assertEquals(1, requests.get());
+	}
+}
@@ -0,0 +1,69 @@
+package com.aptech.aptechMall.service.otapi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OtApiMetricsTest {
+
+	private static final String PATH = "/BatchGetItemFullInfo";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final OtApiMetrics metrics = new OtApiMetrics(registry);
+
+	@Test
+	void exchangeIsCountedByStatusWithItsBodySize() {
+		String body = "{\"ErrorCode\":\"Ok\"}";
+
+		client(request -> Mono.just(ClientResponse.create(HttpStatus.OK).body(body).build()))
+				.get().uri(PATH).retrieve().bodyToMono(String.class).block();
+
+		assertEquals(1, registry.get("marketplace.otapi.http.requests")
+				.tag("marketplace", "AliExpress").tag("endpoint", PATH).tag("status", "200").timer().count());
+		assertEquals(body.length(), registry.get("marketplace.otapi.response.size")
+				.tag("endpoint", PATH).summary().totalAmount());
+	}
+
+	@Test
+	void failedExchangeIsCountedAsIoError() {
+		WebClient client = client(request -> Mono.error(new IOException("connection reset")));
+
+		assertThrows(RuntimeException.class, () -> client.get().uri(PATH).retrieve().bodyToMono(String.class).block());
+
+		assertEquals(1, registry.get("marketplace.otapi.http.requests").tag("status", "IO_ERROR").timer().count());
+	}
+
+	@Test
+	void errorCodesAreCountedWithMissingOnesAsNone() {
+		metrics.recordErrorCode("AliExpress", PATH, "Ok");
+		metrics.recordErrorCode("AliExpress", PATH, "Ok");
+		metrics.recordErrorCode("AliExpress", PATH, "NotFound");
+		metrics.recordErrorCode("AliExpress", PATH, null);
+
+		assertEquals(2.0, errorCodes("Ok"));
+		assertEquals(1.0, errorCodes("NotFound"));
+		assertEquals(1.0, errorCodes("none"));
+	}
+
+	private double errorCodes(String code) {
+		return registry.get("marketplace.otapi.error.codes")
+				.tag("marketplace", "AliExpress").tag("endpoint", PATH).tag("code", code).counter().count();
+	}
+
+	private WebClient client(ExchangeFunction exchange) {
+		return WebClient.builder()
+				.baseUrl("https://otapi.test")
+				.exchangeFunction(exchange)
+				.filter(metrics.exchangeFilter("AliExpress"))
+				.build();
+	}
+}
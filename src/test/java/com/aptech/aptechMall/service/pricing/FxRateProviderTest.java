@@ -0,0 +1,81 @@
+package com.aptech.aptechMall.service.pricing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FxRateProviderTest {
+
+	@TempDir
+	Path dir;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void freshFileIsNotStale() throws Exception {
+		FxRateProvider provider = provider(Instant.now().minus(Duration.ofHours(1)));
+
+		assertFalse(provider.isStale());
+		assertEquals(0.0, registry.get("pricing.fx.stale").gauge().value());
+		assertTrue(provider.current().indexOf("VND") >= 0);
+	}
+
+	@Test
+	void unmaintainedFileIsReportedStale() throws Exception {
+		FxRateProvider provider = provider(Instant.now().minus(Duration.ofDays(3)));
+
+		assertTrue(provider.isStale());
+		assertEquals(1.0, registry.get("pricing.fx.stale").gauge().value());
+	}
+
+	@Test
+	void failedReloadKeepsThePreviousTable() throws Exception {
+		FxRateProvider provider = provider(Instant.now());
+		Files.writeString(dir.resolve("fx-rates.json"), "{not json");
+
+		provider.reload();
+
+		assertTrue(provider.current().indexOf("VND") >= 0);
+	}
+
+	@Test
+	void fileWithoutAsOfIsDatedByItsModificationTime() throws Exception {
+		Path file = dir.resolve("fx-rates.json");
+		Files.writeString(file, """
+				{"base": "USD", "rates": {"USD": 1, "VND": 26320}}
+				""");
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(3))));
+		FxRateProvider provider = new FxRateProvider(new ObjectMapper(), new DefaultResourceLoader(), registry,
+				file.toUri().toString(), Duration.ofHours(36));
+
+		provider.reload();
+		assertTrue(provider.isStale());
+
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+		provider.reload();
+		assertFalse(provider.isStale());
+	}
+
+	private FxRateProvider provider(Instant asOf) throws Exception {
+		Path file = dir.resolve("fx-rates.json");
+		Files.writeString(file, """
+				{"base": "USD", "asOf": "%s", "rates": {"USD": 1, "VND": 26320}}
+				""".formatted(asOf));
+		FxRateProvider provider = new FxRateProvider(new ObjectMapper(), new DefaultResourceLoader(), registry,
+				file.toUri().toString(), Duration.ofHours(36));
+		provider.reload();
+		return provider;
+	}
+}
@@ -0,0 +1,84 @@
+package com.aptech.aptechMall.service.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FxRatesTest {
+
+	private final FxRates rates = FxRates.of(Map.of(
+			"USD", BigDecimal.ONE,
+			"CNY", new BigDecimal("7.12"),
+			"VND", new BigDecimal("26320"),
+			"JPY", new BigDecimal("148.6"),
+			"XXZ", new BigDecimal("3")), Instant.EPOCH);
+
+	private final int usd = rates.indexOf("USD");
+	private final int cny = rates.indexOf("CNY");
+	private final int vnd = rates.indexOf("VND");
+	private final int jpy = rates.indexOf("JPY");
+
+	@Test
+	void knowsMinorUnitDigits() {
+		assertEquals(2, rates.fractionDigits(usd));
+		assertEquals(2, rates.fractionDigits(cny));
+		assertEquals(0, rates.fractionDigits(vnd));
+		assertEquals(0, rates.fractionDigits(jpy));
+	}
+
+	@Test
+	void skipsUnknownCurrencies() {
+		assertEquals(-1, rates.indexOf("XXZ"));
+		assertEquals(-1, rates.indexOf(null));
+		assertEquals(FxRates.UNKNOWN, rates.convert(100, usd, -1));
+		assertEquals(FxRates.UNKNOWN, rates.convert(100, -1, vnd));
+	}
+
+	@Test
+	void convertsBetweenMinorUnits() {
+		// $19.99 -> 526,136.8 dong
+		assertEquals(526_137, rates.convert(1999, usd, vnd));
+		// $10.00 -> 1,486 yen
+		assertEquals(1486, rates.convert(1000, usd, jpy));
+		// 1 yuan -> 20.87 yen
+		assertEquals(21, rates.convert(100, cny, jpy));
+		// 26,320 dong -> $1.00
+		assertEquals(100, rates.convert(26_320, vnd, usd));
+		assertEquals(1999, rates.convert(1999, usd, usd));
+	}
+
+	@Test
+	void roundsHalfUpAwayFromZero() {
+		FxRates half = FxRates.of(Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.5")), Instant.EPOCH);
+		int from = half.indexOf("USD");
+		int to = half.indexOf("EUR");
+
+		assertEquals(1, half.convert(1, from, to));
+		assertEquals(2, half.convert(3, from, to));
+		assertEquals(-2, half.convert(-3, from, to));
+		assertEquals(0, half.convert(0, from, to));
+	}
+
+	@Test
+	void overflowingProductsFallBackToExactArithmetic() {
+		long amount = Long.MAX_VALUE / 1000;
+		long expected = BigDecimal.valueOf(amount).multiply(new BigDecimal("263.2"))
+				.setScale(0, RoundingMode.HALF_UP).longValueExact();
+
+		assertEquals(expected, rates.convert(amount, usd, vnd));
+		assertEquals(-expected, rates.convert(-amount, usd, vnd));
+	}
+
+	@Test
+	void convertsMajorAmounts() {
+		assertEquals(1999, rates.toMinor(19.99, usd));
+		assertEquals(20, rates.toMinor(19.99, vnd));
+		assertEquals(new BigDecimal("19.99"), rates.toMajor(1999, usd));
+		assertEquals(new BigDecimal("526137"), rates.toMajor(526_137, vnd));
+	}
+}
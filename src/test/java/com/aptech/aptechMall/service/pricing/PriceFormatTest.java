@@ -0,0 +1,52 @@
+package com.aptech.aptechMall.service.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceFormatTest {
+
+	@Test
+	void formatsDongWithoutMinorDigits() {
+		PriceFormat vnd = PriceFormat.of(Currency.getInstance("VND"), new Locale("vi", "VN"), 0);
+
+		assertEquals("526.137 ₫", vnd.format(526_137));
+		assertEquals("0 ₫", vnd.format(0));
+	}
+
+	@Test
+	void formatsYenWithoutMinorDigits() {
+		PriceFormat jpy = PriceFormat.of(Currency.getInstance("JPY"), new Locale("ja", "JP"), 0);
+
+		assertEquals("￥1,486", jpy.format(1486));
+		assertEquals("￥1,234,567", jpy.format(1_234_567));
+	}
+
+	@Test
+	void formatsYuanWithTwoMinorDigits() {
+		PriceFormat cny = PriceFormat.of(Currency.getInstance("CNY"), new Locale("zh", "CN"), 2);
+
+		assertEquals("¥20.87", cny.format(2087));
+		assertEquals("¥0.05", cny.format(5));
+		assertEquals("¥1,000.00", cny.format(100_000));
+	}
+
+	@Test
+	void formatsNegativeAndLargeAmounts() {
+		PriceFormat usd = PriceFormat.of(Currency.getInstance("USD"), Locale.US, 2);
+
+		assertEquals("-$12.50", usd.format(-1250));
+		assertEquals("$92,233,720,368,547,758.07", usd.format(Long.MAX_VALUE));
+	}
+
+	@Test
+	void plainHasNoSymbolOrGrouping() {
+		assertEquals("1234.50", PriceFormat.plain(1234.5));
+		assertEquals("0.07", PriceFormat.plain(0.07));
+		assertEquals("N/A", PriceFormat.plain(null));
+		assertEquals("N/A", PriceFormat.plain(Double.NaN));
+	}
+}